@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aliyun.oss.crypto.CipherInputStream;
+import com.aliyun.oss.crypto.CryptoScheme;
+
+/**
+ * Encrypts 1MB through CipherInputStream with AES-CTR, as client side encryption does on
+ * upload, with a fixed key and IV.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CipherInputStreamBenchmark {
+
+    @Param({"512", "8192"})
+    public int bufferSize;
+
+    private byte[] data;
+    private byte[] buf;
+    private SecretKey key;
+    private byte[] iv;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        data = new byte[1024 * 1024];
+        random.nextBytes(data);
+        byte[] keyBytes = new byte[32];
+        random.nextBytes(keyBytes);
+        key = new SecretKeySpec(keyBytes, "AES");
+        iv = new byte[16];
+        random.nextBytes(iv);
+        buf = new byte[bufferSize];
+    }
+
+    @Benchmark
+    public long encrypt() throws Exception {
+        InputStream in = new CipherInputStream(new ByteArrayInputStream(data),
+                CryptoScheme.AES_CTR.createCryptoCipher(key, iv, Cipher.ENCRYPT_MODE, null), bufferSize);
+        long total = 0;
+        int len;
+        while ((len = in.read(buf)) != -1) {
+            total += len;
+        }
+        in.close();
+        return total;
+    }
+}
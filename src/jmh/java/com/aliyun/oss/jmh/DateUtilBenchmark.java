@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.jmh;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aliyun.oss.common.utils.DateUtil;
+
+/**
+ * Formats and parses the RFC 822 and ISO 8601 dates found in every request and listing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateUtilBenchmark {
+
+    private final Date date = new Date(1704096000000L);
+    private final String rfc822 = "Mon, 01 Jan 2024 08:00:00 GMT";
+    private final String iso8601 = "2024-01-01T08:00:00.000Z";
+
+    @Benchmark
+    public String formatRfc822Date() {
+        return DateUtil.formatRfc822Date(date);
+    }
+
+    @Benchmark
+    public Date parseRfc822Date() throws Exception {
+        return DateUtil.parseRfc822Date(rfc822);
+    }
+
+    @Benchmark
+    public String formatIso8601Date() {
+        return DateUtil.formatIso8601Date(date);
+    }
+
+    @Benchmark
+    public Date parseIso8601Date() throws Exception {
+        return DateUtil.parseIso8601Date(iso8601);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.jmh;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aliyun.oss.ClientBuilderConfiguration;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSClientBuilder;
+import com.aliyun.oss.model.ObjectMetadata;
+
+/**
+ * Measures the fixed cost of a request: a HEAD object call against a loopback server
+ * answering right away, with and without the CRC check. Run with {@code -prof gc} for the
+ * bytes allocated per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OperationOverheadBenchmark {
+
+    private static final byte[] RESPONSE = ("HTTP/1.1 200 OK\r\nContent-Length: 0\r\nETag: \"etag\"\r\n"
+            + "x-oss-request-id: bench\r\n\r\n").getBytes();
+
+    @Param({"true", "false"})
+    private boolean crc;
+
+    private ServerSocket server;
+    private ExecutorService serverExecutor;
+    private OSS client;
+    private int count;
+
+    @Setup
+    public void setup() throws IOException {
+        server = new ServerSocket(0, 128, InetAddress.getByName("127.0.0.1"));
+        serverExecutor = Executors.newCachedThreadPool();
+        serverExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                while (!server.isClosed()) {
+                    try {
+                        final Socket socket = server.accept();
+                        serverExecutor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                serve(socket);
+                            }
+                        });
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            }
+        });
+
+        ClientBuilderConfiguration conf = new ClientBuilderConfiguration();
+        conf.setSLDEnabled(true);
+        conf.setCrcCheckEnabled(crc);
+        conf.setMaxErrorRetry(0);
+        client = new OSSClientBuilder().build("http://127.0.0.1:" + server.getLocalPort(), "ak", "sk", conf);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.shutdown();
+        server.close();
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public ObjectMetadata headObject() {
+        return client.getObjectMetadata("bench-bucket", "prefix/object-" + (count++ & 1023));
+    }
+
+    /**
+     * Answers every request on a keep-alive connection with the same empty
+     * 200 response, the requests having no body.
+     */
+    private static void serve(Socket socket) {
+        try {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            int matched = 0;
+            int b;
+            while ((b = in.read()) != -1) {
+                // the end of the headers
+                matched = (b == '\r' && matched % 2 == 0) || (b == '\n' && matched % 2 == 1) ? matched + 1 : 0;
+                if (matched == 4) {
+                    out.write(RESPONSE);
+                    out.flush();
+                    matched = 0;
+                }
+            }
+        } catch (IOException e) {
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.jmh;
+
+import static com.aliyun.oss.internal.OSSUtils.ensureBucketNameValid;
+import static com.aliyun.oss.internal.OSSUtils.ensureObjectKeyValid;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aliyun.oss.ClientConfiguration;
+import com.aliyun.oss.HttpMethod;
+import com.aliyun.oss.common.comm.DefaultServiceClient;
+import com.aliyun.oss.common.comm.RequestMessage;
+import com.aliyun.oss.common.comm.ServiceClient;
+import com.aliyun.oss.internal.OSSRequestMessageBuilder;
+import com.aliyun.oss.model.GetObjectRequest;
+
+/**
+ * Validates and builds small object GET requests over 16 buckets from 4 threads sharing
+ * one service client, without sending them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Thread)
+public class RequestBuildBenchmark {
+
+    private static final int BUCKETS = 16;
+
+    @State(Scope.Benchmark)
+    public static class Client {
+        private ServiceClient client;
+        private URI endpoint;
+
+        @Setup
+        public void setup() throws Exception {
+            client = new DefaultServiceClient(new ClientConfiguration());
+            endpoint = new URI("https://oss-cn-hangzhou.aliyuncs.com");
+        }
+
+        @TearDown
+        public void tearDown() {
+            client.shutdown();
+        }
+    }
+
+    private long count;
+
+    @Benchmark
+    public RequestMessage getObject(Client client) {
+        count++;
+        String bucketName = "bench-bucket-" + (count % BUCKETS);
+        String key = "prefix/2024/01/01/object-" + count + ".json";
+        ensureBucketNameValid(bucketName);
+        ensureObjectKeyValid(key);
+        return new OSSRequestMessageBuilder(client.client).setEndpoint(client.endpoint)
+                .setMethod(HttpMethod.GET).setBucket(bucketName).setKey(key)
+                .setOriginalRequest(new GetObjectRequest(bucketName, key)).build();
+    }
+}
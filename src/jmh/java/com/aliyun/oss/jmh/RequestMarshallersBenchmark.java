@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aliyun.oss.common.comm.io.FixedLengthInputStream;
+import com.aliyun.oss.common.parser.RequestMarshallers;
+import com.aliyun.oss.common.parser.XmlWriter;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.DeleteObjectsRequest;
+import com.aliyun.oss.model.LifecycleRule;
+import com.aliyun.oss.model.LifecycleRule.RuleStatus;
+import com.aliyun.oss.model.PartETag;
+import com.aliyun.oss.model.SetBucketLifecycleRequest;
+
+/**
+ * Marshals the largest request bodies the SDK builds: CompleteMultipartUpload with
+ * 10000 parts, DeleteObjects with 1000 keys and a lifecycle configuration with 100 rules.
+ * Run with {@code -prof gc} for the bytes allocated per body.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestMarshallersBenchmark {
+
+    private CompleteMultipartUploadRequest completeMultipartUpload;
+    private DeleteObjectsRequest deleteObjects;
+    private SetBucketLifecycleRequest setBucketLifecycle;
+
+    @Setup
+    public void setup() {
+        List<PartETag> parts = new ArrayList<PartETag>(10000);
+        for (int i = 1; i <= 10000; i++) {
+            parts.add(new PartETag(i, "0123456789ABCDEF0123456789ABCDEF"));
+        }
+        completeMultipartUpload = new CompleteMultipartUploadRequest("bench-bucket", "key", "upload-id", parts);
+
+        List<String> keys = new ArrayList<String>(1000);
+        for (int i = 0; i < 1000; i++) {
+            keys.add("logs/2024/01/01/part-" + i + ".log");
+        }
+        deleteObjects = new DeleteObjectsRequest("bench-bucket").withKeys(keys);
+
+        List<LifecycleRule> rules = new ArrayList<LifecycleRule>(100);
+        for (int i = 0; i < 100; i++) {
+            rules.add(new LifecycleRule("rule-" + i, "logs/" + i + "/", RuleStatus.Enabled, 30 + i));
+        }
+        setBucketLifecycle = new SetBucketLifecycleRequest("bench-bucket");
+        setBucketLifecycle.setLifecycleRules(rules);
+    }
+
+    @Benchmark
+    public long completeMultipartUpload() {
+        FixedLengthInputStream body = RequestMarshallers.completeMultipartUploadRequestMarshaller
+                .marshall(completeMultipartUpload);
+        return body.getLength();
+    }
+
+    @Benchmark
+    public XmlWriter deleteObjects() {
+        return RequestMarshallers.deleteObjectsRequestMarshaller.marshall(deleteObjects);
+    }
+
+    @Benchmark
+    public long setBucketLifecycle() {
+        return RequestMarshallers.setBucketLifecycleRequestMarshaller.marshall(setBucketLifecycle).getLength();
+    }
+}
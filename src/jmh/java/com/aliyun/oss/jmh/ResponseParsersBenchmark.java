@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aliyun.oss.internal.ResponseParsers;
+import com.aliyun.oss.model.ObjectListing;
+import com.aliyun.oss.model.VersionListing;
+
+/**
+ * Parses synthetic ListObjects and ListObjectVersions response bodies with the given number of entries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseParsersBenchmark {
+
+    @Param({"100", "1000"})
+    public int entries;
+
+    private byte[] listObjectsBody;
+    private byte[] listVersionsBody;
+
+    @Setup
+    public void setup() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<ListBucketResult>");
+        sb.append("<Name>bench-bucket</Name><Prefix>logs/</Prefix><Marker></Marker>");
+        sb.append("<MaxKeys>").append(entries).append("</MaxKeys><Delimiter></Delimiter>");
+        sb.append("<IsTruncated>true</IsTruncated><NextMarker>").append(key(entries - 1)).append("</NextMarker>");
+        for (int i = 0; i < entries; i++) {
+            sb.append("<Contents><Key>").append(key(i)).append("</Key>");
+            sb.append("<LastModified>2024-01-01T08:00:00.000Z</LastModified>");
+            sb.append("<ETag>\"5B3C1A2E053D763E1B002CC607C5A0FE\"</ETag><Type>Normal</Type>");
+            sb.append("<Size>").append(1024 + i).append("</Size><StorageClass>Standard</StorageClass>");
+            sb.append("<Owner><ID>1234567890</ID><DisplayName>1234567890</DisplayName></Owner></Contents>");
+        }
+        sb.append("</ListBucketResult>");
+        listObjectsBody = sb.toString().getBytes("UTF-8");
+
+        sb.setLength(0);
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<ListVersionsResult>");
+        sb.append("<Name>bench-bucket</Name><Prefix>logs/</Prefix><KeyMarker></KeyMarker>");
+        sb.append("<VersionIdMarker></VersionIdMarker><MaxKeys>").append(entries).append("</MaxKeys>");
+        sb.append("<Delimiter></Delimiter><IsTruncated>true</IsTruncated>");
+        sb.append("<NextKeyMarker>").append(key(entries - 1)).append("</NextKeyMarker>");
+        sb.append("<NextVersionIdMarker>CAEQMxiBgICbof2D0BYiIGRhZjgwMzJiMjA3MjQ0ODE5MWYxZDYwMzJlZjU1****</NextVersionIdMarker>");
+        for (int i = 0; i < entries; i++) {
+            String element = i % 10 == 9 ? "DeleteMarker" : "Version";
+            sb.append('<').append(element).append("><Key>").append(key(i)).append("</Key>");
+            sb.append("<VersionId>CAEQMxiBgMDNoP2D0BYiIDE3MWUxNzgxZDQxNTRiODI5OGYwZGMwNGY3MzZjN").append(i);
+            sb.append("</VersionId><IsLatest>").append(i % 2 == 0).append("</IsLatest>");
+            sb.append("<LastModified>2024-01-01T08:00:00.000Z</LastModified>");
+            if (element.equals("Version")) {
+                sb.append("<ETag>\"5B3C1A2E053D763E1B002CC607C5A0FE\"</ETag><Type>Normal</Type>");
+                sb.append("<Size>").append(1024 + i).append("</Size><StorageClass>Standard</StorageClass>");
+            }
+            sb.append("<Owner><ID>1234567890</ID><DisplayName>1234567890</DisplayName></Owner>");
+            sb.append("</").append(element).append('>');
+        }
+        sb.append("</ListVersionsResult>");
+        listVersionsBody = sb.toString().getBytes("UTF-8");
+    }
+
+    private static String key(int i) {
+        return "logs/2024/01/01/host-" + (i % 16) + "/part-" + i + ".log";
+    }
+
+    @Benchmark
+    public ObjectListing parseListObjects() throws Exception {
+        return ResponseParsers.parseListObjects(new ByteArrayInputStream(listObjectsBody));
+    }
+
+    @Benchmark
+    public VersionListing parseListVersions() throws Exception {
+        return ResponseParsers.parseListVersions(new ByteArrayInputStream(listVersionsBody));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aliyun.oss.model.SelectInputStream;
+import com.aliyun.oss.model.SelectRecordListener;
+import com.aliyun.oss.utils.SelectFrameUtils;
+
+/**
+ * Decodes a 4MB select response of csv lines, framed with the given frame size, through
+ * read(byte[]) and through the record callback.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SelectInputStreamBenchmark {
+
+    @Param({"4096", "262144"})
+    public int frameSize;
+
+    private byte[] frames;
+    private byte[] buf;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder();
+        for (int line = 0; sb.length() < 4 * 1024 * 1024; line++) {
+            sb.append(line).append(",name-").append(line).append(",2024-01-01,12.50\n");
+        }
+        frames = SelectFrameUtils.encode(sb.toString().getBytes(), frameSize);
+        buf = new byte[8192];
+    }
+
+    @Benchmark
+    public long read() throws Exception {
+        SelectInputStream in = new SelectInputStream(new ByteArrayInputStream(frames), null, true);
+        long total = 0;
+        int len;
+        while ((len = in.read(buf)) != -1) {
+            total += len;
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long readRecords() throws Exception {
+        SelectInputStream in = new SelectInputStream(new ByteArrayInputStream(frames), null, true);
+        final long[] bytes = new long[1];
+        long records = in.readRecords(new SelectRecordListener() {
+            @Override
+            public void onRecord(byte[] buf, int off, int len) {
+                bytes[0] += len;
+            }
+        });
+        return records + bytes[0];
+    }
+}
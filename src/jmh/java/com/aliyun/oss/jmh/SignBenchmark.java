@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.jmh;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aliyun.oss.common.comm.RequestMessage;
+import com.aliyun.oss.internal.SignUtils;
+import com.aliyun.oss.internal.SignV2Utils;
+import com.aliyun.oss.model.GenericRequest;
+
+/**
+ * Computes V1 (HMAC-SHA1) and V2 (HMAC-SHA256) signatures of a PUT request with user
+ * metadata and sub-resource parameters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignBenchmark {
+
+    private static final String SECRET = "bench-access-key-secret-0123456789";
+    private static final String RESOURCE_PATH = "/bench-bucket/logs/2024/01/01/part-00001.log";
+
+    private RequestMessage request;
+
+    @Setup
+    public void setup() {
+        GenericRequest originalRequest = new GenericRequest("bench-bucket", "logs/2024/01/01/part-00001.log");
+        originalRequest.addHeader("Host", "bench-bucket.oss-cn-hangzhou.aliyuncs.com");
+        originalRequest.addHeader("x-oss-meta-owner", "bench");
+        Set<String> additionalHeaderNames = new HashSet<String>();
+        additionalHeaderNames.add("Host");
+        originalRequest.setAdditionalHeaderNames(additionalHeaderNames);
+
+        request = new RequestMessage(originalRequest, "bench-bucket", "logs/2024/01/01/part-00001.log");
+        request.addHeader("Date", "Mon, 01 Jan 2024 08:00:00 GMT");
+        request.addHeader("Content-Type", "application/octet-stream");
+        request.addHeader("Content-MD5", "WzwaLgU9dj4bACzGB8Wg/g==");
+        request.addHeader("Host", "bench-bucket.oss-cn-hangzhou.aliyuncs.com");
+        request.addHeader("x-oss-meta-owner", "bench");
+        request.addHeader("x-oss-storage-class", "Standard");
+        request.addHeader("x-oss-security-token", "CAIS8gF1q6Ft5B2yfSjIr5bSEsn3rpZNgY6oNXQ");
+        request.addParameter("partNumber", "1");
+        request.addParameter("uploadId", "0004B9895DBBB6EC98E36");
+    }
+
+    @Benchmark
+    public String signV1() {
+        return SignUtils.buildSignature(SECRET, "PUT", RESOURCE_PATH, request);
+    }
+
+    @Benchmark
+    public String signV2() {
+        return SignV2Utils.buildSignature(SECRET, "PUT", RESOURCE_PATH, request);
+    }
+}
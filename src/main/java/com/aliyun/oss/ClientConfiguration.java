@@ -19,6 +19,7 @@
 
 package com.aliyun.oss;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -33,11 +34,14 @@ import javax.net.ssl.KeyManager;
 import javax.net.ssl.X509TrustManager;
 import java.security.SecureRandom;
 
+import org.apache.http.conn.DnsResolver;
+
 import com.aliyun.oss.common.auth.RequestSigner;
 import com.aliyun.oss.common.comm.IdleConnectionReaper;
 import com.aliyun.oss.common.comm.Protocol;
 import com.aliyun.oss.common.comm.RetryStrategy;
 import com.aliyun.oss.common.comm.SignVersion;
+import com.aliyun.oss.common.metrics.ConnectionPoolMetricsListener;
 import com.aliyun.oss.common.utils.ResourceManager;
 import com.aliyun.oss.common.utils.VersionInfoUtils;
 import com.aliyun.oss.internal.OSSConstants;
@@ -61,6 +65,13 @@ public class ClientConfiguration {
     public static final int DEFAULT_THREAD_POOL_WAIT_TIME = 60 * 1000;
     public static final int DEFAULT_REQUEST_TIMEOUT = 5 * 60 * 1000;
     public static final long DEFAULT_SLOW_REQUESTS_THRESHOLD = 5 * 60 * 1000;
+    public static final long DEFAULT_CONNECTION_POOL_METRICS_INTERVAL = 60 * 1000;
+    public static final int DEFAULT_INITIAL_CONCURRENCY_LIMIT = 32;
+    public static final long DEFAULT_CONCURRENCY_LIMIT_TIMEOUT = 60 * 1000;
+    public static final int DEFAULT_TLS_SESSION_CACHE_SIZE = 1024;
+    public static final long DEFAULT_TLS_SESSION_TIMEOUT = 24 * 60 * 60 * 1000;
+    public static final long DEFAULT_METADATA_CACHE_TIME_TO_LIVE = 60 * 1000;
+    public static final long DEFAULT_OBJECT_CACHE_MAX_SIZE = 1024L * 1024 * 1024;
 
     public static final boolean DEFAULT_USE_REAPER = true;
 
@@ -89,6 +100,7 @@ public class ClientConfiguration {
 
     protected boolean supportCname = true;
     protected List<String> cnameExcludeList = new ArrayList<String>();
+    private final List<String> cnameExcludeListView = Collections.unmodifiableList(cnameExcludeList);
     protected Lock rlock = new ReentrantLock();
 
     protected boolean sldEnabled = false;
@@ -121,6 +133,27 @@ public class ClientConfiguration {
 
     protected boolean useSystemPropertyValues = false;
 
+    protected ConnectionPoolMetricsListener connectionPoolMetricsListener = null;
+    protected long connectionPoolMetricsInterval = DEFAULT_CONNECTION_POOL_METRICS_INTERVAL;
+
+    protected boolean requestMetricsEnabled = false;
+
+    protected int metadataCacheMaxEntries = 0;
+    protected long metadataCacheTimeToLive = DEFAULT_METADATA_CACHE_TIME_TO_LIVE;
+
+    protected File objectCacheDirectory = null;
+    protected long objectCacheMaxSize = DEFAULT_OBJECT_CACHE_MAX_SIZE;
+    protected long objectCacheTimeToLive = 0;
+
+    protected DnsResolver dnsResolver = null;
+
+    protected int tlsSessionCacheSize = DEFAULT_TLS_SESSION_CACHE_SIZE;
+    protected long tlsSessionTimeout = DEFAULT_TLS_SESSION_TIMEOUT;
+
+    protected boolean adaptiveConcurrencyEnabled = false;
+    protected int initialConcurrencyLimit = DEFAULT_INITIAL_CONCURRENCY_LIMIT;
+    protected long concurrencyLimitTimeout = DEFAULT_CONCURRENCY_LIMIT_TIMEOUT;
+
     public ClientConfiguration() {
         super();
         AppendDefaultExcludeList(this.cnameExcludeList);
@@ -447,7 +480,7 @@ public class ClientConfiguration {
      * @return The excluded CName list, immutable.
      */
     public List<String> getCnameExcludeList() {
-        return Collections.unmodifiableList(this.cnameExcludeList);
+        return cnameExcludeListView;
     }
 
     /**
@@ -899,4 +932,316 @@ public class ClientConfiguration {
         return useSystemPropertyValues;
     }
 
+    /**
+     * Gets the listener which receives the connection pool statistics periodically.
+     *
+     * @return The {@link ConnectionPoolMetricsListener}, null if it's not set.
+     */
+    public ConnectionPoolMetricsListener getConnectionPoolMetricsListener() {
+        return connectionPoolMetricsListener;
+    }
+
+    /**
+     * Sets the listener which receives the connection pool statistics (connections
+     * per route, lease wait time, connect and TLS handshake time, reuse ratio)
+     * every connection pool metrics interval. By default it's not set.
+     *
+     * @param connectionPoolMetricsListener
+     *            The {@link ConnectionPoolMetricsListener} instance.
+     */
+    public void setConnectionPoolMetricsListener(ConnectionPoolMetricsListener connectionPoolMetricsListener) {
+        this.connectionPoolMetricsListener = connectionPoolMetricsListener;
+    }
+
+    /**
+     * Gets the interval in milliseconds of reporting connection pool statistics.
+     *
+     * @return The interval in milliseconds.
+     */
+    public long getConnectionPoolMetricsInterval() {
+        return connectionPoolMetricsInterval;
+    }
+
+    /**
+     * Sets the interval in milliseconds of reporting connection pool statistics.
+     * By default it's 60 seconds.
+     *
+     * @param connectionPoolMetricsInterval
+     *            The interval in milliseconds.
+     */
+    public void setConnectionPoolMetricsInterval(long connectionPoolMetricsInterval) {
+        this.connectionPoolMetricsInterval = connectionPoolMetricsInterval;
+    }
+
+    /**
+     * Gets the flag of recording the latency breakdown of requests.
+     *
+     * @return True if the request metrics are recorded.
+     */
+    public boolean isRequestMetricsEnabled() {
+        return requestMetricsEnabled;
+    }
+
+    /**
+     * Sets the flag of recording the latency breakdown (sign, connection lease,
+     * time to first byte, body transfer and parse time, retries and bytes) of
+     * every request, tagged by operation and bucket. By default it's disabled.
+     *
+     * @param requestMetricsEnabled
+     *            True to record the request metrics.
+     */
+    public void setRequestMetricsEnabled(boolean requestMetricsEnabled) {
+        this.requestMetricsEnabled = requestMetricsEnabled;
+    }
+
+    /**
+     * Gets the maximum number of object metadata cached by the client.
+     *
+     * @return The maximum number of cached metadata, 0 if the cache is disabled.
+     */
+    public int getMetadataCacheMaxEntries() {
+        return metadataCacheMaxEntries;
+    }
+
+    /**
+     * Sets the maximum number of object metadata cached by the client. When
+     * it's positive, the metadata returned by getObjectMetadata, headObject
+     * without constraints and doesObjectExist are cached per bucket, key and
+     * version id, and the client's own writes drop the entries of the keys
+     * they touch. Writes by other clients are seen after the time to live at
+     * most. It's read when the client is created. By default it's 0, the
+     * cache is disabled.
+     *
+     * @param metadataCacheMaxEntries
+     *            The maximum number of cached metadata.
+     */
+    public void setMetadataCacheMaxEntries(int metadataCacheMaxEntries) {
+        this.metadataCacheMaxEntries = metadataCacheMaxEntries;
+    }
+
+    /**
+     * Gets the time in milliseconds a cached object metadata is returned
+     * without a request.
+     *
+     * @return The time to live of the cached metadata in milliseconds.
+     */
+    public long getMetadataCacheTimeToLive() {
+        return metadataCacheTimeToLive;
+    }
+
+    /**
+     * Sets the time in milliseconds a cached object metadata is returned
+     * without a request. After that, the metadata is revalidated by a HEAD
+     * request with If-None-Match, which renews it if the object is not
+     * modified. By default it's 60 seconds.
+     *
+     * @param metadataCacheTimeToLive
+     *            The time to live of the cached metadata in milliseconds.
+     */
+    public void setMetadataCacheTimeToLive(long metadataCacheTimeToLive) {
+        this.metadataCacheTimeToLive = metadataCacheTimeToLive;
+    }
+
+    /**
+     * Gets the directory of the object content cache.
+     *
+     * @return The directory of the cached objects, null if the cache is
+     *         disabled.
+     */
+    public File getObjectCacheDirectory() {
+        return objectCacheDirectory;
+    }
+
+    /**
+     * Sets the directory of the object content cache. When it's not null,
+     * getObject reads of whole objects, without range, constraints, process
+     * or response headers, are cached in files of the directory and served
+     * from memory-mapped files, and the client's own writes drop the entries
+     * of the keys they touch. The files are named by the CRC64 and the ETag
+     * of the content, so they are reused by the next clients using the
+     * directory. It's read when the client is created. By default it's null,
+     * the cache is disabled.
+     *
+     * @param objectCacheDirectory
+     *            The directory of the cached objects.
+     */
+    public void setObjectCacheDirectory(File objectCacheDirectory) {
+        this.objectCacheDirectory = objectCacheDirectory;
+    }
+
+    /**
+     * Gets the maximum total size in bytes of the object content cache.
+     *
+     * @return The maximum size of the cached objects in bytes.
+     */
+    public long getObjectCacheMaxSize() {
+        return objectCacheMaxSize;
+    }
+
+    /**
+     * Sets the maximum total size in bytes of the object content cache. The
+     * least recently read objects are deleted when it's exceeded, and larger
+     * objects are not cached. By default it's 1 GB.
+     *
+     * @param objectCacheMaxSize
+     *            The maximum size of the cached objects in bytes.
+     */
+    public void setObjectCacheMaxSize(long objectCacheMaxSize) {
+        this.objectCacheMaxSize = objectCacheMaxSize;
+    }
+
+    /**
+     * Gets the time in milliseconds a cached object is served without a
+     * request.
+     *
+     * @return The time to live of the cached objects in milliseconds.
+     */
+    public long getObjectCacheTimeToLive() {
+        return objectCacheTimeToLive;
+    }
+
+    /**
+     * Sets the time in milliseconds a cached object is served without a
+     * request. After that, the object is revalidated by a GET request with
+     * If-None-Match and If-Modified-Since, which serves the cached file if
+     * the object is not modified. By default it's 0, every read is
+     * revalidated.
+     *
+     * @param objectCacheTimeToLive
+     *            The time to live of the cached objects in milliseconds.
+     */
+    public void setObjectCacheTimeToLive(long objectCacheTimeToLive) {
+        this.objectCacheTimeToLive = objectCacheTimeToLive;
+    }
+
+    /**
+     * Gets the flag of limiting the in-flight requests per endpoint adaptively.
+     *
+     * @return True if the adaptive concurrency limiter is enabled.
+     */
+    public boolean isAdaptiveConcurrencyEnabled() {
+        return adaptiveConcurrencyEnabled;
+    }
+
+    /**
+     * Sets the flag of limiting the in-flight requests per endpoint adaptively.
+     * The limit grows while responses are fast, and is cut on throttling
+     * responses (503, 429) and timeouts, up to the max connections. Requests
+     * over the limit wait for a free slot. By default it's disabled.
+     *
+     * @param adaptiveConcurrencyEnabled
+     *            True to enable the adaptive concurrency limiter.
+     */
+    public void setAdaptiveConcurrencyEnabled(boolean adaptiveConcurrencyEnabled) {
+        this.adaptiveConcurrencyEnabled = adaptiveConcurrencyEnabled;
+    }
+
+    /**
+     * Gets the initial in-flight request limit per endpoint.
+     *
+     * @return The initial concurrency limit.
+     */
+    public int getInitialConcurrencyLimit() {
+        return initialConcurrencyLimit;
+    }
+
+    /**
+     * Sets the initial in-flight request limit per endpoint. By default it's 32.
+     *
+     * @param initialConcurrencyLimit
+     *            The initial concurrency limit.
+     */
+    public void setInitialConcurrencyLimit(int initialConcurrencyLimit) {
+        this.initialConcurrencyLimit = initialConcurrencyLimit;
+    }
+
+    /**
+     * Gets the time in milliseconds a request waits for a free slot of the
+     * concurrency limiter.
+     *
+     * @return The timeout in milliseconds.
+     */
+    public long getConcurrencyLimitTimeout() {
+        return concurrencyLimitTimeout;
+    }
+
+    /**
+     * Sets the time in milliseconds a request waits for a free slot of the
+     * concurrency limiter before failing with
+     * {@link ClientErrorCode#CONCURRENCY_LIMIT_EXCEEDED}. 0 fails immediately
+     * and a negative value waits indefinitely. By default it's 60 seconds.
+     *
+     * @param concurrencyLimitTimeout
+     *            The timeout in milliseconds.
+     */
+    public void setConcurrencyLimitTimeout(long concurrencyLimitTimeout) {
+        this.concurrencyLimitTimeout = concurrencyLimitTimeout;
+    }
+
+    /**
+     * Gets the resolver of the OSS host names.
+     *
+     * @return The {@link DnsResolver}, null if the system resolver is used.
+     */
+    public DnsResolver getDnsResolver() {
+        return dnsResolver;
+    }
+
+    /**
+     * Sets the resolver of the OSS host names. By default the system resolver
+     * is used, which tends to put most connections on the first address of a
+     * host. A {@link com.aliyun.oss.common.comm.RoundRobinDnsResolver} spreads
+     * the connections across all the addresses, and moves the addresses which
+     * fail to connect repeatedly to the back.
+     *
+     * @param dnsResolver
+     *            The {@link DnsResolver} instance.
+     */
+    public void setDnsResolver(DnsResolver dnsResolver) {
+        this.dnsResolver = dnsResolver;
+    }
+
+    /**
+     * Gets the number of TLS sessions the client keeps for resumption.
+     *
+     * @return The TLS session cache size.
+     */
+    public int getTlsSessionCacheSize() {
+        return tlsSessionCacheSize;
+    }
+
+    /**
+     * Sets the number of TLS sessions the client keeps, so new connections to
+     * a host resume a session with an abbreviated handshake instead of a full
+     * one. 0 means no limit and a negative value keeps the JSSE default. By
+     * default it's 1024.
+     *
+     * @param tlsSessionCacheSize
+     *            The TLS session cache size.
+     */
+    public void setTlsSessionCacheSize(int tlsSessionCacheSize) {
+        this.tlsSessionCacheSize = tlsSessionCacheSize;
+    }
+
+    /**
+     * Gets the time in milliseconds a cached TLS session can be resumed.
+     *
+     * @return The TLS session timeout in milliseconds.
+     */
+    public long getTlsSessionTimeout() {
+        return tlsSessionTimeout;
+    }
+
+    /**
+     * Sets the time in milliseconds a cached TLS session can be resumed, in
+     * whole seconds. 0 means no limit and a negative value keeps the JSSE
+     * default. By default it's 24 hours.
+     *
+     * @param tlsSessionTimeout
+     *            The TLS session timeout in milliseconds.
+     */
+    public void setTlsSessionTimeout(long tlsSessionTimeout) {
+        this.tlsSessionTimeout = tlsSessionTimeout;
+    }
+
 }
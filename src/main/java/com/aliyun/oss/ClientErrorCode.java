@@ -66,4 +66,9 @@ public interface ClientErrorCode {
      * Ssl exception
      */
     static final String SSL_EXCEPTION = "SslException";
+
+    /**
+     * No request slot of the adaptive concurrency limiter became free in time.
+     */
+    static final String CONCURRENCY_LIMIT_EXCEEDED = "ConcurrencyLimitExceeded";
 }
@@ -29,6 +29,10 @@ import java.util.Map;
 import com.aliyun.oss.common.auth.Credentials;
 import com.aliyun.oss.common.comm.ResponseMessage;
 import com.aliyun.oss.common.comm.SignVersion;
+import com.aliyun.oss.common.metrics.ConnectionPoolStatistics;
+import com.aliyun.oss.common.metrics.MetadataCacheStatistics;
+import com.aliyun.oss.common.metrics.ObjectCacheStatistics;
+import com.aliyun.oss.common.metrics.RequestMetrics;
 import com.aliyun.oss.model.*;
 import com.aliyun.oss.model.SetBucketCORSRequest.CORSRule;
 import com.aliyun.oss.model.InventoryConfiguration;
@@ -73,6 +77,61 @@ public interface OSS {
      */
     public String getConnectionPoolStats();
 
+    /**
+     * Get the structured statistics of the connection pool, including the
+     * connections per route, the lease wait time, the connect and TLS
+     * handshake time and the connection reuse ratio.
+     *
+     * @return A {@link ConnectionPoolStatistics} instance, null if the
+     *         connection pool is not instrumented.
+     */
+    public ConnectionPoolStatistics getConnectionPoolStatistics();
+
+    /**
+     * Get the latency breakdown of the requests sent by this client, tagged by
+     * operation and bucket. Requests are recorded only when
+     * {@link ClientConfiguration#setRequestMetricsEnabled(boolean)} is set.
+     *
+     * @return A {@link RequestMetrics} instance.
+     */
+    public RequestMetrics getRequestMetrics();
+
+    /**
+     * Get the hits, misses, revalidations and evictions of the object metadata
+     * cache, which is enabled by
+     * {@link ClientConfiguration#setMetadataCacheMaxEntries(int)}.
+     *
+     * @return A {@link MetadataCacheStatistics} instance, null if the cache is
+     *         disabled.
+     */
+    public MetadataCacheStatistics getMetadataCacheStatistics();
+
+    /**
+     * Get the hits, misses, revalidations, evictions and bytes of the object
+     * content cache, which is enabled by
+     * {@link ClientConfiguration#setObjectCacheDirectory(java.io.File)}.
+     *
+     * @return A {@link ObjectCacheStatistics} instance, null if the cache is
+     *         disabled.
+     */
+    public ObjectCacheStatistics getObjectCacheStatistics();
+
+    /**
+     * Opens connections to the endpoint of a bucket in parallel and keeps them
+     * in the connection pool, so the first requests after startup do not pay
+     * for the TCP and TLS handshakes. Connections already in the pool count
+     * towards the number. Prewarming is skipped when a proxy is configured.
+     *
+     * @param bucketName
+     *            Bucket name, null to prewarm the client's endpoint.
+     * @param connections
+     *            The number of connections, at most the max connections.
+     * @return The number of connections ready in the pool.
+     * @throws ClientException
+     *             If no connection could be opened.
+     */
+    public int prewarm(String bucketName, int connections) throws ClientException;
+
     /**
      * Creates {@link Bucket} instance. The bucket name specified must be
      * globally unique and follow the naming rules from
@@ -158,6 +217,21 @@ public interface OSS {
      */
     public BucketList listBuckets(ListBucketsRequest listBucketsRequest) throws OSSException, ClientException;
 
+    /**
+     * Iterates over all {@link Bucket} instances of the current account that
+     * meet the conditions specified, listing them page by page as the
+     * iteration goes. The next page is requested while the current one is
+     * iterated, so at most two pages are held.
+     *
+     * @param listBucketsRequest
+     *            the ListBucketsRequest instance that defines the criteria
+     *            which could have requirements on prefix, marker, maxKeys.
+     *            Its marker is updated as the iteration goes.
+     * @return An Iterable of the {@link Bucket} instances, each of its
+     *         iterators lists the buckets again from the initial marker.
+     */
+    public Iterable<Bucket> iterateBuckets(ListBucketsRequest listBucketsRequest) throws OSSException, ClientException;
+
     /**
      * Applies the Access Control List(ACL) on the {@link Bucket}.
      * 
@@ -603,6 +677,26 @@ public interface OSS {
      */
     public ObjectListing listObjects(ListObjectsRequest listObjectsRequest) throws OSSException, ClientException;
 
+    /**
+     * Iterates over all objects under the specified {@link Bucket} which meet
+     * the criteria of the {@link ListObjectsRequest}, listing them page by page
+     * as the iteration goes. The next page is requested while the current one
+     * is iterated, so at most two pages are held. The common prefixes are not
+     * returned.
+     *
+     * @param listObjectsRequest
+     *            The {@link ListObjectsRequest} instance that defines the
+     *            bucket name as well as the criteria such as prefix, marker,
+     *            maxKeys, delimiter, etc. Its marker is updated as the
+     *            iteration goes.
+     * @return An Iterable of the {@link OSSObjectSummary} instances, each of
+     *         its iterators lists the objects again from the initial marker.
+     * @throws OSSException
+     * @throws ClientException
+     */
+    public Iterable<OSSObjectSummary> iterateObjects(ListObjectsRequest listObjectsRequest)
+            throws OSSException, ClientException;
+
     /**
      * Lists all objects under the specified {@link Bucket} in the parameter of
      * {@link ListObjectsRequest}
@@ -620,6 +714,27 @@ public interface OSS {
      */
     public ListObjectsV2Result listObjectsV2(ListObjectsV2Request listObjectsV2Request) throws OSSException, ClientException;
 
+    /**
+     * Iterates over all objects under the specified {@link Bucket} which meet
+     * the criteria of the {@link ListObjectsV2Request}, listing them page by
+     * page as the iteration goes. The next page is requested while the
+     * current one is iterated, so at most two pages are held. The common
+     * prefixes are not returned.
+     *
+     * @param listObjectsV2Request
+     *            The {@link ListObjectsV2Request} instance that defines the
+     *            bucket name as well as the criteria such as prefix,
+     *            continuation token, maxKeys, delimiter, etc. Its continuation
+     *            token is updated as the iteration goes.
+     * @return An Iterable of the {@link OSSObjectSummary} instances, each of
+     *         its iterators lists the objects again from the initial
+     *         continuation token.
+     * @throws OSSException
+     * @throws ClientException
+     */
+    public Iterable<OSSObjectSummary> iterateObjectsV2(ListObjectsV2Request listObjectsV2Request)
+            throws OSSException, ClientException;
+
     /**
      * Lists all objects under the specified {@link Bucket} in the parameter of
      * {@link ListObjectsRequest}
@@ -944,6 +1059,22 @@ public interface OSS {
      */
     public VersionListing listVersions(ListVersionsRequest listVersionsRequest)
     		throws OSSException, ClientException;
+
+    /**
+     * Iterates over the versions and delete markers of the objects in the
+     * specified bucket, listing them page by page as the iteration goes. The
+     * next page is requested while the current one is iterated, so at most
+     * two pages are held. The common prefixes are not returned.
+     *
+     * @param listVersionsRequest
+     *            A {@link ListVersionsRequest} instance which specifies the
+     *            bucket, the prefix, the markers to start from and the page
+     *            size. Its markers are updated as the iteration goes.
+     * @return An Iterable of the {@link OSSVersionSummary} instances, each of
+     *         its iterators lists the versions again from the initial markers.
+     */
+    public Iterable<OSSVersionSummary> iterateVersions(ListVersionsRequest listVersionsRequest)
+            throws OSSException, ClientException;
     
     /**
      * Uploads the file to the {@link Bucket} from the {@link InputStream}
@@ -1187,6 +1318,26 @@ public interface OSS {
      */
     public OSSObject selectObject(SelectObjectRequest selectObjectRequest) throws OSSException, ClientException;
 
+    /**
+     * Selects the {@link OSSObject} with concurrent requests.
+     *
+     * The select metadata is created (if not exists) to get the number of
+     * splits of the object, then the splits are partitioned into ranges which
+     * are selected in parallel by a thread pool. The records are returned in
+     * object order or in arrival order, and every task only buffers a bounded
+     * number of records until the caller consumes them.
+     *
+     * @param parallelSelectObjectRequest
+     *          A {@link ParallelSelectObjectRequest} instance which specifies the
+     *              select request, thread count, splits per request and order
+     * @return A {@link SelectRecordIterator} instance over the records. The caller
+     *          is responsible to close it if it is not consumed to the end.
+     * @throws OSSException
+     * @throws ClientException
+     */
+    public SelectRecordIterator selectObjectParallel(ParallelSelectObjectRequest parallelSelectObjectRequest)
+            throws OSSException, ClientException;
+
     /**
      * Gets the {@link OSSObject} from the signed Url.
      * 
@@ -1299,6 +1450,50 @@ public interface OSS {
     public AppendObjectResult appendObject(AppendObjectRequest appendObjectRequest)
             throws OSSException, ClientException;
 
+    /**
+     * Opens a buffered writer on the appendable object specified in
+     * {@link AppendableObjectWriterRequest}.
+     *
+     * Written bytes are appended when a buffer is full, after the flush
+     * interval, and on flush and close, so many small writes become few large
+     * appends. The position and CRC64 are carried from one append to the next,
+     * appends run on a background thread while the writes fill the next
+     * buffer, and the position is recovered with a HEAD request after a failed
+     * append.
+     *
+     * @param appendableObjectWriterRequest
+     *            A {@link AppendableObjectWriterRequest} instance which specifies
+     *            the bucket name, appendable object key, start position, buffer
+     *            size and flush interval.
+     * @return An {@link AppendableObjectWriter} instance. The caller is
+     *         responsible to close it.
+     * @throws OSSException
+     * @throws ClientException
+     */
+    public AppendableObjectWriter createAppendableObjectWriter(
+            AppendableObjectWriterRequest appendableObjectWriterRequest) throws OSSException, ClientException;
+
+    /**
+     * Opens a reader on the rows of an inventory report, which downloads the
+     * data files listed in the manifest in parallel as the rows are consumed.
+     *
+     * @param inventoryReaderRequest
+     *            A {@link InventoryReaderRequest} instance that specifies the
+     *            destination bucket, the key of the manifest.json of the
+     *            report and the number of parallel downloads.
+     *
+     * @return A {@link InventoryReader} instance, which must be closed if it's
+     *         not read to the end.
+     *
+     * @throws OSSException
+     *             If any errors are encountered in the server side.
+     * @throws ClientException
+     *             If any errors are encountered in the client while making the
+     *             request or handling the response.
+     */
+    public InventoryReader createInventoryReader(InventoryReaderRequest inventoryReaderRequest)
+            throws OSSException, ClientException;
+
     /**
      * Deletes the specified {@link OSSObject} by bucket name and object key.
      * 
@@ -1433,6 +1628,35 @@ public interface OSS {
      */
     public DeleteVersionsResult deleteVersions(DeleteVersionsRequest deleteVersionsRequest)
             throws OSSException, ClientException;
+
+    /**
+     * Lists the versions of a bucket grouped by key. The pages are listed as
+     * the iteration goes and the next page is prefetched, so at most two
+     * pages and the versions of the current key are held. The delimiter of the request is ignored.
+     *
+     * @param listVersionsRequest
+     *            A {@link ListVersionsRequest} instance which specifies the
+     *            bucket, the prefix, the markers to start from and the page size.
+     * @return An Iterable of the {@link VersionHistory} of each key, each of its
+     *         iterators lists the versions again.
+     */
+    public Iterable<VersionHistory> iterateVersionHistories(ListVersionsRequest listVersionsRequest)
+            throws OSSException, ClientException;
+
+    /**
+     * Deletes the old versions of the objects of a versioned bucket, keeping
+     * the latest versions of each key and, optionally, the versions that
+     * became noncurrent recently. The versions are deleted by concurrent
+     * DeleteVersions requests while the listing goes on.
+     *
+     * @param purgeVersionsRequest
+     *            A {@link PurgeVersionsRequest} instance which specifies the
+     *            bucket, the prefix and which versions to keep.
+     * @return A {@link PurgeVersionsResult} instance with the counters and the
+     *         failed requests.
+     */
+    public PurgeVersionsResult purgeVersions(PurgeVersionsRequest purgeVersionsRequest)
+            throws OSSException, ClientException;
     
     /**
      * Checks if a specific {@link OSSObject} exists under the specific
@@ -2031,6 +2255,21 @@ public interface OSS {
     public MultipartUploadListing listMultipartUploads(ListMultipartUploadsRequest request)
             throws OSSException, ClientException;
 
+    /**
+     * Iterates over the uncompleted multipart uploads, listing them page by
+     * page as the iteration goes. The next page is requested while the
+     * current one is iterated, so at most two pages are held. The common
+     * prefixes are not returned.
+     *
+     * @param request
+     *            A {@link ListMultipartUploadsRequest} instance. Its markers
+     *            are updated as the iteration goes.
+     * @return An Iterable of the {@link MultipartUpload} instances, each of its
+     *         iterators lists the uploads again from the initial markers.
+     */
+    public Iterable<MultipartUpload> iterateMultipartUploads(ListMultipartUploadsRequest request)
+            throws OSSException, ClientException;
+
     /**
      * Lists all parts in a multiple parts upload.
      * 
@@ -2041,6 +2280,19 @@ public interface OSS {
      */
     public PartListing listParts(ListPartsRequest request) throws OSSException, ClientException;
 
+    /**
+     * Iterates over the parts of a multiple parts upload, listing them page
+     * by page as the iteration goes. The next page is requested while the
+     * current one is iterated, so at most two pages are held.
+     *
+     * @param request
+     *            A {@link ListPartsRequest} instance. Its part number marker is
+     *            updated as the iteration goes.
+     * @return An Iterable of the {@link PartSummary} instances, each of its
+     *         iterators lists the parts again from the initial marker.
+     */
+    public Iterable<PartSummary> iterateParts(ListPartsRequest request) throws OSSException, ClientException;
+
     /**
      * Uploads a part to a specified multiple upload.
      * 
@@ -3007,6 +3259,99 @@ public interface OSS {
      */
     public DownloadFileResult downloadFile(DownloadFileRequest downloadFileRequest) throws Throwable;
 
+    /**
+     * Large object copy
+     * 
+     * Copies an object of any size with a multipart upload whose parts are
+     * copied on the server side by concurrent UploadPartCopy requests, so no
+     * data goes through the client. The source and the destination can be
+     * in different buckets of the same region. Unless specified, the part
+     * size is chosen from the object size, and the destination gets the
+     * content type, content headers and user metadata of the source.
+     * Optionally a checkpoint file could be used to track the progress of the
+     * copy and resume it later upon failure, as long as the source object is
+     * unchanged. Without a checkpoint a failed copy aborts its multipart
+     * upload.
+     *
+     * @param copyFileRequest
+     *            A {@link CopyFileRequest} instance that specifies the source
+     *            and the destination objects, part size, thread count (from 1
+     *            to 1000) and checkpoint file.
+     * @return A {@link CopyFileResult} instance which has the destination
+     *         object's key, ETag, location.
+     * @throws Throwable
+     */
+    public CopyFileResult copyFile(CopyFileRequest copyFileRequest) throws Throwable;
+
+    /**
+     * Bulk copy or move
+     * 
+     * Copies every object under the source prefix to the destination prefix,
+     * keeping the rest of each key. The listing is streamed page by page and
+     * the objects are copied concurrently by a thread pool, objects from the
+     * multipart copy threshold up by parallel UploadPartCopy requests. If
+     * the source is to be deleted, copied objects are deleted in batches of
+     * 1000. A failed object doesn't stop the others, it is reported in the
+     * result. Optionally a journal file records the objects done, so running
+     * the same request again only processes the rest.
+     *
+     * @param bulkCopyRequest
+     *            A {@link BulkCopyRequest} instance that specifies the source
+     *            and destination buckets and prefixes, whether to delete the
+     *            source, thread count and journal file.
+     * @return A {@link BulkCopyResult} instance with the object and byte
+     *         counts, elapsed time and failures.
+     * @throws OSSException
+     *             If listing the source fails.
+     * @throws ClientException
+     *             If any errors are encountered in the client while making the
+     *             request or handling the response.
+     */
+    public BulkCopyResult bulkCopy(BulkCopyRequest bulkCopyRequest) throws OSSException, ClientException;
+
+    /**
+     * Synchronizes a local directory to a prefix: files without an object, or
+     * whose object differs, are uploaded to the prefix followed by their path
+     * relative to the directory, and optionally objects without a local file
+     * are deleted. Files are compared with a streamed listing of the prefix;
+     * with a manifest file caching the state of the previous run, unchanged
+     * files need nothing more, otherwise a file of the same size as its
+     * object has its CRC64 compared with the object's. A dry run only reports
+     * what would be uploaded and deleted.
+     *
+     * @param syncDirectoryRequest
+     *            A {@link SyncDirectoryRequest} instance that specifies the
+     *            bucket, prefix, local directory, manifest file and thread
+     *            count.
+     * @return A {@link SyncDirectoryResult} instance with the file and byte
+     *         counts, elapsed time and failures.
+     * @throws OSSException
+     *             If listing the prefix fails.
+     * @throws ClientException
+     *             If any errors are encountered in the client while making the
+     *             request or handling the response.
+     */
+    public SyncDirectoryResult syncDirectory(SyncDirectoryRequest syncDirectoryRequest)
+            throws OSSException, ClientException;
+
+    /**
+     * Uploads many local files, each to its own object. The files are taken
+     * from the request's iterator by a fixed number of threads, no more than
+     * the client's maximum connections, so as many requests are in flight on
+     * pooled connections at all times. Small files are read into a buffer
+     * each thread reuses. A failed file doesn't stop the others, it is
+     * reported in the result.
+     *
+     * @param bulkUploadRequest
+     *            A {@link BulkUploadRequest} instance that specifies the
+     *            bucket, the files and their keys and the thread count.
+     * @return A {@link BulkUploadResult} instance with the object and byte
+     *         counts, elapsed time and failures.
+     * @throws ClientException
+     *             If getting the next file from the iterator fails.
+     */
+    public BulkUploadResult bulkUpload(BulkUploadRequest bulkUploadRequest) throws ClientException;
+
     /**
      * Creates a live streaming channel. OSS could manage the RTMP inbound
      * stream by the "Live Channel". To store the RTMP stream into OSS, this
@@ -3207,6 +3552,26 @@ public interface OSS {
     public LiveChannelListing listLiveChannels(ListLiveChannelsRequest listLiveChannelRequest)
             throws OSSException, ClientException;
 
+    /**
+     * Iterates over the Live Channels of the bucket, listing them page by page
+     * as the iteration goes. The next page is requested while the current one
+     * is iterated, so at most two pages are held.
+     *
+     * @param listLiveChannelRequest
+     *            A {@link ListLiveChannelsRequest} that specifies the bucket
+     *            name and its requirement on Live Channel instances to return,
+     *            such as prefix, marker, max entries to return. Its marker is
+     *            updated as the iteration goes.
+     * @return An Iterable of the {@link LiveChannel} instances, each of its
+     *         iterators lists the channels again from the initial marker.
+     * @throws OSSException
+     *             OSS Server side exception.
+     * @throws ClientException
+     *             OSS Client side exception.
+     */
+    public Iterable<LiveChannel> iterateLiveChannels(ListLiveChannelsRequest listLiveChannelRequest)
+            throws OSSException, ClientException;
+
     /**
      * Gets recent {@link LiveRecord} entries from the specified Live Channel.
      * OSS saves recent 10 LiveRecord (pushing streaming record) for every Live
@@ -4117,6 +4482,40 @@ public interface OSS {
      */
     public VoidResult renameObject(RenameObjectRequest renameObjectRequest) throws OSSException, ClientException;
 
+    /**
+     * Deletes a directory and everything under it. The tree is split into
+     * subdirectories down to the discovery depth of the request, which are
+     * deleted in parallel, and every directory is deleted after its
+     * subdirectories. With a journal file, a failed or interrupted delete is
+     * resumed by calling this method again with the same request.
+     *
+     * @param deleteDirectoryTreeRequest
+     *            A {@link DeleteDirectoryTreeRequest} instance that includes
+     *            the bucket, the directory name, the number of tasks and the
+     *            request rate limit.
+     *
+     * @return A {@link DirectoryTreeResult} instance with the counters and
+     *         the failures of the delete.
+     */
+    public DirectoryTreeResult deleteDirectoryTree(DeleteDirectoryTreeRequest deleteDirectoryTreeRequest)
+            throws OSSException, ClientException;
+
+    /**
+     * Renames a directory. If the destination directory already exists, the
+     * entries of the source directory are renamed into it in parallel, and
+     * the subdirectories existing on both sides are merged the same way.
+     *
+     * @param renameDirectoryTreeRequest
+     *            A {@link RenameDirectoryTreeRequest} instance that includes
+     *            the bucket, the source and destination directory names, the
+     *            number of tasks and the request rate limit.
+     *
+     * @return A {@link DirectoryTreeResult} instance with the counters and
+     *         the failures of the rename.
+     */
+    public DirectoryTreeResult renameDirectoryTree(RenameDirectoryTreeRequest renameDirectoryTreeRequest)
+            throws OSSException, ClientException;
+
 	/**
      * Sets the resource group id of the {@link Bucket}.
      * 
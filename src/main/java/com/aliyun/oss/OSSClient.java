@@ -47,6 +47,10 @@ import com.aliyun.oss.common.auth.CredentialsProvider;
 import com.aliyun.oss.common.auth.DefaultCredentialProvider;
 import com.aliyun.oss.common.auth.ServiceSignature;
 import com.aliyun.oss.common.comm.*;
+import com.aliyun.oss.common.metrics.ConnectionPoolStatistics;
+import com.aliyun.oss.common.metrics.MetadataCacheStatistics;
+import com.aliyun.oss.common.metrics.ObjectCacheStatistics;
+import com.aliyun.oss.common.metrics.RequestMetrics;
 import com.aliyun.oss.common.utils.BinaryUtil;
 import com.aliyun.oss.common.utils.DateUtil;
 import com.aliyun.oss.internal.*;
@@ -75,7 +79,19 @@ public class OSSClient implements OSS {
     private CORSOperation corsOperation;
     private OSSUploadOperation uploadOperation;
     private OSSDownloadOperation downloadOperation;
+    private OSSCopyOperation copyOperation;
+    private OSSBulkCopyOperation bulkCopyOperation;
+    private OSSSyncOperation syncOperation;
+    private OSSBulkUploadOperation bulkUploadOperation;
     private LiveChannelOperation liveChannelOperation;
+    private OSSSelectOperation selectOperation;
+    private OSSAppendOperation appendOperation;
+    private OSSDirectoryTreeOperation directoryTreeOperation;
+    private OSSInventoryReaderOperation inventoryReaderOperation;
+    private OSSListIteratorOperation listIteratorOperation;
+    private OSSVersionPurgeOperation versionPurgeOperation;
+    private ObjectMetadataCache metadataCache;
+    private ObjectContentCache objectContentCache;
 
     /**Gets the inner multipartOperation, used for subclass to do implement opreation.*/
     public OSSMultipartOperation getMultipartOperation() {
@@ -295,7 +311,32 @@ public class OSSClient implements OSS {
         this.corsOperation = new CORSOperation(this.serviceClient, this.credsProvider);
         this.uploadOperation = new OSSUploadOperation(this.multipartOperation);
         this.downloadOperation = new OSSDownloadOperation(objectOperation);
+        this.copyOperation = new OSSCopyOperation(this.multipartOperation, objectOperation);
+        this.bulkCopyOperation = new OSSBulkCopyOperation(this.bucketOperation, objectOperation, copyOperation);
+        this.syncOperation = new OSSSyncOperation(this.bucketOperation, objectOperation, uploadOperation);
+        this.bulkUploadOperation = new OSSBulkUploadOperation(objectOperation);
         this.liveChannelOperation = new LiveChannelOperation(this.serviceClient, this.credsProvider);
+        this.selectOperation = new OSSSelectOperation(objectOperation);
+        this.appendOperation = new OSSAppendOperation(objectOperation);
+        this.directoryTreeOperation = new OSSDirectoryTreeOperation(this.bucketOperation, objectOperation);
+        this.inventoryReaderOperation = new OSSInventoryReaderOperation(objectOperation);
+        this.listIteratorOperation = new OSSListIteratorOperation(this.bucketOperation, this.multipartOperation,
+                this.liveChannelOperation);
+        this.versionPurgeOperation = new OSSVersionPurgeOperation(this.listIteratorOperation, objectOperation);
+
+        ClientConfiguration config = this.serviceClient.getClientConfiguration();
+        if (config.getMetadataCacheMaxEntries() > 0) {
+            this.metadataCache = new ObjectMetadataCache(config.getMetadataCacheMaxEntries(),
+                    config.getMetadataCacheTimeToLive());
+            this.objectOperation.setMetadataCache(metadataCache);
+            this.multipartOperation.setMetadataCache(metadataCache);
+        }
+        if (config.getObjectCacheDirectory() != null) {
+            this.objectContentCache = new ObjectContentCache(config.getObjectCacheDirectory(),
+                    config.getObjectCacheMaxSize(), config.getObjectCacheTimeToLive());
+            this.objectOperation.setObjectContentCache(objectContentCache);
+            this.multipartOperation.setObjectContentCache(objectContentCache);
+        }
     }
 
     @Override
@@ -354,6 +395,11 @@ public class OSSClient implements OSS {
         return bucketOperation.listBuckets(listBucketsRequest);
     }
 
+    @Override
+    public Iterable<Bucket> iterateBuckets(ListBucketsRequest listBucketsRequest) throws OSSException, ClientException {
+        return listIteratorOperation.iterateBuckets(listBucketsRequest);
+    }
+
     @Override
     public BucketList listBuckets(String prefix, String marker, Integer maxKeys) throws OSSException, ClientException {
         return bucketOperation.listBuckets(new ListBucketsRequest(prefix, marker, maxKeys));
@@ -453,11 +499,23 @@ public class OSSClient implements OSS {
         return bucketOperation.listObjects(listObjectsRequest);
     }
 
+    @Override
+    public Iterable<OSSObjectSummary> iterateObjects(ListObjectsRequest listObjectsRequest)
+            throws OSSException, ClientException {
+        return listIteratorOperation.iterateObjects(listObjectsRequest);
+    }
+
     @Override
     public ListObjectsV2Result listObjectsV2(ListObjectsV2Request listObjectsV2Request) throws OSSException, ClientException {
         return bucketOperation.listObjectsV2(listObjectsV2Request);
     }
 
+    @Override
+    public Iterable<OSSObjectSummary> iterateObjectsV2(ListObjectsV2Request listObjectsV2Request)
+            throws OSSException, ClientException {
+        return listIteratorOperation.iterateObjectsV2(listObjectsV2Request);
+    }
+
     @Override
     public ListObjectsV2Result listObjectsV2(String bucketName) throws OSSException, ClientException {
         return bucketOperation.listObjectsV2(new ListObjectsV2Request(bucketName));
@@ -499,6 +557,12 @@ public class OSSClient implements OSS {
         return bucketOperation.listVersions(listVersionsRequest);
     }
 
+    @Override
+    public Iterable<OSSVersionSummary> iterateVersions(ListVersionsRequest listVersionsRequest)
+            throws OSSException, ClientException {
+        return listIteratorOperation.iterateVersions(listVersionsRequest);
+    }
+
     @Override
     public PutObjectResult putObject(String bucketName, String key, InputStream input)
             throws OSSException, ClientException {
@@ -608,6 +672,12 @@ public class OSSClient implements OSS {
         return objectOperation.selectObject(selectObjectRequest);
     }
 
+    @Override
+    public SelectRecordIterator selectObjectParallel(ParallelSelectObjectRequest parallelSelectObjectRequest)
+            throws OSSException, ClientException {
+        return selectOperation.selectObjectParallel(parallelSelectObjectRequest);
+    }
+
     @Override
     public SimplifiedObjectMeta getSimplifiedObjectMeta(String bucketName, String key)
             throws OSSException, ClientException {
@@ -651,6 +721,18 @@ public class OSSClient implements OSS {
         return objectOperation.appendObject(appendObjectRequest);
     }
 
+    @Override
+    public AppendableObjectWriter createAppendableObjectWriter(
+            AppendableObjectWriterRequest appendableObjectWriterRequest) throws OSSException, ClientException {
+        return appendOperation.createAppendableObjectWriter(appendableObjectWriterRequest);
+    }
+
+    @Override
+    public InventoryReader createInventoryReader(InventoryReaderRequest inventoryReaderRequest)
+            throws OSSException, ClientException {
+        return inventoryReaderOperation.createInventoryReader(inventoryReaderRequest);
+    }
+
     @Override
     public VoidResult deleteObject(String bucketName, String key) throws OSSException, ClientException {
         return this.deleteObject(new GenericRequest(bucketName, key));
@@ -683,6 +765,18 @@ public class OSSClient implements OSS {
         return objectOperation.deleteVersions(deleteVersionsRequest);
     }
 
+    @Override
+    public Iterable<VersionHistory> iterateVersionHistories(ListVersionsRequest listVersionsRequest)
+            throws OSSException, ClientException {
+        return versionPurgeOperation.iterateVersionHistories(listVersionsRequest);
+    }
+
+    @Override
+    public PurgeVersionsResult purgeVersions(PurgeVersionsRequest purgeVersionsRequest)
+            throws OSSException, ClientException {
+        return versionPurgeOperation.purgeVersions(purgeVersionsRequest);
+    }
+
     @Override
     public boolean doesObjectExist(String bucketName, String key) throws OSSException, ClientException {
         return doesObjectExist(new GenericRequest(bucketName, key));
@@ -862,11 +956,22 @@ public class OSSClient implements OSS {
         return multipartOperation.listMultipartUploads(request);
     }
 
+    @Override
+    public Iterable<MultipartUpload> iterateMultipartUploads(ListMultipartUploadsRequest request)
+            throws OSSException, ClientException {
+        return listIteratorOperation.iterateMultipartUploads(request);
+    }
+
     @Override
     public PartListing listParts(ListPartsRequest request) throws OSSException, ClientException {
         return multipartOperation.listParts(request);
     }
 
+    @Override
+    public Iterable<PartSummary> iterateParts(ListPartsRequest request) throws OSSException, ClientException {
+        return listIteratorOperation.iterateParts(request);
+    }
+
     @Override
     public UploadPartResult uploadPart(UploadPartRequest request) throws OSSException, ClientException {
         return multipartOperation.uploadPart(request);
@@ -1333,6 +1438,27 @@ public class OSSClient implements OSS {
         return downloadOperation.downloadFile(downloadFileRequest);
     }
 
+    @Override
+    public CopyFileResult copyFile(CopyFileRequest copyFileRequest) throws Throwable {
+        return copyOperation.copyFile(copyFileRequest);
+    }
+
+    @Override
+    public BulkCopyResult bulkCopy(BulkCopyRequest bulkCopyRequest) throws OSSException, ClientException {
+        return bulkCopyOperation.bulkCopy(bulkCopyRequest);
+    }
+
+    @Override
+    public SyncDirectoryResult syncDirectory(SyncDirectoryRequest syncDirectoryRequest)
+            throws OSSException, ClientException {
+        return syncOperation.syncDirectory(syncDirectoryRequest);
+    }
+
+    @Override
+    public BulkUploadResult bulkUpload(BulkUploadRequest bulkUploadRequest) throws ClientException {
+        return bulkUploadOperation.bulkUpload(bulkUploadRequest);
+    }
+
     @Override
     public CreateLiveChannelResult createLiveChannel(CreateLiveChannelRequest createLiveChannelRequest)
             throws OSSException, ClientException {
@@ -1396,6 +1522,12 @@ public class OSSClient implements OSS {
         return liveChannelOperation.listLiveChannels(listLiveChannelRequest);
     }
 
+    @Override
+    public Iterable<LiveChannel> iterateLiveChannels(ListLiveChannelsRequest listLiveChannelRequest)
+            throws OSSException, ClientException {
+        return listIteratorOperation.iterateLiveChannels(listLiveChannelRequest);
+    }
+
     @Override
     public List<LiveRecord> getLiveChannelHistory(String bucketName, String liveChannel)
             throws OSSException, ClientException {
@@ -1721,6 +1853,18 @@ public class OSSClient implements OSS {
         return this.objectOperation.renameObject(renameObjectRequest);
     }
 
+    @Override
+    public DirectoryTreeResult deleteDirectoryTree(DeleteDirectoryTreeRequest deleteDirectoryTreeRequest)
+            throws OSSException, ClientException {
+        return this.directoryTreeOperation.deleteDirectoryTree(deleteDirectoryTreeRequest);
+    }
+
+    @Override
+    public DirectoryTreeResult renameDirectoryTree(RenameDirectoryTreeRequest renameDirectoryTreeRequest)
+            throws OSSException, ClientException {
+        return this.directoryTreeOperation.renameDirectoryTree(renameDirectoryTreeRequest);
+    }
+
 	@Override
 	public VoidResult setBucketResourceGroup(SetBucketResourceGroupRequest setBucketResourceGroupRequest) throws OSSException, ClientException {
 		return this.bucketOperation.setBucketResourceGroup(setBucketResourceGroupRequest);
@@ -1823,6 +1967,7 @@ public class OSSClient implements OSS {
 
     @Override
     public void shutdown() {
+        listIteratorOperation.shutdown();
         try {
             serviceClient.shutdown();
         } catch (Exception e) {
@@ -1838,4 +1983,34 @@ public class OSSClient implements OSS {
         }
         return "";
     }
+
+    @Override
+    public ConnectionPoolStatistics getConnectionPoolStatistics() {
+        return serviceClient.getConnectionPoolStatistics();
+    }
+
+    @Override
+    public RequestMetrics getRequestMetrics() {
+        return serviceClient.getRequestMetrics();
+    }
+
+    @Override
+    public MetadataCacheStatistics getMetadataCacheStatistics() {
+        return metadataCache != null ? metadataCache.getStatistics() : null;
+    }
+
+    @Override
+    public ObjectCacheStatistics getObjectCacheStatistics() {
+        return objectContentCache != null ? objectContentCache.getStatistics() : null;
+    }
+
+    @Override
+    public int prewarm(String bucketName, int connections) throws ClientException {
+        if (bucketName != null) {
+            ensureBucketNameValid(bucketName);
+        }
+        URI finalEndpoint = OSSUtils.determineFinalEndpoint(getEndpoint(), bucketName,
+                serviceClient.getClientConfiguration(), serviceClient.getResolvedEndpointCache());
+        return serviceClient.prewarm(finalEndpoint, connections);
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+/**
+ * Bounds the in-flight requests to one endpoint with an additive increase,
+ * multiplicative decrease limit.
+ * <p>
+ * The limit grows by one per limit's worth of fast responses while the
+ * requests actually use it, stays put while the latency is above twice the
+ * lowest latency seen in the last window of samples, and is cut by 30% on
+ * throttling responses and timeouts. Requests which started before the last
+ * cut do not cut it again, so one burst of throttling backs off once.
+ * </p>
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final double BACKOFF_RATIO = 0.7;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final int LATENCY_WINDOW = 100;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseNanos;
+
+    private long noLoadLatency = Long.MAX_VALUE;
+    private long windowMinLatency = Long.MAX_VALUE;
+    private int windowSamples;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid concurrency limits: " + minLimit + ", " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.lastDecreaseNanos = System.nanoTime();
+    }
+
+    /**
+     * Takes a slot, waiting for one if the limit is reached.
+     * 
+     * @param timeoutMillis
+     *            The maximum time to wait, 0 to fail immediately and negative
+     *            to wait indefinitely.
+     * @return True if a slot is taken, false if the wait timed out.
+     */
+    public synchronized boolean acquire(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (inFlight >= (int) limit) {
+            if (timeoutMillis < 0) {
+                wait();
+            } else {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                wait(remaining);
+            }
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Gives back a slot taken by {@link #acquire(long)} and adjusts the limit.
+     * 
+     * @param startNanos
+     *            The {@link System#nanoTime()} the request was sent at.
+     * @param latencyNanos
+     *            The time until the response headers, negative if there is no
+     *            response.
+     * @param dropped
+     *            Whether the request was throttled or timed out.
+     */
+    public synchronized void release(long startNanos, long latencyNanos, boolean dropped) {
+        int used = inFlight;
+        inFlight--;
+
+        if (dropped) {
+            if (startNanos - lastDecreaseNanos >= 0) {
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                lastDecreaseNanos = System.nanoTime();
+            }
+        } else if (latencyNanos >= 0) {
+            sampleLatency(latencyNanos);
+            if (used * 2 >= (int) limit && latencyNanos <= noLoadLatency * LATENCY_TOLERANCE) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+        notifyAll();
+    }
+
+    private void sampleLatency(long latencyNanos) {
+        windowMinLatency = Math.min(windowMinLatency, latencyNanos);
+        noLoadLatency = Math.min(noLoadLatency, latencyNanos);
+        if (++windowSamples >= LATENCY_WINDOW) {
+            noLoadLatency = windowMinLatency;
+            windowMinLatency = Long.MAX_VALUE;
+            windowSamples = 0;
+        }
+    }
+
+    /**
+     * Gets the current limit of in-flight requests.
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Gets the number of in-flight requests.
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
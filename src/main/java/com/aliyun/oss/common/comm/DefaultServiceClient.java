@@ -19,21 +19,33 @@
 
 package com.aliyun.oss.common.comm;
 
+import static com.aliyun.oss.common.utils.LogUtils.getLog;
+
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Method;
+import java.net.URI;
 import java.security.KeyStore;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.*;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpStatus;
 import org.apache.http.auth.AUTH;
@@ -48,9 +60,11 @@ import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.DnsResolver;
 import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
-import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.DefaultHostnameVerifier;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
@@ -66,6 +80,10 @@ import com.aliyun.oss.ClientErrorCode;
 import com.aliyun.oss.ClientException;
 import com.aliyun.oss.OSSErrorCode;
 import com.aliyun.oss.OSSException;
+import com.aliyun.oss.common.metrics.ConnectionPoolMetricsListener;
+import com.aliyun.oss.common.metrics.ConnectionPoolStatistics;
+import com.aliyun.oss.common.metrics.LatencyHistogram;
+import com.aliyun.oss.common.metrics.RequestTimings;
 import com.aliyun.oss.common.utils.ExceptionFactory;
 import com.aliyun.oss.common.utils.HttpHeaders;
 import com.aliyun.oss.common.utils.HttpUtil;
@@ -75,6 +93,7 @@ import com.aliyun.oss.common.utils.IOUtils;
  * Default implementation of {@link ServiceClient}.
  */
 public class DefaultServiceClient extends ServiceClient {
+    private static final int MAX_PREWARM_THREADS = 16;
     protected static HttpRequestFactory httpRequestFactory = new HttpRequestFactory();
 	private static Method setNormalizeUriMethod = null;
 
@@ -84,6 +103,7 @@ public class DefaultServiceClient extends ServiceClient {
     protected CredentialsProvider credentialsProvider;
     protected HttpHost proxyHttpHost;
     protected AuthCache authCache;
+    protected ScheduledExecutorService metricsReporter;
 
     public DefaultServiceClient(ClientConfiguration config) {
         super(config);
@@ -125,6 +145,7 @@ public class DefaultServiceClient extends ServiceClient {
         }
 
         this.requestConfig = requestConfigBuilder.build();
+        startConnectionPoolMetricsReporter();
     }
 
     @Override
@@ -133,6 +154,9 @@ public class DefaultServiceClient extends ServiceClient {
         setProxyAuthorizationIfNeed(httpRequest);
         HttpClientContext httpContext = createHttpContext();
         httpContext.setRequestConfig(this.requestConfig);
+        if (context.getRequestTimings() != null) {
+            httpContext.setAttribute(RequestTimings.HTTP_CONTEXT_ATTRIBUTE, context.getRequestTimings());
+        }
 
         CloseableHttpResponse httpResponse = null;
         try {
@@ -233,10 +257,15 @@ public class DefaultServiceClient extends ServiceClient {
 
     protected CloseableHttpClient createHttpClient(HttpClientConnectionManager connectionManager) {
         return HttpClients.custom().setConnectionManager(connectionManager).setUserAgent(this.config.getUserAgent())
-                .disableContentCompression().disableAutomaticRetries().build();
+                .setRequestExecutor(new InstrumentedRequestExecutor()).disableContentCompression()
+                .disableAutomaticRetries().build();
     }
 
     protected HttpClientConnectionManager createHttpClientConnectionManager() {
+        LatencyHistogram tlsHandshakeTime = new LatencyHistogram();
+        DnsResolver dnsResolver = config.getDnsResolver();
+        RoundRobinDnsResolver roundRobinDnsResolver = dnsResolver instanceof RoundRobinDnsResolver
+                ? (RoundRobinDnsResolver) dnsResolver : null;
         SSLConnectionSocketFactory sslSocketFactory = null;
         try {
             List<TrustManager> trustManagerList = new ArrayList<TrustManager>();
@@ -266,6 +295,15 @@ public class DefaultServiceClient extends ServiceClient {
 
             SSLContext sslContext = SSLContext.getInstance("TLS");
             sslContext.init(keyManagers, new TrustManager[]{compositeX509TrustManager}, config.getSecureRandom());
+            SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+            if (sessionContext != null) {
+                if (config.getTlsSessionCacheSize() >= 0) {
+                    sessionContext.setSessionCacheSize(config.getTlsSessionCacheSize());
+                }
+                if (config.getTlsSessionTimeout() >= 0) {
+                    sessionContext.setSessionTimeout((int) TimeUnit.MILLISECONDS.toSeconds(config.getTlsSessionTimeout()));
+                }
+            }
 
             HostnameVerifier hostnameVerifier = null;
             if (!config.isVerifySSLEnable()) {
@@ -275,25 +313,26 @@ public class DefaultServiceClient extends ServiceClient {
             } else {
                 hostnameVerifier = new DefaultHostnameVerifier();
             }
-            sslSocketFactory = new SSLConnectionSocketFactory(sslContext, hostnameVerifier);
+            sslSocketFactory = new InstrumentedSSLConnectionSocketFactory(sslContext, hostnameVerifier,
+                    tlsHandshakeTime, roundRobinDnsResolver);
         } catch (Exception e) {
             throw new ClientException(e.getMessage());
         }
 
         Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory> create()
-                .register(Protocol.HTTP.toString(), PlainConnectionSocketFactory.getSocketFactory())
+                .register(Protocol.HTTP.toString(), new InstrumentedPlainConnectionSocketFactory(roundRobinDnsResolver))
                 .register(Protocol.HTTPS.toString(), sslSocketFactory).build();
 
-        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
-                socketFactoryRegistry);
+        PoolingHttpClientConnectionManager connectionManager = new InstrumentedConnectionManager(
+                socketFactoryRegistry, tlsHandshakeTime, dnsResolver, config.getConnectionTTL());
         connectionManager.setDefaultMaxPerRoute(config.getMaxConnections());
         connectionManager.setMaxTotal(config.getMaxConnections());
         connectionManager.setValidateAfterInactivity(config.getValidateAfterInactivity());
         connectionManager.setDefaultSocketConfig(
                 SocketConfig.custom().setSoTimeout(config.getSocketTimeout()).setTcpNoDelay(true).build());
         if (config.isUseReaper()) {
-            IdleConnectionReaper.setIdleConnectionTime(config.getIdleConnectionTime());
-            IdleConnectionReaper.registerConnectionManager(connectionManager);
+            IdleConnectionReaper.registerConnectionManager(connectionManager, config.getIdleConnectionTime(),
+                    config.getConnectionTTL());
         }
         return connectionManager;
     }
@@ -319,6 +358,9 @@ public class DefaultServiceClient extends ServiceClient {
 
     @Override
     public void shutdown() {
+        if (this.metricsReporter != null) {
+            this.metricsReporter.shutdownNow();
+        }
         IdleConnectionReaper.removeConnectionManager(this.connectionManager);
         this.connectionManager.shutdown();
     }
@@ -332,6 +374,119 @@ public class DefaultServiceClient extends ServiceClient {
         return "";
     }
 
+    @Override
+    public ConnectionPoolStatistics getConnectionPoolStatistics() {
+        if (connectionManager instanceof InstrumentedConnectionManager) {
+            return ((InstrumentedConnectionManager) connectionManager).getStatistics();
+        }
+        return null;
+    }
+
+    @Override
+    public int prewarm(URI endpoint, int connections) {
+        if (this.proxyHttpHost != null) {
+            getLog().warn("Connections are not prewarmed through a proxy.");
+            return 0;
+        }
+        connections = Math.min(connections, config.getMaxConnections());
+        if (connections <= 0) {
+            return 0;
+        }
+
+        boolean secure = Protocol.HTTPS.toString().equalsIgnoreCase(endpoint.getScheme());
+        int port = endpoint.getPort() > 0 ? endpoint.getPort() : (secure ? 443 : 80);
+        final HttpRoute route = new HttpRoute(new HttpHost(endpoint.getHost(), port, endpoint.getScheme()), null,
+                secure);
+
+        // All the connections are held until every one is open, otherwise the
+        // pool would hand out the same connection again.
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(connections, MAX_PREWARM_THREADS));
+        List<Future<HttpClientConnection>> futures = new ArrayList<Future<HttpClientConnection>>();
+        for (int i = 0; i < connections; i++) {
+            futures.add(executor.submit(new Callable<HttpClientConnection>() {
+                @Override
+                public HttpClientConnection call() throws Exception {
+                    return openConnection(route);
+                }
+            }));
+        }
+        executor.shutdown();
+
+        int opened = 0;
+        Exception failure = null;
+        List<HttpClientConnection> held = new ArrayList<HttpClientConnection>();
+        for (Future<HttpClientConnection> future : futures) {
+            try {
+                held.add(future.get());
+                opened++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = e;
+            } catch (ExecutionException e) {
+                failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+        for (HttpClientConnection connection : held) {
+            connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+        }
+
+        if (opened == 0 && failure != null) {
+            if (failure instanceof IOException) {
+                throw ExceptionFactory.createNetworkException((IOException) failure);
+            }
+            throw new ClientException("Unable to prewarm connections to " + endpoint, failure);
+        }
+        if (failure != null) {
+            getLog().warn("Prewarmed " + opened + " of " + connections + " connections to " + endpoint + ": "
+                    + failure.getMessage());
+        }
+        return opened;
+    }
+
+    private HttpClientConnection openConnection(HttpRoute route) throws Exception {
+        ConnectionRequest connectionRequest = connectionManager.requestConnection(route, null);
+        HttpClientConnection connection = connectionRequest.get(config.getConnectionTimeout(),
+                TimeUnit.MILLISECONDS);
+        if (connection.isOpen()) {
+            return connection;
+        }
+        try {
+            HttpClientContext context = createHttpContext();
+            connectionManager.connect(connection, route, config.getConnectionTimeout(), context);
+            connectionManager.routeComplete(connection, route, context);
+            return connection;
+        } catch (IOException e) {
+            connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+            throw e;
+        }
+    }
+
+    private void startConnectionPoolMetricsReporter() {
+        final ConnectionPoolMetricsListener listener = config.getConnectionPoolMetricsListener();
+        if (listener == null || !(connectionManager instanceof InstrumentedConnectionManager)) {
+            return;
+        }
+        this.metricsReporter = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "oss-connection-pool-metrics");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        long interval = config.getConnectionPoolMetricsInterval();
+        this.metricsReporter.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    listener.onStatistics(getConnectionPoolStatistics());
+                } catch (Throwable t) {
+                    getLog().warn("Unable to report connection pool statistics", t);
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
     private static Method getClassMethd(Class<?> clazz, String methodName) {
         try {
             Method[] method = clazz.getDeclaredMethods();
@@ -19,29 +19,40 @@
 
 package com.aliyun.oss.common.comm;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import com.aliyun.oss.common.auth.Credentials;
 import com.aliyun.oss.common.auth.RequestSigner;
+import com.aliyun.oss.common.metrics.OperationMetrics;
+import com.aliyun.oss.common.metrics.RequestTimings;
 import com.aliyun.oss.internal.OSSConstants;
 
 /**
- * HTTP request context.
+ * HTTP request context. It also holds the {@link RequestTimings} of the
+ * request once {@link #startTimings(OperationMetrics)} is called.
  */
-public class ExecutionContext {
+public class ExecutionContext implements RequestTimings {
 
     /* Request signer */
     private RequestSigner signer;
 
-    /* The request handlers that handle request content in as a pipeline. */
-    private List<RequestHandler> requestHandlers = new LinkedList<RequestHandler>();
+    /*
+     * The request handlers that handle request content in as a pipeline. The
+     * handler lists may be shared by many contexts, in which case they are
+     * copied before being modified.
+     */
+    private List<RequestHandler> requestHandlers = Collections.emptyList();
+    private boolean requestHandlersShared = true;
 
     /* The response handlers that handle response message in as a pipeline. */
-    private List<ResponseHandler> responseHandlers = new LinkedList<ResponseHandler>();
+    private List<ResponseHandler> responseHandlers = Collections.emptyList();
+    private boolean responseHandlersShared = true;
 
     /* The signer handlers that handle sign request in as a pipeline. */
-    private List<RequestSigner> signerHandlers = new LinkedList<RequestSigner>();
+    private List<RequestSigner> signerHandlers = Collections.emptyList();
+    private boolean signerHandlersShared = true;
 
     private String charset = OSSConstants.DEFAULT_CHARSET_NAME;
 
@@ -50,6 +61,17 @@ public class ExecutionContext {
 
     private Credentials credentials;
 
+    /* The phases of the request, operationMetrics is null if they are not recorded. */
+    private OperationMetrics operationMetrics;
+    private long startNanos;
+    private long signNanos;
+    private long leaseWaitNanos;
+    private long connectNanos;
+    private long timeToFirstByteNanos = -1;
+    private long parseNanos = -1;
+    private int retries;
+    private long bytesSent;
+
     public RetryStrategy getRetryStrategy() {
         return retryStrategy;
     }
@@ -74,52 +96,119 @@ public class ExecutionContext {
         this.signer = signer;
     }
 
+    /**
+     * Gets the response handlers, a list of this context's own which can be
+     * modified.
+     */
     public List<ResponseHandler> getResponseHandlers() {
+        if (responseHandlersShared) {
+            responseHandlers = new ArrayList<ResponseHandler>(responseHandlers);
+            responseHandlersShared = false;
+        }
         return responseHandlers;
     }
 
+    /**
+     * Uses the given response handlers, without copying them. The list must
+     * not be modified afterwards.
+     */
+    public void setSharedResponseHandlers(List<ResponseHandler> handlers) {
+        responseHandlers = handlers;
+        responseHandlersShared = true;
+    }
+
     public void addResponseHandler(ResponseHandler handler) {
-        responseHandlers.add(handler);
+        getResponseHandlers().add(handler);
     }
 
     public void insertResponseHandler(int position, ResponseHandler handler) {
-        responseHandlers.add(position, handler);
+        getResponseHandlers().add(position, handler);
     }
 
     public void removeResponseHandler(ResponseHandler handler) {
-        responseHandlers.remove(handler);
+        getResponseHandlers().remove(handler);
     }
 
+    /**
+     * Gets the request handlers, a list of this context's own which can be
+     * modified.
+     */
     public List<RequestHandler> getResquestHandlers() {
+        if (requestHandlersShared) {
+            requestHandlers = new ArrayList<RequestHandler>(requestHandlers);
+            requestHandlersShared = false;
+        }
         return requestHandlers;
     }
 
+    /**
+     * Uses the given request handlers, without copying them. The list must
+     * not be modified afterwards.
+     */
+    public void setSharedRequestHandlers(List<RequestHandler> handlers) {
+        requestHandlers = handlers;
+        requestHandlersShared = true;
+    }
+
     public void addRequestHandler(RequestHandler handler) {
-        requestHandlers.add(handler);
+        getResquestHandlers().add(handler);
     }
 
     public void insertRequestHandler(int position, RequestHandler handler) {
-        requestHandlers.add(position, handler);
+        getResquestHandlers().add(position, handler);
     }
 
     public void removeRequestHandler(RequestHandler handler) {
-        requestHandlers.remove(handler);
+        getResquestHandlers().remove(handler);
     }
 
+    /**
+     * Gets the signer handlers, a list of this context's own which can be
+     * modified.
+     */
     public List<RequestSigner> getSignerHandlers() {
+        if (signerHandlersShared) {
+            signerHandlers = new ArrayList<RequestSigner>(signerHandlers);
+            signerHandlersShared = false;
+        }
         return signerHandlers;
     }
 
+    /**
+     * Uses the given signer handlers, without copying them. The list must not
+     * be modified afterwards.
+     */
+    public void setSharedSignerHandlers(List<RequestSigner> handlers) {
+        signerHandlers = handlers;
+        signerHandlersShared = true;
+    }
+
     public void addSignerHandler(RequestSigner handler) {
-        signerHandlers.add(handler);
+        getSignerHandlers().add(handler);
     }
 
     public void insertSignerHandler(int position, RequestSigner handler) {
-        signerHandlers.add(position, handler);
+        getSignerHandlers().add(position, handler);
     }
 
     public void removeSignerHandler(RequestSigner handler) {
-        signerHandlers.remove(handler);
+        getSignerHandlers().remove(handler);
+    }
+
+    /*
+     * The handler lists as they are, for the service client to run through
+     * without copying them.
+     */
+    List<RequestHandler> requestHandlers() {
+        return requestHandlers;
+    }
+
+    List<ResponseHandler> responseHandlers() {
+        return responseHandlers;
+    }
+
+    List<RequestSigner> signerHandlers() {
+        return signerHandlers;
     }
 
     public Credentials getCredentials() {
@@ -130,4 +219,99 @@ public class ExecutionContext {
         this.credentials = credentials;
     }
 
+    /**
+     * Starts recording the phases of the request to the given metrics.
+     */
+    public void startTimings(OperationMetrics operationMetrics) {
+        this.operationMetrics = operationMetrics;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Gets the phases of the request, null if they are not recorded.
+     */
+    public RequestTimings getRequestTimings() {
+        return operationMetrics != null ? this : null;
+    }
+
+    @Override
+    public OperationMetrics getOperationMetrics() {
+        return operationMetrics;
+    }
+
+    @Override
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    @Override
+    public long getSignNanos() {
+        return signNanos;
+    }
+
+    @Override
+    public void setSignNanos(long signNanos) {
+        this.signNanos = signNanos;
+    }
+
+    @Override
+    public long getLeaseWaitNanos() {
+        return leaseWaitNanos;
+    }
+
+    @Override
+    public void addLeaseWaitNanos(long nanos) {
+        this.leaseWaitNanos += nanos;
+    }
+
+    @Override
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    @Override
+    public void addConnectNanos(long nanos) {
+        this.connectNanos += nanos;
+    }
+
+    @Override
+    public long getTimeToFirstByteNanos() {
+        return timeToFirstByteNanos;
+    }
+
+    @Override
+    public void setTimeToFirstByteNanos(long timeToFirstByteNanos) {
+        this.timeToFirstByteNanos = timeToFirstByteNanos;
+    }
+
+    @Override
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    @Override
+    public void setParseNanos(long parseNanos) {
+        this.parseNanos = parseNanos;
+    }
+
+    @Override
+    public int getRetries() {
+        return retries;
+    }
+
+    @Override
+    public void setRetries(int retries) {
+        this.retries = retries;
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    @Override
+    public void addBytesSent(long bytes) {
+        this.bytesSent += bytes;
+    }
+
 }
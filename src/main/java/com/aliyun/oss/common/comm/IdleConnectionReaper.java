@@ -21,90 +21,171 @@ package com.aliyun.oss.common.comm;
 
 import static com.aliyun.oss.common.utils.LogUtils.getLog;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 
 /**
- * A daemon thread used to periodically check connection pools for idle
- * connections.
+ * Closes the expired and idle connections of the registered connection
+ * pools on a shared daemon scheduler, at an interval derived from the pool's
+ * idle time and connection TTL.
+ *
+ * An {@link InstrumentedConnectionManager} reports the connections it takes
+ * back with {@link #connectionReleased(HttpClientConnectionManager)}. Such a
+ * pool is checked only while it holds available connections: a release arms
+ * a one-shot check, which arms the next one if connections remain, so an idle
+ * client costs no wakeups. Other pools are checked at a fixed delay.
  */
-public final class IdleConnectionReaper extends Thread {
+public final class IdleConnectionReaper {
     private static final int REAP_INTERVAL_MILLISECONDS = 5 * 1000;
-    private static final ArrayList<HttpClientConnectionManager> connectionManagers = new ArrayList<HttpClientConnectionManager>();
+    private static final int MIN_REAP_INTERVAL_MILLISECONDS = 100;
 
-    private static IdleConnectionReaper instance;
+    private static final ConcurrentMap<HttpClientConnectionManager, ReapTask> connectionManagers = new ConcurrentHashMap<HttpClientConnectionManager, ReapTask>();
 
-    private static long idleConnectionTime = 60 * 1000;
+    private static ScheduledExecutorService scheduler;
 
-    private volatile boolean shuttingDown;
+    private static long idleConnectionTime = 60 * 1000;
 
     private IdleConnectionReaper() {
-        super("idle_connection_reaper");
-        setDaemon(true);
     }
 
-    public static synchronized boolean registerConnectionManager(HttpClientConnectionManager connectionManager) {
-        if (instance == null) {
-            instance = new IdleConnectionReaper();
-            instance.start();
+    private static final class ReapTask implements Runnable {
+        private final HttpClientConnectionManager connectionManager;
+        private final long idleConnectionTime;
+        private final long interval;
+        private final boolean notifiesReleases;
+        private final AtomicBoolean armed = new AtomicBoolean();
+        private ScheduledFuture<?> future;
+
+        ReapTask(HttpClientConnectionManager connectionManager, long idleConnectionTime, long interval) {
+            this.connectionManager = connectionManager;
+            this.idleConnectionTime = idleConnectionTime;
+            this.interval = interval;
+            this.notifiesReleases = connectionManager instanceof InstrumentedConnectionManager;
+        }
+
+        @Override
+        public void run() {
+            try {
+                connectionManager.closeExpiredConnections();
+                connectionManager.closeIdleConnections(idleConnectionTime, TimeUnit.MILLISECONDS);
+            } catch (Throwable t) {
+                getLog().warn("Unable to close idle connections", t);
+            }
+            if (notifiesReleases) {
+                // disarm before looking at the pool, so a concurrent release arms the next check
+                armed.set(false);
+                if (((PoolingHttpClientConnectionManager) connectionManager).getTotalStats().getAvailable() > 0) {
+                    arm(this);
+                }
+            }
+        }
+
+        void cancel() {
+            if (future != null) {
+                future.cancel(false);
+            }
         }
-        return connectionManagers.add(connectionManager);
     }
 
-    public static synchronized boolean removeConnectionManager(HttpClientConnectionManager connectionManager) {
-        boolean b = connectionManagers.remove(connectionManager);
-        if (connectionManagers.isEmpty())
-            shutdown();
-        return b;
+    /**
+     * Registers a connection pool with the idle time set by
+     * {@link #setIdleConnectionTime(long)} and no connection TTL.
+     */
+    public static boolean registerConnectionManager(HttpClientConnectionManager connectionManager) {
+        return registerConnectionManager(connectionManager, idleConnectionTime, -1);
     }
 
-    private void markShuttingDown() {
-        shuttingDown = true;
+    /**
+     * Registers a connection pool.
+     *
+     * @param connectionManager
+     *            The connection pool.
+     * @param idleConnectionTime
+     *            Connections idle for longer than this number of milliseconds
+     *            are closed.
+     * @param connectionTTL
+     *            The connection TTL of the pool in milliseconds, zero or
+     *            negative if connections never expire.
+     * @return true if the pool was not registered before.
+     */
+    public static synchronized boolean registerConnectionManager(HttpClientConnectionManager connectionManager,
+            long idleConnectionTime, long connectionTTL) {
+        if (scheduler == null) {
+            scheduler = createScheduler();
+        }
+        if (connectionManager == null || connectionManagers.containsKey(connectionManager)) {
+            return false;
+        }
+        ReapTask task = new ReapTask(connectionManager, idleConnectionTime,
+                reapInterval(idleConnectionTime, connectionTTL));
+        if (!task.notifiesReleases) {
+            task.future = scheduler.scheduleWithFixedDelay(task, task.interval, task.interval,
+                    TimeUnit.MILLISECONDS);
+        }
+        connectionManagers.put(connectionManager, task);
+        return true;
     }
 
-    @SuppressWarnings("unchecked")
-    @Override
-    public void run() {
-        while (true) {
-            if (shuttingDown) {
-                getLog().debug("Shutting down reaper thread.");
-                return;
-            }
+    /**
+     * Arms the check of a registered pool after it took a connection back,
+     * unless a check is pending already.
+     */
+    public static void connectionReleased(HttpClientConnectionManager connectionManager) {
+        ReapTask task = connectionManagers.get(connectionManager);
+        if (task != null && task.notifiesReleases) {
+            arm(task);
+        }
+    }
 
-            try {
-                Thread.sleep(REAP_INTERVAL_MILLISECONDS);
-            } catch (InterruptedException e) {
+    private static void arm(ReapTask task) {
+        if (!task.armed.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (IdleConnectionReaper.class) {
+            if (scheduler != null && connectionManagers.get(task.connectionManager) == task) {
+                task.future = scheduler.schedule(task, task.interval, TimeUnit.MILLISECONDS);
+            } else {
+                task.armed.set(false);
             }
+        }
+    }
 
-            try {
-                List<HttpClientConnectionManager> connectionManagers = null;
-                synchronized (IdleConnectionReaper.class) {
-                    connectionManagers = (List<HttpClientConnectionManager>) IdleConnectionReaper.connectionManagers
-                            .clone();
-                }
-                for (HttpClientConnectionManager connectionManager : connectionManagers) {
-                    try {
-                        connectionManager.closeExpiredConnections();
-                        connectionManager.closeIdleConnections(idleConnectionTime, TimeUnit.MILLISECONDS);
-                    } catch (Exception ex) {
-                        getLog().warn("Unable to close idle connections", ex);
-                    }
-                }
-            } catch (Throwable t) {
-                getLog().debug("Reaper thread: ", t);
-            }
+    /**
+     * Whether a check of the pool is scheduled.
+     */
+    static synchronized boolean isScheduled(HttpClientConnectionManager connectionManager) {
+        ReapTask task = connectionManagers.get(connectionManager);
+        return task != null && task.future != null && !task.future.isDone();
+    }
+
+    public static synchronized boolean removeConnectionManager(HttpClientConnectionManager connectionManager) {
+        ReapTask task = connectionManagers.remove(connectionManager);
+        if (task != null) {
+            task.cancel();
         }
+        if (connectionManagers.isEmpty())
+            shutdown();
+        return task != null;
     }
 
     public static synchronized boolean shutdown() {
-        if (instance != null) {
-            instance.markShuttingDown();
-            instance.interrupt();
+        if (scheduler != null) {
+            getLog().debug("Shutting down reaper scheduler.");
+            for (ReapTask task : connectionManagers.values()) {
+                task.cancel();
+            }
             connectionManagers.clear();
-            instance = null;
+            scheduler.shutdownNow();
+            scheduler = null;
             return true;
         }
         return false;
@@ -118,4 +199,31 @@ public final class IdleConnectionReaper extends Thread {
         idleConnectionTime = idletime;
     }
 
+    /**
+     * Half of the shortest of the idle time and the TTL, so a connection is
+     * closed at most 1.5 times its limit after its last use, bounded by
+     * [MIN_REAP_INTERVAL_MILLISECONDS, REAP_INTERVAL_MILLISECONDS].
+     */
+    static long reapInterval(long idleConnectionTime, long connectionTTL) {
+        long interval = REAP_INTERVAL_MILLISECONDS;
+        if (idleConnectionTime > 0) {
+            interval = Math.min(interval, idleConnectionTime / 2);
+        }
+        if (connectionTTL > 0) {
+            interval = Math.min(interval, connectionTTL / 2);
+        }
+        return Math.max(interval, MIN_REAP_INTERVAL_MILLISECONDS);
+    }
+
+    private static ScheduledExecutorService createScheduler() {
+        return new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "idle_connection_reaper");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
 }
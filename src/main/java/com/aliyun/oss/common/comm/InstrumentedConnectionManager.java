@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.config.Registry;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import com.aliyun.oss.common.metrics.ConnectionPoolStatistics;
+import com.aliyun.oss.common.metrics.ConnectionPoolStatistics.RouteStatistics;
+import com.aliyun.oss.common.metrics.LatencyHistogram;
+import com.aliyun.oss.common.metrics.RequestTimings;
+
+/**
+ * A {@link PoolingHttpClientConnectionManager} which records how long
+ * requests wait for connections and how long new connections take to open,
+ * and records the response transfers when connections are released.
+ */
+public class InstrumentedConnectionManager extends PoolingHttpClientConnectionManager {
+    private static final ThreadLocal<long[]> lastLeaseWaitNanos = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[1];
+        }
+    };
+
+    private final LatencyHistogram leaseWaitTime = new LatencyHistogram();
+    private final LatencyHistogram connectTime = new LatencyHistogram();
+    private final LatencyHistogram tlsHandshakeTime;
+    private final AtomicLong leasedConnections = new AtomicLong();
+    private final AtomicLong createdConnections = new AtomicLong();
+
+    /**
+     * @param socketFactoryRegistry
+     *            The socket factories of the pool.
+     * @param tlsHandshakeTime
+     *            The histogram the https socket factory records handshakes to.
+     */
+    public InstrumentedConnectionManager(Registry<ConnectionSocketFactory> socketFactoryRegistry,
+            LatencyHistogram tlsHandshakeTime) {
+        this(socketFactoryRegistry, tlsHandshakeTime, null);
+    }
+
+    /**
+     * @param socketFactoryRegistry
+     *            The socket factories of the pool.
+     * @param tlsHandshakeTime
+     *            The histogram the https socket factory records handshakes to.
+     * @param dnsResolver
+     *            The resolver of the target hosts, null for the system resolver.
+     */
+    public InstrumentedConnectionManager(Registry<ConnectionSocketFactory> socketFactoryRegistry,
+            LatencyHistogram tlsHandshakeTime, DnsResolver dnsResolver) {
+        this(socketFactoryRegistry, tlsHandshakeTime, dnsResolver, -1);
+    }
+
+    /**
+     * @param socketFactoryRegistry
+     *            The socket factories of the pool.
+     * @param tlsHandshakeTime
+     *            The histogram the https socket factory records handshakes to.
+     * @param dnsResolver
+     *            The resolver of the target hosts, null for the system resolver.
+     * @param connectionTTL
+     *            The time to live of the pooled connections in milliseconds,
+     *            zero or negative if connections never expire.
+     */
+    public InstrumentedConnectionManager(Registry<ConnectionSocketFactory> socketFactoryRegistry,
+            LatencyHistogram tlsHandshakeTime, DnsResolver dnsResolver, long connectionTTL) {
+        super(socketFactoryRegistry, null, null, dnsResolver, connectionTTL, TimeUnit.MILLISECONDS);
+        this.tlsHandshakeTime = tlsHandshakeTime != null ? tlsHandshakeTime : new LatencyHistogram();
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+        final ConnectionRequest connectionRequest = super.requestConnection(route, state);
+        final long startTime = System.nanoTime();
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit tunit)
+                    throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                try {
+                    HttpClientConnection connection = connectionRequest.get(timeout, tunit);
+                    leasedConnections.incrementAndGet();
+                    return connection;
+                } finally {
+                    long waitNanos = System.nanoTime() - startTime;
+                    leaseWaitTime.record(waitNanos);
+                    lastLeaseWaitNanos.get()[0] = waitNanos;
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return connectionRequest.cancel();
+            }
+        };
+    }
+
+    @Override
+    public void releaseConnection(HttpClientConnection managedConn, Object state, long keepalive, TimeUnit tunit) {
+        ResponseTransfer.finish(managedConn);
+        super.releaseConnection(managedConn, state, keepalive, tunit);
+        IdleConnectionReaper.connectionReleased(this);
+    }
+
+    @Override
+    public void connect(HttpClientConnection managedConn, HttpRoute route, int connectTimeout, HttpContext context)
+            throws IOException {
+        long startTime = System.nanoTime();
+        super.connect(managedConn, route, connectTimeout, context);
+        long connectNanos = System.nanoTime() - startTime;
+        connectTime.record(connectNanos);
+        createdConnections.incrementAndGet();
+
+        RequestTimings timings = (RequestTimings) context.getAttribute(RequestTimings.HTTP_CONTEXT_ATTRIBUTE);
+        if (timings != null) {
+            timings.addConnectNanos(connectNanos);
+        }
+    }
+
+    /**
+     * Gets and clears the lease wait of the last connection leased by the
+     * current thread.
+     */
+    static long takeLeaseWaitNanos() {
+        long[] holder = lastLeaseWaitNanos.get();
+        long waitNanos = holder[0];
+        holder[0] = 0;
+        return waitNanos;
+    }
+
+    public LatencyHistogram getTlsHandshakeTime() {
+        return tlsHandshakeTime;
+    }
+
+    /**
+     * Takes a snapshot of the pool and the recorded latencies.
+     */
+    public ConnectionPoolStatistics getStatistics() {
+        Map<String, RouteStatistics> routes = new LinkedHashMap<String, RouteStatistics>();
+        for (HttpRoute route : getRoutes()) {
+            routes.put(route.getTargetHost().toURI(), toRouteStatistics(getStats(route)));
+        }
+        return new ConnectionPoolStatistics(toRouteStatistics(getTotalStats()), routes, leaseWaitTime.snapshot(),
+                connectTime.snapshot(), tlsHandshakeTime.snapshot(), leasedConnections.get(),
+                createdConnections.get());
+    }
+
+    private static RouteStatistics toRouteStatistics(PoolStats stats) {
+        return new RouteStatistics(stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax());
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * A {@link PlainConnectionSocketFactory} which reports connect results to a
+ * {@link RoundRobinDnsResolver}.
+ */
+class InstrumentedPlainConnectionSocketFactory extends PlainConnectionSocketFactory {
+    private final RoundRobinDnsResolver dnsResolver;
+
+    public InstrumentedPlainConnectionSocketFactory(RoundRobinDnsResolver dnsResolver) {
+        this.dnsResolver = dnsResolver;
+    }
+
+    @Override
+    public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+            InetSocketAddress localAddress, HttpContext context) throws IOException {
+        try {
+            Socket connected = super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+            if (dnsResolver != null) {
+                dnsResolver.connectSucceeded(remoteAddress.getAddress());
+            }
+            return connected;
+        } catch (IOException e) {
+            if (dnsResolver != null && RoundRobinDnsResolver.isConnectFailure(e)) {
+                dnsResolver.connectFailed(remoteAddress.getAddress());
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import java.io.IOException;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpConnectionMetrics;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+import com.aliyun.oss.common.metrics.RequestTimings;
+
+/**
+ * Records the connection lease wait, the bytes sent and the time to the
+ * response headers into the {@link RequestTimings} of the http context, if
+ * any, and starts the {@link ResponseTransfer} of the response. It runs on the
+ * thread which leased the connection, after the connection is opened.
+ */
+class InstrumentedRequestExecutor extends HttpRequestExecutor {
+
+    @Override
+    public HttpResponse execute(HttpRequest request, HttpClientConnection conn, HttpContext context)
+            throws IOException, HttpException {
+        RequestTimings timings = (RequestTimings) context.getAttribute(RequestTimings.HTTP_CONTEXT_ATTRIBUTE);
+        long leaseWaitNanos = InstrumentedConnectionManager.takeLeaseWaitNanos();
+        if (timings == null) {
+            return super.execute(request, conn, context);
+        }
+        timings.addLeaseWaitNanos(leaseWaitNanos);
+        HttpConnectionMetrics metrics = conn.getMetrics();
+        long sentBytes = metrics.getSentBytesCount();
+        long receivedBytes = metrics.getReceivedBytesCount();
+        long startTime = System.nanoTime();
+        try {
+            HttpResponse response = super.execute(request, conn, context);
+            long responseTime = System.nanoTime();
+            timings.setTimeToFirstByteNanos(responseTime - startTime);
+            ResponseTransfer.start(conn, timings.getOperationMetrics(), responseTime, receivedBytes);
+            return response;
+        } finally {
+            timings.addBytesSent(metrics.getSentBytesCount() - sentBytes);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+
+import com.aliyun.oss.common.metrics.LatencyHistogram;
+
+/**
+ * A {@link SSLConnectionSocketFactory} which records the TLS handshake time
+ * and reports connect results to a {@link RoundRobinDnsResolver}.
+ */
+class InstrumentedSSLConnectionSocketFactory extends SSLConnectionSocketFactory {
+    private final LatencyHistogram tlsHandshakeTime;
+    private final RoundRobinDnsResolver dnsResolver;
+
+    public InstrumentedSSLConnectionSocketFactory(SSLContext sslContext, HostnameVerifier hostnameVerifier,
+            LatencyHistogram tlsHandshakeTime, RoundRobinDnsResolver dnsResolver) {
+        super(sslContext, hostnameVerifier);
+        this.tlsHandshakeTime = tlsHandshakeTime;
+        this.dnsResolver = dnsResolver;
+    }
+
+    @Override
+    public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+            InetSocketAddress localAddress, HttpContext context) throws IOException {
+        try {
+            Socket connected = super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+            if (dnsResolver != null) {
+                dnsResolver.connectSucceeded(remoteAddress.getAddress());
+            }
+            return connected;
+        } catch (IOException e) {
+            if (dnsResolver != null && RoundRobinDnsResolver.isConnectFailure(e)) {
+                dnsResolver.connectFailed(remoteAddress.getAddress());
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context)
+            throws IOException {
+        long startTime = System.nanoTime();
+        Socket sslSocket = super.createLayeredSocket(socket, target, port, context);
+        tlsHandshakeTime.record(System.nanoTime() - startTime);
+        return sslSocket;
+    }
+}
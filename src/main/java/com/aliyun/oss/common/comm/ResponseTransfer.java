@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.protocol.HttpContext;
+
+import com.aliyun.oss.common.metrics.OperationMetrics;
+
+/**
+ * The response being read from a pooled connection. It's kept in the
+ * attributes of the connection, created with the first response and reused
+ * by the next ones, and the transfer is recorded when the pool takes the
+ * connection back, i.e. once the response body reaches its end or is closed.
+ */
+final class ResponseTransfer {
+    private static final String CONNECTION_ATTRIBUTE = "oss.response-transfer";
+
+    private long startNanos;
+    private long startBytes;
+    // written last by start and cleared by finish, null while no response is read
+    private volatile OperationMetrics metrics;
+
+    private ResponseTransfer() {
+    }
+
+    /**
+     * Starts the transfer of a response whose headers were just received.
+     * 
+     * @param startBytes
+     *            The bytes the connection had received before the request
+     *            was sent, so the response headers are counted too.
+     */
+    static void start(HttpClientConnection conn, OperationMetrics metrics, long startNanos, long startBytes) {
+        if (!(conn instanceof HttpContext)) {
+            return;
+        }
+        HttpContext context = (HttpContext) conn;
+        ResponseTransfer transfer = (ResponseTransfer) context.getAttribute(CONNECTION_ATTRIBUTE);
+        if (transfer == null) {
+            transfer = new ResponseTransfer();
+            context.setAttribute(CONNECTION_ATTRIBUTE, transfer);
+        }
+        transfer.startNanos = startNanos;
+        transfer.startBytes = startBytes;
+        transfer.metrics = metrics;
+    }
+
+    /**
+     * Records the transfer of the response read from a connection which is
+     * released, if any.
+     */
+    static void finish(HttpClientConnection conn) {
+        if (!(conn instanceof HttpContext)) {
+            return;
+        }
+        try {
+            ResponseTransfer transfer = (ResponseTransfer) ((HttpContext) conn).getAttribute(CONNECTION_ATTRIBUTE);
+            OperationMetrics metrics = transfer != null ? transfer.metrics : null;
+            if (metrics == null) {
+                return;
+            }
+            transfer.metrics = null;
+            metrics.recordTransfer(System.nanoTime() - transfer.startNanos,
+                    conn.getMetrics().getReceivedBytesCount() - transfer.startBytes);
+        } catch (IllegalStateException e) {
+            // the connection was detached from the pool already
+        }
+    }
+}
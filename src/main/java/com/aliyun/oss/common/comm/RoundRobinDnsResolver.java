@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import static com.aliyun.oss.common.utils.LogUtils.getLog;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+
+/**
+ * A {@link DnsResolver} which spreads new connections across all the
+ * addresses of a host.
+ * <p>
+ * The connection operator tries the resolved addresses in order, so each
+ * resolution returns the addresses rotated by one, round robin. Resolutions
+ * are cached for a fixed time to live, and the stale addresses are kept if a
+ * refresh fails. An address which fails to connect several times in a row is
+ * quarantined: it's moved behind the healthy addresses for a while, so it's
+ * still tried when nothing else works.
+ * </p>
+ */
+public class RoundRobinDnsResolver implements DnsResolver {
+    public static final long DEFAULT_TTL = 60 * 1000;
+    public static final int DEFAULT_MAX_FAILURES = 3;
+    public static final long DEFAULT_QUARANTINE_TIME = 30 * 1000;
+
+    private static class Resolution {
+        final InetAddress[] addresses;
+        final long expiresAt;
+        final AtomicInteger next = new AtomicInteger();
+
+        Resolution(InetAddress[] addresses, long expiresAt) {
+            this.addresses = addresses;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class AddressHealth {
+        final AtomicInteger consecutiveFailures = new AtomicInteger();
+        volatile long quarantinedUntil;
+    }
+
+    private final DnsResolver delegate;
+    private final long ttl;
+    private final int maxFailures;
+    private final long quarantineTime;
+    private final ConcurrentMap<String, Resolution> resolutions = new ConcurrentHashMap<String, Resolution>();
+    private final ConcurrentMap<InetAddress, AddressHealth> health = new ConcurrentHashMap<InetAddress, AddressHealth>();
+
+    public RoundRobinDnsResolver() {
+        this(SystemDefaultDnsResolver.INSTANCE, DEFAULT_TTL, DEFAULT_MAX_FAILURES, DEFAULT_QUARANTINE_TIME);
+    }
+
+    /**
+     * @param delegate
+     *            The resolver which looks up the addresses.
+     * @param ttl
+     *            How long in milliseconds the addresses of a host are cached.
+     * @param maxFailures
+     *            The consecutive connect failures which quarantine an address.
+     * @param quarantineTime
+     *            How long in milliseconds a failing address is tried last.
+     */
+    public RoundRobinDnsResolver(DnsResolver delegate, long ttl, int maxFailures, long quarantineTime) {
+        this.delegate = delegate;
+        this.ttl = ttl;
+        this.maxFailures = maxFailures;
+        this.quarantineTime = quarantineTime;
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        long now = System.currentTimeMillis();
+        Resolution resolution = resolutions.get(host);
+        if (resolution == null || resolution.expiresAt <= now) {
+            try {
+                resolution = new Resolution(delegate.resolve(host), now + ttl);
+                resolutions.put(host, resolution);
+            } catch (UnknownHostException e) {
+                if (resolution == null) {
+                    throw e;
+                }
+                getLog().warn("Unable to resolve " + host + ", keep using the cached addresses: " + e.getMessage());
+            }
+        }
+
+        InetAddress[] addresses = resolution.addresses;
+        int count = addresses.length;
+        InetAddress[] ordered = new InetAddress[count];
+        int start = count > 1 ? (resolution.next.getAndIncrement() & Integer.MAX_VALUE) % count : 0;
+        int healthy = 0;
+        int quarantined = count;
+        for (int i = 0; i < count; i++) {
+            InetAddress address = addresses[(start + i) % count];
+            if (isQuarantined(address, now)) {
+                ordered[--quarantined] = address;
+            } else {
+                ordered[healthy++] = address;
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Records a successful connection to an address.
+     */
+    public void connectSucceeded(InetAddress address) {
+        AddressHealth addressHealth = health.get(address);
+        if (addressHealth != null) {
+            addressHealth.consecutiveFailures.set(0);
+            addressHealth.quarantinedUntil = 0;
+        }
+    }
+
+    /**
+     * Records a failed connection to an address.
+     */
+    public void connectFailed(InetAddress address) {
+        AddressHealth addressHealth = health.get(address);
+        if (addressHealth == null) {
+            AddressHealth created = new AddressHealth();
+            addressHealth = health.putIfAbsent(address, created);
+            if (addressHealth == null) {
+                addressHealth = created;
+            }
+        }
+        if (addressHealth.consecutiveFailures.incrementAndGet() >= maxFailures) {
+            addressHealth.quarantinedUntil = System.currentTimeMillis() + quarantineTime;
+            getLog().warn("Connections to " + address + " failed " + addressHealth.consecutiveFailures.get()
+                    + " times, quarantined for " + quarantineTime + "ms");
+        }
+    }
+
+    /**
+     * Gets whether an address is quarantined after repeated connect failures.
+     */
+    public boolean isQuarantined(InetAddress address) {
+        return isQuarantined(address, System.currentTimeMillis());
+    }
+
+    private boolean isQuarantined(InetAddress address, long now) {
+        AddressHealth addressHealth = health.get(address);
+        return addressHealth != null && addressHealth.quarantinedUntil > now;
+    }
+
+    /**
+     * Gets whether an exception thrown while connecting means the address is
+     * unreachable.
+     */
+    static boolean isConnectFailure(IOException e) {
+        return e instanceof ConnectException || e instanceof NoRouteToHostException
+                || e instanceof SocketTimeoutException;
+    }
+}
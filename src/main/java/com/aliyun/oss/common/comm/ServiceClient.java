@@ -28,19 +28,31 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.HttpMessage;
+import org.apache.http.HttpStatus;
 
 import com.aliyun.oss.ClientConfiguration;
+import com.aliyun.oss.ClientErrorCode;
 import com.aliyun.oss.ClientException;
 import com.aliyun.oss.HttpMethod;
 import com.aliyun.oss.ServiceException;
 import com.aliyun.oss.common.auth.RequestSigner;
+import com.aliyun.oss.common.metrics.ConnectionPoolStatistics;
+import com.aliyun.oss.common.metrics.RequestMetrics;
+import com.aliyun.oss.common.metrics.RequestTimings;
 import com.aliyun.oss.common.utils.HttpUtil;
 import com.aliyun.oss.common.utils.LogUtils;
 import com.aliyun.oss.common.utils.HttpHeaders;
 import com.aliyun.oss.internal.OSSConstants;
+import com.aliyun.oss.internal.ResolvedEndpointCache;
 
 /**
  * Abstract service client that provides interfaces to access OSS services.
@@ -48,6 +60,10 @@ import com.aliyun.oss.internal.OSSConstants;
 public abstract class ServiceClient {
 
     protected ClientConfiguration config;
+    protected RequestMetrics requestMetrics = new RequestMetrics();
+    protected ConcurrentMap<String, AdaptiveConcurrencyLimiter> concurrencyLimiters =
+            new ConcurrentHashMap<String, AdaptiveConcurrencyLimiter>();
+    protected final ResolvedEndpointCache resolvedEndpointCache = new ResolvedEndpointCache();
 
     protected ServiceClient(ClientConfiguration config) {
         this.config = config;
@@ -57,6 +73,13 @@ public abstract class ServiceClient {
         return this.config;
     }
 
+    /**
+     * Gets the cache of the bucket endpoints this client resolved.
+     */
+    public ResolvedEndpointCache getResolvedEndpointCache() {
+        return resolvedEndpointCache;
+    }
+
     /**
      * Send HTTP request with specified context to OSS and wait for HTTP
      * response.
@@ -85,15 +108,20 @@ public abstract class ServiceClient {
 
         RetryStrategy retryStrategy = context.getRetryStrategy() != null ? context.getRetryStrategy()
                 : this.getDefaultRetryStrategy();
+        RequestTimings timings = context.getRequestTimings();
 
         // Sign the request if a signer provided.
+        long signStartTime = System.nanoTime();
         if (context.getSigner() != null && !request.isUseUrlSignature()) {
             context.getSigner().sign(request);
         }
 
-        for (RequestSigner signer : context.getSignerHandlers()) {
+        for (RequestSigner signer : context.signerHandlers()) {
             signer.sign(request);
         }
+        if (timings != null) {
+            timings.setSignNanos(System.nanoTime() - signStartTime);
+        }
 
         InputStream requestContent = request.getContent();
         if (requestContent != null && requestContent.markSupported()) {
@@ -123,7 +151,7 @@ public abstract class ServiceClient {
                  */
 
                 // Step 1. Preprocess HTTP request.
-                handleRequest(request, context.getResquestHandlers());
+                handleRequest(request, context.requestHandlers());
 
                 // Step 2. Build HTTP request with specified request parameters
                 // and context.
@@ -131,15 +159,18 @@ public abstract class ServiceClient {
 
                 // Step 3. Send HTTP request to OSS.
                 String poolStatsInfo = config.isLogConnectionPoolStatsEnable()? "Connection pool stats " + getConnectionPoolStats():"";
-                long startTime = System.currentTimeMillis();
-                response = sendRequestCore(httpRequest, context);
-                long duration = System.currentTimeMillis() - startTime;
+                if (timings != null) {
+                    timings.setRetries(retries);
+                }
+                long startTime = System.nanoTime();
+                response = sendRequestLimited(request, httpRequest, context);
+                long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
                 if (duration > config.getSlowRequestsThreshold()) {
                     LogUtils.getLog().warn(formatSlowRequestLog(request, response, duration) + poolStatsInfo);
                 }
 
                 // Step 4. Preprocess HTTP response.
-                handleResponse(response, context.getResponseHandlers());
+                handleResponse(response, context.responseHandlers());
 
                 return response;
             } catch (ServiceException sex) {
@@ -177,6 +208,66 @@ public abstract class ServiceClient {
         }
     }
 
+    /**
+     * Sends the request within the concurrency limit of its endpoint, if the
+     * adaptive concurrency limiter is enabled.
+     */
+    private ResponseMessage sendRequestLimited(RequestMessage request, Request httpRequest, ExecutionContext context)
+            throws IOException {
+        AdaptiveConcurrencyLimiter limiter = getConcurrencyLimiter(request);
+        if (limiter == null) {
+            return sendRequestCore(httpRequest, context);
+        }
+
+        try {
+            if (!limiter.acquire(config.getConcurrencyLimitTimeout())) {
+                throw new ClientException("Timed out waiting for a request slot of " + request.getEndpoint()
+                        + ", concurrency limit " + limiter.getLimit(), ClientErrorCode.CONCURRENCY_LIMIT_EXCEEDED,
+                        null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException(e.getMessage(), e);
+        }
+
+        long startTime = System.nanoTime();
+        ResponseMessage response = null;
+        boolean dropped = false;
+        try {
+            response = sendRequestCore(httpRequest, context);
+            dropped = isThrottled(response);
+            return response;
+        } catch (ClientException e) {
+            dropped = ClientErrorCode.CONNECTION_TIMEOUT.equals(e.getErrorCode())
+                    || ClientErrorCode.SOCKET_TIMEOUT.equals(e.getErrorCode());
+            throw e;
+        } finally {
+            limiter.release(startTime, response != null ? System.nanoTime() - startTime : -1, dropped);
+        }
+    }
+
+    private AdaptiveConcurrencyLimiter getConcurrencyLimiter(RequestMessage request) {
+        if (!config.isAdaptiveConcurrencyEnabled() || request.getEndpoint() == null) {
+            return null;
+        }
+        String endpoint = request.getEndpoint().getAuthority();
+        AdaptiveConcurrencyLimiter limiter = concurrencyLimiters.get(endpoint);
+        if (limiter == null) {
+            AdaptiveConcurrencyLimiter created = new AdaptiveConcurrencyLimiter(config.getInitialConcurrencyLimit(),
+                    1, config.getMaxConnections());
+            limiter = concurrencyLimiters.putIfAbsent(endpoint, created);
+            if (limiter == null) {
+                limiter = created;
+            }
+        }
+        return limiter;
+    }
+
+    private static boolean isThrottled(ResponseMessage response) {
+        int statusCode = response.getStatusCode();
+        return statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE || statusCode == 429;
+    }
+
     /**
      * Implements the core logic to send requests to Aliyun OSS services.
      */
@@ -320,10 +411,47 @@ public abstract class ServiceClient {
 
     public abstract void shutdown();
 
+    /**
+     * Gets the latency breakdown of the requests sent by this client, recorded
+     * when {@link ClientConfiguration#isRequestMetricsEnabled()} is set.
+     */
+    public RequestMetrics getRequestMetrics() {
+        return requestMetrics;
+    }
+
+    /**
+     * Gets the adaptive concurrency limiters by endpoint authority, empty if
+     * {@link ClientConfiguration#isAdaptiveConcurrencyEnabled()} is not set.
+     */
+    public Map<String, AdaptiveConcurrencyLimiter> getConcurrencyLimiters() {
+        return Collections.unmodifiableMap(concurrencyLimiters);
+    }
+
+    /**
+     * Opens connections to an endpoint and keeps them in the pool.
+     * 
+     * @param endpoint
+     *            The resolved endpoint, e.g. the bucket's virtual host.
+     * @param connections
+     *            The number of connections.
+     * @return The number of connections ready in the pool, 0 if the client
+     *         does not pool connections.
+     */
+    public int prewarm(URI endpoint, int connections) {
+        return 0;
+    }
+
     public String getConnectionPoolStats() {
         return "";
     };
 
+    /**
+     * Gets the statistics of the connection pool, null if the pool is not instrumented.
+     */
+    public ConnectionPoolStatistics getConnectionPoolStatistics() {
+        return null;
+    }
+
     /**
      * Wrapper class based on {@link HttpMessage} that represents HTTP request
      * message to OSS.
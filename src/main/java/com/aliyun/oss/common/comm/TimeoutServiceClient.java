@@ -40,6 +40,7 @@ import com.aliyun.oss.ClientConfiguration;
 import com.aliyun.oss.ClientException;
 import com.aliyun.oss.OSSErrorCode;
 import com.aliyun.oss.OSSException;
+import com.aliyun.oss.common.metrics.RequestTimings;
 import com.aliyun.oss.common.utils.ExceptionFactory;
 
 /**
@@ -63,6 +64,9 @@ public class TimeoutServiceClient extends DefaultServiceClient {
         HttpRequestBase httpRequest = httpRequestFactory.createHttpRequest(request, context);
         HttpClientContext httpContext = HttpClientContext.create();
         httpContext.setRequestConfig(this.requestConfig);
+        if (context.getRequestTimings() != null) {
+            httpContext.setAttribute(RequestTimings.HTTP_CONTEXT_ATTRIBUTE, context.getRequestTimings());
+        }
 
         CloseableHttpResponse httpResponse = null;
         HttpRequestTask httpRequestTask = new HttpRequestTask(httpRequest, httpContext);
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A snapshot of the connection pool of a client.
+ */
+public class ConnectionPoolStatistics {
+
+    /**
+     * The connections of one route (scheme, host and port).
+     */
+    public static class RouteStatistics {
+        private final int leased;
+        private final int available;
+        private final int pending;
+        private final int max;
+
+        public RouteStatistics(int leased, int available, int pending, int max) {
+            this.leased = leased;
+            this.available = available;
+            this.pending = pending;
+            this.max = max;
+        }
+
+        /**
+         * Gets the number of connections in use.
+         */
+        public int getLeased() {
+            return leased;
+        }
+
+        /**
+         * Gets the number of idle connections kept in the pool.
+         */
+        public int getAvailable() {
+            return available;
+        }
+
+        /**
+         * Gets the number of requests waiting for a connection.
+         */
+        public int getPending() {
+            return pending;
+        }
+
+        /**
+         * Gets the maximum number of connections.
+         */
+        public int getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "[leased: " + leased + "; pending: " + pending + "; available: " + available + "; max: " + max
+                    + "]";
+        }
+    }
+
+    private final RouteStatistics total;
+    private final Map<String, RouteStatistics> routes;
+    private final LatencyHistogram.Snapshot leaseWaitTime;
+    private final LatencyHistogram.Snapshot connectTime;
+    private final LatencyHistogram.Snapshot tlsHandshakeTime;
+    private final long leasedConnections;
+    private final long createdConnections;
+
+    public ConnectionPoolStatistics(RouteStatistics total, Map<String, RouteStatistics> routes,
+            LatencyHistogram.Snapshot leaseWaitTime, LatencyHistogram.Snapshot connectTime,
+            LatencyHistogram.Snapshot tlsHandshakeTime, long leasedConnections, long createdConnections) {
+        this.total = total;
+        this.routes = Collections.unmodifiableMap(routes);
+        this.leaseWaitTime = leaseWaitTime;
+        this.connectTime = connectTime;
+        this.tlsHandshakeTime = tlsHandshakeTime;
+        this.leasedConnections = leasedConnections;
+        this.createdConnections = createdConnections;
+    }
+
+    /**
+     * Gets the connections of the whole pool.
+     */
+    public RouteStatistics getTotal() {
+        return total;
+    }
+
+    /**
+     * Gets the connections per route, keyed by the route target such as
+     * https://bucket.oss-cn-hangzhou.aliyuncs.com:443.
+     */
+    public Map<String, RouteStatistics> getRoutes() {
+        return routes;
+    }
+
+    /**
+     * Gets the time requests waited for a connection from the pool.
+     */
+    public LatencyHistogram.Snapshot getLeaseWaitTime() {
+        return leaseWaitTime;
+    }
+
+    /**
+     * Gets the time to open new connections, including the TLS handshake.
+     */
+    public LatencyHistogram.Snapshot getConnectTime() {
+        return connectTime;
+    }
+
+    /**
+     * Gets the time of TLS handshakes.
+     */
+    public LatencyHistogram.Snapshot getTlsHandshakeTime() {
+        return tlsHandshakeTime;
+    }
+
+    /**
+     * Gets the number of connections leased from the pool since the client was created.
+     */
+    public long getLeasedConnections() {
+        return leasedConnections;
+    }
+
+    /**
+     * Gets the number of connections opened since the client was created.
+     */
+    public long getCreatedConnections() {
+        return createdConnections;
+    }
+
+    /**
+     * Gets the ratio of leases which were served by an already opened connection.
+     */
+    public double getReuseRatio() {
+        if (leasedConnections == 0) {
+            return 0;
+        }
+        return Math.max(0, 1 - (double) createdConnections / leasedConnections);
+    }
+
+    @Override
+    public String toString() {
+        return "[total: " + total + "; routes: " + routes + "; leaseWaitTime: " + leaseWaitTime + "; connectTime: "
+                + connectTime + "; tlsHandshakeTime: " + tlsHandshakeTime + "; reuseRatio: "
+                + String.format("%.3f", getReuseRatio()) + "]";
+    }
+}
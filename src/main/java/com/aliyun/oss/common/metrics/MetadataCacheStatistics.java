@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.metrics;
+
+/**
+ * A snapshot of the object metadata cache of a client.
+ */
+public class MetadataCacheStatistics {
+    private final int size;
+    private final int maxEntries;
+    private final long hitCount;
+    private final long missCount;
+    private final long revalidationCount;
+    private final long notModifiedCount;
+    private final long evictionCount;
+    private final long invalidationCount;
+
+    public MetadataCacheStatistics(int size, int maxEntries, long hitCount, long missCount, long revalidationCount,
+            long notModifiedCount, long evictionCount, long invalidationCount) {
+        this.size = size;
+        this.maxEntries = maxEntries;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.revalidationCount = revalidationCount;
+        this.notModifiedCount = notModifiedCount;
+        this.evictionCount = evictionCount;
+        this.invalidationCount = invalidationCount;
+    }
+
+    /**
+     * Gets the number of cached entries.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the maximum number of cached entries.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Gets the number of lookups served from the cache without a request.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of lookups of keys which were not cached.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the number of lookups of expired entries, which were revalidated
+     * with a conditional request.
+     */
+    public long getRevalidationCount() {
+        return revalidationCount;
+    }
+
+    /**
+     * Gets the number of revalidations answered by 304 Not Modified, which
+     * renewed the cached entry.
+     */
+    public long getNotModifiedCount() {
+        return notModifiedCount;
+    }
+
+    /**
+     * Gets the number of entries dropped because the cache was full.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Gets the number of entries dropped by the writes of this client.
+     */
+    public long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    /**
+     * Gets the ratio of lookups which were served without a HEAD request
+     * transferring the metadata, i.e. hits and 304 revalidations.
+     */
+    public double getHitRatio() {
+        long lookups = hitCount + missCount + revalidationCount;
+        if (lookups == 0) {
+            return 0;
+        }
+        return (double) (hitCount + notModifiedCount) / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "[size: " + size + "; maxEntries: " + maxEntries + "; hits: " + hitCount + "; misses: " + missCount
+                + "; revalidations: " + revalidationCount + "; notModified: " + notModifiedCount + "; evictions: "
+                + evictionCount + "; invalidations: " + invalidationCount + "; hitRatio: "
+                + String.format("%.3f", getHitRatio()) + "]";
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.metrics;
+
+/**
+ * A snapshot of the local disk cache of object contents of a client.
+ */
+public class ObjectCacheStatistics {
+    private final long size;
+    private final long maxSize;
+    private final int fileCount;
+    private final int entryCount;
+    private final long hitCount;
+    private final long missCount;
+    private final long revalidationCount;
+    private final long notModifiedCount;
+    private final long evictionCount;
+    private final long bytesServed;
+    private final long bytesDownloaded;
+
+    public ObjectCacheStatistics(long size, long maxSize, int fileCount, int entryCount, long hitCount,
+            long missCount, long revalidationCount, long notModifiedCount, long evictionCount, long bytesServed,
+            long bytesDownloaded) {
+        this.size = size;
+        this.maxSize = maxSize;
+        this.fileCount = fileCount;
+        this.entryCount = entryCount;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.revalidationCount = revalidationCount;
+        this.notModifiedCount = notModifiedCount;
+        this.evictionCount = evictionCount;
+        this.bytesServed = bytesServed;
+        this.bytesDownloaded = bytesDownloaded;
+    }
+
+    /**
+     * Gets the total size in bytes of the cached files.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the maximum total size in bytes of the cached files.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Gets the number of cached files. Objects with the same content share
+     * one file.
+     */
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * Gets the number of cached bucket, key and version id entries.
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Gets the number of reads served from the cache without a request.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of reads of keys which were not cached.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the number of reads of expired entries, which were revalidated
+     * with a conditional request.
+     */
+    public long getRevalidationCount() {
+        return revalidationCount;
+    }
+
+    /**
+     * Gets the number of revalidations answered by 304 Not Modified, which
+     * were served from the cache.
+     */
+    public long getNotModifiedCount() {
+        return notModifiedCount;
+    }
+
+    /**
+     * Gets the number of files deleted because the cache was full.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Gets the number of bytes of the reads served from the cache.
+     */
+    public long getBytesServed() {
+        return bytesServed;
+    }
+
+    /**
+     * Gets the number of bytes downloaded into the cache.
+     */
+    public long getBytesDownloaded() {
+        return bytesDownloaded;
+    }
+
+    @Override
+    public String toString() {
+        return "[size: " + size + "; maxSize: " + maxSize + "; files: " + fileCount + "; entries: " + entryCount
+                + "; hits: " + hitCount + "; misses: " + missCount + "; revalidations: " + revalidationCount
+                + "; notModified: " + notModifiedCount + "; evictions: " + evictionCount + "; bytesServed: "
+                + bytesServed + "; bytesDownloaded: " + bytesDownloaded + "]";
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency breakdown and counters of one operation type on one bucket.
+ * Recording is lock free and does not allocate.
+ */
+public class OperationMetrics {
+    private final String operation;
+    private final String bucketName;
+
+    private final LatencyHistogram signTime = new LatencyHistogram();
+    private final LatencyHistogram leaseWaitTime = new LatencyHistogram();
+    private final LatencyHistogram connectTime = new LatencyHistogram();
+    private final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+    private final LatencyHistogram transferTime = new LatencyHistogram();
+    private final LatencyHistogram parseTime = new LatencyHistogram();
+    private final LatencyHistogram totalTime = new LatencyHistogram();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    public OperationMetrics(String operation, String bucketName) {
+        this.operation = operation;
+        this.bucketName = bucketName;
+    }
+
+    /**
+     * Records a finished operation.
+     * 
+     * @param timings
+     *            The phases of the operation.
+     * @param endNanos
+     *            The {@link System#nanoTime()} the operation finished at.
+     * @param succeeded
+     *            Whether the operation returned a result.
+     */
+    public void record(RequestTimings timings, long endNanos, boolean succeeded) {
+        requests.incrementAndGet();
+        if (!succeeded) {
+            errors.incrementAndGet();
+        }
+        if (timings.getRetries() > 0) {
+            retries.addAndGet(timings.getRetries());
+        }
+        if (timings.getBytesSent() > 0) {
+            bytesSent.addAndGet(timings.getBytesSent());
+        }
+        signTime.record(timings.getSignNanos());
+        leaseWaitTime.record(timings.getLeaseWaitNanos());
+        if (timings.getConnectNanos() > 0) {
+            connectTime.record(timings.getConnectNanos());
+        }
+        if (timings.getTimeToFirstByteNanos() >= 0) {
+            timeToFirstByte.record(timings.getTimeToFirstByteNanos());
+        }
+        if (timings.getParseNanos() >= 0) {
+            parseTime.record(timings.getParseNanos());
+        }
+        totalTime.record(endNanos - timings.getStartNanos());
+    }
+
+    /**
+     * Records the download of a response, from the response headers to the
+     * end or the close of the body. The bytes include the response headers.
+     */
+    public void recordTransfer(long nanos, long bytes) {
+        transferTime.record(nanos);
+        bytesReceived.addAndGet(bytes);
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    /**
+     * Gets the time spent signing requests.
+     */
+    public LatencyHistogram getSignTime() {
+        return signTime;
+    }
+
+    /**
+     * Gets the time spent waiting for pooled connections.
+     */
+    public LatencyHistogram getLeaseWaitTime() {
+        return leaseWaitTime;
+    }
+
+    /**
+     * Gets the time spent opening new connections, for the operations which
+     * opened one.
+     */
+    public LatencyHistogram getConnectTime() {
+        return connectTime;
+    }
+
+    /**
+     * Gets the time from sending the request to receiving the response
+     * headers.
+     */
+    public LatencyHistogram getTimeToFirstByte() {
+        return timeToFirstByte;
+    }
+
+    /**
+     * Gets the time from the response headers to the end or the close of the
+     * response body.
+     */
+    public LatencyHistogram getTransferTime() {
+        return transferTime;
+    }
+
+    /**
+     * Gets the time spent in the response parsers. Parsers which read the
+     * response body include the body download.
+     */
+    public LatencyHistogram getParseTime() {
+        return parseTime;
+    }
+
+    /**
+     * Gets the time of whole operations, including retries and parsing.
+     */
+    public LatencyHistogram getTotalTime() {
+        return totalTime;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    /**
+     * Gets the bytes read from the connections, response headers included.
+     */
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    @Override
+    public String toString() {
+        return "[operation: " + operation + "; bucket: " + bucketName + "; requests: " + requests.get()
+                + "; errors: " + errors.get() + "; retries: " + retries.get() + "; bytesSent: " + bytesSent.get()
+                + "; bytesReceived: " + bytesReceived.get() + "; sign: " + signTime.snapshot() + "; leaseWait: "
+                + leaseWaitTime.snapshot() + "; connect: " + connectTime.snapshot() + "; timeToFirstByte: "
+                + timeToFirstByte.snapshot() + "; transfer: " + transferTime.snapshot() + "; parse: "
+                + parseTime.snapshot() + "; total: " + totalTime.snapshot() + "]";
+    }
+}
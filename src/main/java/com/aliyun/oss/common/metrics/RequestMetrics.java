@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The {@link OperationMetrics} of a client, tagged by operation and bucket.
+ */
+public class RequestMetrics {
+    /**
+     * The number of buckets tracked separately for each operation, the others
+     * are recorded under {@link #OTHER_BUCKETS}.
+     */
+    public static final int MAX_BUCKETS_PER_OPERATION = 128;
+    public static final String OTHER_BUCKETS = "*";
+
+    private final ConcurrentMap<String, ConcurrentMap<String, OperationMetrics>> operations =
+            new ConcurrentHashMap<String, ConcurrentMap<String, OperationMetrics>>();
+
+    /**
+     * Gets the metrics of an operation on a bucket, creating them on first use.
+     * 
+     * @param operation
+     *            The operation name.
+     * @param bucketName
+     *            The bucket name, null for service level operations.
+     */
+    public OperationMetrics getOperationMetrics(String operation, String bucketName) {
+        ConcurrentMap<String, OperationMetrics> buckets = operations.get(operation);
+        if (buckets == null) {
+            ConcurrentMap<String, OperationMetrics> created = new ConcurrentHashMap<String, OperationMetrics>();
+            buckets = operations.putIfAbsent(operation, created);
+            if (buckets == null) {
+                buckets = created;
+            }
+        }
+
+        String tag = bucketName != null ? bucketName : "";
+        OperationMetrics metrics = buckets.get(tag);
+        if (metrics != null) {
+            return metrics;
+        }
+        if (buckets.size() >= MAX_BUCKETS_PER_OPERATION) {
+            tag = OTHER_BUCKETS;
+            metrics = buckets.get(tag);
+            if (metrics != null) {
+                return metrics;
+            }
+        }
+        OperationMetrics created = new OperationMetrics(operation, tag);
+        metrics = buckets.putIfAbsent(tag, created);
+        return metrics != null ? metrics : created;
+    }
+
+    /**
+     * Gets the metrics of all the operations recorded so far.
+     */
+    public List<OperationMetrics> getAllOperationMetrics() {
+        List<OperationMetrics> result = new ArrayList<OperationMetrics>();
+        for (ConcurrentMap<String, OperationMetrics> buckets : operations.values()) {
+            result.addAll(buckets.values());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.metrics;
+
+/**
+ * The phases of one operation, filled in as the request goes through the
+ * client. All durations are in nanoseconds. The execution context of the
+ * request holds them, so recording them allocates nothing.
+ */
+public interface RequestTimings {
+    /**
+     * The key of the timings in the http client context.
+     */
+    String HTTP_CONTEXT_ATTRIBUTE = "oss.request-timings";
+
+    /**
+     * Gets the metrics this operation is recorded to.
+     */
+    OperationMetrics getOperationMetrics();
+
+    long getStartNanos();
+
+    long getSignNanos();
+
+    void setSignNanos(long signNanos);
+
+    /**
+     * Gets the time spent waiting for pooled connections, summed over all
+     * attempts.
+     */
+    long getLeaseWaitNanos();
+
+    void addLeaseWaitNanos(long nanos);
+
+    /**
+     * Gets the time spent opening new connections, summed over all attempts.
+     */
+    long getConnectNanos();
+
+    void addConnectNanos(long nanos);
+
+    /**
+     * Gets the time from sending the request on an open connection to
+     * receiving the response headers, of the last attempt. -1 if no response
+     * was received.
+     */
+    long getTimeToFirstByteNanos();
+
+    void setTimeToFirstByteNanos(long timeToFirstByteNanos);
+
+    /**
+     * Gets the time spent in the response parser, -1 if the response was not
+     * parsed.
+     */
+    long getParseNanos();
+
+    void setParseNanos(long parseNanos);
+
+    int getRetries();
+
+    void setRetries(int retries);
+
+    /**
+     * Gets the bytes written to the connections, headers included, summed over
+     * all attempts.
+     */
+    long getBytesSent();
+
+    void addBytesSent(long bytes);
+}
@@ -105,6 +105,15 @@ public final class RequestMarshallers {
 
     }
 
+    /**
+     * Marshals a request body the caller needs the length and MD5 of, which
+     * it takes from the returned writer before sending
+     * {@link XmlWriter#toInputStream()}, without copying the body.
+     */
+    public interface XmlRequestMarshaller<R> extends Marshaller<XmlWriter, R> {
+
+    }
+
     public static final class StringMarshaller implements Marshaller<FixedLengthInputStream, String> {
 
         @Override
@@ -129,7 +138,7 @@ public final class RequestMarshallers {
     public static final class PutImageStyleRequestMarshaller implements RequestMarshaller<PutImageStyleRequest> {
         @Override
         public FixedLengthInputStream marshall(PutImageStyleRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             xmlBody.append("<Style>");
             xmlBody.append("<Content>" + request.GetStyle() + "</Content>");
             xmlBody.append("</Style>");
@@ -141,7 +150,7 @@ public final class RequestMarshallers {
 
         @Override
         public FixedLengthInputStream marshall(ImageProcess imageProcessConf) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             xmlBody.append("<BucketProcessConfiguration>");
             xmlBody.append("<CompliedHost>" + imageProcessConf.getCompliedHost() + "</CompliedHost>");
             if (imageProcessConf.isSourceFileProtect() != null
@@ -167,7 +176,7 @@ public final class RequestMarshallers {
     public static final class PutBucketImageRequestMarshaller implements RequestMarshaller<PutBucketImageRequest> {
         @Override
         public FixedLengthInputStream marshall(PutBucketImageRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             xmlBody.append("<Channel>");
             if (request.GetIsForbidOrigPicAccess()) {
                 xmlBody.append("<OrigPicForbidden>true</OrigPicForbidden>");
@@ -210,7 +219,7 @@ public final class RequestMarshallers {
 
         @Override
         public FixedLengthInputStream marshall(CreateBucketRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             if (request.getLocationConstraint() != null 
                     || request.getStorageClass() != null 
                     || request.getDataRedundancyType() != null) {
@@ -235,7 +244,7 @@ public final class RequestMarshallers {
 
         @Override
         public FixedLengthInputStream marshall(BucketReferer br) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             xmlBody.append("<RefererConfiguration>");
             xmlBody.append("<AllowEmptyReferer>" + br.isAllowEmptyReferer() + "</AllowEmptyReferer>");
 
@@ -259,7 +268,7 @@ public final class RequestMarshallers {
 
         @Override
         public FixedLengthInputStream marshall(SetBucketLoggingRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             xmlBody.append("<BucketLoggingStatus>");
             if (request.getTargetBucket() != null) {
                 xmlBody.append("<LoggingEnabled>");
@@ -283,7 +292,7 @@ public final class RequestMarshallers {
 
         @Override
         public FixedLengthInputStream marshall(SetBucketWebsiteRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             xmlBody.append("<WebsiteConfiguration>");
             if (request.getIndexDocument() != null) {
                 xmlBody.append("<IndexDocument>");
@@ -505,97 +514,96 @@ public final class RequestMarshallers {
 
         @Override
         public FixedLengthInputStream marshall(SetBucketLifecycleRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
-            xmlBody.append("<LifecycleConfiguration>");
+            XmlWriter xml = new XmlWriter(64 + request.getLifecycleRules().size() * 256);
+            xml.start("LifecycleConfiguration");
             for (LifecycleRule rule : request.getLifecycleRules()) {
-                xmlBody.append("<Rule>");
+                xml.start("Rule");
 
                 if (rule.getId() != null) {
-                    xmlBody.append("<ID>" + rule.getId() + "</ID>");
+                    xml.element("ID", rule.getId());
                 }
 
                 if (rule.getPrefix() != null) {
-                    xmlBody.append("<Prefix>" + rule.getPrefix() + "</Prefix>");
+                    xml.element("Prefix", rule.getPrefix());
                 } else {
-                    xmlBody.append("<Prefix></Prefix>");
+                    xml.start("Prefix").end("Prefix");
                 }
                 
                 if (rule.hasTags()) {
                     for (Map.Entry<String, String> tag : rule.getTags().entrySet()) {
-                        xmlBody.append("<Tag>");
-                        xmlBody.append("<Key>" + tag.getKey() + "</Key>");
-                        xmlBody.append("<Value>" + tag.getValue() + "</Value>");
-                        xmlBody.append("</Tag>");
+                        xml.start("Tag");
+                        xml.element("Key", tag.getKey());
+                        xml.element("Value", tag.getValue());
+                        xml.end("Tag");
                     }
                 }
 
                 if (rule.getStatus() == RuleStatus.Enabled) {
-                    xmlBody.append("<Status>Enabled</Status>");
+                    xml.element("Status", "Enabled");
                 } else {
-                    xmlBody.append("<Status>Disabled</Status>");
+                    xml.element("Status", "Disabled");
                 }
 
                 if (rule.getExpirationTime() != null) {
                     String formatDate = DateUtil.formatIso8601Date(rule.getExpirationTime());
-                    xmlBody.append("<Expiration><Date>" + formatDate + "</Date></Expiration>");
+                    xml.start("Expiration").element("Date", formatDate).end("Expiration");
                 } else if (rule.getExpirationDays() != 0) {
-                    xmlBody.append("<Expiration><Days>" + rule.getExpirationDays() + "</Days></Expiration>");
+                    xml.start("Expiration").element("Days", rule.getExpirationDays()).end("Expiration");
                 } else if (rule.getCreatedBeforeDate() != null) {
                     String formatDate = DateUtil.formatIso8601Date(rule.getCreatedBeforeDate());
-                    xmlBody.append(
-                            "<Expiration><CreatedBeforeDate>" + formatDate + "</CreatedBeforeDate></Expiration>");
+                    xml.start("Expiration").element("CreatedBeforeDate", formatDate).end("Expiration");
                 } else if (rule.getExpiredDeleteMarker() != null) {
-                    xmlBody.append("<Expiration><ExpiredObjectDeleteMarker>" + rule.getExpiredDeleteMarker() +
-                            "</ExpiredObjectDeleteMarker></Expiration>");
+                    xml.start("Expiration").element("ExpiredObjectDeleteMarker", rule.getExpiredDeleteMarker())
+                            .end("Expiration");
                 }
 
                 if (rule.hasAbortMultipartUpload()) {
                     AbortMultipartUpload abortMultipartUpload = rule.getAbortMultipartUpload();
+                    xml.start("AbortMultipartUpload");
                     if (abortMultipartUpload.getExpirationDays() != 0) {
-                        xmlBody.append("<AbortMultipartUpload><Days>" + abortMultipartUpload.getExpirationDays()
-                                + "</Days></AbortMultipartUpload>");
+                        xml.element("Days", abortMultipartUpload.getExpirationDays());
                     } else {
                         String formatDate = DateUtil.formatIso8601Date(abortMultipartUpload.getCreatedBeforeDate());
-                        xmlBody.append("<AbortMultipartUpload><CreatedBeforeDate>" + formatDate
-                                + "</CreatedBeforeDate></AbortMultipartUpload>");
+                        xml.element("CreatedBeforeDate", formatDate);
                     }
+                    xml.end("AbortMultipartUpload");
                 }
 
                 if (rule.hasStorageTransition()) {
                     for (StorageTransition storageTransition : rule.getStorageTransition()) {
-                        xmlBody.append("<Transition>");
+                        xml.start("Transition");
                         if (storageTransition.hasExpirationDays()) {
-                            xmlBody.append("<Days>" + storageTransition.getExpirationDays() + "</Days>");
+                            xml.element("Days", storageTransition.getExpirationDays());
                         } else if (storageTransition.hasCreatedBeforeDate()) {
                             String formatDate = DateUtil.formatIso8601Date(storageTransition.getCreatedBeforeDate());
-                            xmlBody.append("<CreatedBeforeDate>" + formatDate + "</CreatedBeforeDate>");
+                            xml.element("CreatedBeforeDate", formatDate);
                         }
-                        xmlBody.append("<StorageClass>" + storageTransition.getStorageClass() + "</StorageClass>");
-                        xmlBody.append("</Transition>");
+                        xml.element("StorageClass", storageTransition.getStorageClass());
+                        xml.end("Transition");
                     }
                 }
 
                 if (rule.hasNoncurrentVersionExpiration()) {
                     NoncurrentVersionExpiration expiration = rule.getNoncurrentVersionExpiration();
                     if (expiration.hasNoncurrentDays()) {
-                        xmlBody.append("<NoncurrentVersionExpiration><NoncurrentDays>" + expiration.getNoncurrentDays() +
-                                "</NoncurrentDays></NoncurrentVersionExpiration>");
+                        xml.start("NoncurrentVersionExpiration").element("NoncurrentDays", expiration.getNoncurrentDays())
+                                .end("NoncurrentVersionExpiration");
                     }
                 }
 
                 if (rule.hasNoncurrentVersionStorageTransitions()) {
                     for (NoncurrentVersionStorageTransition transition : rule.getNoncurrentVersionStorageTransitions()) {
-                        xmlBody.append("<NoncurrentVersionTransition>");
-                        xmlBody.append("<NoncurrentDays>" + transition.getNoncurrentDays() + "</NoncurrentDays>");
-                        xmlBody.append("<StorageClass>" + transition.getStorageClass() + "</StorageClass>");
-                        xmlBody.append("</NoncurrentVersionTransition>");
+                        xml.start("NoncurrentVersionTransition");
+                        xml.element("NoncurrentDays", transition.getNoncurrentDays());
+                        xml.element("StorageClass", transition.getStorageClass());
+                        xml.end("NoncurrentVersionTransition");
                     }
                 }
 
-                xmlBody.append("</Rule>");
+                xml.end("Rule");
             }
-            xmlBody.append("</LifecycleConfiguration>");
-            return stringMarshaller.marshall(xmlBody.toString());
+            xml.end("LifecycleConfiguration");
+            return xml.toInputStream();
         }
 
     }
@@ -604,42 +612,38 @@ public final class RequestMarshallers {
 
         @Override
         public FixedLengthInputStream marshall(SetBucketCORSRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
-            xmlBody.append("<CORSConfiguration>");
+            XmlWriter xml = new XmlWriter(64 + request.getCorsRules().size() * 256);
+            xml.start("CORSConfiguration");
             for (CORSRule rule : request.getCorsRules()) {
-                xmlBody.append("<CORSRule>");
+                xml.start("CORSRule");
 
                 for (String allowedOrigin : rule.getAllowedOrigins()) {
-                    xmlBody.append("<AllowedOrigin>" + allowedOrigin + "</AllowedOrigin>");
+                    xml.element("AllowedOrigin", allowedOrigin);
                 }
 
                 for (String allowedMethod : rule.getAllowedMethods()) {
-                    xmlBody.append("<AllowedMethod>" + allowedMethod + "</AllowedMethod>");
+                    xml.element("AllowedMethod", allowedMethod);
                 }
 
-                if (rule.getAllowedHeaders().size() > 0) {
-                    for (String allowedHeader : rule.getAllowedHeaders()) {
-                        xmlBody.append("<AllowedHeader>" + allowedHeader + "</AllowedHeader>");
-                    }
+                for (String allowedHeader : rule.getAllowedHeaders()) {
+                    xml.element("AllowedHeader", allowedHeader);
                 }
 
-                if (rule.getExposeHeaders().size() > 0) {
-                    for (String exposeHeader : rule.getExposeHeaders()) {
-                        xmlBody.append("<ExposeHeader>" + exposeHeader + "</ExposeHeader>");
-                    }
+                for (String exposeHeader : rule.getExposeHeaders()) {
+                    xml.element("ExposeHeader", exposeHeader);
                 }
 
                 if (null != rule.getMaxAgeSeconds()) {
-                    xmlBody.append("<MaxAgeSeconds>" + rule.getMaxAgeSeconds() + "</MaxAgeSeconds>");
+                    xml.element("MaxAgeSeconds", rule.getMaxAgeSeconds());
                 }
 
-                xmlBody.append("</CORSRule>");
+                xml.end("CORSRule");
             }
             if (null != request.getResponseVary()) {
-                xmlBody.append("<ResponseVary>" + request.getResponseVary() + "</ResponseVary>");
+                xml.element("ResponseVary", request.getResponseVary());
             }
-            xmlBody.append("</CORSConfiguration>");
-            return stringMarshaller.marshall(xmlBody.toString());
+            xml.end("CORSConfiguration");
+            return xml.toInputStream();
         }
 
     }
@@ -649,19 +653,19 @@ public final class RequestMarshallers {
 
         @Override
         public FixedLengthInputStream marshall(CompleteMultipartUploadRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
             List<PartETag> eTags = request.getPartETags();
-            xmlBody.append("<CompleteMultipartUpload>");
+            // a part is about 100 bytes with a 32 characters ETag
+            XmlWriter xml = new XmlWriter(64 + eTags.size() * 100);
+            xml.start("CompleteMultipartUpload");
             for (int i = 0; i < eTags.size(); i++) {
                 PartETag part = eTags.get(i);
-                String eTag = EscapedChar.QUOT + part.getETag().replace("\"", "") + EscapedChar.QUOT;
-                xmlBody.append("<Part>");
-                xmlBody.append("<PartNumber>" + part.getPartNumber() + "</PartNumber>");
-                xmlBody.append("<ETag>" + eTag + "</ETag>");
-                xmlBody.append("</Part>");
+                xml.start("Part");
+                xml.element("PartNumber", part.getPartNumber());
+                xml.start("ETag").quoted(unquote(part.getETag())).end("ETag");
+                xml.end("Part");
             }
-            xmlBody.append("</CompleteMultipartUpload>");
-            return stringMarshaller.marshall(xmlBody.toString());
+            xml.end("CompleteMultipartUpload");
+            return xml.toInputStream();
         }
 
     }
@@ -707,158 +711,138 @@ public final class RequestMarshallers {
         }
     }
 
-    private static void populateSelectRange(StringBuilder xmlBody, SelectObjectRequest request) {
+    private static void populateSelectRange(XmlWriter xml, SelectObjectRequest request) {
         if (request.getLineRange() != null) {
-            xmlBody.append("<Range>" + request.lineRangeToString(request.getLineRange()) + "</Range>");
+            xml.element("Range", request.lineRangeToString(request.getLineRange()));
         }
         if (request.getSplitRange() != null) {
-            xmlBody.append("<Range>" + request.splitRangeToString(request.getSplitRange()) + "</Range>");
+            xml.element("Range", request.splitRangeToString(request.getSplitRange()));
         }
     }
 
-    private static void populateSelectJsonObjectRequest(StringBuilder xmlBody, SelectObjectRequest request) {
+    private static void populateSelectJsonObjectRequest(XmlWriter xml, SelectObjectRequest request) {
         InputSerialization inputSerialization = request.getInputSerialization();
         JsonFormat jsonInputFormat = inputSerialization.getJsonInputFormat();
-        xmlBody.append("<InputSerialization>");
-        xmlBody.append("<CompressionType>" + inputSerialization.getCompressionType() + "</CompressionType>");
-        xmlBody.append("<JSON>");
-        xmlBody.append("<Type>" + jsonInputFormat.getJsonType().name() + "</Type>");
-        xmlBody.append("<ParseJsonNumberAsString>" + jsonInputFormat.isParseJsonNumberAsString() + "</ParseJsonNumberAsString>");
-        populateSelectRange(xmlBody, request);
-        xmlBody.append("</JSON>");
-        xmlBody.append("</InputSerialization>");
+        xml.start("InputSerialization");
+        xml.element("CompressionType", inputSerialization.getCompressionType());
+        xml.start("JSON");
+        xml.element("Type", jsonInputFormat.getJsonType().name());
+        xml.element("ParseJsonNumberAsString", jsonInputFormat.isParseJsonNumberAsString());
+        populateSelectRange(xml, request);
+        xml.end("JSON");
+        xml.end("InputSerialization");
 
         OutputSerialization outputSerialization = request.getOutputSerialization();
-        xmlBody.append("<OutputSerialization>");
-        xmlBody.append("<JSON>");
-        xmlBody.append("<RecordDelimiter>" + BinaryUtil.toBase64String(outputSerialization.getJsonOutputFormat().getRecordDelimiter().getBytes()) + "</RecordDelimiter>");
-        xmlBody.append("</JSON>");
-        xmlBody.append("<OutputRawData>" + outputSerialization.isOutputRawData() + "</OutputRawData>");
-        xmlBody.append("<EnablePayloadCrc>" + outputSerialization.isPayloadCrcEnabled() + "</EnablePayloadCrc>");
-        xmlBody.append("</OutputSerialization>");
+        xml.start("OutputSerialization");
+        xml.start("JSON");
+        xml.element("RecordDelimiter", BinaryUtil.toBase64String(outputSerialization.getJsonOutputFormat().getRecordDelimiter().getBytes()));
+        xml.end("JSON");
+        xml.element("OutputRawData", outputSerialization.isOutputRawData());
+        xml.element("EnablePayloadCrc", outputSerialization.isPayloadCrcEnabled());
+        xml.end("OutputSerialization");
     }
 
-    private static void populateSelectCsvObjectRequest(StringBuilder xmlBody, SelectObjectRequest request) {
+    private static void populateSelectCsvObjectRequest(XmlWriter xml, SelectObjectRequest request) {
         InputSerialization inputSerialization = request.getInputSerialization();
         CSVFormat csvInputFormat = inputSerialization.getCsvInputFormat();
-        xmlBody.append("<InputSerialization>");
-        xmlBody.append("<CompressionType>" + inputSerialization.getCompressionType() + "</CompressionType>");
-        xmlBody.append("<CSV>");
-        xmlBody.append("<FileHeaderInfo>" + csvInputFormat.getHeaderInfo() + "</FileHeaderInfo>");
-        xmlBody.append("<AllowQuotedRecordDelimiter>" + csvInputFormat.isAllowQuotedRecordDelimiter() + "</AllowQuotedRecordDelimiter>");
-        xmlBody.append("<RecordDelimiter>" + BinaryUtil.toBase64String(csvInputFormat.getRecordDelimiter().getBytes()) + "</RecordDelimiter>");
-        xmlBody.append("<FieldDelimiter>" + BinaryUtil.toBase64String(csvInputFormat.getFieldDelimiter().toString().getBytes()) + "</FieldDelimiter>");
-        xmlBody.append("<QuoteCharacter>" + BinaryUtil.toBase64String(csvInputFormat.getQuoteChar().toString().getBytes()) + "</QuoteCharacter>");
-        xmlBody.append("<CommentCharacter>" + BinaryUtil.toBase64String(csvInputFormat.getCommentChar().toString().getBytes()) + "</CommentCharacter>");
-        populateSelectRange(xmlBody, request);
-        xmlBody.append("</CSV>");
-        xmlBody.append("</InputSerialization>");
+        xml.start("InputSerialization");
+        xml.element("CompressionType", inputSerialization.getCompressionType());
+        xml.start("CSV");
+        xml.element("FileHeaderInfo", csvInputFormat.getHeaderInfo());
+        xml.element("AllowQuotedRecordDelimiter", csvInputFormat.isAllowQuotedRecordDelimiter());
+        xml.element("RecordDelimiter", BinaryUtil.toBase64String(csvInputFormat.getRecordDelimiter().getBytes()));
+        xml.element("FieldDelimiter", BinaryUtil.toBase64String(csvInputFormat.getFieldDelimiter().toString().getBytes()));
+        xml.element("QuoteCharacter", BinaryUtil.toBase64String(csvInputFormat.getQuoteChar().toString().getBytes()));
+        xml.element("CommentCharacter", BinaryUtil.toBase64String(csvInputFormat.getCommentChar().toString().getBytes()));
+        populateSelectRange(xml, request);
+        xml.end("CSV");
+        xml.end("InputSerialization");
 
         OutputSerialization outputSerialization = request.getOutputSerialization();
-        xmlBody.append("<OutputSerialization>");
-        xmlBody.append("<CSV>");
-        xmlBody.append("<RecordDelimiter>" + BinaryUtil.toBase64String(outputSerialization.getCsvOutputFormat().getRecordDelimiter().getBytes()) + "</RecordDelimiter>");
-        xmlBody.append("<FieldDelimiter>" + BinaryUtil.toBase64String(outputSerialization.getCsvOutputFormat().getFieldDelimiter().toString().getBytes()) + "</FieldDelimiter>");
-        xmlBody.append("<QuoteCharacter>" + BinaryUtil.toBase64String(outputSerialization.getCsvOutputFormat().getQuoteChar().toString().getBytes()) + "</QuoteCharacter>");
-        xmlBody.append("</CSV>");
-        xmlBody.append("<KeepAllColumns>" + outputSerialization.isKeepAllColumns() + "</KeepAllColumns>");
-        xmlBody.append("<OutputHeader>" + outputSerialization.isOutputHeader() + "</OutputHeader>");
-        xmlBody.append("<OutputRawData>" + outputSerialization.isOutputRawData() + "</OutputRawData>");
-        xmlBody.append("<EnablePayloadCrc>" + outputSerialization.isPayloadCrcEnabled() + "</EnablePayloadCrc>");
-        xmlBody.append("</OutputSerialization>");
+        xml.start("OutputSerialization");
+        xml.start("CSV");
+        xml.element("RecordDelimiter", BinaryUtil.toBase64String(outputSerialization.getCsvOutputFormat().getRecordDelimiter().getBytes()));
+        xml.element("FieldDelimiter", BinaryUtil.toBase64String(outputSerialization.getCsvOutputFormat().getFieldDelimiter().toString().getBytes()));
+        xml.element("QuoteCharacter", BinaryUtil.toBase64String(outputSerialization.getCsvOutputFormat().getQuoteChar().toString().getBytes()));
+        xml.end("CSV");
+        xml.element("KeepAllColumns", outputSerialization.isKeepAllColumns());
+        xml.element("OutputHeader", outputSerialization.isOutputHeader());
+        xml.element("OutputRawData", outputSerialization.isOutputRawData());
+        xml.element("EnablePayloadCrc", outputSerialization.isPayloadCrcEnabled());
+        xml.end("OutputSerialization");
     }
 
-    public static final class SelectObjectRequestMarshaller implements RequestMarshaller2<SelectObjectRequest> {
+    public static final class SelectObjectRequestMarshaller implements XmlRequestMarshaller<SelectObjectRequest> {
 
         @Override
-        public byte[] marshall(SelectObjectRequest request) {
-            StringBuilder xmlBody = new StringBuilder();
-            xmlBody.append("<SelectRequest>");
+        public XmlWriter marshall(SelectObjectRequest request) {
+            XmlWriter xml = new XmlWriter(1024);
+            xml.start("SelectRequest");
 
-            xmlBody.append("<Expression>" + BinaryUtil.toBase64String(request.getExpression().getBytes()) + "</Expression>");
-            xmlBody.append("<Options>");
-            xmlBody.append("<SkipPartialDataRecord>" + request.isSkipPartialDataRecord() + "</SkipPartialDataRecord>");
+            xml.element("Expression", BinaryUtil.toBase64String(request.getExpression().getBytes()));
+            xml.start("Options");
+            xml.element("SkipPartialDataRecord", request.isSkipPartialDataRecord());
             if (request.getMaxSkippedRecordsAllowed() > 0) {
-                xmlBody.append("<MaxSkippedRecordsAllowed>" + request.getMaxSkippedRecordsAllowed() + "</MaxSkippedRecordsAllowed>");
+                xml.element("MaxSkippedRecordsAllowed", request.getMaxSkippedRecordsAllowed());
             }
-            xmlBody.append("</Options>");
+            xml.end("Options");
             InputSerialization inputSerialization = request.getInputSerialization();
             SelectContentFormat selectContentFormat = inputSerialization.getSelectContentFormat();
 
             if (selectContentFormat == SelectContentFormat.JSON) {
-                populateSelectJsonObjectRequest(xmlBody, request);
+                populateSelectJsonObjectRequest(xml, request);
             } else {
-                populateSelectCsvObjectRequest(xmlBody, request);
+                populateSelectCsvObjectRequest(xml, request);
             }
 
-            xmlBody.append("</SelectRequest>");
-
-            try {
-                return xmlBody.toString().getBytes(DEFAULT_CHARSET_NAME);
-            } catch (UnsupportedEncodingException e) {
-                throw new ClientException("Unsupported encoding " + e.getMessage(), e);
-            }
+            xml.end("SelectRequest");
+            return xml;
         }
     }
 
-    public static final class DeleteObjectsRequestMarshaller implements RequestMarshaller2<DeleteObjectsRequest> {
+    public static final class DeleteObjectsRequestMarshaller implements XmlRequestMarshaller<DeleteObjectsRequest> {
 
         @Override
-        public byte[] marshall(DeleteObjectsRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
+        public XmlWriter marshall(DeleteObjectsRequest request) {
             boolean quiet = request.isQuiet();
             List<String> keysToDelete = request.getKeys();
 
-            xmlBody.append("<Delete>");
-            xmlBody.append("<Quiet>" + quiet + "</Quiet>");
+            XmlWriter xml = new XmlWriter(64 + keysToDelete.size() * 64);
+            xml.start("Delete");
+            xml.element("Quiet", quiet);
             for (int i = 0; i < keysToDelete.size(); i++) {
                 String key = keysToDelete.get(i);
-                xmlBody.append("<Object>");
-                xmlBody.append("<Key>" + escapeKey(key) + "</Key>");
-                xmlBody.append("</Object>");
-            }
-            xmlBody.append("</Delete>");
-
-            byte[] rawData = null;
-            try {
-                rawData = xmlBody.toString().getBytes(DEFAULT_CHARSET_NAME);
-            } catch (UnsupportedEncodingException e) {
-                throw new ClientException("Unsupported encoding " + e.getMessage(), e);
+                xml.start("Object");
+                xml.escapedElement("Key", key);
+                xml.end("Object");
             }
-            return rawData;
+            xml.end("Delete");
+            return xml;
         }
 
     }
     
-    public static final class DeleteVersionsRequestMarshaller implements RequestMarshaller2<DeleteVersionsRequest> {
+    public static final class DeleteVersionsRequestMarshaller implements XmlRequestMarshaller<DeleteVersionsRequest> {
 
         @Override
-        public byte[] marshall(DeleteVersionsRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
+        public XmlWriter marshall(DeleteVersionsRequest request) {
             boolean quiet = request.getQuiet();
             List<KeyVersion> keysToDelete = request.getKeys();
 
-            xmlBody.append("<Delete>");
-            xmlBody.append("<Quiet>" + quiet + "</Quiet>");
+            XmlWriter xml = new XmlWriter(64 + keysToDelete.size() * 128);
+            xml.start("Delete");
+            xml.element("Quiet", quiet);
             for (int i = 0; i < keysToDelete.size(); i++) {
                 KeyVersion key = keysToDelete.get(i);
-                xmlBody.append("<Object>");
-                xmlBody.append("<Key>" +
-                    escapeKey(key.getKey()) + "</Key>");
+                xml.start("Object");
+                xml.escapedElement("Key", key.getKey());
                 if (key.getVersion() != null) {
-                    xmlBody.append("<VersionId>" + key.getVersion() + "</VersionId>");
+                    xml.element("VersionId", key.getVersion());
                 }
-                xmlBody.append("</Object>");
-            }
-            xmlBody.append("</Delete>");
-
-            byte[] rawData = null;
-            try {
-                rawData = xmlBody.toString().getBytes(DEFAULT_CHARSET_NAME);
-            } catch (UnsupportedEncodingException e) {
-                throw new ClientException("Unsupported encoding " + e.getMessage(), e);
+                xml.end("Object");
             }
-            return rawData;
+            xml.end("Delete");
+            return xml;
         }
 
     }
@@ -867,20 +851,17 @@ public final class RequestMarshallers {
 
         @Override
         public FixedLengthInputStream marshall(SetTaggingRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
-            TagSet tagSet = request.getTagSet();
-            xmlBody.append("<Tagging><TagSet>");
-            Map<String, String> tags = tagSet.getAllTags();
-            if (!tags.isEmpty()) {
-                for (Map.Entry<String, String> tag : tags.entrySet()) {
-                    xmlBody.append("<Tag>");
-                    xmlBody.append("<Key>" + tag.getKey() + "</Key>");
-                    xmlBody.append("<Value>" + tag.getValue() + "</Value>");
-                    xmlBody.append("</Tag>");
-                }
-            }
-            xmlBody.append("</TagSet></Tagging>");
-            return stringMarshaller.marshall(xmlBody.toString());
+            Map<String, String> tags = request.getTagSet().getAllTags();
+            XmlWriter xml = new XmlWriter(64 + tags.size() * 64);
+            xml.start("Tagging").start("TagSet");
+            for (Map.Entry<String, String> tag : tags.entrySet()) {
+                xml.start("Tag");
+                xml.element("Key", tag.getKey());
+                xml.element("Value", tag.getValue());
+                xml.end("Tag");
+            }
+            xml.end("TagSet").end("Tagging");
+            return xml.toInputStream();
         }
 
     }
@@ -890,7 +871,7 @@ public final class RequestMarshallers {
 
         @Override
         public FixedLengthInputStream marshall(AddBucketReplicationRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             xmlBody.append("<ReplicationConfiguration>");
             xmlBody.append("<Rule>");
             xmlBody.append("<ID>" + escapeKey(request.getReplicationRuleID()) + "</ID>");
@@ -954,7 +935,7 @@ public final class RequestMarshallers {
 
         @Override
         public byte[] marshall(DeleteBucketReplicationRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             xmlBody.append("<ReplicationRules>");
             xmlBody.append("<ID>" + escapeKey(request.getReplicationRuleID()) + "</ID>");
             xmlBody.append("</ReplicationRules>");
@@ -974,7 +955,7 @@ public final class RequestMarshallers {
 
         @Override
         public byte[] marshall(AddBucketCnameRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             xmlBody.append("<BucketCnameConfiguration>");
             xmlBody.append("<Cname>");
             xmlBody.append("<Domain>" + request.getDomain() + "</Domain>");
@@ -1027,7 +1008,7 @@ public final class RequestMarshallers {
 
         @Override
         public byte[] marshall(DeleteBucketCnameRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             xmlBody.append("<BucketCnameConfiguration>");
             xmlBody.append("<Cname>");
             xmlBody.append("<Domain>" + request.getDomain() + "</Domain>");
@@ -1049,7 +1030,7 @@ public final class RequestMarshallers {
 
         @Override
         public byte[] marshall(UserQos userQos) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             xmlBody.append("<BucketUserQos>");
             if (userQos.hasStorageCapacity()) {
                 xmlBody.append("<StorageCapacity>" + userQos.getStorageCapacity() + "</StorageCapacity>");
@@ -1072,7 +1053,7 @@ public final class RequestMarshallers {
 
         @Override
         public byte[] marshall(SetBucketVersioningRequest setBucketVersioningRequest) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             xmlBody.append("<VersioningConfiguration>");
             xmlBody
                 .append("<Status>" + setBucketVersioningRequest.getVersioningConfiguration().getStatus() + "</Status>");
@@ -1094,7 +1075,7 @@ public final class RequestMarshallers {
 
     	@Override
     	public byte[] marshall(SetBucketEncryptionRequest setBucketEncryptionRequest) {
-    		StringBuffer xmlBody = new StringBuffer();
+    		StringBuilder xmlBody = new StringBuilder();
     		ServerSideEncryptionConfiguration sseConfig =
     				setBucketEncryptionRequest.getServerSideEncryptionConfiguration();
     		ServerSideEncryptionByDefault sseByDefault = sseConfig.getApplyServerSideEncryptionByDefault();
@@ -1148,7 +1129,7 @@ public final class RequestMarshallers {
 
         @Override
         public byte[] marshall(CreateLiveChannelRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             xmlBody.append("<LiveChannelConfiguration>");
             xmlBody.append("<Description>" + request.getLiveChannelDescription() + "</Description>");
             xmlBody.append("<Status>" + request.getLiveChannelStatus() + "</Status>");
@@ -1177,7 +1158,7 @@ public final class RequestMarshallers {
 
         @Override
         public byte[] marshall(String payer) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             xmlBody.append("<RequestPaymentConfiguration>");
             xmlBody.append("<Payer>" +payer + "</Payer>");
             xmlBody.append("</RequestPaymentConfiguration>");
@@ -1197,7 +1178,7 @@ public final class RequestMarshallers {
 
         @Override
         public byte[] marshall(BucketQosInfo bucketQosInfo) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             xmlBody.append("<QoSConfiguration>");
             if (bucketQosInfo.getTotalUploadBw() != null) {
                 xmlBody.append("<TotalUploadBandwidth>" +bucketQosInfo.getTotalUploadBw() + "</TotalUploadBandwidth>");
@@ -1252,7 +1233,7 @@ public final class RequestMarshallers {
 
         @Override
         public byte[] marshall(AsyncFetchTaskConfiguration asyncFetchTaskConfiguration) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             xmlBody.append("<AsyncFetchTaskConfiguration>");
 
             if (asyncFetchTaskConfiguration.getUrl() != null) {
@@ -1297,7 +1278,7 @@ public final class RequestMarshallers {
             RequestMarshaller2<InventoryConfiguration> {
         @Override
         public byte[] marshall(InventoryConfiguration config) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
 
             xmlBody.append("<InventoryConfiguration>");
             if (config.getInventoryId() != null) {
@@ -1388,7 +1369,7 @@ public final class RequestMarshallers {
             RequestMarshaller2<InitiateBucketWormRequest> {
         @Override
         public byte[] marshall(InitiateBucketWormRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
 
             xmlBody.append("<InitiateWormConfiguration>");
             xmlBody.append("<RetentionPeriodInDays>" + request.getRetentionPeriodInDays() + "</RetentionPeriodInDays>");
@@ -1407,7 +1388,7 @@ public final class RequestMarshallers {
             RequestMarshaller2<ExtendBucketWormRequest> {
         @Override
         public byte[] marshall(ExtendBucketWormRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
 
             xmlBody.append("<ExtendWormConfiguration>");
             xmlBody.append("<RetentionPeriodInDays>" + request.getRetentionPeriodInDays()+ "</RetentionPeriodInDays>");
@@ -1426,7 +1407,7 @@ public final class RequestMarshallers {
 
         @Override
         public byte[] marshall(String resourceGroupId) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             xmlBody.append("<BucketResourceGroupConfiguration>");
             xmlBody.append("<ResourceGroupId>" + resourceGroupId + "</ResourceGroupId>");
             xmlBody.append("</BucketResourceGroupConfiguration>");
@@ -1446,7 +1427,7 @@ public final class RequestMarshallers {
 
         @Override
         public byte[] marshall(CreateUdfRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
 
             xmlBody.append("<CreateUDFConfiguration>");
             xmlBody.append("<Name>" + request.getName() + "</Name>");
@@ -1474,7 +1455,7 @@ public final class RequestMarshallers {
 
         @Override
         public byte[] marshall(CreateUdfApplicationRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             UdfApplicationConfiguration config = request.getUdfApplicationConfiguration();
 
             xmlBody.append("<CreateUDFApplicationConfiguration>");
@@ -1501,7 +1482,7 @@ public final class RequestMarshallers {
 
         @Override
         public byte[] marshall(UpgradeUdfApplicationRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
 
             xmlBody.append("<UpgradeUDFApplicationConfiguration>");
             xmlBody.append("<ImageVersion>" + request.getImageVersion() + "</ImageVersion>");
@@ -1523,7 +1504,7 @@ public final class RequestMarshallers {
 
         @Override
         public byte[] marshall(ResizeUdfApplicationRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
 
             xmlBody.append("<ResizeUDFApplicationConfiguration>");
             xmlBody.append("<InstanceNum>" + request.getInstanceNum() + "</InstanceNum>");
@@ -1544,7 +1525,7 @@ public final class RequestMarshallers {
 
         @Override
         public byte[] marshall(ProcessObjectRequest request) {
-            StringBuffer processBody = new StringBuffer();
+            StringBuilder processBody = new StringBuilder();
 
             processBody.append(RequestParameters.SUBRESOURCE_PROCESS);
             processBody.append("=" + request.getProcess());
@@ -1564,7 +1545,7 @@ public final class RequestMarshallers {
 
         @Override
         public FixedLengthInputStream marshall(CreateVpcipRequest request) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
 
             if (request.getRegion() != null || request.getVSwitchId() != null) {
                 xmlBody.append("<CreateVpcip>");
@@ -1589,7 +1570,7 @@ public final class RequestMarshallers {
 
         @Override
         public FixedLengthInputStream marshall(DeleteVpcipRequest deleteVpcipRequest) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             VpcPolicy request = deleteVpcipRequest.getVpcPolicy();
 
             if (request.getRegion() != null || request.getVpcId() != null || request.getVip() != null) {
@@ -1615,7 +1596,7 @@ public final class RequestMarshallers {
 
         @Override
         public FixedLengthInputStream marshall(VpcPolicy request) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
 
             if (request.getRegion() != null || request.getVpcId() != null || request.getVip() != null) {
                 xmlBody.append("<DeleteBucketVpcPolicy>");
@@ -1640,7 +1621,7 @@ public final class RequestMarshallers {
 
         @Override
         public FixedLengthInputStream marshall(CreateBucketVpcipRequest bucketVpcPolicyRequest) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             VpcPolicy request = bucketVpcPolicyRequest.getVpcPolicy();
 
             if (request.getRegion() != null || request.getVpcId() != null || request.getVip() != null) {
@@ -1667,7 +1648,7 @@ public final class RequestMarshallers {
 
         @Override
         public byte[] marshall(RestoreObjectRequest request) {
-            StringBuffer body = new StringBuffer();
+            StringBuilder body = new StringBuilder();
 
             body.append("<RestoreRequest>");
             body.append("<Days>" + request.getRestoreConfiguration().getDays() + "</Days>");
@@ -1695,7 +1676,7 @@ public final class RequestMarshallers {
     public static final class PutBucketTransferAccelerationRequestMarshaller implements RequestMarshaller2<SetBucketTransferAccelerationRequest> {
         @Override
         public byte[] marshall(SetBucketTransferAccelerationRequest input) {
-            StringBuffer xmlBody = new StringBuffer();
+            StringBuilder xmlBody = new StringBuilder();
             xmlBody.append("<TransferAccelerationConfiguration><Enabled>");
             xmlBody.append(input.isEnabled());
             xmlBody.append("</Enabled></TransferAccelerationConfiguration>");
@@ -1796,6 +1777,10 @@ public final class RequestMarshallers {
         return builder.toString();
     }
 
+    private static String unquote(String eTag) {
+        return eTag.indexOf('"') < 0 ? eTag : eTag.replace("\"", "");
+    }
+
     private static String joinRepliationAction(List<ReplicationAction> actions) {
         StringBuilder sb = new StringBuilder();
         boolean first = true;
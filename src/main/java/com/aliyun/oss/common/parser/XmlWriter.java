@@ -0,0 +1,291 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.parser;
+
+import java.io.ByteArrayInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.common.comm.io.FixedLengthInputStream;
+
+/**
+ * Writes an XML request body as UTF-8 straight into a growable byte buffer,
+ * without the intermediate StringBuffer, String and encoded copies. The
+ * buffer is handed to the request entity as is. Not thread safe.
+ */
+public final class XmlWriter {
+    private static final byte[] QUOT = bytes("&quot;");
+    private static final byte[] AMP = bytes("&amp;");
+    private static final byte[] LT = bytes("&lt;");
+    private static final byte[] GT = bytes("&gt;");
+    private static final byte[] TAB = bytes("&#x0009;");
+    private static final byte[] NEWLINE = bytes("&#x000A;");
+    private static final byte[] RETURN = bytes("&#x000D;");
+
+    private byte[] buf;
+    private int count;
+
+    public XmlWriter() {
+        this(256);
+    }
+
+    /**
+     * @param initialCapacity
+     *            The initial buffer size, an estimate of the body size avoids
+     *            growing the buffer.
+     */
+    public XmlWriter(int initialCapacity) {
+        this.buf = new byte[Math.max(16, initialCapacity)];
+    }
+
+    /**
+     * Writes &lt;tag&gt;.
+     */
+    public XmlWriter start(String tag) {
+        ensureCapacity(tag.length() + 2);
+        buf[count++] = '<';
+        writeAscii(tag);
+        buf[count++] = '>';
+        return this;
+    }
+
+    /**
+     * Writes &lt;/tag&gt;.
+     */
+    public XmlWriter end(String tag) {
+        ensureCapacity(tag.length() + 3);
+        buf[count++] = '<';
+        buf[count++] = '/';
+        writeAscii(tag);
+        buf[count++] = '>';
+        return this;
+    }
+
+    /**
+     * Writes the element with the text as is, a null text is written as
+     * "null" like string concatenation does.
+     */
+    public XmlWriter element(String tag, Object text) {
+        return start(tag).text(String.valueOf(text)).end(tag);
+    }
+
+    public XmlWriter element(String tag, long value) {
+        return start(tag).text(value).end(tag);
+    }
+
+    /**
+     * Writes the element with the escaped text, a null text is written as an
+     * empty element.
+     */
+    public XmlWriter escapedElement(String tag, String text) {
+        return start(tag).escaped(text).end(tag);
+    }
+
+    /**
+     * Writes the text as is.
+     */
+    public XmlWriter text(String text) {
+        int len = text.length();
+        ensureCapacity(len);
+        for (int i = 0; i < len; i++) {
+            char ch = text.charAt(i);
+            if (ch < 0x80) {
+                ensureCapacity(1);
+                buf[count++] = (byte) ch;
+            } else {
+                writeChar(text, i, ch);
+                if (Character.isHighSurrogate(ch) && i + 1 < len && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    i++;
+                }
+            }
+        }
+        return this;
+    }
+
+    public XmlWriter text(long value) {
+        if (value < 0) {
+            return text(Long.toString(value));
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        for (int i = count + digits - 1; i >= count; i--) {
+            buf[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        count += digits;
+        return this;
+    }
+
+    /**
+     * Writes the text as is between escaped quotes, e.g. an ETag.
+     */
+    public XmlWriter quoted(String text) {
+        return write(QUOT).text(text).write(QUOT);
+    }
+
+    /**
+     * Writes the text with tab, newline, return, &amp;, ", &lt; and &gt;
+     * escaped, a null text writes nothing.
+     */
+    public XmlWriter escaped(String text) {
+        if (text == null) {
+            return this;
+        }
+        int len = text.length();
+        ensureCapacity(len);
+        for (int i = 0; i < len; i++) {
+            char ch = text.charAt(i);
+            switch (ch) {
+            case '\t':
+                write(TAB);
+                break;
+            case '\n':
+                write(NEWLINE);
+                break;
+            case '\r':
+                write(RETURN);
+                break;
+            case '&':
+                write(AMP);
+                break;
+            case '"':
+                write(QUOT);
+                break;
+            case '<':
+                write(LT);
+                break;
+            case '>':
+                write(GT);
+                break;
+            default:
+                if (ch < 0x80) {
+                    ensureCapacity(1);
+                    buf[count++] = (byte) ch;
+                } else {
+                    writeChar(text, i, ch);
+                    if (Character.isHighSurrogate(ch) && i + 1 < len && Character.isLowSurrogate(text.charAt(i + 1))) {
+                        i++;
+                    }
+                }
+                break;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Writes the raw bytes.
+     */
+    public XmlWriter write(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buf, count, bytes.length);
+        count += bytes.length;
+        return this;
+    }
+
+    /**
+     * The number of bytes written.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * A copy of the bytes written.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, count);
+    }
+
+    /**
+     * A stream over the buffer without copying it, the writer must not be
+     * written to while the stream is in use.
+     */
+    public FixedLengthInputStream toInputStream() {
+        return new FixedLengthInputStream(new ByteArrayInputStream(buf, 0, count), count);
+    }
+
+    /**
+     * The MD5 digest of the bytes written.
+     */
+    public byte[] md5() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            digest.update(buf, 0, count);
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new ClientException("MD5 is not supported", e);
+        }
+    }
+
+    private void writeAscii(String s) {
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            buf[count++] = (byte) s.charAt(i);
+        }
+    }
+
+    /**
+     * Encodes a non ascii char, a lone surrogate is written as '?' like
+     * String.getBytes does.
+     */
+    private void writeChar(String s, int i, char ch) {
+        ensureCapacity(4);
+        if (ch < 0x800) {
+            buf[count++] = (byte) (0xc0 | (ch >> 6));
+            buf[count++] = (byte) (0x80 | (ch & 0x3f));
+        } else if (Character.isHighSurrogate(ch)) {
+            if (i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(ch, s.charAt(i + 1));
+                buf[count++] = (byte) (0xf0 | (cp >> 18));
+                buf[count++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                buf[count++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                buf[count++] = (byte) (0x80 | (cp & 0x3f));
+            } else {
+                buf[count++] = '?';
+            }
+        } else if (Character.isLowSurrogate(ch)) {
+            buf[count++] = '?';
+        } else {
+            buf[count++] = (byte) (0xe0 | (ch >> 12));
+            buf[count++] = (byte) (0x80 | ((ch >> 6) & 0x3f));
+            buf[count++] = (byte) (0x80 | (ch & 0x3f));
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (count + n > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length << 1, count + n));
+        }
+    }
+
+    private static byte[] bytes(String ascii) {
+        byte[] b = new byte[ascii.length()];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = (byte) ascii.charAt(i);
+        }
+        return b;
+    }
+}
@@ -29,8 +29,33 @@ public class BinaryUtil {
     private static final char[] HEX_DIGITS = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D',
             'E', 'F' };
 
+    private static final char[] BASE64_DIGITS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+            .toCharArray();
+
+    /**
+     * Encodes to unchunked base64. Every request signature goes through
+     * here, so it is encoded straight into a char array of the final length.
+     */
     public static String toBase64String(byte[] binaryData) {
-        return new String(Base64.encodeBase64(binaryData));
+        int len = binaryData.length;
+        char[] buf = new char[(len + 2) / 3 * 4];
+        int i = 0;
+        int j = 0;
+        for (; i + 2 < len; i += 3) {
+            int bits = (binaryData[i] & 0xff) << 16 | (binaryData[i + 1] & 0xff) << 8 | (binaryData[i + 2] & 0xff);
+            buf[j++] = BASE64_DIGITS[bits >>> 18];
+            buf[j++] = BASE64_DIGITS[(bits >>> 12) & 0x3f];
+            buf[j++] = BASE64_DIGITS[(bits >>> 6) & 0x3f];
+            buf[j++] = BASE64_DIGITS[bits & 0x3f];
+        }
+        if (i < len) {
+            int bits = (binaryData[i] & 0xff) << 16 | (i + 1 < len ? (binaryData[i + 1] & 0xff) << 8 : 0);
+            buf[j++] = BASE64_DIGITS[bits >>> 18];
+            buf[j++] = BASE64_DIGITS[(bits >>> 12) & 0x3f];
+            buf[j++] = i + 1 < len ? BASE64_DIGITS[(bits >>> 6) & 0x3f] : '=';
+            buf[j++] = '=';
+        }
+        return new String(buf);
     }
 
     public static byte[] fromBase64String(String base64String) {
@@ -40,11 +40,16 @@ public class DateUtil {
     // Alternate ISO 8601 format without fractional seconds
     private static final String ALTERNATIVE_ISO8601_DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss'Z'";
 
+    private static final ThreadLocal<DateFormat> rfc822DateFormat = gmtDateFormat(RFC822_DATE_FORMAT);
+    private static final ThreadLocal<DateFormat> iso8601DateFormat = gmtDateFormat(ISO8601_DATE_FORMAT);
+    private static final ThreadLocal<DateFormat> alternativeIso8601DateFormat = gmtDateFormat(
+            ALTERNATIVE_ISO8601_DATE_FORMAT);
+
     /**
      * Formats Date to GMT string.
      */
     public static String formatRfc822Date(Date date) {
-        return getRfc822DateFormat().format(date);
+        return rfc822DateFormat.get().format(date);
     }
 
     /**
@@ -55,18 +60,15 @@ public class DateUtil {
     }
 
     private static DateFormat getRfc822DateFormat() {
-        SimpleDateFormat rfc822DateFormat = new SimpleDateFormat(RFC822_DATE_FORMAT, Locale.US);
-        rfc822DateFormat.setTimeZone(new SimpleTimeZone(0, "GMT"));
-
-        return rfc822DateFormat;
+        return newGmtDateFormat(RFC822_DATE_FORMAT);
     }
 
     public static String formatIso8601Date(Date date) {
-        return getIso8601DateFormat().format(date);
+        return iso8601DateFormat.get().format(date);
     }
 
     public static String formatAlternativeIso8601Date(Date date) {
-        return getAlternativeIso8601DateFormat().format(date);
+        return alternativeIso8601DateFormat.get().format(date);
     }
 
     /**
@@ -85,14 +87,31 @@ public class DateUtil {
     }
 
     private static DateFormat getIso8601DateFormat() {
-        SimpleDateFormat df = new SimpleDateFormat(ISO8601_DATE_FORMAT, Locale.US);
-        df.setTimeZone(new SimpleTimeZone(0, "GMT"));
-        return df;
+        return newGmtDateFormat(ISO8601_DATE_FORMAT);
     }
 
     private static DateFormat getAlternativeIso8601DateFormat() {
-        SimpleDateFormat df = new SimpleDateFormat(ALTERNATIVE_ISO8601_DATE_FORMAT, Locale.US);
+        return newGmtDateFormat(ALTERNATIVE_ISO8601_DATE_FORMAT);
+    }
+
+    private static DateFormat newGmtDateFormat(String pattern) {
+        SimpleDateFormat df = new SimpleDateFormat(pattern, Locale.US);
         df.setTimeZone(new SimpleTimeZone(0, "GMT"));
         return df;
     }
+
+    /**
+     * A SimpleDateFormat is costly to create but not thread safe, and every
+     * request formats its Date header, so each thread keeps its own for
+     * formatting. Parsing may change the time zone of the format, so it
+     * uses a new one.
+     */
+    private static ThreadLocal<DateFormat> gmtDateFormat(final String pattern) {
+        return new ThreadLocal<DateFormat>() {
+            @Override
+            protected DateFormat initialValue() {
+                return newGmtDateFormat(pattern);
+            }
+        };
+    }
 }
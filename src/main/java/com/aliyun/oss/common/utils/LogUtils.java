@@ -46,6 +46,8 @@ public class LogUtils {
         errorCodeFilterList.add(OSSErrorCode.NO_SUCH_CORS_CONFIGURATION);
         errorCodeFilterList.add(OSSErrorCode.NO_SUCH_WEBSITE_CONFIGURATION);
         errorCodeFilterList.add(OSSErrorCode.NO_SUCH_LIFECYCLE);
+        // the expected answer to conditional requests, e.g. metadata cache revalidations
+        errorCodeFilterList.add(OSSErrorCode.NOT_MODIFIED);
     }
 
     public static Log getLog() {
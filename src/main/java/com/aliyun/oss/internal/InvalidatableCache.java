@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.internal;
+
+/**
+ * A client side cache of objects, whose entries are dropped by the writes of
+ * the client, see {@link OSSOperation#setMetadataCache(ObjectMetadataCache)}
+ * and {@link OSSOperation#setObjectContentCache(ObjectContentCache)}.
+ */
+public interface InvalidatableCache {
+
+    /**
+     * Drops the entries of a key written by this client: the entry of the
+     * version, if any, and the entry of the current version.
+     */
+    void invalidate(String bucketName, String key, String versionId);
+
+    /**
+     * Drops the entries of all keys starting with the prefix, e.g. after a
+     * directory is deleted or renamed.
+     */
+    void invalidatePrefix(String bucketName, String prefix);
+}
@@ -349,7 +349,8 @@ public class LiveChannelOperation extends OSSOperation {
         // Endpoint
         RequestMessage requestMessage = new RequestMessage(bucketName, liveChannelName);
         ClientConfiguration config = this.client.getClientConfiguration();
-        requestMessage.setEndpoint(OSSUtils.determineFinalEndpoint(this.endpoint, bucketName, config));
+        requestMessage.setEndpoint(OSSUtils.determineFinalEndpoint(this.endpoint, bucketName, config,
+                this.client.getResolvedEndpointCache()));
 
         // Headers
         requestMessage.addHeader(HttpHeaders.DATE, expires.toString());
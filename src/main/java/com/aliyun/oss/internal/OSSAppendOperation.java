@@ -0,0 +1,426 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.internal;
+
+import static com.aliyun.oss.common.utils.CodingUtils.assertParameterNotNull;
+import static com.aliyun.oss.common.utils.LogUtils.logException;
+import static com.aliyun.oss.internal.OSSUtils.ensureBucketNameValid;
+import static com.aliyun.oss.internal.OSSUtils.ensureObjectKeyValid;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.common.utils.CRC64;
+import com.aliyun.oss.model.AppendObjectRequest;
+import com.aliyun.oss.model.AppendObjectResult;
+import com.aliyun.oss.model.AppendableObjectWriter;
+import com.aliyun.oss.model.AppendableObjectWriterRequest;
+import com.aliyun.oss.model.GenericRequest;
+import com.aliyun.oss.model.ObjectMetadata;
+
+/**
+ * Buffered, pipelined appends to an appendable object.
+ */
+public class OSSAppendOperation {
+
+    private OSSObjectOperation objectOperation;
+
+    public OSSAppendOperation(OSSObjectOperation objectOperation) {
+        this.objectOperation = objectOperation;
+    }
+
+    public AppendableObjectWriter createAppendableObjectWriter(AppendableObjectWriterRequest request) {
+        assertParameterNotNull(request, "appendableObjectWriterRequest");
+
+        String bucketName = request.getBucketName();
+        String key = request.getKey();
+
+        assertParameterNotNull(bucketName, "bucketName");
+        assertParameterNotNull(key, "key");
+        ensureBucketNameValid(bucketName);
+        ensureObjectKeyValid(key);
+
+        if (request.getBufferSize() < 1) {
+            throw new IllegalArgumentException("Buffer size of appendable object writer request should be positive");
+        }
+        if (request.getBufferCount() < 1) {
+            throw new IllegalArgumentException("Buffer count of appendable object writer request should be positive");
+        }
+        if (request.getPosition() != null && request.getPosition() < 0) {
+            throw new IllegalArgumentException("Position of appendable object writer request should not be negative");
+        }
+
+        AppendableObjectWriterImpl writer = new AppendableObjectWriterImpl(request);
+        if (request.getPosition() != null) {
+            writer.position = request.getPosition();
+            writer.crc = request.getPosition() == 0 ? Long.valueOf(0) : request.getInitCRC();
+        } else {
+            writer.recoverPosition();
+        }
+        writer.start();
+        return writer;
+    }
+
+    class AppendableObjectWriterImpl extends AppendableObjectWriter {
+
+        public AppendableObjectWriterImpl(AppendableObjectWriterRequest request) {
+            this.request = request;
+            this.freeBuffers = new LinkedBlockingQueue<byte[]>();
+        }
+
+        void start() {
+            service = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "oss-append-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            final long interval = request.getFlushInterval();
+            if (interval > 0) {
+                long period = Math.max(1, interval / 4);
+                service.scheduleWithFixedDelay(new Runnable() {
+                    @Override
+                    public void run() {
+                        // the writer may hold the lock while it waits for a free buffer,
+                        // which is given back by this thread, so never wait for the lock here
+                        if (lock.tryLock()) {
+                            try {
+                                if (count > 0 && System.nanoTime() - bufferedSince >= interval * 1000000L) {
+                                    submitBuffer();
+                                }
+                            } finally {
+                                lock.unlock();
+                            }
+                        }
+                    }
+                }, period, period, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            lock.lock();
+            try {
+                ensureWritable();
+                if (buffer == null) {
+                    takeBuffer();
+                }
+                buffer[count++] = (byte) b;
+                if (count == buffer.length) {
+                    submitBuffer();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (off < 0 || len < 0 || off + len > b.length) {
+                throw new IndexOutOfBoundsException();
+            }
+            lock.lock();
+            try {
+                ensureWritable();
+                while (len > 0) {
+                    if (buffer == null) {
+                        takeBuffer();
+                    }
+                    int n = Math.min(len, buffer.length - count);
+                    System.arraycopy(b, off, buffer, count, n);
+                    count += n;
+                    off += n;
+                    len -= n;
+                    if (count == buffer.length) {
+                        submitBuffer();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            lock.lock();
+            try {
+                ensureWritable();
+                submitBuffer();
+                awaitAppends();
+                checkFailure();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                try {
+                    if (failure == null) {
+                        submitBuffer();
+                        awaitAppends();
+                    }
+                } finally {
+                    closed = true;
+                    service.shutdownNow();
+                }
+                checkFailure();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public String getBucketName() {
+            return request.getBucketName();
+        }
+
+        @Override
+        public String getKey() {
+            return request.getKey();
+        }
+
+        @Override
+        public long getPosition() {
+            return position;
+        }
+
+        @Override
+        public Long getObjectCRC() {
+            return crc;
+        }
+
+        @Override
+        public long getAppendCount() {
+            return appendCount.get();
+        }
+
+        private void ensureWritable() {
+            if (closed) {
+                throw new ClientException("The appendable object writer is closed");
+            }
+            checkFailure();
+        }
+
+        private void checkFailure() {
+            Throwable e = failure;
+            if (e == null) {
+                return;
+            }
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new ClientException(e.getMessage(), e);
+        }
+
+        /**
+         * Takes a free buffer, allocating up to the buffer count, otherwise waits
+         * for an append to give one back.
+         */
+        private void takeBuffer() throws IOException {
+            buffer = freeBuffers.poll();
+            if (buffer == null) {
+                if (allocatedBuffers < request.getBufferCount()) {
+                    allocatedBuffers++;
+                    buffer = new byte[request.getBufferSize()];
+                } else {
+                    try {
+                        buffer = freeBuffers.take();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for an append");
+                    }
+                }
+            }
+            count = 0;
+            bufferedSince = System.nanoTime();
+            // an append may have failed while this thread was waiting
+            checkFailure();
+        }
+
+        private void submitBuffer() {
+            if (count == 0) {
+                return;
+            }
+            final byte[] data = buffer;
+            final int length = count;
+            buffer = null;
+            count = 0;
+            service.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (failure == null) {
+                            append(data, length);
+                        }
+                    } catch (Throwable e) {
+                        logException("Append to " + request.getKey() + " at position " + position + " failed: ", e);
+                        failure = e;
+                    } finally {
+                        freeBuffers.offer(data);
+                    }
+                }
+            });
+        }
+
+        private void awaitAppends() throws IOException {
+            try {
+                service.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                    }
+                }).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the appends");
+            } catch (ExecutionException e) {
+                throw new ClientException(e.getCause());
+            }
+        }
+
+        private void append(byte[] data, int length) {
+            Long dataCRC = null;
+            for (int attempt = 0;; attempt++) {
+                AppendObjectRequest appendObjectRequest = new AppendObjectRequest(request.getBucketName(),
+                        request.getKey(), new ByteArrayInputStream(data, 0, length), newMetadata(length));
+                appendObjectRequest.setPosition(position);
+                appendObjectRequest.setInitCRC(crc);
+                appendObjectRequest.setRequestPayer(request.getRequestPayer());
+                appendObjectRequest.setEndpoint(request.getEndpoint());
+                try {
+                    AppendObjectResult result = objectOperation.appendObject(appendObjectRequest);
+                    appendCount.incrementAndGet();
+                    if (result.getServerCRC() != null) {
+                        crc = result.getServerCRC();
+                    } else if (result.getClientCRC() != null && crc != null) {
+                        crc = result.getClientCRC();
+                    } else if (crc != null) {
+                        crc = CRC64.combine(crc, new CRC64(data, length).getValue(), length);
+                    }
+                    position = result.getNextPosition() != null ? result.getNextPosition() : position + length;
+                    return;
+                } catch (RuntimeException e) {
+                    if (attempt >= request.getMaxRetries() || !isRecoverable(e)) {
+                        throw e;
+                    }
+                    logException("Append to " + request.getKey() + " at position " + position
+                            + " failed, recovering the position: ", e, request.isLogEnabled());
+                    if (dataCRC == null) {
+                        dataCRC = new CRC64(data, length).getValue();
+                    }
+                    if (recoverAppend(length, dataCRC)) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private boolean isRecoverable(RuntimeException e) {
+            if (e instanceof OSSException) {
+                String code = ((OSSException) e).getErrorCode();
+                return OSSErrorCode.POSITION_NOT_EQUAL_TO_LENGTH.equals(code)
+                        || OSSErrorCode.INTERNAL_ERROR.equals(code) || "ServiceUnavailable".equals(code);
+            }
+            return e instanceof ClientException;
+        }
+
+        /**
+         * Reads the object length after a failed append. Returns true if the append
+         * did land, which happens when its response was lost, otherwise the next
+         * attempt goes to the object length.
+         */
+        private boolean recoverAppend(int length, long dataCRC) {
+            long expectedPosition = position + length;
+            Long expectedCRC = crc == null ? null : CRC64.combine(crc, dataCRC, length);
+            recoverPosition();
+            if (position == expectedPosition && (expectedCRC == null || crc == null || expectedCRC.equals(crc))) {
+                appendCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        void recoverPosition() {
+            GenericRequest headRequest = new GenericRequest(request.getBucketName(), request.getKey());
+            headRequest.setRequestPayer(request.getRequestPayer());
+            headRequest.setEndpoint(request.getEndpoint());
+            try {
+                ObjectMetadata metadata = objectOperation.getObjectMetadata(headRequest);
+                position = metadata.getContentLength();
+                crc = metadata.getServerCRC();
+            } catch (OSSException e) {
+                if (!OSSErrorCode.NO_SUCH_KEY.equals(e.getErrorCode())) {
+                    throw e;
+                }
+                position = 0;
+                crc = Long.valueOf(0);
+            }
+        }
+
+        private ObjectMetadata newMetadata(int length) {
+            ObjectMetadata metadata = new ObjectMetadata();
+            ObjectMetadata objectMetadata = request.getObjectMetadata();
+            if (position == 0 && objectMetadata != null) {
+                for (Map.Entry<String, Object> header : objectMetadata.getRawMetadata().entrySet()) {
+                    metadata.setHeader(header.getKey(), header.getValue());
+                }
+                metadata.setUserMetadata(new HashMap<String, String>(objectMetadata.getUserMetadata()));
+            }
+            metadata.setContentLength(length);
+            return metadata;
+        }
+
+        private AppendableObjectWriterRequest request;
+        private ScheduledExecutorService service;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final BlockingQueue<byte[]> freeBuffers;
+        private int allocatedBuffers;
+        private byte[] buffer;
+        private int count;
+        private long bufferedSince;
+        private boolean closed;
+        private volatile long position;
+        private volatile Long crc;
+        private volatile Throwable failure;
+        private final AtomicLong appendCount = new AtomicLong();
+    }
+}
@@ -0,0 +1,384 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.internal;
+
+import static com.aliyun.oss.common.utils.CodingUtils.assertParameterNotNull;
+import static com.aliyun.oss.common.utils.LogUtils.logException;
+import static com.aliyun.oss.internal.OSSConstants.DEFAULT_CHARSET_NAME;
+import static com.aliyun.oss.internal.OSSUtils.ensureBucketNameValid;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.common.utils.HttpUtil;
+import com.aliyun.oss.event.ProgressEventType;
+import com.aliyun.oss.event.ProgressListener;
+import com.aliyun.oss.event.ProgressPublisher;
+import com.aliyun.oss.model.BulkCopyRequest;
+import com.aliyun.oss.model.BulkCopyResult;
+import com.aliyun.oss.model.CopyFileRequest;
+import com.aliyun.oss.model.CopyObjectRequest;
+import com.aliyun.oss.model.DeleteObjectsRequest;
+import com.aliyun.oss.model.ListObjectsV2Request;
+import com.aliyun.oss.model.ListObjectsV2Result;
+import com.aliyun.oss.model.OSSObjectSummary;
+
+/**
+ * OSSBulkCopyOperation copies or moves every object under a prefix. The
+ * listing is consumed page by page while a bounded number of copies run, so
+ * memory does not grow with the number of objects, and the source objects of
+ * a move are deleted in batches of 1000 once copied.
+ */
+public class OSSBulkCopyOperation {
+
+    static final int DELETE_BATCH_SIZE = 1000;
+    static final int MAX_REPORTED_FAILURES = 1000;
+    private static final int LIST_MAX_KEYS = 1000;
+
+    /**
+     * The journal file: a header line naming the copy, then one line per
+     * copied ("C") or deleted ("D") source key, url encoded.
+     */
+    static class Journal {
+        private final Set<String> copied = new HashSet<String>();
+        private final Set<String> deleted = new HashSet<String>();
+        private Writer writer;
+
+        static String header(BulkCopyRequest request) {
+            return "oss-bulk-copy 1 " + encode(request.getSourceBucketName()) + " "
+                    + encode(request.getSourcePrefix()) + " " + encode(request.getDestinationBucketName()) + " "
+                    + encode(request.getDestinationPrefix()) + " " + request.isDeleteSource();
+        }
+
+        /**
+         * Loads the journal if it belongs to the same copy, otherwise starts a
+         * new one.
+         */
+        void open(String journalFile, String header) throws IOException {
+            File file = new File(journalFile);
+            boolean append = false;
+            if (file.isFile()) {
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(new FileInputStream(file), DEFAULT_CHARSET_NAME));
+                try {
+                    if (header.equals(reader.readLine())) {
+                        append = true;
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            // a partly written last line is ignored
+                            if (line.length() < 2 || line.charAt(1) != ' ') {
+                                continue;
+                            }
+                            String key = HttpUtil.urlDecode(line.substring(2), DEFAULT_CHARSET_NAME);
+                            if (line.charAt(0) == 'C') {
+                                copied.add(key);
+                            } else if (line.charAt(0) == 'D') {
+                                deleted.add(key);
+                            }
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            }
+            writer = new OutputStreamWriter(new FileOutputStream(file, append), DEFAULT_CHARSET_NAME);
+            if (!append) {
+                writer.write(header + "\n");
+                writer.flush();
+            }
+        }
+
+        boolean isCopied(String key) {
+            return copied.contains(key);
+        }
+
+        boolean isDeleted(String key) {
+            return deleted.contains(key);
+        }
+
+        synchronized void copied(String key) throws IOException {
+            writer.write("C " + encode(key) + "\n");
+            writer.flush();
+        }
+
+        synchronized void deleted(List<String> keys) throws IOException {
+            StringBuilder sb = new StringBuilder();
+            for (String key : keys) {
+                sb.append("D ").append(encode(key)).append('\n');
+            }
+            writer.write(sb.toString());
+            writer.flush();
+        }
+
+        void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+
+        private static String encode(String value) {
+            return HttpUtil.urlEncode(value == null ? "" : value, DEFAULT_CHARSET_NAME);
+        }
+    }
+
+    private class BulkCopy {
+        private final BulkCopyRequest request;
+        private final Journal journal;
+        private final ProgressListener listener;
+        private final List<String> deleteBatch = new ArrayList<String>(DELETE_BATCH_SIZE);
+        private final BulkCopyResult result = new BulkCopyResult();
+
+        BulkCopy(BulkCopyRequest request, Journal journal) {
+            this.request = request;
+            this.journal = journal;
+            this.listener = request.getProgressListener();
+        }
+
+        String destinationKey(String sourceKey) {
+            String sourcePrefix = request.getSourcePrefix() == null ? "" : request.getSourcePrefix();
+            String destinationPrefix = request.getDestinationPrefix() == null ? "" : request.getDestinationPrefix();
+            return destinationPrefix + sourceKey.substring(sourcePrefix.length());
+        }
+
+        void copy(OSSObjectSummary summary) {
+            String key = summary.getKey();
+            try {
+                if (summary.getSize() >= request.getMultipartCopyThreshold()) {
+                    CopyFileRequest copyFileRequest = new CopyFileRequest(request.getSourceBucketName(), key,
+                            request.getDestinationBucketName(), destinationKey(key));
+                    copyFileRequest.setRequestPayer(request.getRequestPayer());
+                    copyOperation.copyFile(copyFileRequest);
+                } else {
+                    CopyObjectRequest copyObjectRequest = new CopyObjectRequest(request.getSourceBucketName(), key,
+                            request.getDestinationBucketName(), destinationKey(key));
+                    if (request.getRequestPayer() != null) {
+                        copyObjectRequest.setRequestPayer(request.getRequestPayer());
+                    }
+                    objectOperation.copyObject(copyObjectRequest);
+                }
+                if (journal != null) {
+                    journal.copied(key);
+                }
+            } catch (Throwable t) {
+                failed(key, false, t);
+                return;
+            }
+            synchronized (result) {
+                result.setObjectsCopied(result.getObjectsCopied() + 1);
+                result.setBytesCopied(result.getBytesCopied() + summary.getSize());
+            }
+            ProgressPublisher.publishRequestBytesTransferred(listener, summary.getSize());
+            if (request.isDeleteSource()) {
+                delete(key);
+            }
+        }
+
+        void delete(String key) {
+            List<String> batch = null;
+            synchronized (deleteBatch) {
+                deleteBatch.add(key);
+                if (deleteBatch.size() >= DELETE_BATCH_SIZE) {
+                    batch = new ArrayList<String>(deleteBatch);
+                    deleteBatch.clear();
+                }
+            }
+            if (batch != null) {
+                deleteBatch(batch);
+            }
+        }
+
+        void flushDeletes() {
+            List<String> batch;
+            synchronized (deleteBatch) {
+                batch = new ArrayList<String>(deleteBatch);
+                deleteBatch.clear();
+            }
+            if (!batch.isEmpty()) {
+                deleteBatch(batch);
+            }
+        }
+
+        private void deleteBatch(List<String> keys) {
+            try {
+                DeleteObjectsRequest deleteRequest = new DeleteObjectsRequest(request.getSourceBucketName())
+                        .withKeys(keys).withQuiet(true);
+                if (request.getRequestPayer() != null) {
+                    deleteRequest.setRequestPayer(request.getRequestPayer());
+                }
+                objectOperation.deleteObjects(deleteRequest);
+                if (journal != null) {
+                    journal.deleted(keys);
+                }
+            } catch (Throwable t) {
+                for (String key : keys) {
+                    failed(key, true, t);
+                }
+                return;
+            }
+            synchronized (result) {
+                result.setObjectsDeleted(result.getObjectsDeleted() + keys.size());
+            }
+        }
+
+        void skipped() {
+            synchronized (result) {
+                result.setObjectsSkipped(result.getObjectsSkipped() + 1);
+            }
+        }
+
+        private void failed(String key, boolean delete, Throwable t) {
+            logException(String.format("Bulk copy %s %s failed: ", delete ? "delete" : "copy", key), t);
+            Exception e = t instanceof Exception ? (Exception) t : new ClientException(t);
+            synchronized (result) {
+                result.setFailedCount(result.getFailedCount() + 1);
+                if (result.getFailures().size() < MAX_REPORTED_FAILURES) {
+                    result.getFailures().add(new BulkCopyResult.Failure(key, delete, e));
+                }
+            }
+        }
+    }
+
+    public OSSBulkCopyOperation(OSSBucketOperation bucketOperation, OSSObjectOperation objectOperation,
+            OSSCopyOperation copyOperation) {
+        this.bucketOperation = bucketOperation;
+        this.objectOperation = objectOperation;
+        this.copyOperation = copyOperation;
+    }
+
+    public BulkCopyResult bulkCopy(BulkCopyRequest bulkCopyRequest) {
+        assertParameterNotNull(bulkCopyRequest, "bulkCopyRequest");
+        assertParameterNotNull(bulkCopyRequest.getSourceBucketName(), "sourceBucketName");
+        assertParameterNotNull(bulkCopyRequest.getDestinationBucketName(), "destinationBucketName");
+        ensureBucketNameValid(bulkCopyRequest.getSourceBucketName());
+        ensureBucketNameValid(bulkCopyRequest.getDestinationBucketName());
+
+        // Copying into the listed prefix would list the copies again.
+        String sourcePrefix = bulkCopyRequest.getSourcePrefix() == null ? "" : bulkCopyRequest.getSourcePrefix();
+        String destinationPrefix = bulkCopyRequest.getDestinationPrefix() == null ? ""
+                : bulkCopyRequest.getDestinationPrefix();
+        if (bulkCopyRequest.getSourceBucketName().equals(bulkCopyRequest.getDestinationBucketName())
+                && destinationPrefix.startsWith(sourcePrefix)) {
+            throw new IllegalArgumentException("The destination prefix must not be within the source prefix.");
+        }
+
+        Journal journal = null;
+        if (bulkCopyRequest.getJournalFile() != null) {
+            journal = new Journal();
+            try {
+                journal.open(bulkCopyRequest.getJournalFile(), Journal.header(bulkCopyRequest));
+            } catch (IOException e) {
+                throw new ClientException("Failed to open the journal " + bulkCopyRequest.getJournalFile(), e);
+            }
+        }
+
+        long startTime = System.currentTimeMillis();
+        final BulkCopy bulkCopy = new BulkCopy(bulkCopyRequest, journal);
+        ProgressPublisher.publishProgress(bulkCopy.listener, ProgressEventType.TRANSFER_STARTED_EVENT);
+
+        int taskNum = bulkCopyRequest.getTaskNum();
+        ExecutorService service = Executors.newFixedThreadPool(taskNum);
+        // At most one queued copy per running one, so the listing only runs
+        // ahead by a page.
+        final Semaphore permits = new Semaphore(taskNum * 2);
+        try {
+            ListObjectsV2Request listRequest = new ListObjectsV2Request(bulkCopyRequest.getSourceBucketName(),
+                    sourcePrefix).withMaxKeys(LIST_MAX_KEYS);
+            if (bulkCopyRequest.getRequestPayer() != null) {
+                listRequest.setRequestPayer(bulkCopyRequest.getRequestPayer());
+            }
+            ListObjectsV2Result listing;
+            do {
+                listing = bucketOperation.listObjectsV2(listRequest);
+                for (final OSSObjectSummary summary : listing.getObjectSummaries()) {
+                    if (journal != null && journal.isDeleted(summary.getKey())) {
+                        bulkCopy.skipped();
+                    } else if (journal != null && journal.isCopied(summary.getKey())) {
+                        bulkCopy.skipped();
+                        if (bulkCopyRequest.isDeleteSource()) {
+                            bulkCopy.delete(summary.getKey());
+                        }
+                    } else {
+                        permits.acquire();
+                        service.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    bulkCopy.copy(summary);
+                                } finally {
+                                    permits.release();
+                                }
+                            }
+                        });
+                    }
+                }
+                listRequest.setContinuationToken(listing.getNextContinuationToken());
+            } while (listing.isTruncated());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("The bulk copy is interrupted.", e);
+        } finally {
+            service.shutdown();
+            try {
+                service.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            bulkCopy.flushDeletes();
+            try {
+                if (journal != null) {
+                    journal.close();
+                }
+            } catch (IOException e) {
+                logException("Failed to close the journal: ", e);
+            }
+        }
+
+        BulkCopyResult result = bulkCopy.result;
+        result.setElapsedMillis(System.currentTimeMillis() - startTime);
+        if (result.getFailedCount() > 0) {
+            ProgressPublisher.publishProgress(bulkCopy.listener, ProgressEventType.TRANSFER_PART_FAILED_EVENT);
+        } else {
+            ProgressPublisher.publishProgress(bulkCopy.listener, ProgressEventType.TRANSFER_COMPLETED_EVENT);
+            if (journal != null) {
+                new File(bulkCopyRequest.getJournalFile()).delete();
+            }
+        }
+        return result;
+    }
+
+    protected OSSBucketOperation bucketOperation;
+    protected OSSObjectOperation objectOperation;
+    protected OSSCopyOperation copyOperation;
+}
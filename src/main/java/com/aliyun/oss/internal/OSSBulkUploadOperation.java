@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.internal;
+
+import static com.aliyun.oss.common.utils.CodingUtils.assertParameterNotNull;
+import static com.aliyun.oss.common.utils.LogUtils.getLog;
+import static com.aliyun.oss.common.utils.LogUtils.logException;
+import static com.aliyun.oss.internal.OSSUtils.ensureBucketNameValid;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.common.comm.ServiceClient;
+import com.aliyun.oss.event.ProgressEventType;
+import com.aliyun.oss.event.ProgressListener;
+import com.aliyun.oss.event.ProgressPublisher;
+import com.aliyun.oss.model.BulkUploadRequest;
+import com.aliyun.oss.model.BulkUploadResult;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PutObjectRequest;
+
+/**
+ * OSSBulkUploadOperation uploads many small files. A fixed number of
+ * threads each take the next file from the request's iterator and upload it,
+ * so exactly that many requests are in flight, each on a pooled connection,
+ * and every thread reads its files into one buffer it reuses.
+ */
+public class OSSBulkUploadOperation {
+
+    static final int MAX_REPORTED_FAILURES = 1000;
+
+    private class BulkUpload {
+        private final BulkUploadRequest request;
+        private final Iterator<BulkUploadRequest.Entry> entries;
+        private final ProgressListener listener;
+        private final BulkUploadResult result = new BulkUploadResult();
+        private RuntimeException iteratorFailure;
+
+        BulkUpload(BulkUploadRequest request) {
+            this.request = request;
+            this.entries = request.getEntries();
+            this.listener = request.getProgressListener();
+        }
+
+        /**
+         * Gets the next file, or null once there is none or the iterator
+         * failed.
+         */
+        BulkUploadRequest.Entry next() {
+            synchronized (entries) {
+                if (iteratorFailure != null) {
+                    return null;
+                }
+                try {
+                    return entries.hasNext() ? entries.next() : null;
+                } catch (RuntimeException e) {
+                    iteratorFailure = e;
+                    return null;
+                }
+            }
+        }
+
+        ObjectMetadata newMetadata() {
+            ObjectMetadata metadata = new ObjectMetadata();
+            ObjectMetadata template = request.getObjectMetadata();
+            if (template != null) {
+                for (Map.Entry<String, Object> header : template.getRawMetadata().entrySet()) {
+                    metadata.setHeader(header.getKey(), header.getValue());
+                }
+                metadata.setUserMetadata(template.getUserMetadata());
+            }
+            return metadata;
+        }
+
+        void upload(BulkUploadRequest.Entry entry, Worker worker) {
+            String key = entry.getKey();
+            File file = entry.getFile();
+            long size;
+            try {
+                ObjectMetadata metadata = newMetadata();
+                PutObjectRequest putObjectRequest;
+                size = file.length();
+                if (file.isFile() && size <= request.getMaxBufferedFileSize()) {
+                    // A byte array stream is repeatable as is, and its length
+                    // known, so it is sent without any further wrapping.
+                    int length = worker.read(file, (int) size);
+                    metadata.setContentLength(length);
+                    if (metadata.getContentType() == null) {
+                        metadata.setContentType(Mimetypes.getInstance().getMimetype(file, key));
+                    }
+                    putObjectRequest = new PutObjectRequest(request.getBucketName(), key,
+                            new ByteArrayInputStream(worker.buffer, 0, length), metadata);
+                    size = length;
+                } else {
+                    putObjectRequest = new PutObjectRequest(request.getBucketName(), key, file, metadata);
+                }
+                putObjectRequest.setRequestPayer(request.getRequestPayer());
+                objectOperation.putObject(putObjectRequest);
+            } catch (Throwable t) {
+                failed(key, t);
+                return;
+            }
+            synchronized (result) {
+                result.setObjectsUploaded(result.getObjectsUploaded() + 1);
+                result.setBytesUploaded(result.getBytesUploaded() + size);
+            }
+            ProgressPublisher.publishRequestBytesTransferred(listener, size);
+        }
+
+        private void failed(String key, Throwable t) {
+            logException(String.format("Bulk upload %s failed: ", key), t);
+            Exception e = t instanceof Exception ? (Exception) t : new ClientException(t);
+            synchronized (result) {
+                result.setFailedCount(result.getFailedCount() + 1);
+                if (result.getFailures().size() < MAX_REPORTED_FAILURES) {
+                    result.getFailures().add(new BulkUploadResult.Failure(key, e));
+                }
+            }
+        }
+    }
+
+    /**
+     * An uploading thread, with the buffer its files are read into.
+     */
+    private static class Worker implements Runnable {
+        private final BulkUpload bulkUpload;
+        private byte[] buffer = new byte[0];
+
+        Worker(BulkUpload bulkUpload) {
+            this.bulkUpload = bulkUpload;
+        }
+
+        /**
+         * Reads the file into the buffer, growing it if needed, and returns
+         * the number of bytes read.
+         */
+        int read(File file, int size) throws IOException {
+            if (buffer.length < size) {
+                buffer = new byte[Math.max(size, Math.min(buffer.length * 2,
+                        bulkUpload.request.getMaxBufferedFileSize()))];
+            }
+            FileInputStream in = new FileInputStream(file);
+            try {
+                FileChannel channel = in.getChannel();
+                ByteBuffer target = ByteBuffer.wrap(buffer, 0, size);
+                while (target.hasRemaining()) {
+                    if (channel.read(target) < 0) {
+                        throw new EOFException("The file " + file + " was truncated while being read.");
+                    }
+                }
+            } finally {
+                in.close();
+            }
+            return size;
+        }
+
+        @Override
+        public void run() {
+            BulkUploadRequest.Entry entry;
+            while ((entry = bulkUpload.next()) != null) {
+                bulkUpload.upload(entry, this);
+            }
+        }
+    }
+
+    public OSSBulkUploadOperation(OSSObjectOperation objectOperation) {
+        this.objectOperation = objectOperation;
+    }
+
+    public BulkUploadResult bulkUpload(BulkUploadRequest bulkUploadRequest) {
+        assertParameterNotNull(bulkUploadRequest, "bulkUploadRequest");
+        assertParameterNotNull(bulkUploadRequest.getBucketName(), "bucketName");
+        assertParameterNotNull(bulkUploadRequest.getEntries(), "entries");
+        ensureBucketNameValid(bulkUploadRequest.getBucketName());
+
+        // More requests than pooled connections would only queue for a
+        // connection, or open and close extra ones.
+        int taskNum = Math.min(bulkUploadRequest.getTaskNum(),
+                objectOperation.getInnerClient().getClientConfiguration().getMaxConnections());
+        taskNum = Math.max(taskNum, 1);
+        if (bulkUploadRequest.isPrewarmConnections()) {
+            prewarm(bulkUploadRequest, taskNum);
+        }
+
+        long startTime = System.currentTimeMillis();
+        BulkUpload bulkUpload = new BulkUpload(bulkUploadRequest);
+        ProgressPublisher.publishProgress(bulkUpload.listener, ProgressEventType.TRANSFER_STARTED_EVENT);
+
+        ExecutorService service = Executors.newFixedThreadPool(taskNum);
+        for (int i = 0; i < taskNum; i++) {
+            service.execute(new Worker(bulkUpload));
+        }
+        service.shutdown();
+        try {
+            service.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            service.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new ClientException("The bulk upload is interrupted.", e);
+        }
+
+        BulkUploadResult result = bulkUpload.result;
+        result.setElapsedMillis(System.currentTimeMillis() - startTime);
+        if (bulkUpload.iteratorFailure != null) {
+            ProgressPublisher.publishProgress(bulkUpload.listener, ProgressEventType.TRANSFER_FAILED_EVENT);
+            throw new ClientException("Failed to get the next file to upload.", bulkUpload.iteratorFailure);
+        }
+        if (result.getFailedCount() > 0) {
+            ProgressPublisher.publishProgress(bulkUpload.listener, ProgressEventType.TRANSFER_PART_FAILED_EVENT);
+        } else {
+            ProgressPublisher.publishProgress(bulkUpload.listener, ProgressEventType.TRANSFER_COMPLETED_EVENT);
+        }
+        return result;
+    }
+
+    private void prewarm(BulkUploadRequest bulkUploadRequest, int connections) {
+        try {
+            ServiceClient client = objectOperation.getInnerClient();
+            URI endpoint = OSSUtils.determineFinalEndpoint(objectOperation.getEndpoint(bulkUploadRequest),
+                    bulkUploadRequest.getBucketName(), client.getClientConfiguration(),
+                    client.getResolvedEndpointCache());
+            objectOperation.getInnerClient().prewarm(endpoint, connections);
+        } catch (ClientException e) {
+            getLog().warn("Failed to prewarm connections, uploading anyway: " + e.getMessage());
+        }
+    }
+
+    protected OSSObjectOperation objectOperation;
+}
@@ -0,0 +1,543 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.internal;
+
+import static com.aliyun.oss.common.utils.CodingUtils.assertParameterNotNull;
+import static com.aliyun.oss.common.utils.LogUtils.logException;
+import static com.aliyun.oss.internal.OSSUtils.ensureBucketNameValid;
+import static com.aliyun.oss.internal.OSSUtils.ensureObjectKeyValid;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.aliyun.oss.common.utils.HttpHeaders;
+import com.aliyun.oss.event.ProgressEventType;
+import com.aliyun.oss.event.ProgressListener;
+import com.aliyun.oss.event.ProgressPublisher;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
+import com.aliyun.oss.model.CannedAccessControlList;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadResult;
+import com.aliyun.oss.model.CopyFileRequest;
+import com.aliyun.oss.model.CopyFileResult;
+import com.aliyun.oss.model.GenericRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadResult;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PartETag;
+import com.aliyun.oss.model.Payer;
+import com.aliyun.oss.model.UploadPartCopyRequest;
+import com.aliyun.oss.model.UploadPartCopyResult;
+
+/**
+ * OSSCopyOperation copies an object with a multipart upload whose parts are
+ * copied concurrently on the server by UploadPartCopy.
+ */
+public class OSSCopyOperation {
+
+    static final long MIN_PART_SIZE = 100 * 1024;
+    static final long MAX_PART_SIZE = 5L * 1024 * 1024 * 1024;
+    static final long MIN_AUTO_PART_SIZE = 8 * 1024 * 1024;
+    static final long MAX_AUTO_PART_SIZE = 256 * 1024 * 1024;
+    static final int MAX_PART_COUNT = 10000;
+
+    static class CopyCheckPoint implements Serializable {
+
+        private static final long serialVersionUID = -8573823385732925164L;
+
+        private static final String COPY_MAGIC = "B3E5F1D6-4C0A-4E7F-9A51-6C2D8E0B7A43";
+
+        /**
+         * Gets the checkpoint data from the checkpoint file.
+         */
+        public synchronized void load(String cpFile) throws IOException, ClassNotFoundException {
+            FileInputStream fileIn = new FileInputStream(cpFile);
+            ObjectInputStream in = new ObjectInputStream(fileIn);
+            CopyCheckPoint ccp = (CopyCheckPoint) in.readObject();
+            assign(ccp);
+            in.close();
+            fileIn.close();
+        }
+
+        /**
+         * Writes the checkpoint data to the checkpoint file.
+         */
+        public synchronized void dump(String cpFile) throws IOException {
+            this.md5 = hashCode();
+            FileOutputStream fileOut = new FileOutputStream(cpFile);
+            ObjectOutputStream outStream = new ObjectOutputStream(fileOut);
+            outStream.writeObject(this);
+            outStream.close();
+            fileOut.close();
+        }
+
+        /**
+         * The part copy completes, update the status.
+         */
+        public synchronized void update(int partIndex, PartETag partETag) {
+            partETags.add(partETag);
+            copyParts.get(partIndex).isCompleted = true;
+        }
+
+        /**
+         * Checks the checkpoint belongs to the request, and the source object
+         * has not changed since the copy started.
+         */
+        public synchronized boolean isValid(CopyFileRequest copyFileRequest, ObjectMetadata sourceMetadata) {
+            if (this.magic == null || !this.magic.equals(COPY_MAGIC) || this.md5 != hashCode()) {
+                return false;
+            }
+
+            if (!equals(sourceBucketName, copyFileRequest.getSourceBucketName())
+                    || !equals(sourceKey, copyFileRequest.getSourceKey())
+                    || !equals(sourceVersionId, copyFileRequest.getSourceVersionId())
+                    || !equals(destinationBucketName, copyFileRequest.getDestinationBucketName())
+                    || !equals(destinationKey, copyFileRequest.getDestinationKey())) {
+                return false;
+            }
+
+            // The source's size, last modified time or ETag are not same as the
+            // one in the checkpoint.
+            return sourceSize == sourceMetadata.getContentLength()
+                    && equals(sourceLastModified, sourceMetadata.getLastModified())
+                    && equals(sourceETag, sourceMetadata.getETag());
+        }
+
+        private static boolean equals(Object a, Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((magic == null) ? 0 : magic.hashCode());
+            result = prime * result + ((sourceBucketName == null) ? 0 : sourceBucketName.hashCode());
+            result = prime * result + ((sourceKey == null) ? 0 : sourceKey.hashCode());
+            result = prime * result + ((sourceVersionId == null) ? 0 : sourceVersionId.hashCode());
+            result = prime * result + ((destinationBucketName == null) ? 0 : destinationBucketName.hashCode());
+            result = prime * result + ((destinationKey == null) ? 0 : destinationKey.hashCode());
+            result = prime * result + (int) (sourceSize ^ (sourceSize >>> 32));
+            result = prime * result + ((sourceLastModified == null) ? 0 : sourceLastModified.hashCode());
+            result = prime * result + ((sourceETag == null) ? 0 : sourceETag.hashCode());
+            result = prime * result + ((uploadID == null) ? 0 : uploadID.hashCode());
+            result = prime * result + ((copyParts == null) ? 0 : copyParts.hashCode());
+            result = prime * result + ((partETags == null) ? 0 : partETags.hashCode());
+            result = prime * result + (int) (partSize ^ (partSize >>> 32));
+            return result;
+        }
+
+        public void assign(CopyCheckPoint ccp) {
+            this.magic = ccp.magic;
+            this.md5 = ccp.md5;
+            this.sourceBucketName = ccp.sourceBucketName;
+            this.sourceKey = ccp.sourceKey;
+            this.sourceVersionId = ccp.sourceVersionId;
+            this.destinationBucketName = ccp.destinationBucketName;
+            this.destinationKey = ccp.destinationKey;
+            this.sourceSize = ccp.sourceSize;
+            this.sourceLastModified = ccp.sourceLastModified;
+            this.sourceETag = ccp.sourceETag;
+            this.uploadID = ccp.uploadID;
+            this.copyParts = ccp.copyParts;
+            this.partETags = ccp.partETags;
+            this.partSize = ccp.partSize;
+        }
+
+        public String magic;
+        public int md5;
+        public String sourceBucketName;
+        public String sourceKey;
+        public String sourceVersionId;
+        public String destinationBucketName;
+        public String destinationKey;
+        public long sourceSize;
+        public Date sourceLastModified;
+        public String sourceETag;
+        public String uploadID;
+        public ArrayList<CopyPart> copyParts;
+        public ArrayList<PartETag> partETags;
+        public long partSize;
+    }
+
+    static class CopyPart implements Serializable {
+        private static final long serialVersionUID = 2470386374652376923L;
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + (isCompleted ? 1231 : 1237);
+            result = prime * result + number;
+            result = prime * result + (int) (offset ^ (offset >>> 32));
+            result = prime * result + (int) (size ^ (size >>> 32));
+            return result;
+        }
+
+        public int number; // part number
+        public long offset; // the offset in the source object
+        public long size; // part size
+        public boolean isCompleted; // copy completeness flag.
+    }
+
+    public OSSCopyOperation(OSSMultipartOperation multipartOperation, OSSObjectOperation objectOperation) {
+        this.multipartOperation = multipartOperation;
+        this.objectOperation = objectOperation;
+    }
+
+    public CopyFileResult copyFile(CopyFileRequest copyFileRequest) throws Throwable {
+        assertParameterNotNull(copyFileRequest, "copyFileRequest");
+
+        String sourceBucketName = copyFileRequest.getSourceBucketName();
+        String sourceKey = copyFileRequest.getSourceKey();
+        String destinationBucketName = copyFileRequest.getDestinationBucketName();
+        String destinationKey = copyFileRequest.getDestinationKey();
+
+        assertParameterNotNull(sourceBucketName, "sourceBucketName");
+        assertParameterNotNull(sourceKey, "sourceKey");
+        assertParameterNotNull(destinationBucketName, "destinationBucketName");
+        assertParameterNotNull(destinationKey, "destinationKey");
+        ensureBucketNameValid(sourceBucketName);
+        ensureObjectKeyValid(sourceKey);
+        ensureBucketNameValid(destinationBucketName);
+        ensureObjectKeyValid(destinationKey);
+
+        // The checkpoint is enabled without specifying the checkpoint file,
+        // using the default one in the working directory.
+        if (copyFileRequest.isEnableCheckpoint()) {
+            if (copyFileRequest.getCheckpointFile() == null || copyFileRequest.getCheckpointFile().isEmpty()) {
+                String name = (destinationBucketName + "-" + destinationKey).replaceAll("[^\\w.-]", "_");
+                copyFileRequest.setCheckpointFile(name + ".ccp");
+            }
+        }
+
+        return copyFileWithCheckpoint(copyFileRequest);
+    }
+
+    private CopyFileResult copyFileWithCheckpoint(CopyFileRequest copyFileRequest) throws Throwable {
+        CopyFileResult copyFileResult = new CopyFileResult();
+        CopyCheckPoint copyCheckPoint = new CopyCheckPoint();
+
+        GenericRequest headRequest = new GenericRequest(copyFileRequest.getSourceBucketName(),
+                copyFileRequest.getSourceKey(), copyFileRequest.getSourceVersionId());
+        if (copyFileRequest.getRequestPayer() != null) {
+            headRequest.setRequestPayer(copyFileRequest.getRequestPayer());
+        }
+        ObjectMetadata sourceMetadata = objectOperation.getObjectMetadata(headRequest);
+
+        if (copyFileRequest.isEnableCheckpoint()) {
+            // The checkpoint file either does not exist, or is corrupted, the
+            // whole object needs the re-copy.
+            try {
+                copyCheckPoint.load(copyFileRequest.getCheckpointFile());
+            } catch (Exception e) {
+                remove(copyFileRequest.getCheckpointFile());
+            }
+
+            // The source object is updated, re-copy.
+            if (!copyCheckPoint.isValid(copyFileRequest, sourceMetadata)) {
+                prepare(copyCheckPoint, copyFileRequest, sourceMetadata);
+                remove(copyFileRequest.getCheckpointFile());
+            }
+        } else {
+            prepare(copyCheckPoint, copyFileRequest, sourceMetadata);
+        }
+
+        ProgressListener listener = copyFileRequest.getProgressListener();
+        ProgressPublisher.publishProgress(listener, ProgressEventType.TRANSFER_STARTED_EVENT);
+
+        try {
+            Throwable failure = copy(copyCheckPoint, copyFileRequest);
+            if (failure != null) {
+                ProgressPublisher.publishProgress(listener, ProgressEventType.TRANSFER_PART_FAILED_EVENT);
+                throw failure;
+            }
+
+            CompleteMultipartUploadResult multipartUploadResult = complete(copyCheckPoint, copyFileRequest);
+            copyFileResult.setMultipartUploadResult(multipartUploadResult);
+        } catch (Throwable t) {
+            // Without a checkpoint the upload can't be resumed, abort it so its
+            // parts don't stay in the bucket.
+            if (!copyFileRequest.isEnableCheckpoint()) {
+                abort(copyCheckPoint, copyFileRequest);
+            }
+            throw t;
+        }
+
+        ProgressPublisher.publishProgress(listener, ProgressEventType.TRANSFER_COMPLETED_EVENT);
+
+        if (copyFileRequest.isEnableCheckpoint()) {
+            remove(copyFileRequest.getCheckpointFile());
+        }
+
+        return copyFileResult;
+    }
+
+    /**
+     * Chooses the part size: the requested one, or about four parts per task
+     * between 8MB and 256MB. Either is raised to fit the object in 10000
+     * parts of at most 5GB.
+     */
+    static long calculatePartSize(long objectSize, long partSize, int taskNum) {
+        if (partSize <= 0) {
+            partSize = objectSize / (4L * Math.max(1, taskNum));
+            partSize = Math.min(Math.max(partSize, MIN_AUTO_PART_SIZE), MAX_AUTO_PART_SIZE);
+        }
+        long minPartSize = (objectSize + MAX_PART_COUNT - 1) / MAX_PART_COUNT;
+        partSize = Math.max(Math.max(partSize, minPartSize), MIN_PART_SIZE);
+        return Math.min(partSize, MAX_PART_SIZE);
+    }
+
+    static ArrayList<CopyPart> splitObject(long objectSize, long partSize) {
+        ArrayList<CopyPart> parts = new ArrayList<CopyPart>();
+        long offset = 0;
+        do {
+            CopyPart part = new CopyPart();
+            part.number = parts.size() + 1;
+            part.offset = offset;
+            part.size = Math.min(partSize, objectSize - offset);
+            parts.add(part);
+            offset += part.size;
+        } while (offset < objectSize);
+        return parts;
+    }
+
+    private void prepare(CopyCheckPoint copyCheckPoint, CopyFileRequest copyFileRequest,
+            ObjectMetadata sourceMetadata) {
+        copyCheckPoint.magic = CopyCheckPoint.COPY_MAGIC;
+        copyCheckPoint.sourceBucketName = copyFileRequest.getSourceBucketName();
+        copyCheckPoint.sourceKey = copyFileRequest.getSourceKey();
+        copyCheckPoint.sourceVersionId = copyFileRequest.getSourceVersionId();
+        copyCheckPoint.destinationBucketName = copyFileRequest.getDestinationBucketName();
+        copyCheckPoint.destinationKey = copyFileRequest.getDestinationKey();
+        copyCheckPoint.sourceSize = sourceMetadata.getContentLength();
+        copyCheckPoint.sourceLastModified = sourceMetadata.getLastModified();
+        copyCheckPoint.sourceETag = sourceMetadata.getETag();
+        copyCheckPoint.partSize = calculatePartSize(copyCheckPoint.sourceSize, copyFileRequest.getPartSize(),
+                copyFileRequest.getTaskNum());
+        copyCheckPoint.copyParts = splitObject(copyCheckPoint.sourceSize, copyCheckPoint.partSize);
+        copyCheckPoint.partETags = new ArrayList<PartETag>();
+
+        ObjectMetadata metadata = copyFileRequest.getObjectMetadata();
+        if (metadata == null) {
+            metadata = copyMetadata(sourceMetadata);
+        }
+
+        InitiateMultipartUploadRequest initiateUploadRequest = new InitiateMultipartUploadRequest(
+                copyFileRequest.getDestinationBucketName(), copyFileRequest.getDestinationKey(), metadata);
+
+        Payer payer = copyFileRequest.getRequestPayer();
+        if (payer != null) {
+            initiateUploadRequest.setRequestPayer(payer);
+        }
+
+        InitiateMultipartUploadResult initiateUploadResult = multipartOperation
+                .initiateMultipartUpload(initiateUploadRequest);
+        copyCheckPoint.uploadID = initiateUploadResult.getUploadId();
+    }
+
+    /**
+     * The metadata a CopyObject would keep: the user metadata and the
+     * content headers, not the ones describing the stored source object.
+     */
+    private static ObjectMetadata copyMetadata(ObjectMetadata sourceMetadata) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setUserMetadata(sourceMetadata.getUserMetadata());
+        Map<String, Object> raw = sourceMetadata.getRawMetadata();
+        String[] headers = { HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_ENCODING, HttpHeaders.CACHE_CONTROL,
+                HttpHeaders.CONTENT_DISPOSITION, HttpHeaders.EXPIRES };
+        for (String header : headers) {
+            if (raw.get(header) != null) {
+                metadata.setHeader(header, raw.get(header));
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * Copies the parts not completed yet, returns the first failure or null.
+     */
+    private Throwable copy(CopyCheckPoint copyCheckPoint, CopyFileRequest copyFileRequest)
+            throws InterruptedException {
+        ExecutorService service = Executors.newFixedThreadPool(copyFileRequest.getTaskNum());
+        ArrayList<Future<Exception>> futures = new ArrayList<Future<Exception>>();
+        ProgressListener listener = copyFileRequest.getProgressListener();
+
+        long completedLength = 0;
+        for (CopyPart part : copyCheckPoint.copyParts) {
+            if (part.isCompleted) {
+                completedLength += part.size;
+            }
+        }
+        ProgressPublisher.publishRequestContentLength(listener, copyCheckPoint.sourceSize);
+        ProgressPublisher.publishRequestBytesTransferred(listener, completedLength);
+
+        for (int i = 0; i < copyCheckPoint.copyParts.size(); i++) {
+            if (!copyCheckPoint.copyParts.get(i).isCompleted) {
+                futures.add(service.submit(new Task(i, copyCheckPoint, copyFileRequest, listener)));
+            }
+        }
+        service.shutdown();
+
+        // Waiting for parts copy complete.
+        service.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+        for (Future<Exception> future : futures) {
+            try {
+                Exception e = future.get();
+                if (e != null) {
+                    return e;
+                }
+            } catch (ExecutionException e) {
+                return e.getCause();
+            }
+        }
+        return null;
+    }
+
+    class Task implements Callable<Exception> {
+
+        public Task(int partIndex, CopyCheckPoint copyCheckPoint, CopyFileRequest copyFileRequest,
+                ProgressListener progressListener) {
+            this.partIndex = partIndex;
+            this.copyCheckPoint = copyCheckPoint;
+            this.copyFileRequest = copyFileRequest;
+            this.progressListener = progressListener;
+        }
+
+        @Override
+        public Exception call() throws Exception {
+            CopyPart copyPart = copyCheckPoint.copyParts.get(partIndex);
+            try {
+                UploadPartCopyRequest request = new UploadPartCopyRequest(copyCheckPoint.sourceBucketName,
+                        copyCheckPoint.sourceKey, copyCheckPoint.destinationBucketName,
+                        copyCheckPoint.destinationKey);
+                request.setUploadId(copyCheckPoint.uploadID);
+                request.setPartNumber(copyPart.number);
+                request.setSourceVersionId(copyCheckPoint.sourceVersionId);
+                // An empty object is copied as one part without a range.
+                if (copyPart.size > 0) {
+                    request.setBeginIndex(copyPart.offset);
+                    request.setPartSize(copyPart.size);
+                }
+                // Fails the part instead of mixing versions if the source
+                // changes during the copy.
+                if (copyCheckPoint.sourceETag != null) {
+                    request.getMatchingETagConstraints().add(copyCheckPoint.sourceETag);
+                }
+
+                Payer payer = copyFileRequest.getRequestPayer();
+                if (payer != null) {
+                    request.setRequestPayer(payer);
+                }
+
+                UploadPartCopyResult result = multipartOperation.uploadPartCopy(request);
+                copyCheckPoint.update(partIndex, result.getPartETag());
+                if (copyFileRequest.isEnableCheckpoint()) {
+                    copyCheckPoint.dump(copyFileRequest.getCheckpointFile());
+                }
+                ProgressPublisher.publishRequestBytesTransferred(progressListener, copyPart.size);
+                return null;
+            } catch (Exception e) {
+                logException(String.format("Copy part %d failed: ", copyPart.number), e);
+                return e;
+            }
+        }
+
+        private int partIndex;
+        private CopyCheckPoint copyCheckPoint;
+        private CopyFileRequest copyFileRequest;
+        private ProgressListener progressListener;
+    }
+
+    private CompleteMultipartUploadResult complete(CopyCheckPoint copyCheckPoint, CopyFileRequest copyFileRequest) {
+        List<PartETag> partETags = new ArrayList<PartETag>(copyCheckPoint.partETags);
+        Collections.sort(partETags, new Comparator<PartETag>() {
+            @Override
+            public int compare(PartETag p1, PartETag p2) {
+                return p1.getPartNumber() - p2.getPartNumber();
+            }
+        });
+        CompleteMultipartUploadRequest completeUploadRequest = new CompleteMultipartUploadRequest(
+                copyCheckPoint.destinationBucketName, copyCheckPoint.destinationKey, copyCheckPoint.uploadID,
+                partETags);
+
+        Payer payer = copyFileRequest.getRequestPayer();
+        if (payer != null) {
+            completeUploadRequest.setRequestPayer(payer);
+        }
+
+        ObjectMetadata metadata = copyFileRequest.getObjectMetadata();
+        if (metadata != null) {
+            String acl = (String) metadata.getRawMetadata().get(OSSHeaders.OSS_OBJECT_ACL);
+            if (acl != null && !acl.equals("")) {
+                completeUploadRequest.setObjectACL(CannedAccessControlList.parse(acl));
+            }
+        }
+
+        return multipartOperation.completeMultipartUpload(completeUploadRequest);
+    }
+
+    private void abort(CopyCheckPoint copyCheckPoint, CopyFileRequest copyFileRequest) {
+        if (copyCheckPoint.uploadID == null) {
+            return;
+        }
+        try {
+            AbortMultipartUploadRequest abortRequest = new AbortMultipartUploadRequest(
+                    copyCheckPoint.destinationBucketName, copyCheckPoint.destinationKey, copyCheckPoint.uploadID);
+            if (copyFileRequest.getRequestPayer() != null) {
+                abortRequest.setRequestPayer(copyFileRequest.getRequestPayer());
+            }
+            multipartOperation.abortMultipartUpload(abortRequest);
+        } catch (Exception e) {
+            logException("Abort copy upload " + copyCheckPoint.uploadID + " failed: ", e);
+        }
+    }
+
+    private boolean remove(String filePath) {
+        boolean flag = false;
+        File file = new File(filePath);
+
+        if (file.isFile() && file.exists()) {
+            flag = file.delete();
+        }
+
+        return flag;
+    }
+
+    protected OSSMultipartOperation multipartOperation;
+    protected OSSObjectOperation objectOperation;
+}
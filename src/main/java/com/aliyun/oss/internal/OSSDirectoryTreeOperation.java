@@ -0,0 +1,653 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.internal;
+
+import static com.aliyun.oss.common.utils.CodingUtils.assertParameterNotNull;
+import static com.aliyun.oss.common.utils.LogUtils.logException;
+import static com.aliyun.oss.internal.OSSConstants.DEFAULT_CHARSET_NAME;
+import static com.aliyun.oss.internal.OSSUtils.ensureBucketNameValid;
+import static com.aliyun.oss.internal.OSSUtils.ensureObjectKeyValid;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.common.utils.HttpUtil;
+import com.aliyun.oss.event.ProgressEventType;
+import com.aliyun.oss.event.ProgressListener;
+import com.aliyun.oss.event.ProgressPublisher;
+import com.aliyun.oss.model.BucketQosInfo;
+import com.aliyun.oss.model.DeleteDirectoryRequest;
+import com.aliyun.oss.model.DeleteDirectoryResult;
+import com.aliyun.oss.model.DeleteDirectoryTreeRequest;
+import com.aliyun.oss.model.DirectoryTreeRequest;
+import com.aliyun.oss.model.DirectoryTreeResult;
+import com.aliyun.oss.model.GenericRequest;
+import com.aliyun.oss.model.ListObjectsV2Request;
+import com.aliyun.oss.model.ListObjectsV2Result;
+import com.aliyun.oss.model.OSSObjectSummary;
+import com.aliyun.oss.model.RenameDirectoryTreeRequest;
+import com.aliyun.oss.model.RenameObjectRequest;
+
+/**
+ * OSSDirectoryTreeOperation deletes and renames directory trees of a bucket
+ * with hierarchical namespace. The tree is split into directories with
+ * delimiter listings, every directory is worked on by a task of a per-call
+ * pool, and a directory is finished after all its subdirectories, so no task
+ * ever waits for another one.
+ *
+ * The progress listener gets the number of deleted or renamed entries as the
+ * transferred bytes.
+ */
+public class OSSDirectoryTreeOperation {
+
+    static final int MAX_REPORTED_FAILURES = 1000;
+    private static final int LIST_MAX_KEYS = 1000;
+    private static final String DELIMITER = "/";
+
+    /**
+     * Spaces the requests of one call at least 1 / maxQps seconds apart.
+     */
+    static class RequestRateLimiter {
+        private final long intervalNanos;
+        private long next;
+
+        RequestRateLimiter(int maxQps) {
+            this.intervalNanos = maxQps > 0 ? TimeUnit.SECONDS.toNanos(1) / maxQps : 0;
+        }
+
+        void acquire() throws InterruptedException {
+            if (intervalNanos == 0) {
+                return;
+            }
+            long wait;
+            synchronized (this) {
+                long now = System.nanoTime();
+                if (next < now) {
+                    next = now;
+                }
+                wait = next - now;
+                next += intervalNanos;
+            }
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+    }
+
+    /**
+     * The journal file of a tree delete: a header line naming the directory,
+     * then "T <directory> <token>" after every delete request that returned a
+     * token and "D <directory>" once a directory is deleted, url encoded.
+     */
+    static class Journal {
+        private final Map<String, String> tokens = new HashMap<String, String>();
+        private final Set<String> deleted = new HashSet<String>();
+        private Writer writer;
+
+        static String header(DeleteDirectoryTreeRequest request) {
+            return "oss-delete-directory-tree 1 " + encode(request.getBucketName()) + " "
+                    + encode(request.getDirectoryName());
+        }
+
+        /**
+         * Loads the journal if it belongs to the same directory, otherwise
+         * starts a new one.
+         */
+        void open(String journalFile, String header) throws IOException {
+            File file = new File(journalFile);
+            boolean append = false;
+            if (file.isFile()) {
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(new FileInputStream(file), DEFAULT_CHARSET_NAME));
+                try {
+                    if (header.equals(reader.readLine())) {
+                        append = true;
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            // a partly written last line is ignored
+                            if (line.length() < 2 || line.charAt(1) != ' ' || !line.endsWith(" .")) {
+                                continue;
+                            }
+                            String[] fields = line.split(" ");
+                            if (fields[0].equals("T") && fields.length == 4) {
+                                tokens.put(decode(fields[1]), decode(fields[2]));
+                            } else if (fields[0].equals("D") && fields.length == 3) {
+                                deleted.add(decode(fields[1]));
+                            }
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            }
+            writer = new OutputStreamWriter(new FileOutputStream(file, append), DEFAULT_CHARSET_NAME);
+            if (!append) {
+                writer.write(header + "\n");
+                writer.flush();
+            }
+        }
+
+        synchronized String getToken(String directory) {
+            return tokens.get(directory);
+        }
+
+        synchronized boolean isDeleted(String directory) {
+            return deleted.contains(directory);
+        }
+
+        synchronized void token(String directory, String token) throws IOException {
+            tokens.put(directory, token);
+            // the trailing " ." tells complete lines from a partly written one
+            writer.write("T " + encode(directory) + " " + encode(token) + " .\n");
+            writer.flush();
+        }
+
+        synchronized void deleted(String directory) throws IOException {
+            deleted.add(directory);
+            writer.write("D " + encode(directory) + " .\n");
+            writer.flush();
+        }
+
+        void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+
+        private static String encode(String value) {
+            return HttpUtil.urlEncode(value == null ? "" : value, DEFAULT_CHARSET_NAME);
+        }
+
+        private static String decode(String value) {
+            return HttpUtil.urlDecode(value, DEFAULT_CHARSET_NAME);
+        }
+    }
+
+    /**
+     * A directory of the tree. It is finished once its own work and the
+     * subdirectories counted in pending are done.
+     */
+    static class Node {
+        final String name;
+        final String destination;
+        final Node parent;
+        final int depth;
+        final AtomicInteger pending = new AtomicInteger(1);
+        volatile boolean failed;
+
+        Node(String name, String destination, Node parent) {
+            this.name = name;
+            this.destination = destination;
+            this.parent = parent;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+        }
+    }
+
+    /**
+     * The state shared by the tasks of one call.
+     */
+    private abstract class TreeTask {
+        final DirectoryTreeRequest request;
+        final ProgressListener listener;
+        final DirectoryTreeResult result = new DirectoryTreeResult();
+        final CountDownLatch done = new CountDownLatch(1);
+        RequestRateLimiter limiter;
+        ExecutorService service;
+
+        TreeTask(DirectoryTreeRequest request) {
+            this.request = request;
+            this.listener = request.getProgressListener();
+        }
+
+        DirectoryTreeResult run(Node root) {
+            long startTime = System.currentTimeMillis();
+            ProgressPublisher.publishProgress(listener, ProgressEventType.TRANSFER_STARTED_EVENT);
+            limiter = new RequestRateLimiter(maxQps(request));
+            service = Executors.newFixedThreadPool(request.getTaskNum());
+            try {
+                start(root);
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ClientException("The directory tree operation is interrupted.", e);
+            } finally {
+                service.shutdownNow();
+            }
+            result.setElapsedMillis(System.currentTimeMillis() - startTime);
+            if (result.getFailedCount() > 0) {
+                ProgressPublisher.publishProgress(listener, ProgressEventType.TRANSFER_FAILED_EVENT);
+            } else {
+                ProgressPublisher.publishProgress(listener, ProgressEventType.TRANSFER_COMPLETED_EVENT);
+            }
+            return result;
+        }
+
+        abstract void start(Node root);
+
+        /**
+         * Does the work of a directory once all its subdirectories are finished.
+         */
+        abstract boolean finish(Node node);
+
+        void submit(final Node node, final Runnable task) {
+            service.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        failed(node.name, t);
+                        node.failed = true;
+                        childDone(node);
+                    }
+                }
+            });
+        }
+
+        void childDone(final Node node) {
+            if (node.pending.decrementAndGet() > 0) {
+                return;
+            }
+            if (node.failed) {
+                finished(node, false);
+                return;
+            }
+            service.execute(new Runnable() {
+                @Override
+                public void run() {
+                    boolean succeeded;
+                    try {
+                        succeeded = finish(node);
+                    } catch (Throwable t) {
+                        failed(node.name, t);
+                        succeeded = false;
+                    }
+                    finished(node, succeeded);
+                }
+            });
+        }
+
+        void finished(Node node, boolean succeeded) {
+            if (node.parent == null) {
+                done.countDown();
+                return;
+            }
+            if (!succeeded) {
+                // leave the parent in place for the next run
+                node.parent.failed = true;
+            }
+            childDone(node.parent);
+        }
+
+        /**
+         * Waits for the request rate limit and counts the request.
+         */
+        void beforeRequest() {
+            try {
+                limiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ClientException("The directory tree operation is interrupted.", e);
+            }
+            synchronized (result) {
+                result.setRequestCount(result.getRequestCount() + 1);
+            }
+        }
+
+        /**
+         * Lists one page of the direct children of a directory.
+         */
+        ListObjectsV2Result list(String directory, String continuationToken) {
+            ListObjectsV2Request listRequest = new ListObjectsV2Request(request.getBucketName(),
+                    directory + DELIMITER).withDelimiter(DELIMITER).withMaxKeys(LIST_MAX_KEYS);
+            listRequest.setContinuationToken(continuationToken);
+            listRequest.setRequestPayer(request.getRequestPayer());
+            listRequest.setEndpoint(request.getEndpoint());
+            beforeRequest();
+            return bucketOperation.listObjectsV2(listRequest);
+        }
+
+        void failed(String name, Throwable t) {
+            logException(String.format("Directory tree operation on %s failed: ", name), t);
+            Exception e = t instanceof Exception ? (Exception) t : new ClientException(t);
+            synchronized (result) {
+                result.setFailedCount(result.getFailedCount() + 1);
+                if (result.getFailures().size() < MAX_REPORTED_FAILURES) {
+                    result.getFailures().add(new DirectoryTreeResult.Failure(name, e));
+                }
+            }
+        }
+
+        int maxQps(DirectoryTreeRequest request) {
+            int maxQps = request.getMaxQps();
+            if (request.isBucketQosLimited()) {
+                try {
+                    GenericRequest qosRequest = new GenericRequest(request.getBucketName());
+                    qosRequest.setRequestPayer(request.getRequestPayer());
+                    qosRequest.setEndpoint(request.getEndpoint());
+                    BucketQosInfo qos = bucketOperation.getBucketQosInfo(qosRequest);
+                    Integer totalQps = qos.getTotalQps();
+                    if (totalQps != null && totalQps > 0 && (maxQps <= 0 || totalQps < maxQps)) {
+                        maxQps = totalQps;
+                    }
+                } catch (Exception e) {
+                    logException("Failed to get the QoS of bucket " + request.getBucketName() + ", ignored: ", e);
+                }
+            }
+            return maxQps;
+        }
+    }
+
+    private class TreeDelete extends TreeTask {
+        private final DeleteDirectoryTreeRequest deleteRequest;
+        private final Journal journal;
+
+        TreeDelete(DeleteDirectoryTreeRequest request, Journal journal) {
+            super(request);
+            this.deleteRequest = request;
+            this.journal = journal;
+        }
+
+        @Override
+        void start(Node root) {
+            discover(root);
+        }
+
+        private void discover(final Node node) {
+            submit(node, new Runnable() {
+                @Override
+                public void run() {
+                    boolean resumed = journal != null
+                            && (journal.isDeleted(node.name) || journal.getToken(node.name) != null);
+                    if (node.depth < deleteRequest.getDiscoveryDepth() && !resumed) {
+                        String continuationToken = null;
+                        ListObjectsV2Result listing;
+                        do {
+                            listing = list(node.name, continuationToken);
+                            for (String prefix : listing.getCommonPrefixes()) {
+                                node.pending.incrementAndGet();
+                                discover(new Node(trimDelimiter(prefix), null, node));
+                            }
+                            continuationToken = listing.getNextContinuationToken();
+                        } while (listing.isTruncated());
+                    }
+                    childDone(node);
+                }
+            });
+        }
+
+        @Override
+        boolean finish(Node node) {
+            if (journal != null && journal.isDeleted(node.name)) {
+                return true;
+            }
+            String token = journal != null ? journal.getToken(node.name) : null;
+            do {
+                DeleteDirectoryRequest deleteDirectoryRequest = new DeleteDirectoryRequest(request.getBucketName(),
+                        node.name, true, token);
+                deleteDirectoryRequest.setRequestPayer(request.getRequestPayer());
+                deleteDirectoryRequest.setEndpoint(request.getEndpoint());
+                beforeRequest();
+                DeleteDirectoryResult deleteResult;
+                try {
+                    deleteResult = objectOperation.deleteDirectory(deleteDirectoryRequest);
+                } catch (OSSException e) {
+                    if (token == null && OSSErrorCode.NO_SUCH_KEY.equals(e.getErrorCode())) {
+                        // deleted by an earlier run
+                        break;
+                    }
+                    throw e;
+                }
+                synchronized (result) {
+                    result.setEntriesDeleted(result.getEntriesDeleted() + deleteResult.getDeleteNumber());
+                }
+                ProgressPublisher.publishRequestBytesTransferred(listener, deleteResult.getDeleteNumber());
+                token = deleteResult.getNextDeleteToken();
+                if (journal != null && token != null && !token.isEmpty()) {
+                    journalToken(node.name, token);
+                }
+            } while (token != null && !token.isEmpty());
+            if (journal != null) {
+                try {
+                    journal.deleted(node.name);
+                } catch (IOException e) {
+                    logException("Failed to write the journal: ", e);
+                }
+            }
+            synchronized (result) {
+                result.setDirectories(result.getDirectories() + 1);
+            }
+            return true;
+        }
+
+        private void journalToken(String directory, String token) {
+            try {
+                journal.token(directory, token);
+            } catch (IOException e) {
+                logException("Failed to write the journal: ", e);
+            }
+        }
+    }
+
+    private class TreeRename extends TreeTask {
+
+        TreeRename(RenameDirectoryTreeRequest request) {
+            super(request);
+        }
+
+        @Override
+        void start(final Node root) {
+            submit(root, new Runnable() {
+                @Override
+                public void run() {
+                    if (rename(root.name, root.destination, true)) {
+                        root.pending.set(0);
+                        done.countDown();
+                    } else {
+                        merge(root);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Renames an entry, returns false if it is a directory whose destination
+         * already exists.
+         */
+        private boolean rename(String source, String destination, boolean directory) {
+            RenameObjectRequest renameRequest = new RenameObjectRequest(request.getBucketName(), source, destination);
+            renameRequest.setRequestPayer(request.getRequestPayer());
+            renameRequest.setEndpoint(request.getEndpoint());
+            beforeRequest();
+            try {
+                objectOperation.renameObject(renameRequest);
+            } catch (OSSException e) {
+                if (directory && OSSErrorCode.FILE_ALREADY_EXISTS.equals(e.getErrorCode())) {
+                    return false;
+                }
+                throw e;
+            }
+            synchronized (result) {
+                result.setEntriesRenamed(result.getEntriesRenamed() + 1);
+            }
+            ProgressPublisher.publishRequestBytesTransferred(listener, 1);
+            return true;
+        }
+
+        /**
+         * Renames the children of a directory into its existing destination.
+         */
+        private void merge(Node node) {
+            String prefix = node.name + DELIMITER;
+            String continuationToken = null;
+            ListObjectsV2Result listing;
+            try {
+                do {
+                    listing = list(node.name, continuationToken);
+                    for (OSSObjectSummary summary : listing.getObjectSummaries()) {
+                        String key = summary.getKey();
+                        // the directory itself and directory entries, which are listed as prefixes
+                        if (!key.endsWith(DELIMITER)) {
+                            renameChild(node, key, node.destination + DELIMITER + key.substring(prefix.length()),
+                                    false);
+                        }
+                    }
+                    for (String commonPrefix : listing.getCommonPrefixes()) {
+                        String child = trimDelimiter(commonPrefix);
+                        renameChild(node, child, node.destination + DELIMITER + child.substring(prefix.length()),
+                                true);
+                    }
+                    continuationToken = listing.getNextContinuationToken();
+                } while (listing.isTruncated());
+            } catch (RuntimeException e) {
+                failed(node.name, e);
+                node.failed = true;
+            }
+            childDone(node);
+        }
+
+        private void renameChild(final Node parent, final String source, final String destination,
+                final boolean directory) {
+            parent.pending.incrementAndGet();
+            final Node child = new Node(source, destination, parent);
+            submit(child, new Runnable() {
+                @Override
+                public void run() {
+                    boolean renamed;
+                    try {
+                        renamed = rename(source, destination, directory);
+                    } catch (RuntimeException e) {
+                        failed(source, e);
+                        parent.failed = true;
+                        childDone(parent);
+                        return;
+                    }
+                    if (renamed) {
+                        childDone(parent);
+                    } else {
+                        merge(child);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Deletes a merged source directory, which is empty now.
+         */
+        @Override
+        boolean finish(Node node) {
+            DeleteDirectoryRequest deleteDirectoryRequest = new DeleteDirectoryRequest(request.getBucketName(),
+                    node.name);
+            deleteDirectoryRequest.setRequestPayer(request.getRequestPayer());
+            deleteDirectoryRequest.setEndpoint(request.getEndpoint());
+            beforeRequest();
+            DeleteDirectoryResult deleteResult = objectOperation.deleteDirectory(deleteDirectoryRequest);
+            synchronized (result) {
+                result.setEntriesDeleted(result.getEntriesDeleted() + deleteResult.getDeleteNumber());
+                result.setDirectories(result.getDirectories() + 1);
+            }
+            return true;
+        }
+    }
+
+    public OSSDirectoryTreeOperation(OSSBucketOperation bucketOperation, OSSObjectOperation objectOperation) {
+        this.bucketOperation = bucketOperation;
+        this.objectOperation = objectOperation;
+    }
+
+    public DirectoryTreeResult deleteDirectoryTree(DeleteDirectoryTreeRequest deleteDirectoryTreeRequest) {
+        assertParameterNotNull(deleteDirectoryTreeRequest, "deleteDirectoryTreeRequest");
+        String directoryName = checkDirectory(deleteDirectoryTreeRequest, deleteDirectoryTreeRequest.getDirectoryName());
+
+        Journal journal = null;
+        if (deleteDirectoryTreeRequest.getJournalFile() != null) {
+            journal = new Journal();
+            try {
+                journal.open(deleteDirectoryTreeRequest.getJournalFile(), Journal.header(deleteDirectoryTreeRequest));
+            } catch (IOException e) {
+                throw new ClientException("Failed to open the journal " + deleteDirectoryTreeRequest.getJournalFile(),
+                        e);
+            }
+        }
+
+        DirectoryTreeResult result;
+        try {
+            result = new TreeDelete(deleteDirectoryTreeRequest, journal).run(new Node(directoryName, null, null));
+        } finally {
+            try {
+                if (journal != null) {
+                    journal.close();
+                }
+            } catch (IOException e) {
+                logException("Failed to close the journal: ", e);
+            }
+        }
+        if (journal != null && result.getFailedCount() == 0) {
+            new File(deleteDirectoryTreeRequest.getJournalFile()).delete();
+        }
+        return result;
+    }
+
+    public DirectoryTreeResult renameDirectoryTree(RenameDirectoryTreeRequest renameDirectoryTreeRequest) {
+        assertParameterNotNull(renameDirectoryTreeRequest, "renameDirectoryTreeRequest");
+        String source = checkDirectory(renameDirectoryTreeRequest, renameDirectoryTreeRequest.getDirectoryName());
+        String destination = checkDirectory(renameDirectoryTreeRequest,
+                renameDirectoryTreeRequest.getDestinationDirectoryName());
+        if (destination.equals(source) || destination.startsWith(source + DELIMITER)) {
+            throw new IllegalArgumentException("The destination directory must not be within the source directory.");
+        }
+        return new TreeRename(renameDirectoryTreeRequest).run(new Node(source, destination, null));
+    }
+
+    private static String checkDirectory(DirectoryTreeRequest request, String directoryName) {
+        assertParameterNotNull(request.getBucketName(), "bucketName");
+        ensureBucketNameValid(request.getBucketName());
+        assertParameterNotNull(directoryName, "directoryName");
+        String name = trimDelimiter(directoryName);
+        ensureObjectKeyValid(name);
+        return name;
+    }
+
+    private static String trimDelimiter(String directoryName) {
+        return directoryName.endsWith(DELIMITER) ? directoryName.substring(0, directoryName.length() - 1)
+                : directoryName;
+    }
+
+    protected OSSBucketOperation bucketOperation;
+    protected OSSObjectOperation objectOperation;
+}
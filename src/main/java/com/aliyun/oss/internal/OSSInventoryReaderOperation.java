@@ -0,0 +1,447 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.internal;
+
+import static com.aliyun.oss.common.utils.CodingUtils.assertParameterNotNull;
+import static com.aliyun.oss.internal.OSSConstants.DEFAULT_CHARSET_NAME;
+import static com.aliyun.oss.internal.OSSUtils.ensureBucketNameValid;
+import static com.aliyun.oss.internal.OSSUtils.ensureObjectKeyValid;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigInteger;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.GZIPInputStream;
+
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.common.utils.IOUtils;
+import com.aliyun.oss.model.GetObjectRequest;
+import com.aliyun.oss.model.InventoryFormat;
+import com.aliyun.oss.model.InventoryManifest;
+import com.aliyun.oss.model.InventoryReader;
+import com.aliyun.oss.model.InventoryReaderRequest;
+import com.aliyun.oss.model.InventoryRecord;
+import com.aliyun.oss.model.OSSObject;
+
+/**
+ * OSSInventoryReaderOperation reads inventory reports: it parses the
+ * manifest, then downloads and decompresses the data files on a pool of
+ * threads, which hand the parsed rows over to the reader in batches.
+ */
+public class OSSInventoryReaderOperation {
+    static final int BATCH_SIZE = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private OSSObjectOperation objectOperation;
+
+    public OSSInventoryReaderOperation(OSSObjectOperation objectOperation) {
+        this.objectOperation = objectOperation;
+    }
+
+    public InventoryReader createInventoryReader(InventoryReaderRequest request) {
+        assertParameterNotNull(request, "inventoryReaderRequest");
+
+        String bucketName = request.getBucketName();
+        String key = request.getKey();
+
+        assertParameterNotNull(bucketName, "bucketName");
+        assertParameterNotNull(key, "key");
+        ensureBucketNameValid(bucketName);
+        ensureObjectKeyValid(key);
+
+        if (request.getTaskNum() < 1) {
+            throw new IllegalArgumentException("Task number of inventory reader request should be positive");
+        }
+        if (request.getMaxRetries() < 0) {
+            throw new IllegalArgumentException("Max retries of inventory reader request should not be negative");
+        }
+
+        InventoryManifest manifest = readManifest(request);
+        if (!InventoryFormat.CSV.toString().equalsIgnoreCase(manifest.getFileFormat())) {
+            throw new ClientException("Unsupported inventory file format " + manifest.getFileFormat());
+        }
+        InventoryReaderImpl reader = new InventoryReaderImpl(request, manifest);
+        reader.start();
+        return reader;
+    }
+
+    private InventoryManifest readManifest(InventoryReaderRequest request) {
+        ObjectContentInputStream in = new ObjectContentInputStream(request, request.getKey());
+        try {
+            return parseManifest(IOUtils.readStreamAsString(in, DEFAULT_CHARSET_NAME));
+        } catch (IOException e) {
+            throw new ClientException("Failed to read the inventory manifest " + request.getKey(), e);
+        } catch (JSONException e) {
+            throw new ClientException("Invalid inventory manifest " + request.getKey(), e);
+        } finally {
+            in.close();
+        }
+    }
+
+    static InventoryManifest parseManifest(String json) throws JSONException {
+        JSONObject root = new JSONObject(json);
+        InventoryManifest manifest = new InventoryManifest();
+        manifest.setSourceBucket(root.optString("sourceBucket", null));
+        manifest.setDestinationBucket(root.optString("destinationBucket", null));
+        manifest.setVersion(root.optString("version", null));
+        manifest.setCreationTimestamp(root.optString("creationTimestamp", null));
+        manifest.setFileFormat(root.optString("fileFormat", null));
+
+        List<String> fileSchema = new ArrayList<String>();
+        for (String field : root.getString("fileSchema").split(",")) {
+            fileSchema.add(field.trim());
+        }
+        manifest.setFileSchema(fileSchema);
+
+        List<InventoryManifest.DataFile> files = new ArrayList<InventoryManifest.DataFile>();
+        JSONArray array = root.getJSONArray("files");
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject file = array.getJSONObject(i);
+            files.add(new InventoryManifest.DataFile(file.getString("key"), file.optLong("size", -1),
+                    file.optString("MD5checksum", null)));
+        }
+        manifest.setFiles(files);
+        return manifest;
+    }
+
+    /**
+     * Splits a CSV line, with double quoted values in which "" is a quote.
+     */
+    static String[] parseCsvLine(String line, int columns) {
+        List<String> values = new ArrayList<String>(columns);
+        StringBuilder value = new StringBuilder();
+        int length = line.length();
+        int i = 0;
+        while (true) {
+            value.setLength(0);
+            if (i < length && line.charAt(i) == '"') {
+                i++;
+                while (i < length) {
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        value.append(c);
+                    } else if (i < length && line.charAt(i) == '"') {
+                        value.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                while (i < length && line.charAt(i) != ',') {
+                    i++;
+                }
+            } else {
+                int comma = line.indexOf(',', i);
+                if (comma < 0) {
+                    comma = length;
+                }
+                value.append(line, i, comma);
+                i = comma;
+            }
+            values.add(value.toString());
+            if (i >= length) {
+                break;
+            }
+            // the comma
+            i++;
+        }
+        return values.toArray(new String[values.size()]);
+    }
+
+    /**
+     * The content of an object. When the download breaks, it's resumed with a
+     * ranged GET from the bytes already read, up to the max retries of the
+     * request.
+     */
+    class ObjectContentInputStream extends InputStream {
+        private final InventoryReaderRequest request;
+        private final String key;
+        private OSSObject object;
+        private long position;
+        private int retries;
+        private boolean eof;
+
+        ObjectContentInputStream(InventoryReaderRequest request, String key) {
+            this.request = request;
+            this.key = key;
+        }
+
+        long getPosition() {
+            return position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (eof) {
+                return -1;
+            }
+            while (true) {
+                if (object == null) {
+                    object = open();
+                }
+                try {
+                    int n = object.getObjectContent().read(b, off, len);
+                    if (n < 0) {
+                        eof = true;
+                    } else {
+                        position += n;
+                    }
+                    return n;
+                } catch (IOException e) {
+                    forcedClose();
+                    if (retries++ >= request.getMaxRetries()) {
+                        throw e;
+                    }
+                }
+            }
+        }
+
+        private OSSObject open() {
+            GetObjectRequest getObjectRequest = new GetObjectRequest(request.getBucketName(), key);
+            if (position > 0) {
+                getObjectRequest.setRange(position, -1);
+            }
+            getObjectRequest.setRequestPayer(request.getRequestPayer());
+            getObjectRequest.setEndpoint(request.getEndpoint());
+            return objectOperation.getObject(getObjectRequest);
+        }
+
+        private void forcedClose() {
+            if (object != null) {
+                try {
+                    object.forcedClose();
+                } catch (IOException e) {
+                    // the connection is dropped anyway
+                }
+                object = null;
+            }
+        }
+
+        /**
+         * Closes the content, aborting the connection if it's not read to the
+         * end.
+         */
+        @Override
+        public void close() {
+            if (eof && object != null) {
+                IOUtils.safeClose(object.getObjectContent());
+                object = null;
+            }
+            forcedClose();
+        }
+    }
+
+    class InventoryReaderImpl extends InventoryReader {
+        private final InventoryReaderRequest request;
+        private final InventoryManifest manifest;
+        private final Map<String, Integer> columns = new HashMap<String, Integer>();
+        private final BlockingQueue<List<InventoryRecord>> queue;
+        // marks the end of a data file in the queue
+        private final List<InventoryRecord> endOfFile = new ArrayList<InventoryRecord>(0);
+        private ExecutorService service;
+        private volatile boolean closed;
+        private volatile RuntimeException failure;
+
+        private Iterator<InventoryRecord> batch = Collections.<InventoryRecord>emptyList().iterator();
+        private int remainingFiles;
+        private long recordCount;
+
+        InventoryReaderImpl(InventoryReaderRequest request, InventoryManifest manifest) {
+            this.request = request;
+            this.manifest = manifest;
+            for (int i = 0; i < manifest.getFileSchema().size(); i++) {
+                columns.put(manifest.getFileSchema().get(i), i);
+            }
+            // enough batches to keep every task going while one is consumed
+            this.queue = new ArrayBlockingQueue<List<InventoryRecord>>(request.getTaskNum() * 2);
+            this.remainingFiles = manifest.getFiles().size();
+        }
+
+        void start() {
+            if (remainingFiles == 0) {
+                return;
+            }
+            service = Executors.newFixedThreadPool(Math.min(request.getTaskNum(), remainingFiles), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "oss-inventory-reader");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            for (final InventoryManifest.DataFile file : manifest.getFiles()) {
+                service.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            readFile(file);
+                        } catch (InterruptedException e) {
+                            return;
+                        } catch (Exception e) {
+                            if (failure == null) {
+                                failure = e instanceof RuntimeException ? (RuntimeException) e
+                                        : new ClientException("Failed to read the inventory file " + file.getKey(), e);
+                            }
+                        }
+                        try {
+                            queue.put(endOfFile);
+                        } catch (InterruptedException e) {
+                            // closed
+                        }
+                    }
+                });
+            }
+            service.shutdown();
+        }
+
+        private void readFile(InventoryManifest.DataFile file) throws IOException, InterruptedException {
+            MessageDigest md5;
+            try {
+                md5 = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new ClientException(e);
+            }
+            ObjectContentInputStream content = new ObjectContentInputStream(request, file.getKey());
+            DigestInputStream digestStream = new DigestInputStream(content, md5);
+            try {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        new GZIPInputStream(digestStream, BUFFER_SIZE), DEFAULT_CHARSET_NAME), BUFFER_SIZE);
+                List<InventoryRecord> records = new ArrayList<InventoryRecord>(BATCH_SIZE);
+                String line;
+                while ((line = reader.readLine()) != null && !closed) {
+                    if (line.length() == 0) {
+                        continue;
+                    }
+                    records.add(new InventoryRecord(columns, parseCsvLine(line, columns.size())));
+                    if (records.size() == BATCH_SIZE) {
+                        queue.put(records);
+                        records = new ArrayList<InventoryRecord>(BATCH_SIZE);
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+                // the MD5 covers the bytes after the gzip trailer too, if any
+                byte[] rest = new byte[BUFFER_SIZE];
+                while (digestStream.read(rest) != -1) {
+                }
+                if (file.getSize() >= 0 && content.getPosition() != file.getSize()) {
+                    throw new ClientException("The inventory file " + file.getKey() + " has " + content.getPosition()
+                            + " bytes, the manifest says " + file.getSize());
+                }
+                if (file.getMd5Checksum() != null && file.getMd5Checksum().length() > 0) {
+                    String actual = String.format("%032x", new BigInteger(1, md5.digest()));
+                    if (!actual.equalsIgnoreCase(file.getMd5Checksum())) {
+                        throw new ClientException("The MD5 of the inventory file " + file.getKey() + " is " + actual
+                                + ", the manifest says " + file.getMd5Checksum());
+                    }
+                }
+                if (!records.isEmpty()) {
+                    queue.put(records);
+                }
+            } finally {
+                content.close();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!batch.hasNext()) {
+                if (failure != null) {
+                    close();
+                    throw failure;
+                }
+                if (remainingFiles == 0) {
+                    return false;
+                }
+                if (closed) {
+                    throw new ClientException("The inventory reader is closed.");
+                }
+                List<InventoryRecord> next;
+                try {
+                    next = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ClientException("Interrupted while reading the inventory.", e);
+                }
+                if (next == endOfFile) {
+                    remainingFiles--;
+                } else {
+                    batch = next.iterator();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public InventoryRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            recordCount++;
+            return batch.next();
+        }
+
+        @Override
+        public InventoryManifest getManifest() {
+            return manifest;
+        }
+
+        @Override
+        public long getRecordCount() {
+            return recordCount;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            if (service != null) {
+                service.shutdownNow();
+            }
+            queue.clear();
+        }
+    }
+}
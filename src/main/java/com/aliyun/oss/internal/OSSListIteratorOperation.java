@@ -0,0 +1,340 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.internal;
+
+import static com.aliyun.oss.common.utils.CodingUtils.assertParameterNotNull;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.aliyun.oss.model.Bucket;
+import com.aliyun.oss.model.BucketList;
+import com.aliyun.oss.model.ListBucketsRequest;
+import com.aliyun.oss.model.ListLiveChannelsRequest;
+import com.aliyun.oss.model.ListMultipartUploadsRequest;
+import com.aliyun.oss.model.ListObjectsRequest;
+import com.aliyun.oss.model.ListObjectsV2Request;
+import com.aliyun.oss.model.ListObjectsV2Result;
+import com.aliyun.oss.model.ListPartsRequest;
+import com.aliyun.oss.model.ListVersionsRequest;
+import com.aliyun.oss.model.LiveChannel;
+import com.aliyun.oss.model.LiveChannelListing;
+import com.aliyun.oss.model.MultipartUpload;
+import com.aliyun.oss.model.MultipartUploadListing;
+import com.aliyun.oss.model.OSSObjectSummary;
+import com.aliyun.oss.model.OSSVersionSummary;
+import com.aliyun.oss.model.ObjectListing;
+import com.aliyun.oss.model.PartListing;
+import com.aliyun.oss.model.PartSummary;
+import com.aliyun.oss.model.VersionListing;
+
+/**
+ * OSSListIteratorOperation turns the paginated list operations into lazy
+ * iterables, which prefetch the next page on a pool of daemon threads shared
+ * by the client, see {@link PrefetchingIterator}.
+ *
+ * Every iterator starts from the markers the request had when the iterable
+ * was created, and sets the markers of the request as it goes, so a request
+ * must not be iterated by two iterators at the same time.
+ */
+public class OSSListIteratorOperation {
+
+    private OSSBucketOperation bucketOperation;
+    private OSSMultipartOperation multipartOperation;
+    private LiveChannelOperation liveChannelOperation;
+    private ThreadPoolExecutor executor;
+
+    public OSSListIteratorOperation(OSSBucketOperation bucketOperation, OSSMultipartOperation multipartOperation,
+            LiveChannelOperation liveChannelOperation) {
+        this.bucketOperation = bucketOperation;
+        this.multipartOperation = multipartOperation;
+        this.liveChannelOperation = liveChannelOperation;
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            // a thread per listing in progress, idle threads die after a minute
+            executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                    new SynchronousQueue<Runnable>(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "oss-list-prefetch");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+        }
+        return executor;
+    }
+
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public Iterable<Bucket> iterateBuckets(final ListBucketsRequest listBucketsRequest) {
+        assertParameterNotNull(listBucketsRequest, "listBucketsRequest");
+        final String marker = listBucketsRequest.getMarker();
+        return new Iterable<Bucket>() {
+            @Override
+            public Iterator<Bucket> iterator() {
+                listBucketsRequest.setMarker(marker);
+                return new PrefetchingIterator<BucketList, Bucket>(getExecutor()) {
+                    @Override
+                    protected BucketList fetch(BucketList previous) {
+                        if (previous != null) {
+                            listBucketsRequest.setMarker(previous.getNextMarker());
+                        }
+                        return bucketOperation.listBuckets(listBucketsRequest);
+                    }
+
+                    @Override
+                    protected List<Bucket> getItems(BucketList page) {
+                        return page.getBucketList();
+                    }
+
+                    @Override
+                    protected boolean isTruncated(BucketList page) {
+                        return page.isTruncated();
+                    }
+                };
+            }
+        };
+    }
+
+    public Iterable<OSSObjectSummary> iterateObjects(final ListObjectsRequest listObjectsRequest) {
+        assertParameterNotNull(listObjectsRequest, "listObjectsRequest");
+        final String marker = listObjectsRequest.getMarker();
+        return new Iterable<OSSObjectSummary>() {
+            @Override
+            public Iterator<OSSObjectSummary> iterator() {
+                listObjectsRequest.setMarker(marker);
+                return new PrefetchingIterator<ObjectListing, OSSObjectSummary>(getExecutor()) {
+                    @Override
+                    protected ObjectListing fetch(ObjectListing previous) {
+                        if (previous != null) {
+                            listObjectsRequest.setMarker(nextMarker(previous));
+                        }
+                        return bucketOperation.listObjects(listObjectsRequest);
+                    }
+
+                    @Override
+                    protected List<OSSObjectSummary> getItems(ObjectListing page) {
+                        return page.getObjectSummaries();
+                    }
+
+                    @Override
+                    protected boolean isTruncated(ObjectListing page) {
+                        return page.isTruncated();
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * The next marker of a listing, or its last key or prefix if the response
+     * has no NextMarker.
+     */
+    private static String nextMarker(ObjectListing listing) {
+        if (listing.getNextMarker() != null) {
+            return listing.getNextMarker();
+        }
+        String last = null;
+        if (!listing.getObjectSummaries().isEmpty()) {
+            last = listing.getObjectSummaries().get(listing.getObjectSummaries().size() - 1).getKey();
+        }
+        if (!listing.getCommonPrefixes().isEmpty()) {
+            String prefix = listing.getCommonPrefixes().get(listing.getCommonPrefixes().size() - 1);
+            if (last == null || prefix.compareTo(last) > 0) {
+                last = prefix;
+            }
+        }
+        return last;
+    }
+
+    public Iterable<OSSObjectSummary> iterateObjectsV2(final ListObjectsV2Request listObjectsV2Request) {
+        assertParameterNotNull(listObjectsV2Request, "listObjectsV2Request");
+        final String continuationToken = listObjectsV2Request.getContinuationToken();
+        return new Iterable<OSSObjectSummary>() {
+            @Override
+            public Iterator<OSSObjectSummary> iterator() {
+                listObjectsV2Request.setContinuationToken(continuationToken);
+                return new PrefetchingIterator<ListObjectsV2Result, OSSObjectSummary>(getExecutor()) {
+                    @Override
+                    protected ListObjectsV2Result fetch(ListObjectsV2Result previous) {
+                        if (previous != null) {
+                            listObjectsV2Request.setContinuationToken(previous.getNextContinuationToken());
+                        }
+                        return bucketOperation.listObjectsV2(listObjectsV2Request);
+                    }
+
+                    @Override
+                    protected List<OSSObjectSummary> getItems(ListObjectsV2Result page) {
+                        return page.getObjectSummaries();
+                    }
+
+                    @Override
+                    protected boolean isTruncated(ListObjectsV2Result page) {
+                        return page.isTruncated();
+                    }
+                };
+            }
+        };
+    }
+
+    public Iterable<OSSVersionSummary> iterateVersions(final ListVersionsRequest listVersionsRequest) {
+        assertParameterNotNull(listVersionsRequest, "listVersionsRequest");
+        final String keyMarker = listVersionsRequest.getKeyMarker();
+        final String versionIdMarker = listVersionsRequest.getVersionIdMarker();
+        return new Iterable<OSSVersionSummary>() {
+            @Override
+            public Iterator<OSSVersionSummary> iterator() {
+                listVersionsRequest.setKeyMarker(keyMarker);
+                listVersionsRequest.setVersionIdMarker(versionIdMarker);
+                return newVersionIterator(listVersionsRequest);
+            }
+        };
+    }
+
+    PrefetchingIterator<VersionListing, OSSVersionSummary> newVersionIterator(
+            final ListVersionsRequest listVersionsRequest) {
+        return new PrefetchingIterator<VersionListing, OSSVersionSummary>(getExecutor()) {
+            @Override
+            protected VersionListing fetch(VersionListing previous) {
+                if (previous != null) {
+                    listVersionsRequest.setKeyMarker(previous.getNextKeyMarker());
+                    listVersionsRequest.setVersionIdMarker(previous.getNextVersionIdMarker());
+                }
+                return bucketOperation.listVersions(listVersionsRequest);
+            }
+
+            @Override
+            protected List<OSSVersionSummary> getItems(VersionListing page) {
+                return page.getVersionSummaries();
+            }
+
+            @Override
+            protected boolean isTruncated(VersionListing page) {
+                return page.isTruncated();
+            }
+        };
+    }
+
+    public Iterable<MultipartUpload> iterateMultipartUploads(
+            final ListMultipartUploadsRequest listMultipartUploadsRequest) {
+        assertParameterNotNull(listMultipartUploadsRequest, "listMultipartUploadsRequest");
+        final String keyMarker = listMultipartUploadsRequest.getKeyMarker();
+        final String uploadIdMarker = listMultipartUploadsRequest.getUploadIdMarker();
+        return new Iterable<MultipartUpload>() {
+            @Override
+            public Iterator<MultipartUpload> iterator() {
+                listMultipartUploadsRequest.setKeyMarker(keyMarker);
+                listMultipartUploadsRequest.setUploadIdMarker(uploadIdMarker);
+                return new PrefetchingIterator<MultipartUploadListing, MultipartUpload>(getExecutor()) {
+                    @Override
+                    protected MultipartUploadListing fetch(MultipartUploadListing previous) {
+                        if (previous != null) {
+                            listMultipartUploadsRequest.setKeyMarker(previous.getNextKeyMarker());
+                            listMultipartUploadsRequest.setUploadIdMarker(previous.getNextUploadIdMarker());
+                        }
+                        return multipartOperation.listMultipartUploads(listMultipartUploadsRequest);
+                    }
+
+                    @Override
+                    protected List<MultipartUpload> getItems(MultipartUploadListing page) {
+                        return page.getMultipartUploads();
+                    }
+
+                    @Override
+                    protected boolean isTruncated(MultipartUploadListing page) {
+                        return page.isTruncated();
+                    }
+                };
+            }
+        };
+    }
+
+    public Iterable<PartSummary> iterateParts(final ListPartsRequest listPartsRequest) {
+        assertParameterNotNull(listPartsRequest, "listPartsRequest");
+        final Integer partNumberMarker = listPartsRequest.getPartNumberMarker();
+        return new Iterable<PartSummary>() {
+            @Override
+            public Iterator<PartSummary> iterator() {
+                listPartsRequest.setPartNumberMarker(partNumberMarker);
+                return new PrefetchingIterator<PartListing, PartSummary>(getExecutor()) {
+                    @Override
+                    protected PartListing fetch(PartListing previous) {
+                        if (previous != null) {
+                            listPartsRequest.setPartNumberMarker(previous.getNextPartNumberMarker());
+                        }
+                        return multipartOperation.listParts(listPartsRequest);
+                    }
+
+                    @Override
+                    protected List<PartSummary> getItems(PartListing page) {
+                        return page.getParts();
+                    }
+
+                    @Override
+                    protected boolean isTruncated(PartListing page) {
+                        return page.isTruncated();
+                    }
+                };
+            }
+        };
+    }
+
+    public Iterable<LiveChannel> iterateLiveChannels(final ListLiveChannelsRequest listLiveChannelsRequest) {
+        assertParameterNotNull(listLiveChannelsRequest, "listLiveChannelsRequest");
+        final String marker = listLiveChannelsRequest.getMarker();
+        return new Iterable<LiveChannel>() {
+            @Override
+            public Iterator<LiveChannel> iterator() {
+                listLiveChannelsRequest.setMarker(marker);
+                return new PrefetchingIterator<LiveChannelListing, LiveChannel>(getExecutor()) {
+                    @Override
+                    protected LiveChannelListing fetch(LiveChannelListing previous) {
+                        if (previous != null) {
+                            listLiveChannelsRequest.setMarker(previous.getNextMarker());
+                        }
+                        return liveChannelOperation.listLiveChannels(listLiveChannelsRequest);
+                    }
+
+                    @Override
+                    protected List<LiveChannel> getItems(LiveChannelListing page) {
+                        return page.getLiveChannels();
+                    }
+
+                    @Override
+                    protected boolean isTruncated(LiveChannelListing page) {
+                        return page.isTruncated();
+                    }
+                };
+            }
+        };
+    }
+}
@@ -78,6 +78,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -96,6 +97,7 @@ import com.aliyun.oss.common.comm.ResponseHandler;
 import com.aliyun.oss.common.comm.ServiceClient;
 import com.aliyun.oss.common.comm.io.RepeatableFileInputStream;
 import com.aliyun.oss.common.parser.ResponseParser;
+import com.aliyun.oss.common.parser.XmlWriter;
 import com.aliyun.oss.common.utils.BinaryUtil;
 import com.aliyun.oss.common.utils.CRC64;
 import com.aliyun.oss.common.utils.DateUtil;
@@ -287,12 +289,12 @@ public class OSSObjectOperation extends OSSOperation {
             throw new IllegalArgumentException("Line range and split range of select request should not both set");
         }
 
-        byte[] content = selectObjectRequestMarshaller.marshall(selectObjectRequest);
+        XmlWriter content = selectObjectRequestMarshaller.marshall(selectObjectRequest);
 
-        headers.put(HttpHeaders.CONTENT_MD5, BinaryUtil.toBase64String(BinaryUtil.calculateMd5(content)));
+        headers.put(HttpHeaders.CONTENT_MD5, BinaryUtil.toBase64String(content.md5()));
         RequestMessage request = new OSSRequestMessageBuilder(getInnerClient()).setEndpoint(getEndpoint(selectObjectRequest))
                 .setMethod(HttpMethod.POST).setBucket(bucketName).setKey(key).setHeaders(headers)
-                .setInputSize(content.length).setInputStream(new ByteArrayInputStream(content))
+                .setInputSize(content.size()).setInputStream(content.toInputStream())
                 .setParameters(params).setOriginalRequest(selectObjectRequest).build();
         //select progress listener(scanned bytes)
         final ProgressListener selectProgressListener = selectObjectRequest.getSelectProgressListener();
@@ -304,6 +306,11 @@ public class OSSObjectOperation extends OSSOperation {
                 SelectInputStream selectInputStream = new SelectInputStream(inputStream, selectProgressListener,
                         selectObjectRequest.getOutputSerialization().isPayloadCrcEnabled());
                 selectInputStream.setRequestId(ossObject.getRequestId());
+                if (selectObjectRequest.getInputSerialization().getSelectContentFormat() == SelectContentFormat.CSV) {
+                    selectInputStream.setRecordDelimiter(selectObjectRequest.getOutputSerialization().getCsvOutputFormat().getRecordDelimiter());
+                } else {
+                    selectInputStream.setRecordDelimiter(selectObjectRequest.getOutputSerialization().getJsonOutputFormat().getRecordDelimiter());
+                }
                 ossObject.setObjectContent(selectInputStream);
             }
             return ossObject;
@@ -320,15 +327,41 @@ public class OSSObjectOperation extends OSSOperation {
 
         assertParameterNotNull(getObjectRequest, "getObjectRequest");
 
-        String bucketName = null;
-        String key = null;
+        ObjectContentCache cache = objectContentCache;
+        if (cache != null && isContentCacheable(getObjectRequest)) {
+            return getCachedObject(cache, getObjectRequest);
+        }
+
+        String bucketName = getObjectRequest.isUseUrlSignature() ? null : getObjectRequest.getBucketName();
+        String key = getObjectRequest.isUseUrlSignature() ? null : getObjectRequest.getKey();
+        RequestMessage request = buildGetObjectRequest(getObjectRequest, null);
+
+        final ProgressListener listener = getObjectRequest.getProgressListener();
+        OSSObject ossObject = null;
+        try {
+            publishProgress(listener, ProgressEventType.TRANSFER_STARTED_EVENT);
+            ossObject = doOperation(request, new GetObjectResponseParser(bucketName, key), bucketName, key, true);
+            wrapObjectContent(ossObject, listener);
+        } catch (RuntimeException e) {
+            publishProgress(listener, ProgressEventType.TRANSFER_FAILED_EVENT);
+            throw e;
+        }
+
+        return ossObject;
+    }
+
+    /**
+     * Build the GET request of an object, conditional on the ETag and the
+     * last modified time of a cached entry if it's not null.
+     */
+    private RequestMessage buildGetObjectRequest(GetObjectRequest getObjectRequest,
+            ObjectContentCache.Entry revalidated) {
+
         RequestMessage request = null;
 
         if (!getObjectRequest.isUseUrlSignature()) {
-            assertParameterNotNull(getObjectRequest, "getObjectRequest");
-
-            bucketName = getObjectRequest.getBucketName();
-            key = getObjectRequest.getKey();
+            String bucketName = getObjectRequest.getBucketName();
+            String key = getObjectRequest.getKey();
 
             assertParameterNotNull(bucketName, "bucketName");
             assertParameterNotNull(key, "key");
@@ -337,6 +370,13 @@ public class OSSObjectOperation extends OSSOperation {
 
             Map<String, String> headers = new HashMap<String, String>();
             populateGetObjectRequestHeaders(getObjectRequest, headers);
+            if (revalidated != null) {
+                headers.put(OSSHeaders.GET_OBJECT_IF_NONE_MATCH, "\"" + revalidated.getETag() + "\"");
+                Date lastModified = revalidated.getMetadata().getLastModified();
+                if (lastModified != null) {
+                    headers.put(OSSHeaders.GET_OBJECT_IF_MODIFIED_SINCE, DateUtil.formatRfc822Date(lastModified));
+                }
+            }
 
             Map<String, String> params = new HashMap<String, String>();
             populateResponseHeaderParameters(params, getObjectRequest.getResponseHeaders());
@@ -355,33 +395,138 @@ public class OSSObjectOperation extends OSSOperation {
                     .setMethod(HttpMethod.GET).setBucket(bucketName).setKey(key).setHeaders(headers)
                     .setParameters(params).setOriginalRequest(getObjectRequest).build();
         } else {
-            request = new RequestMessage(getObjectRequest, bucketName, key);
+            request = new RequestMessage(getObjectRequest, null, null);
             request.setMethod(HttpMethod.GET);
             request.setAbsoluteUrl(getObjectRequest.getAbsoluteUri());
             request.setUseUrlSignature(true);
             request.setHeaders(getObjectRequest.getHeaders());
         }
 
+        return request;
+    }
+
+    /**
+     * Wrap the object content to publish the progress and compute the CRC64.
+     */
+    private static void wrapObjectContent(OSSObject ossObject, ProgressListener listener) {
+        InputStream instream = ossObject.getObjectContent();
+        ProgressInputStream progressInputStream = new ProgressInputStream(instream, listener) {
+            @Override
+            protected void onEOF() {
+                publishProgress(getListener(), ProgressEventType.TRANSFER_COMPLETED_EVENT);
+            };
+        };
+        CRC64 crc = new CRC64();
+        CheckedInputStream checkedInputstream = new CheckedInputStream(progressInputStream, crc);
+        ossObject.setObjectContent(checkedInputstream);
+    }
+
+    /**
+     * Whether the whole object is read as is, so it can be served from the
+     * object content cache.
+     */
+    private static boolean isContentCacheable(GetObjectRequest getObjectRequest) {
+        return !getObjectRequest.isUseUrlSignature() && getObjectRequest.getRange() == null
+                && getObjectRequest.getModifiedSinceConstraint() == null
+                && getObjectRequest.getUnmodifiedSinceConstraint() == null
+                && getObjectRequest.getMatchingETagConstraints().isEmpty()
+                && getObjectRequest.getNonmatchingETagConstraints().isEmpty()
+                && getObjectRequest.getProcess() == null && getObjectRequest.getResponseHeaders() == null
+                && getObjectRequest.getHeaders().isEmpty() && getObjectRequest.getParameters().isEmpty();
+    }
+
+    /**
+     * Pull an object from the object content cache, revalidating or loading
+     * it with a GET request.
+     */
+    private OSSObject getCachedObject(ObjectContentCache cache, GetObjectRequest getObjectRequest)
+            throws OSSException, ClientException {
+
+        String bucketName = getObjectRequest.getBucketName();
+        String key = getObjectRequest.getKey();
+        String versionId = getObjectRequest.getVersionId();
+
+        assertParameterNotNull(bucketName, "bucketName");
+        assertParameterNotNull(key, "key");
+        ensureBucketNameValid(bucketName);
+        ensureObjectKeyValid(key);
+
         final ProgressListener listener = getObjectRequest.getProgressListener();
         OSSObject ossObject = null;
         try {
             publishProgress(listener, ProgressEventType.TRANSFER_STARTED_EVENT);
-            ossObject = doOperation(request, new GetObjectResponseParser(bucketName, key), bucketName, key, true);
-            InputStream instream = ossObject.getObjectContent();
-            ProgressInputStream progressInputStream = new ProgressInputStream(instream, listener) {
-                @Override
-                protected void onEOF() {
-                    publishProgress(getListener(), ProgressEventType.TRANSFER_COMPLETED_EVENT);
-                };
-            };
-            CRC64 crc = new CRC64();
-            CheckedInputStream checkedInputstream = new CheckedInputStream(progressInputStream, crc);
-            ossObject.setObjectContent(checkedInputstream);
+
+            ObjectContentCache.Entry entry = cache.get(bucketName, key, versionId);
+            if (entry != null && entry.isFresh()) {
+                ossObject = openCachedObject(cache, entry, bucketName, key);
+                if (ossObject != null) {
+                    wrapObjectContent(ossObject, listener);
+                    return ossObject;
+                }
+                // the file was evicted
+                entry = null;
+            }
+
+            long generation = cache.getGeneration();
+            try {
+                ossObject = doOperation(buildGetObjectRequest(getObjectRequest, entry),
+                        new GetObjectResponseParser(bucketName, key), bucketName, key, true);
+            } catch (OSSException e) {
+                if (entry == null) {
+                    throw e;
+                }
+                if (!OSSErrorCode.NOT_MODIFIED.equals(e.getErrorCode())) {
+                    cache.remove(bucketName, key, versionId, entry);
+                    throw e;
+                }
+                cache.renew(bucketName, key, versionId, entry);
+                ossObject = openCachedObject(cache, entry, bucketName, key);
+                if (ossObject != null) {
+                    wrapObjectContent(ossObject, listener);
+                    return ossObject;
+                }
+                ossObject = doOperation(buildGetObjectRequest(getObjectRequest, null),
+                        new GetObjectResponseParser(bucketName, key), bucketName, key, true);
+            }
+
+            ObjectContentCache.Entry loaded;
+            try {
+                loaded = cache.put(bucketName, key, versionId, ossObject, generation);
+            } catch (IOException e) {
+                safeClose(ossObject.getObjectContent());
+                logException("Cannot cache object content stream: ", e);
+                throw new ClientException(OSS_RESOURCE_MANAGER.getString("CannotReadContentStream"), e);
+            }
+            if (loaded != null) {
+                OSSObject cached = openCachedObject(cache, loaded, bucketName, key);
+                if (cached == null) {
+                    // evicted by a concurrent read before it could be opened
+                    cached = doOperation(buildGetObjectRequest(getObjectRequest, null),
+                            new GetObjectResponseParser(bucketName, key), bucketName, key, true);
+                }
+                ossObject = cached;
+            }
+            wrapObjectContent(ossObject, listener);
+            return ossObject;
         } catch (RuntimeException e) {
             publishProgress(listener, ProgressEventType.TRANSFER_FAILED_EVENT);
             throw e;
         }
+    }
 
+    private static OSSObject openCachedObject(ObjectContentCache cache, ObjectContentCache.Entry entry,
+            String bucketName, String key) {
+        InputStream content = cache.open(entry);
+        if (content == null) {
+            return null;
+        }
+        OSSObject ossObject = new OSSObject();
+        ossObject.setBucketName(bucketName);
+        ossObject.setKey(key);
+        ossObject.setObjectMetadata(entry.getMetadata());
+        ossObject.setObjectContent(content);
+        ossObject.setRequestId(ossObject.getObjectMetadata().getRequestId());
+        ossObject.setServerCRC(entry.getCrc64());
         return ossObject;
     }
 
@@ -466,17 +611,67 @@ public class OSSObjectOperation extends OSSOperation {
         ensureBucketNameValid(bucketName);
         ensureObjectKeyValid(key);
 
+        if (metadataCache != null) {
+            return getCachedObjectMetadata(genericRequest, bucketName, key, genericRequest.getVersionId(),
+                    genericRequest.getRequestPayer());
+        }
+        return headObjectMetadata(genericRequest, bucketName, key, genericRequest.getVersionId(),
+                genericRequest.getRequestPayer(), null);
+    }
+
+    /**
+     * Get object matadata from the metadata cache, revalidating or loading it
+     * with a HEAD request.
+     */
+    private ObjectMetadata getCachedObjectMetadata(WebServiceRequest originalRequest, String bucketName, String key,
+            String versionId, Payer payer) throws OSSException, ClientException {
+
+        ObjectMetadataCache cache = metadataCache;
+        ObjectMetadataCache.CachedMetadata entry = cache.get(bucketName, key, versionId);
+        if (entry != null && entry.isFresh()) {
+            return entry.getMetadata();
+        }
+
+        long generation = cache.beginLoad();
+        try {
+            ObjectMetadata metadata = headObjectMetadata(originalRequest, bucketName, key, versionId, payer,
+                    entry != null ? entry.getETag() : null);
+            cache.put(bucketName, key, versionId, metadata, generation);
+            return metadata;
+        } catch (OSSException e) {
+            if (entry != null) {
+                if (OSSErrorCode.NOT_MODIFIED.equals(e.getErrorCode())) {
+                    return cache.renew(bucketName, key, versionId, entry, generation);
+                }
+                cache.remove(bucketName, key, versionId, entry);
+            }
+            throw e;
+        } finally {
+            cache.endLoad(generation);
+        }
+    }
+
+    /**
+     * Get object matadata with a HEAD request, which fails with 304 Not
+     * Modified if ifNoneMatch is the ETag of the object.
+     */
+    private ObjectMetadata headObjectMetadata(WebServiceRequest originalRequest, String bucketName, String key,
+            String versionId, Payer payer, String ifNoneMatch) throws OSSException, ClientException {
+
         Map<String, String> params = new HashMap<String, String>();
-        if (genericRequest.getVersionId() != null) {
-            params.put(RequestParameters.SUBRESOURCE_VRESION_ID, genericRequest.getVersionId());
+        if (versionId != null) {
+            params.put(RequestParameters.SUBRESOURCE_VRESION_ID, versionId);
         }
 
         Map<String, String> headers = new HashMap<String, String>();
-        populateRequestPayerHeader(headers, genericRequest.getRequestPayer());
+        populateRequestPayerHeader(headers, payer);
+        if (ifNoneMatch != null) {
+            headers.put(OSSHeaders.HEAD_OBJECT_IF_NONE_MATCH, "\"" + ifNoneMatch + "\"");
+        }
 
-        RequestMessage request = new OSSRequestMessageBuilder(getInnerClient()).setEndpoint(getEndpoint(genericRequest))
+        RequestMessage request = new OSSRequestMessageBuilder(getInnerClient()).setEndpoint(getEndpoint(originalRequest))
                 .setMethod(HttpMethod.HEAD).setBucket(bucketName).setKey(key).setHeaders(headers).setParameters(params)
-                .setOriginalRequest(genericRequest).build();
+                .setOriginalRequest(originalRequest).build();
 
         return doOperation(request, getObjectMetadataResponseParser, bucketName, key);
     }
@@ -569,14 +764,14 @@ public class OSSObjectOperation extends OSSOperation {
         Map<String, String> params = new HashMap<String, String>();
         params.put(SUBRESOURCE_DELETE, null);
 
-        byte[] rawContent = deleteObjectsRequestMarshaller.marshall(deleteObjectsRequest);
+        XmlWriter rawContent = deleteObjectsRequestMarshaller.marshall(deleteObjectsRequest);
         Map<String, String> headers = new HashMap<String, String>();
         addDeleteObjectsRequiredHeaders(headers, rawContent);
         addDeleteObjectsOptionalHeaders(headers, deleteObjectsRequest);
 
         RequestMessage request = new OSSRequestMessageBuilder(getInnerClient()).setEndpoint(getEndpoint(deleteObjectsRequest))
                 .setMethod(HttpMethod.POST).setBucket(bucketName).setParameters(params).setHeaders(headers)
-                .setInputSize(rawContent.length).setInputStream(new ByteArrayInputStream(rawContent))
+                .setInputSize(rawContent.size()).setInputStream(rawContent.toInputStream())
                 .setOriginalRequest(deleteObjectsRequest).build();
 
         return doOperation(request, deleteObjectsResponseParser, bucketName, null, true);
@@ -597,7 +792,7 @@ public class OSSObjectOperation extends OSSOperation {
         Map<String, String> params = new HashMap<String, String>();
         params.put(SUBRESOURCE_DELETE, null);
 
-        byte[] rawContent = deleteVersionsRequestMarshaller.marshall(deleteVersionsRequest);
+        XmlWriter rawContent = deleteVersionsRequestMarshaller.marshall(deleteVersionsRequest);
         Map<String, String> headers = new HashMap<String, String>();
         addDeleteVersionsRequiredHeaders(headers, rawContent);
 
@@ -605,7 +800,7 @@ public class OSSObjectOperation extends OSSOperation {
 
         RequestMessage request = new OSSRequestMessageBuilder(getInnerClient()).setEndpoint(getEndpoint(deleteVersionsRequest))
             .setMethod(HttpMethod.POST).setBucket(bucketName).setParameters(params).setHeaders(headers)
-            .setInputSize(rawContent.length).setInputStream(new ByteArrayInputStream(rawContent))
+            .setInputSize(rawContent.size()).setInputStream(rawContent.toInputStream())
             .setOriginalRequest(deleteVersionsRequest).build();
 
         return doOperation(request, deleteVersionsResponseParser, bucketName, null, true);
@@ -626,6 +821,14 @@ public class OSSObjectOperation extends OSSOperation {
         assertParameterNotNull(key, "key");
         ensureObjectKeyValid(key);
 
+        if (metadataCache != null && headObjectRequest.getModifiedSinceConstraint() == null
+                && headObjectRequest.getUnmodifiedSinceConstraint() == null
+                && headObjectRequest.getMatchingETagConstraints().isEmpty()
+                && headObjectRequest.getNonmatchingETagConstraints().isEmpty()) {
+            return getCachedObjectMetadata(headObjectRequest, bucketName, key, headObjectRequest.getVersionId(),
+                    headObjectRequest.getRequestPayer());
+        }
+
         Map<String, String> headers = new HashMap<String, String>();
         addDateHeader(headers, OSSHeaders.HEAD_OBJECT_IF_MODIFIED_SINCE,
                 headObjectRequest.getModifiedSinceConstraint());
@@ -938,7 +1141,11 @@ public class OSSObjectOperation extends OSSOperation {
 
     public boolean doesObjectExist(GenericRequest genericRequest) throws OSSException, ClientException {
         try {
-            this.getSimplifiedObjectMeta(genericRequest);
+            if (metadataCache != null) {
+                this.getObjectMetadata(genericRequest);
+            } else {
+                this.getSimplifiedObjectMeta(genericRequest);
+            }
             return true;
         } catch (OSSException e) {
             if (e.getErrorCode().equals(OSSErrorCode.NO_SUCH_BUCKET)
@@ -1281,15 +1488,15 @@ public class OSSObjectOperation extends OSSOperation {
         populateTrafficLimitHeader(headers, getObjectRequest.getTrafficLimit());
     }
 
-    private static void addDeleteObjectsRequiredHeaders(Map<String, String> headers, byte[] rawContent) {
-        headers.put(HttpHeaders.CONTENT_LENGTH, String.valueOf(rawContent.length));
+    private static void addDeleteObjectsRequiredHeaders(Map<String, String> headers, XmlWriter rawContent) {
+        headers.put(HttpHeaders.CONTENT_LENGTH, String.valueOf(rawContent.size()));
 
-        byte[] md5 = BinaryUtil.calculateMd5(rawContent);
+        byte[] md5 = rawContent.md5();
         String md5Base64 = BinaryUtil.toBase64String(md5);
         headers.put(HttpHeaders.CONTENT_MD5, md5Base64);
     }
     
-    private static void addDeleteVersionsRequiredHeaders(Map<String, String> headers, byte[] rawContent) {
+    private static void addDeleteVersionsRequiredHeaders(Map<String, String> headers, XmlWriter rawContent) {
         addDeleteObjectsRequiredHeaders(headers, rawContent);
         headers.put(ENCODING_TYPE, OSSConstants.URL_ENCODING);
     }
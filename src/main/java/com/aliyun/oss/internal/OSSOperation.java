@@ -23,10 +23,21 @@ import static com.aliyun.oss.common.utils.CodingUtils.assertParameterNotNull;
 import static com.aliyun.oss.common.utils.LogUtils.logException;
 import static com.aliyun.oss.internal.OSSConstants.DEFAULT_CHARSET_NAME;
 import static com.aliyun.oss.internal.OSSUtils.safeCloseResponse;
+import static com.aliyun.oss.internal.RequestParameters.SUBRESOURCE_DIR_DELETE;
+import static com.aliyun.oss.internal.RequestParameters.SUBRESOURCE_PROCESS;
+import static com.aliyun.oss.internal.RequestParameters.SUBRESOURCE_UPLOADS;
+import static com.aliyun.oss.internal.RequestParameters.SUBRESOURCE_VRESION_ID;
+import static com.aliyun.oss.internal.RequestParameters.UPLOAD_ID;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import com.aliyun.oss.ClientConfiguration;
 import com.aliyun.oss.ClientException;
 import com.aliyun.oss.HttpMethod;
 import com.aliyun.oss.OSSException;
@@ -35,12 +46,18 @@ import com.aliyun.oss.common.auth.Credentials;
 import com.aliyun.oss.common.auth.CredentialsProvider;
 import com.aliyun.oss.common.auth.RequestSigner;
 import com.aliyun.oss.common.comm.*;
+import com.aliyun.oss.common.metrics.RequestTimings;
 import com.aliyun.oss.common.parser.ResponseParseException;
 import com.aliyun.oss.common.parser.ResponseParser;
 import com.aliyun.oss.common.utils.ExceptionFactory;
+import com.aliyun.oss.event.ProgressListener;
 import com.aliyun.oss.internal.ResponseParsers.EmptyResponseParser;
 import com.aliyun.oss.internal.ResponseParsers.RequestIdResponseParser;
+import com.aliyun.oss.model.DeleteObjectsRequest;
+import com.aliyun.oss.model.DeleteVersionsRequest;
+import com.aliyun.oss.model.DeleteVersionsRequest.KeyVersion;
 import com.aliyun.oss.model.GenericRequest;
+import com.aliyun.oss.model.RenameObjectRequest;
 import com.aliyun.oss.model.WebServiceRequest;
 
 /**
@@ -52,12 +69,70 @@ public abstract class OSSOperation {
     protected volatile URI endpoint;
     protected CredentialsProvider credsProvider;
     protected ServiceClient client;
+    protected volatile ObjectMetadataCache metadataCache;
+    protected volatile ObjectContentCache objectContentCache;
 
     protected static OSSErrorResponseHandler errorResponseHandler = new OSSErrorResponseHandler();
     protected static EmptyResponseParser emptyResponseParser = new EmptyResponseParser();
     protected static RequestIdResponseParser requestIdResponseParser = new RequestIdResponseParser();
+
+    private static final ConcurrentMap<Class<?>, String> operationNames = new ConcurrentHashMap<Class<?>, String>();
+    private static final String[][] genericOperationNames = new String[HttpMethod.values().length][];
+
+    static {
+        for (HttpMethod method : HttpMethod.values()) {
+            String name = method.toString().charAt(0) + method.toString().substring(1).toLowerCase();
+            genericOperationNames[method.ordinal()] = new String[] { name + "Object", name + "Bucket", name + "Service" };
+        }
+    }
     protected static RetryStrategy noRetryStrategy = new NoRetryStrategy();
 
+    // The handlers below keep no state, one instance serves every request.
+    private static final RequestHandler REQUEST_PROGRESS_HANDLER = new RequestProgressHanlder();
+    private static final RequestHandler REQUEST_CHECKSUM_HANDLER = new RequestChecksumHanlder();
+    private static final ResponseHandler RESPONSE_CHECKSUM_HANDLER = new ResponseChecksumHandler();
+    private static final List<ResponseHandler> ERROR_RESPONSE_HANDLERS = Collections
+            .<ResponseHandler> singletonList(errorResponseHandler);
+
+    /**
+     * The handler lists of requests without a progress listener or handlers
+     * of their own, which is most of them, built once for the client
+     * configuration and shared by their execution contexts.
+     */
+    private static final class Pipeline {
+        final boolean crcCheckEnabled;
+        final List<RequestSigner> signerHandlers;
+        final List<RequestHandler> requestHandlers;
+        final List<ResponseHandler> responseHandlers;
+
+        Pipeline(ClientConfiguration config) {
+            this.crcCheckEnabled = config.isCrcCheckEnabled();
+            this.signerHandlers = Collections.unmodifiableList(new ArrayList<RequestSigner>(
+                    config.getSignerHandlers()));
+
+            List<RequestHandler> requestHandlers = new ArrayList<RequestHandler>();
+            requestHandlers.add(REQUEST_PROGRESS_HANDLER);
+            List<ResponseHandler> responseHandlers = new ArrayList<ResponseHandler>();
+            responseHandlers.add(errorResponseHandler);
+            if (crcCheckEnabled) {
+                requestHandlers.add(REQUEST_CHECKSUM_HANDLER);
+                responseHandlers.add(RESPONSE_CHECKSUM_HANDLER);
+            }
+            this.requestHandlers = Collections.unmodifiableList(requestHandlers);
+            this.responseHandlers = Collections.unmodifiableList(responseHandlers);
+        }
+
+        /**
+         * The configuration is mutable, so the pipeline is checked against it
+         * on every use.
+         */
+        boolean matches(ClientConfiguration config) {
+            return crcCheckEnabled == config.isCrcCheckEnabled() && signerHandlers.equals(config.getSignerHandlers());
+        }
+    }
+
+    private volatile Pipeline pipeline;
+
     protected OSSOperation(ServiceClient client, CredentialsProvider credsProvider) {
         this.client = client;
         this.credsProvider = credsProvider;
@@ -86,6 +161,32 @@ public abstract class OSSOperation {
         return this.client;
     }
 
+    /**
+     * Sets the object metadata cache whose entries are dropped by the writes
+     * of this operation, null if the metadata are not cached.
+     */
+    public void setMetadataCache(ObjectMetadataCache metadataCache) {
+        this.metadataCache = metadataCache;
+    }
+
+    /**
+     * Sets the object content cache whose entries are dropped by the writes
+     * of this operation, null if the objects are not cached.
+     */
+    public void setObjectContentCache(ObjectContentCache objectContentCache) {
+        this.objectContentCache = objectContentCache;
+    }
+
+    private Pipeline getPipeline() {
+        Pipeline current = pipeline;
+        ClientConfiguration config = client.getClientConfiguration();
+        if (current == null || !current.matches(config)) {
+            current = new Pipeline(config);
+            pipeline = current;
+        }
+        return current;
+    }
+
     protected ResponseMessage send(RequestMessage request, ExecutionContext context)
             throws OSSException, ClientException {
         return send(request, context, false);
@@ -122,43 +223,118 @@ public abstract class OSSOperation {
             throws OSSException, ClientException {
 
         final WebServiceRequest originalRequest = request.getOriginalRequest();
-        request.getHeaders().putAll(client.getClientConfiguration().getDefaultHeaders());
-        request.getHeaders().putAll(originalRequest.getHeaders());
-        request.getParameters().putAll(originalRequest.getParameters());
+        Map<String, String> defaultHeaders = client.getClientConfiguration().getDefaultHeaders();
+        if (defaultHeaders != null && !defaultHeaders.isEmpty()) {
+            request.getHeaders().putAll(defaultHeaders);
+        }
+        if (!originalRequest.getHeaders().isEmpty()) {
+            request.getHeaders().putAll(originalRequest.getHeaders());
+        }
+        if (!originalRequest.getParameters().isEmpty()) {
+            request.getParameters().putAll(originalRequest.getParameters());
+        }
 
         ExecutionContext context = createDefaultContext(request.getMethod(), bucketName, key, originalRequest);
+        if (client.getClientConfiguration().isRequestMetricsEnabled()) {
+            context.startTimings(client.getRequestMetrics().getOperationMetrics(
+                    getOperationName(request.getMethod(), bucketName, key, originalRequest), bucketName));
+        }
+        RequestTimings timings = context.getRequestTimings();
 
         if (context.getCredentials().useSecurityToken() && !request.isUseUrlSignature()) {
             request.addHeader(OSSHeaders.OSS_SECURITY_TOKEN, context.getCredentials().getSecurityToken());
         }
 
-        context.addRequestHandler(new RequestProgressHanlder());
-        if (requestHandlers != null) {
-            for (RequestHandler handler : requestHandlers)
-                context.addRequestHandler(handler);
-        }
-        if (client.getClientConfiguration().isCrcCheckEnabled()) {
-            context.addRequestHandler(new RequestChecksumHanlder());
+        Pipeline pipeline = getPipeline();
+        context.setSharedSignerHandlers(pipeline.signerHandlers);
+        ProgressListener listener = originalRequest.getProgressListener();
+        boolean progress = listener != null && listener != ProgressListener.NOOP;
+        if (requestHandlers == null && reponseHandlers == null && !progress) {
+            context.setSharedRequestHandlers(pipeline.requestHandlers);
+            context.setSharedResponseHandlers(pipeline.responseHandlers);
+        } else {
+            context.addRequestHandler(REQUEST_PROGRESS_HANDLER);
+            if (requestHandlers != null) {
+                for (RequestHandler handler : requestHandlers)
+                    context.addRequestHandler(handler);
+            }
+            if (pipeline.crcCheckEnabled) {
+                context.addRequestHandler(REQUEST_CHECKSUM_HANDLER);
+            }
+
+            // Without a listener the progress handler has nothing to report.
+            if (progress) {
+                context.addResponseHandler(new ResponseProgressHandler(originalRequest));
+            }
+            if (reponseHandlers != null) {
+                for (ResponseHandler handler : reponseHandlers)
+                    context.addResponseHandler(handler);
+            }
+            if (pipeline.crcCheckEnabled) {
+                context.addResponseHandler(RESPONSE_CHECKSUM_HANDLER);
+            }
         }
 
-        context.addResponseHandler(new ResponseProgressHandler(originalRequest));
-        if (reponseHandlers != null) {
-            for (ResponseHandler handler : reponseHandlers)
-                context.addResponseHandler(handler);
+        ObjectMetadataCache metadataCache = this.metadataCache;
+        ObjectContentCache contentCache = this.objectContentCache;
+        boolean write = (metadataCache != null || contentCache != null) && request.getMethod() != HttpMethod.GET
+                && request.getMethod() != HttpMethod.HEAD && request.getMethod() != HttpMethod.OPTIONS;
+        if (timings == null && !write) {
+            return sendAndParse(request, context, parser, keepResponseOpen);
         }
-        if (client.getClientConfiguration().isCrcCheckEnabled()) {
-            context.addResponseHandler(new ResponseChecksumHandler());
+
+        boolean succeeded = false;
+        try {
+            T result = sendAndParse(request, context, parser, keepResponseOpen);
+            succeeded = true;
+            return result;
+        } finally {
+            if (timings != null) {
+                timings.getOperationMetrics().record(timings, System.nanoTime(), succeeded);
+            }
+            // a failed write may still have been applied
+            if (write) {
+                invalidate(metadataCache, request, bucketName, key);
+                invalidate(contentCache, request, bucketName, key);
+            }
         }
+    }
 
-        List<RequestSigner> signerHandlers = this.client.getClientConfiguration().getSignerHandlers();
-        if (signerHandlers != null) {
-            for (RequestSigner signer : signerHandlers) {
-                context.addSignerHandler(signer);
+    /**
+     * Drops the cache entries of the objects a write request may have modified.
+     */
+    private static void invalidate(InvalidatableCache cache, RequestMessage request, String bucketName, String key) {
+        if (cache == null) {
+            return;
+        }
+        WebServiceRequest originalRequest = request.getOriginalRequest();
+        Map<String, String> params = request.getParameters();
+        if (originalRequest instanceof DeleteObjectsRequest) {
+            for (String deletedKey : ((DeleteObjectsRequest) originalRequest).getKeys()) {
+                cache.invalidate(bucketName, deletedKey, null);
             }
+        } else if (originalRequest instanceof DeleteVersionsRequest) {
+            for (KeyVersion keyVersion : ((DeleteVersionsRequest) originalRequest).getKeys()) {
+                cache.invalidate(bucketName, keyVersion.getKey(), keyVersion.getVersion());
+            }
+        } else if (key == null || params.containsKey(SUBRESOURCE_UPLOADS) || params.containsKey(SUBRESOURCE_PROCESS)
+                || (params.containsKey(UPLOAD_ID) && request.getMethod() != HttpMethod.POST)) {
+            // bucket requests, parts and process requests leave the object as it is
+        } else if (params.containsKey(SUBRESOURCE_DIR_DELETE)) {
+            cache.invalidatePrefix(bucketName, key);
+        } else if (originalRequest instanceof RenameObjectRequest) {
+            cache.invalidatePrefix(bucketName, ((RenameObjectRequest) originalRequest).getSourceObjectName());
+            cache.invalidatePrefix(bucketName, key);
+        } else {
+            cache.invalidate(bucketName, key, params.get(SUBRESOURCE_VRESION_ID));
         }
+    }
 
+    private <T> T sendAndParse(RequestMessage request, ExecutionContext context, ResponseParser<T> parser,
+            boolean keepResponseOpen) throws OSSException, ClientException {
         ResponseMessage response = send(request, context, keepResponseOpen);
 
+        long parseStartTime = System.nanoTime();
         try {
             return parser.parse(response);
         } catch (ResponseParseException rpe) {
@@ -166,7 +342,34 @@ public abstract class OSSOperation {
                     rpe);
             logException("Unable to parse response error: ", rpe);
             throw oe;
+        } finally {
+            if (context.getRequestTimings() != null) {
+                context.getRequestTimings().setParseNanos(System.nanoTime() - parseStartTime);
+            }
+        }
+    }
+
+    /**
+     * Gets the name requests are tagged with in the request metrics: the
+     * request class without the "Request" suffix, or the http method and the
+     * resource type for generic requests, e.g. "HeadObject".
+     */
+    static String getOperationName(HttpMethod method, String bucketName, String key,
+            WebServiceRequest originalRequest) {
+        Class<?> requestClass = originalRequest != null ? originalRequest.getClass() : WebServiceRequest.class;
+        if (requestClass == GenericRequest.class || requestClass == WebServiceRequest.class) {
+            return genericOperationNames[method.ordinal()][key != null ? 0 : bucketName != null ? 1 : 2];
+        }
+
+        String name = operationNames.get(requestClass);
+        if (name == null) {
+            name = requestClass.getSimpleName();
+            if (name.endsWith("Request") && name.length() > "Request".length()) {
+                name = name.substring(0, name.length() - "Request".length());
+            }
+            operationNames.put(requestClass, name);
         }
+        return name;
     }
 
     private static RequestSigner createSigner(HttpMethod method, String bucketName, String key, Credentials creds, SignVersion signatureVersion) {
@@ -181,7 +384,7 @@ public abstract class OSSOperation {
         assertParameterNotNull(credentials, "credentials");
         context.setCharset(DEFAULT_CHARSET_NAME);
         context.setSigner(createSigner(method, bucketName, key, credentials, client.getClientConfiguration().getSignatureVersion()));
-        context.addResponseHandler(errorResponseHandler);
+        context.setSharedResponseHandlers(ERROR_RESPONSE_HANDLERS);
         if (method == HttpMethod.POST && !isRetryablePostRequest(originalRequest)) {
             context.setRetryStrategy(noRetryStrategy);
         }
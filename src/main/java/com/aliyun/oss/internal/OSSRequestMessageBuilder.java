@@ -179,7 +179,8 @@ public class OSSRequestMessageBuilder {
         RequestMessage request = new RequestMessage(this.originalRequest, this.bucket, this.key);
         request.setBucket(bucket);
         request.setKey(key);
-        request.setEndpoint(determineFinalEndpoint(this.endpoint, this.bucket, clientCofig));
+        request.setEndpoint(determineFinalEndpoint(this.endpoint, this.bucket, clientCofig,
+                this.innerClient.getResolvedEndpointCache()));
         request.setResourcePath(determineResourcePath(this.bucket, this.key, clientCofig.isSLDEnabled()));
         request.setHeaders(sentHeaders);
         request.setParameters(sentParameters);
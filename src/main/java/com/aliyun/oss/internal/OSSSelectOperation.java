@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.internal;
+
+import static com.aliyun.oss.common.utils.CodingUtils.assertParameterNotNull;
+import static com.aliyun.oss.common.utils.LogUtils.logException;
+import static com.aliyun.oss.internal.OSSUtils.ensureBucketNameValid;
+import static com.aliyun.oss.internal.OSSUtils.ensureObjectKeyValid;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.model.CreateSelectObjectMetadataRequest;
+import com.aliyun.oss.model.OSSObject;
+import com.aliyun.oss.model.ParallelSelectObjectRequest;
+import com.aliyun.oss.model.SelectContentFormat;
+import com.aliyun.oss.model.SelectInputStream;
+import com.aliyun.oss.model.SelectObjectMetadata;
+import com.aliyun.oss.model.SelectObjectRequest;
+import com.aliyun.oss.model.SelectRecordIterator;
+
+/**
+ * Selects an object with concurrent split range select requests.
+ */
+public class OSSSelectOperation {
+
+    private static final int RECORD_BATCH_SIZE = 256;
+
+    private OSSObjectOperation objectOperation;
+
+    public OSSSelectOperation(OSSObjectOperation objectOperation) {
+        this.objectOperation = objectOperation;
+    }
+
+    public SelectRecordIterator selectObjectParallel(ParallelSelectObjectRequest parallelSelectObjectRequest) {
+        assertParameterNotNull(parallelSelectObjectRequest, "parallelSelectObjectRequest");
+
+        String bucketName = parallelSelectObjectRequest.getBucketName();
+        String key = parallelSelectObjectRequest.getKey();
+
+        assertParameterNotNull(bucketName, "bucketName");
+        assertParameterNotNull(key, "key");
+        ensureBucketNameValid(bucketName);
+        ensureObjectKeyValid(key);
+
+        if (parallelSelectObjectRequest.getLineRange() != null || parallelSelectObjectRequest.getSplitRange() != null) {
+            throw new IllegalArgumentException("Line range and split range of parallel select request should not be set");
+        }
+        if (parallelSelectObjectRequest.getOutputSerialization().isOutputRawData()) {
+            throw new IllegalArgumentException("Parallel select does not support raw output data");
+        }
+        if (parallelSelectObjectRequest.getTaskNum() < 1) {
+            throw new IllegalArgumentException("Task number of parallel select request should be positive");
+        }
+
+        CreateSelectObjectMetadataRequest createSelectObjectMetadataRequest = new CreateSelectObjectMetadataRequest(
+                bucketName, key).withInputSerialization(parallelSelectObjectRequest.getInputSerialization());
+        createSelectObjectMetadataRequest.setRequestPayer(parallelSelectObjectRequest.getRequestPayer());
+        createSelectObjectMetadataRequest.setEndpoint(parallelSelectObjectRequest.getEndpoint());
+        SelectObjectMetadata selectObjectMetadata = objectOperation.createSelectObjectMetadata(createSelectObjectMetadataRequest);
+
+        int splits;
+        if (parallelSelectObjectRequest.getInputSerialization().getSelectContentFormat() == SelectContentFormat.CSV) {
+            splits = selectObjectMetadata.getCsvObjectMetadata().getSplits();
+        } else {
+            splits = selectObjectMetadata.getJsonObjectMetadata().getSplits();
+        }
+
+        ParallelSelectRecordIterator iterator = new ParallelSelectRecordIterator(parallelSelectObjectRequest, splits);
+        iterator.start();
+        return iterator;
+    }
+
+    /**
+     * Partitions [0, splits) into ranges of [start, end] split numbers.
+     */
+    static List<long[]> splitRanges(int splits, int taskNum, int splitsPerRange) {
+        List<long[]> ranges = new ArrayList<long[]>();
+        if (splits <= 0) {
+            return ranges;
+        }
+        if (splitsPerRange <= 0) {
+            splitsPerRange = (splits + taskNum - 1) / taskNum;
+        }
+        for (long start = 0; start < splits; start += splitsPerRange) {
+            ranges.add(new long[] { start, Math.min(start + splitsPerRange, splits) - 1 });
+        }
+        return ranges;
+    }
+
+    static SelectObjectRequest createRangeRequest(ParallelSelectObjectRequest request, long[] range) {
+        SelectObjectRequest rangeRequest = new SelectObjectRequest(request.getBucketName(), request.getKey());
+        rangeRequest.setExpression(request.getExpression());
+        rangeRequest.setSkipPartialDataRecord(request.isSkipPartialDataRecord());
+        rangeRequest.setMaxSkippedRecordsAllowed(request.getMaxSkippedRecordsAllowed());
+        rangeRequest.setInputSerialization(request.getInputSerialization());
+        rangeRequest.setOutputSerialization(request.getOutputSerialization());
+        rangeRequest.setMatchingETagConstraints(request.getMatchingETagConstraints());
+        rangeRequest.setNonmatchingETagConstraints(request.getNonmatchingETagConstraints());
+        rangeRequest.setModifiedSinceConstraint(request.getModifiedSinceConstraint());
+        rangeRequest.setUnmodifiedSinceConstraint(request.getUnmodifiedSinceConstraint());
+        rangeRequest.setResponseHeaders(request.getResponseHeaders());
+        rangeRequest.setRequestPayer(request.getRequestPayer());
+        rangeRequest.setEndpoint(request.getEndpoint());
+        rangeRequest.setHeaders(new LinkedHashMap<String, String>(request.getHeaders()));
+        rangeRequest.setParameters(new LinkedHashMap<String, String>(request.getParameters()));
+        rangeRequest.setSplitRange(range[0], range[1]);
+        return rangeRequest;
+    }
+
+    static class RecordBatch {
+        public RecordBatch(List<byte[]> records, boolean last, Throwable exception) {
+            this.records = records;
+            this.last = last;
+            this.exception = exception;
+        }
+
+        private List<byte[]> records;
+        private boolean last;
+        private Throwable exception;
+    }
+
+    class ParallelSelectRecordIterator implements SelectRecordIterator {
+
+        public ParallelSelectRecordIterator(ParallelSelectObjectRequest request, int splits) {
+            this.request = request;
+            this.splits = splits;
+            this.ranges = splitRanges(splits, request.getTaskNum(), request.getSplitsPerRange());
+            int capacity = Math.max(1, request.getMaxBufferedRecords() / RECORD_BATCH_SIZE);
+            if (request.isOrdered()) {
+                // every range has its own queue, the caller drains them one by one
+                this.queues = new ArrayList<BlockingQueue<RecordBatch>>(ranges.size());
+                for (int i = 0; i < ranges.size(); i++) {
+                    this.queues.add(new ArrayBlockingQueue<RecordBatch>(capacity));
+                }
+            } else {
+                BlockingQueue<RecordBatch> queue = new ArrayBlockingQueue<RecordBatch>(
+                        capacity * Math.min(Math.max(1, ranges.size()), request.getTaskNum()));
+                this.queues = Collections.nCopies(ranges.size(), queue);
+            }
+        }
+
+        void start() {
+            if (ranges.isEmpty()) {
+                return;
+            }
+            service = Executors.newFixedThreadPool(Math.min(request.getTaskNum(), ranges.size()));
+            for (int i = 0; i < ranges.size(); i++) {
+                service.execute(new Task(ranges.get(i), queues.get(i)));
+            }
+            service.shutdown();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            while (current == null || position >= current.size()) {
+                if (completedRanges == ranges.size()) {
+                    return false;
+                }
+                RecordBatch batch;
+                try {
+                    batch = queues.get(request.isOrdered() ? completedRanges : 0).take();
+                } catch (InterruptedException e) {
+                    close();
+                    Thread.currentThread().interrupt();
+                    throw new ClientException("Interrupted while waiting for select records", e);
+                }
+                if (batch.exception != null) {
+                    close();
+                    if (batch.exception instanceof RuntimeException) {
+                        throw (RuntimeException) batch.exception;
+                    }
+                    throw new ClientException(batch.exception.getMessage(), batch.exception);
+                }
+                if (batch.last) {
+                    completedRanges++;
+                }
+                current = batch.records;
+                position = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public byte[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.get(position++);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Select records can not be removed");
+        }
+
+        @Override
+        public int getSplits() {
+            return splits;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            if (service != null) {
+                service.shutdownNow();
+            }
+        }
+
+        class Task implements Runnable {
+
+            public Task(long[] range, BlockingQueue<RecordBatch> queue) {
+                this.range = range;
+                this.queue = queue;
+            }
+
+            @Override
+            public void run() {
+                OSSObject ossObject = null;
+                try {
+                    ossObject = objectOperation.selectObject(createRangeRequest(request, range));
+                    SelectInputStream in = (SelectInputStream) ossObject.getObjectContent();
+                    List<byte[]> records = new ArrayList<byte[]>(RECORD_BATCH_SIZE);
+                    while (!closed && in.nextRecord()) {
+                        int offset = in.getRecordOffset();
+                        records.add(Arrays.copyOfRange(in.getRecordBuffer(), offset, offset + in.getRecordLength()));
+                        if (records.size() == RECORD_BATCH_SIZE) {
+                            queue.put(new RecordBatch(records, false, null));
+                            records = new ArrayList<byte[]>(RECORD_BATCH_SIZE);
+                        }
+                    }
+                    queue.put(new RecordBatch(records, true, null));
+                } catch (InterruptedException e) {
+                    // closed by the caller
+                } catch (Throwable e) {
+                    if (!closed) {
+                        logException(String.format("Select split range %d-%d failed: ", range[0], range[1]), e);
+                        try {
+                            queue.put(new RecordBatch(null, true, e));
+                        } catch (InterruptedException ie) {
+                            // closed by the caller
+                        }
+                    }
+                } finally {
+                    if (ossObject != null) {
+                        try {
+                            if (closed) {
+                                // do not drain the rest of the response
+                                ossObject.forcedClose();
+                            } else {
+                                ossObject.close();
+                            }
+                        } catch (IOException e) {
+                        }
+                    }
+                }
+            }
+
+            private long[] range;
+            private BlockingQueue<RecordBatch> queue;
+        }
+
+        private ParallelSelectObjectRequest request;
+        private int splits;
+        private List<long[]> ranges;
+        private List<BlockingQueue<RecordBatch>> queues;
+        private ExecutorService service;
+        private volatile boolean closed;
+        private int completedRanges;
+        private List<byte[]> current;
+        private int position;
+    }
+}
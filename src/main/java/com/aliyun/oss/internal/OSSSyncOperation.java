@@ -0,0 +1,564 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.internal;
+
+import static com.aliyun.oss.common.utils.CodingUtils.assertParameterNotNull;
+import static com.aliyun.oss.common.utils.LogUtils.logException;
+import static com.aliyun.oss.internal.OSSConstants.DEFAULT_CHARSET_NAME;
+import static com.aliyun.oss.internal.OSSUtils.ensureBucketNameValid;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.common.utils.CRC64;
+import com.aliyun.oss.common.utils.HttpUtil;
+import com.aliyun.oss.event.ProgressEventType;
+import com.aliyun.oss.event.ProgressListener;
+import com.aliyun.oss.event.ProgressPublisher;
+import com.aliyun.oss.model.CompleteMultipartUploadResult;
+import com.aliyun.oss.model.DeleteObjectsRequest;
+import com.aliyun.oss.model.GenericRequest;
+import com.aliyun.oss.model.ListObjectsV2Request;
+import com.aliyun.oss.model.ListObjectsV2Result;
+import com.aliyun.oss.model.OSSObjectSummary;
+import com.aliyun.oss.model.PutObjectRequest;
+import com.aliyun.oss.model.PutObjectResult;
+import com.aliyun.oss.model.SyncDirectoryRequest;
+import com.aliyun.oss.model.SyncDirectoryResult;
+import com.aliyun.oss.model.UploadFileRequest;
+
+/**
+ * OSSSyncOperation mirrors a local directory to a prefix. The local files
+ * are compared with a streamed listing of the prefix, using a manifest of
+ * the previous run so that files known to be in sync cost nothing but their
+ * listing entry, and only the difference is uploaded or deleted.
+ */
+public class OSSSyncOperation {
+
+    static final int DELETE_BATCH_SIZE = 1000;
+    static final int MAX_REPORTED_FAILURES = 1000;
+    private static final int LIST_MAX_KEYS = 1000;
+    private static final String MANIFEST_MAGIC = "oss-sync-manifest 1";
+
+    /**
+     * What is known of a file once it is in sync with its object.
+     */
+    static class Entry {
+        final long size;
+        final long lastModified;
+        // null when unknown
+        final Long crc64;
+        final String eTag;
+
+        Entry(long size, long lastModified, Long crc64, String eTag) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.crc64 = crc64;
+            this.eTag = eTag;
+        }
+    }
+
+    /**
+     * The manifest file: a header line naming the bucket and prefix, then one
+     * line per file, "path size lastModified crc64 eTag", with the path and
+     * ETag url encoded, the CRC64 as a signed decimal and "-" when unknown.
+     */
+    static class Manifest {
+
+        static String header(SyncDirectoryRequest request) {
+            return MANIFEST_MAGIC + " " + encode(request.getBucketName()) + " " + encode(prefixOf(request));
+        }
+
+        /**
+         * Loads the manifest, which is empty if the file does not exist or
+         * belongs to another bucket or prefix.
+         */
+        static Map<String, Entry> load(String manifestFile, String header) throws IOException {
+            Map<String, Entry> entries = new HashMap<String, Entry>();
+            File file = new File(manifestFile);
+            if (!file.isFile()) {
+                return entries;
+            }
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(file), DEFAULT_CHARSET_NAME));
+            try {
+                if (!header.equals(reader.readLine())) {
+                    return entries;
+                }
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split(" ");
+                    if (fields.length != 5) {
+                        continue;
+                    }
+                    try {
+                        Long crc64 = "-".equals(fields[3]) ? null : Long.valueOf(fields[3]);
+                        entries.put(decode(fields[0]), new Entry(Long.parseLong(fields[1]),
+                                Long.parseLong(fields[2]), crc64, decode(fields[4])));
+                    } catch (NumberFormatException e) {
+                        continue;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+            return entries;
+        }
+
+        /**
+         * Writes the manifest to a temporary file first, so a crash leaves
+         * the previous one intact.
+         */
+        static void dump(String manifestFile, String header, Map<String, Entry> entries) throws IOException {
+            File file = new File(manifestFile);
+            File tmp = new File(manifestFile + ".tmp");
+            Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(new FileOutputStream(tmp), DEFAULT_CHARSET_NAME));
+            try {
+                writer.write(header);
+                writer.write('\n');
+                for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                    Entry entry = e.getValue();
+                    writer.write(encode(e.getKey()));
+                    writer.write(' ');
+                    writer.write(Long.toString(entry.size));
+                    writer.write(' ');
+                    writer.write(Long.toString(entry.lastModified));
+                    writer.write(' ');
+                    writer.write(entry.crc64 == null ? "-" : entry.crc64.toString());
+                    writer.write(' ');
+                    writer.write(encode(entry.eTag));
+                    writer.write('\n');
+                }
+            } finally {
+                writer.close();
+            }
+            if (!tmp.renameTo(file)) {
+                file.delete();
+                if (!tmp.renameTo(file)) {
+                    throw new IOException("Failed to rename " + tmp + " to " + file);
+                }
+            }
+        }
+
+        private static String encode(String value) {
+            return HttpUtil.urlEncode(value == null ? "" : value, DEFAULT_CHARSET_NAME);
+        }
+
+        private static String decode(String value) {
+            return HttpUtil.urlDecode(value, DEFAULT_CHARSET_NAME);
+        }
+    }
+
+    static class LocalFile {
+        final File file;
+        final long size;
+        final long lastModified;
+
+        LocalFile(File file) {
+            this.file = file;
+            this.size = file.length();
+            this.lastModified = file.lastModified();
+        }
+    }
+
+    /**
+     * Collects the regular files under the directory by their path relative
+     * to it, separated by '/'.
+     */
+    static void listLocalFiles(File directory, String path, Map<String, LocalFile> files, List<File> excluded) {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            String childPath = path + child.getName();
+            if (child.isDirectory()) {
+                listLocalFiles(child, childPath + "/", files, excluded);
+            } else if (child.isFile() && !excluded.contains(child.getAbsoluteFile())) {
+                files.put(childPath, new LocalFile(child));
+            }
+        }
+    }
+
+    static long crc64(File file) throws IOException {
+        CRC64 crc = new CRC64();
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buf = new byte[64 * 1024];
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                crc.update(buf, 0, len);
+            }
+        } finally {
+            in.close();
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * The prefix of the synchronized tree, ending with "/" unless it's empty,
+     * so the listing doesn't include sibling trees such as "backup-old/" for
+     * "backup".
+     */
+    static String prefixOf(SyncDirectoryRequest request) {
+        String prefix = request.getPrefix();
+        if (prefix == null || prefix.length() == 0) {
+            return "";
+        }
+        return prefix.endsWith("/") ? prefix : prefix + "/";
+    }
+
+    private class Sync {
+        private final SyncDirectoryRequest request;
+        private final String prefix;
+        private final ProgressListener listener;
+        private final Map<String, Entry> manifest;
+        private final Map<String, Entry> newManifest = new ConcurrentHashMap<String, Entry>();
+        private final List<String> deleteBatch = new ArrayList<String>(DELETE_BATCH_SIZE);
+        private final SyncDirectoryResult result = new SyncDirectoryResult();
+
+        Sync(SyncDirectoryRequest request, Map<String, Entry> manifest) {
+            this.request = request;
+            this.prefix = prefixOf(request);
+            this.listener = request.getProgressListener();
+            this.manifest = manifest;
+        }
+
+        /**
+         * Compares a file with its object from the listing alone, returning
+         * false when their content has to be compared.
+         */
+        boolean isUnchanged(String path, LocalFile local, OSSObjectSummary summary) {
+            Entry cached = manifest.get(path);
+            if (cached == null || cached.size != local.size || cached.lastModified != local.lastModified
+                    || summary.getSize() != local.size || !cached.eTag.equalsIgnoreCase(summary.getETag())) {
+                return false;
+            }
+            unchanged(path, cached, false);
+            return true;
+        }
+
+        /**
+         * Uploads the file unless its CRC64 matches the object's.
+         */
+        void compare(String path, LocalFile local, OSSObjectSummary summary) {
+            String key = prefix + path;
+            Long localCrc = null;
+            try {
+                Entry cached = manifest.get(path);
+                if (cached != null && cached.size == local.size && cached.lastModified == local.lastModified) {
+                    localCrc = cached.crc64;
+                }
+                if (localCrc == null) {
+                    localCrc = crc64(local.file);
+                }
+                GenericRequest headRequest = new GenericRequest(request.getBucketName(), key);
+                headRequest.setRequestPayer(request.getRequestPayer());
+                Long serverCrc = objectOperation.getObjectMetadata(headRequest).getServerCRC();
+                if (localCrc.equals(serverCrc)) {
+                    unchanged(path, new Entry(local.size, local.lastModified, localCrc, summary.getETag()), true);
+                    return;
+                }
+            } catch (Throwable t) {
+                failed(key, false, t);
+                return;
+            }
+            upload(path, local);
+        }
+
+        void upload(String path, LocalFile local) {
+            String key = prefix + path;
+            if (request.isDryRun()) {
+                synchronized (result) {
+                    result.getPlannedUploads().add(key);
+                    result.setFilesUploaded(result.getFilesUploaded() + 1);
+                    result.setBytesUploaded(result.getBytesUploaded() + local.size);
+                }
+                return;
+            }
+            try {
+                String eTag;
+                Long crc64;
+                if (local.size >= request.getMultipartUploadThreshold()) {
+                    UploadFileRequest uploadFileRequest = new UploadFileRequest(request.getBucketName(), key,
+                            local.file.getPath(), request.getPartSize(), 1);
+                    uploadFileRequest.setRequestPayer(request.getRequestPayer());
+                    CompleteMultipartUploadResult completed = uploadOperation.uploadFile(uploadFileRequest)
+                            .getMultipartUploadResult();
+                    eTag = completed.getETag();
+                    crc64 = completed.getServerCRC();
+                } else {
+                    PutObjectRequest putObjectRequest = new PutObjectRequest(request.getBucketName(), key,
+                            local.file);
+                    putObjectRequest.setRequestPayer(request.getRequestPayer());
+                    PutObjectResult put = objectOperation.putObject(putObjectRequest);
+                    eTag = put.getETag();
+                    crc64 = put.getServerCRC();
+                }
+                newManifest.put(path, new Entry(local.size, local.lastModified, crc64, eTag));
+            } catch (Throwable t) {
+                failed(key, false, t);
+                return;
+            }
+            synchronized (result) {
+                result.setFilesUploaded(result.getFilesUploaded() + 1);
+                result.setBytesUploaded(result.getBytesUploaded() + local.size);
+            }
+            ProgressPublisher.publishRequestBytesTransferred(listener, local.size);
+        }
+
+        /**
+         * Queues the object for deletion, returning a full batch to delete.
+         */
+        List<String> delete(String key) {
+            if (request.isDryRun()) {
+                synchronized (result) {
+                    result.getPlannedDeletes().add(key);
+                    result.setObjectsDeleted(result.getObjectsDeleted() + 1);
+                }
+                return null;
+            }
+            synchronized (deleteBatch) {
+                deleteBatch.add(key);
+                if (deleteBatch.size() < DELETE_BATCH_SIZE) {
+                    return null;
+                }
+                List<String> batch = new ArrayList<String>(deleteBatch);
+                deleteBatch.clear();
+                return batch;
+            }
+        }
+
+        void flushDeletes() {
+            List<String> batch;
+            synchronized (deleteBatch) {
+                batch = new ArrayList<String>(deleteBatch);
+                deleteBatch.clear();
+            }
+            if (!batch.isEmpty()) {
+                deleteBatch(batch);
+            }
+        }
+
+        void deleteBatch(List<String> keys) {
+            try {
+                DeleteObjectsRequest deleteRequest = new DeleteObjectsRequest(request.getBucketName())
+                        .withKeys(keys).withQuiet(true);
+                deleteRequest.setRequestPayer(request.getRequestPayer());
+                objectOperation.deleteObjects(deleteRequest);
+            } catch (Throwable t) {
+                for (String key : keys) {
+                    failed(key, true, t);
+                }
+                return;
+            }
+            synchronized (result) {
+                result.setObjectsDeleted(result.getObjectsDeleted() + keys.size());
+            }
+        }
+
+        private void unchanged(String path, Entry entry, boolean compared) {
+            newManifest.put(path, entry);
+            synchronized (result) {
+                result.setFilesUnchanged(result.getFilesUnchanged() + 1);
+                if (compared) {
+                    result.setFilesCompared(result.getFilesCompared() + 1);
+                }
+            }
+        }
+
+        private void failed(String key, boolean delete, Throwable t) {
+            logException(String.format("Sync %s %s failed: ", delete ? "delete" : "upload", key), t);
+            Exception e = t instanceof Exception ? (Exception) t : new ClientException(t);
+            synchronized (result) {
+                result.setFailedCount(result.getFailedCount() + 1);
+                if (result.getFailures().size() < MAX_REPORTED_FAILURES) {
+                    result.getFailures().add(new SyncDirectoryResult.Failure(key, delete, e));
+                }
+            }
+        }
+    }
+
+    public OSSSyncOperation(OSSBucketOperation bucketOperation, OSSObjectOperation objectOperation,
+            OSSUploadOperation uploadOperation) {
+        this.bucketOperation = bucketOperation;
+        this.objectOperation = objectOperation;
+        this.uploadOperation = uploadOperation;
+    }
+
+    public SyncDirectoryResult syncDirectory(SyncDirectoryRequest syncDirectoryRequest) {
+        assertParameterNotNull(syncDirectoryRequest, "syncDirectoryRequest");
+        assertParameterNotNull(syncDirectoryRequest.getBucketName(), "bucketName");
+        assertParameterNotNull(syncDirectoryRequest.getLocalDirectory(), "localDirectory");
+        ensureBucketNameValid(syncDirectoryRequest.getBucketName());
+
+        File directory = new File(syncDirectoryRequest.getLocalDirectory());
+        if (!directory.isDirectory()) {
+            throw new IllegalArgumentException(
+                    "The local directory " + syncDirectoryRequest.getLocalDirectory() + " does not exist.");
+        }
+
+        String manifestFile = syncDirectoryRequest.getManifestFile();
+        String header = Manifest.header(syncDirectoryRequest);
+        Map<String, Entry> manifest = new HashMap<String, Entry>();
+        List<File> excluded = new ArrayList<File>();
+        if (manifestFile != null) {
+            try {
+                manifest = Manifest.load(manifestFile, header);
+            } catch (IOException e) {
+                logException("Failed to load the manifest, comparing every file: ", e);
+            }
+            // The manifest may live in the directory it describes.
+            excluded.add(new File(manifestFile).getAbsoluteFile());
+            excluded.add(new File(manifestFile + ".tmp").getAbsoluteFile());
+        }
+
+        long startTime = System.currentTimeMillis();
+        Map<String, LocalFile> localFiles = new HashMap<String, LocalFile>();
+        listLocalFiles(directory, "", localFiles, excluded);
+
+        final Sync sync = new Sync(syncDirectoryRequest, manifest);
+        ProgressPublisher.publishProgress(sync.listener, ProgressEventType.TRANSFER_STARTED_EVENT);
+
+        int taskNum = syncDirectoryRequest.getTaskNum();
+        ExecutorService service = Executors.newFixedThreadPool(taskNum);
+        // At most one queued task per running one, so the listing only runs
+        // ahead by a page.
+        final Semaphore permits = new Semaphore(taskNum * 2);
+        try {
+            ListObjectsV2Request listRequest = new ListObjectsV2Request(syncDirectoryRequest.getBucketName(),
+                    sync.prefix).withMaxKeys(LIST_MAX_KEYS);
+            listRequest.setRequestPayer(syncDirectoryRequest.getRequestPayer());
+            ListObjectsV2Result listing;
+            do {
+                listing = bucketOperation.listObjectsV2(listRequest);
+                for (final OSSObjectSummary summary : listing.getObjectSummaries()) {
+                    final String path = summary.getKey().substring(sync.prefix.length());
+                    // directory markers have no local counterpart
+                    if (path.length() == 0 || path.endsWith("/")) {
+                        continue;
+                    }
+                    final LocalFile local = localFiles.remove(path);
+                    if (local == null) {
+                        if (syncDirectoryRequest.isDeleteRemoved()) {
+                            final List<String> batch = sync.delete(summary.getKey());
+                            if (batch != null) {
+                                submit(service, permits, new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        sync.deleteBatch(batch);
+                                    }
+                                });
+                            }
+                        }
+                    } else if (!sync.isUnchanged(path, local, summary)) {
+                        submit(service, permits, new Runnable() {
+                            @Override
+                            public void run() {
+                                if (summary.getSize() == local.size) {
+                                    sync.compare(path, local, summary);
+                                } else {
+                                    sync.upload(path, local);
+                                }
+                            }
+                        });
+                    }
+                }
+                listRequest.setContinuationToken(listing.getNextContinuationToken());
+            } while (listing.isTruncated());
+
+            // The files left have no object yet.
+            for (final Map.Entry<String, LocalFile> e : localFiles.entrySet()) {
+                submit(service, permits, new Runnable() {
+                    @Override
+                    public void run() {
+                        sync.upload(e.getKey(), e.getValue());
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("The directory sync is interrupted.", e);
+        } finally {
+            service.shutdown();
+            try {
+                service.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sync.flushDeletes();
+        }
+
+        if (manifestFile != null && !syncDirectoryRequest.isDryRun()) {
+            try {
+                Manifest.dump(manifestFile, header, sync.newManifest);
+            } catch (IOException e) {
+                logException("Failed to write the manifest: ", e);
+            }
+        }
+
+        SyncDirectoryResult result = sync.result;
+        result.setElapsedMillis(System.currentTimeMillis() - startTime);
+        if (result.getFailedCount() > 0) {
+            ProgressPublisher.publishProgress(sync.listener, ProgressEventType.TRANSFER_PART_FAILED_EVENT);
+        } else {
+            ProgressPublisher.publishProgress(sync.listener, ProgressEventType.TRANSFER_COMPLETED_EVENT);
+        }
+        return result;
+    }
+
+    private static void submit(ExecutorService service, final Semaphore permits, final Runnable task)
+            throws InterruptedException {
+        permits.acquire();
+        service.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            }
+        });
+    }
+
+    protected OSSBucketOperation bucketOperation;
+    protected OSSObjectOperation objectOperation;
+    protected OSSUploadOperation uploadOperation;
+}
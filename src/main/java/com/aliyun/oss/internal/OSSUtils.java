@@ -26,7 +26,6 @@ import static com.aliyun.oss.internal.OSSConstants.RESOURCE_NAME_OSS;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Date;
@@ -53,18 +52,24 @@ public class OSSUtils {
     public static final ResourceManager OSS_RESOURCE_MANAGER = ResourceManager.getInstance(RESOURCE_NAME_OSS);
     public static final ResourceManager COMMON_RESOURCE_MANAGER = ResourceManager.getInstance(RESOURCE_NAME_COMMON);
 
-    private static final String BUCKET_NAMING_CREATION_REGEX = "^[a-z0-9][a-z0-9-]{1,61}[a-z0-9]$";
-    private static final String BUCKET_NAMING_REGEX = "^[a-z0-9][a-z0-9-_]{1,61}[a-z0-9]$";
-    private static final String ENDPOINT_REGEX = "^[a-zA-Z0-9._-]+$";
+    private static final int BUCKET_NAME_MIN_LENGTH = 3;
+    private static final int BUCKET_NAME_MAX_LENGTH = 63;
 
     /**
-     * Validate endpoint.
+     * Validate endpoint, which may only contain letters, digits, '.', '_' and
+     * '-'.
      */
     public static boolean validateEndpoint(String endpoint) {
-        if (endpoint == null) {
+        if (endpoint == null || endpoint.length() == 0) {
             return false;
         }
-        return endpoint.matches(ENDPOINT_REGEX);
+        for (int i = 0; i < endpoint.length(); i++) {
+            char c = endpoint.charAt(i);
+            if (!isLowerCaseLetterOrDigit(c) && !(c >= 'A' && c <= 'Z') && c != '.' && c != '_' && c != '-') {
+                return false;
+            }
+        }
+        return true;
     }
 
     public static void ensureEndpointValid(String endpoint) {
@@ -75,15 +80,11 @@ public class OSSUtils {
     }
 
     /**
-     * Validate bucket name.
+     * Validate bucket name: 3 to 63 lower case letters, digits, '-' and '_',
+     * starting and ending with a letter or a digit.
      */
     public static boolean validateBucketName(String bucketName) {
-
-        if (bucketName == null) {
-            return false;
-        }
-
-        return bucketName.matches(BUCKET_NAMING_REGEX);
+        return validateBucketName(bucketName, true);
     }
 
     public static void ensureBucketNameValid(String bucketName) {
@@ -94,15 +95,10 @@ public class OSSUtils {
     }
 
     /**
-     * Validate bucket creation name.
+     * Validate bucket creation name, which may not contain '_'.
      */
     public static boolean validateBucketNameCreation(String bucketName) {
-
-        if (bucketName == null) {
-            return false;
-        }
-
-        return bucketName.matches(BUCKET_NAMING_CREATION_REGEX);
+        return validateBucketName(bucketName, false);
     }
 
     public static void ensureBucketNameCreationValid(String bucketName) {
@@ -112,8 +108,36 @@ public class OSSUtils {
         }
     }
 
+    private static boolean validateBucketName(String bucketName, boolean allowUnderscore) {
+        if (bucketName == null) {
+            return false;
+        }
+
+        int length = bucketName.length();
+        if (length < BUCKET_NAME_MIN_LENGTH || length > BUCKET_NAME_MAX_LENGTH) {
+            return false;
+        }
+        if (!isLowerCaseLetterOrDigit(bucketName.charAt(0))
+                || !isLowerCaseLetterOrDigit(bucketName.charAt(length - 1))) {
+            return false;
+        }
+        for (int i = 1; i < length - 1; i++) {
+            char c = bucketName.charAt(i);
+            if (!isLowerCaseLetterOrDigit(c) && c != '-' && !(allowUnderscore && c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLowerCaseLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+    }
+
     /**
-     * Validate object name.
+     * Validate object name: it may not start with '\\' and its UTF-8 encoding
+     * must be shorter than {@link OSSConstants#OBJECT_NAME_MAX_LENGTH} bytes.
+     * The encoded length is counted in one pass without encoding the key.
      */
     public static boolean validateObjectKey(String key) {
 
@@ -121,21 +145,34 @@ public class OSSUtils {
             return false;
         }
 
-        byte[] bytes = null;
-        try {
-            bytes = key.getBytes(DEFAULT_CHARSET_NAME);
-        } catch (UnsupportedEncodingException e) {
+        // Validate exculde xml unsupported chars
+        if (key.charAt(0) == '\\') {
             return false;
         }
 
-        // Validate exculde xml unsupported chars
-        char keyChars[] = key.toCharArray();
-        char firstChar = keyChars[0];
-        if (firstChar == '\\') {
-            return false;
+        int length = key.length();
+        if (length < OBJECT_NAME_MAX_LENGTH / 3) {
+            return true;
         }
 
-        return (bytes.length > 0 && bytes.length < OBJECT_NAME_MAX_LENGTH);
+        int bytes = 0;
+        for (int i = 0; i < length && bytes < OBJECT_NAME_MAX_LENGTH; i++) {
+            char c = key.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(key.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                // unpaired surrogates are encoded as '?'
+                bytes += 1;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes < OBJECT_NAME_MAX_LENGTH;
     }
 
     public static void ensureObjectKeyValid(String key) {
@@ -157,16 +194,45 @@ public class OSSUtils {
      * second-level domain directly.
      */
     public static URI determineFinalEndpoint(URI endpoint, String bucket, ClientConfiguration clientConfig) {
+        return determineFinalEndpoint(endpoint, bucket, clientConfig, null);
+    }
+
+    /**
+     * Same as {@link #determineFinalEndpoint(URI, String, ClientConfiguration)},
+     * with the resolved endpoints cached in the given cache, if any.
+     */
+    public static URI determineFinalEndpoint(URI endpoint, String bucket, ClientConfiguration clientConfig,
+            ResolvedEndpointCache cache) {
+        boolean supportCname = clientConfig.isSupportCname();
+        boolean sldEnabled = clientConfig.isSLDEnabled();
+        URI resolved = null;
+        if (cache != null) {
+            if (supportCname) {
+                cache.checkCnameExcludeList(clientConfig.getCnameExcludeList());
+            }
+            resolved = cache.get(endpoint, bucket, supportCname, sldEnabled);
+        }
+        if (resolved != null) {
+            return resolved;
+        }
+
         try {
             StringBuilder conbinedEndpoint = new StringBuilder();
-            conbinedEndpoint.append(String.format("%s://", endpoint.getScheme()));
+            conbinedEndpoint.append(endpoint.getScheme()).append("://");
             conbinedEndpoint.append(buildCanonicalHost(endpoint, bucket, clientConfig));
-            conbinedEndpoint.append(endpoint.getPort() != -1 ? String.format(":%s", endpoint.getPort()) : "");
+            if (endpoint.getPort() != -1) {
+                conbinedEndpoint.append(':').append(endpoint.getPort());
+            }
             conbinedEndpoint.append(endpoint.getPath());
-            return new URI(conbinedEndpoint.toString());
+            resolved = new URI(conbinedEndpoint.toString());
         } catch (URISyntaxException ex) {
             throw new IllegalArgumentException(ex.getMessage(), ex);
         }
+
+        if (cache != null) {
+            cache.put(endpoint, bucket, supportCname, sldEnabled, resolved);
+        }
+        return resolved;
     }
 
     private static String buildCanonicalHost(URI endpoint, String bucket, ClientConfiguration clientConfig) {
@@ -177,21 +243,17 @@ public class OSSUtils {
             isCname = cnameExcludeFilter(host, clientConfig.getCnameExcludeList());
         }
 
-        StringBuffer cannonicalHost = new StringBuffer();
         if (bucket != null && !isCname && !clientConfig.isSLDEnabled()) {
-            cannonicalHost.append(bucket).append(".").append(host);
-        } else {
-            cannonicalHost.append(host);
+            return bucket + "." + host;
         }
-
-        return cannonicalHost.toString();
+        return host;
     }
 
     private static boolean cnameExcludeFilter(String hostToFilter, List<String> excludeList) {
         if (hostToFilter != null && !hostToFilter.trim().isEmpty()) {
             String canonicalHost = hostToFilter.toLowerCase();
-            for (String excl : excludeList) {
-                if (canonicalHost.endsWith(excl)) {
+            for (int i = 0; i < excludeList.size(); i++) {
+                if (canonicalHost.endsWith(excludeList.get(i))) {
                     return false;
                 }
             }
@@ -0,0 +1,318 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.internal;
+
+import static com.aliyun.oss.common.utils.CodingUtils.assertParameterNotNull;
+import static com.aliyun.oss.common.utils.LogUtils.logException;
+import static com.aliyun.oss.internal.OSSUtils.ensureBucketNameValid;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.model.DeleteVersionsRequest;
+import com.aliyun.oss.model.DeleteVersionsRequest.KeyVersion;
+import com.aliyun.oss.model.ListVersionsRequest;
+import com.aliyun.oss.model.OSSVersionSummary;
+import com.aliyun.oss.model.PurgeVersionsRequest;
+import com.aliyun.oss.model.PurgeVersionsResult;
+import com.aliyun.oss.model.VersionHistory;
+import com.aliyun.oss.model.VersionListing;
+
+/**
+ * OSSVersionPurgeOperation walks the version histories of a bucket page by
+ * page and deletes the versions selected by a {@link PurgeVersionsRequest}
+ * with DeleteVersions requests of up to 1000 versions, sent by a pool of
+ * tasks while the listing goes on.
+ */
+public class OSSVersionPurgeOperation {
+    static final int MAX_REPORTED_FAILURES = 1000;
+    static final int DELETE_BATCH_SIZE = 1000;
+    private static final int LIST_MAX_RESULTS = 1000;
+
+    /**
+     * Groups the listed versions by key. Only the current page is held, plus
+     * the versions of the key being grouped.
+     */
+    class VersionHistoryIterator implements Iterator<VersionHistory> {
+        private final PrefetchingIterator<VersionListing, OSSVersionSummary> versions;
+        private OSSVersionSummary nextVersion;
+
+        VersionHistoryIterator(ListVersionsRequest request) {
+            this.versions = listIteratorOperation.newVersionIterator(request);
+        }
+
+        long getRequestCount() {
+            return versions.getPageCount();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextVersion == null && versions.hasNext()) {
+                nextVersion = versions.next();
+            }
+            return nextVersion != null;
+        }
+
+        @Override
+        public VersionHistory next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            VersionHistory history = new VersionHistory(nextVersion.getKey());
+            history.getVersions().add(nextVersion);
+            nextVersion = null;
+            while (versions.hasNext()) {
+                OSSVersionSummary version = versions.next();
+                if (!version.getKey().equals(history.getKey())) {
+                    nextVersion = version;
+                    break;
+                }
+                history.getVersions().add(version);
+            }
+            return history;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public OSSVersionPurgeOperation(OSSListIteratorOperation listIteratorOperation,
+            OSSObjectOperation objectOperation) {
+        this.listIteratorOperation = listIteratorOperation;
+        this.objectOperation = objectOperation;
+    }
+
+    public Iterable<VersionHistory> iterateVersionHistories(final ListVersionsRequest listVersionsRequest) {
+        assertParameterNotNull(listVersionsRequest, "listVersionsRequest");
+        assertParameterNotNull(listVersionsRequest.getBucketName(), "bucketName");
+        ensureBucketNameValid(listVersionsRequest.getBucketName());
+
+        return new Iterable<VersionHistory>() {
+            @Override
+            public Iterator<VersionHistory> iterator() {
+                ListVersionsRequest request = new ListVersionsRequest(listVersionsRequest.getBucketName(),
+                        listVersionsRequest.getPrefix(), listVersionsRequest.getKeyMarker(),
+                        listVersionsRequest.getVersionIdMarker(), null, listVersionsRequest.getMaxResults());
+                request.setEncodingType(OSSConstants.URL_ENCODING);
+                request.setRequestPayer(listVersionsRequest.getRequestPayer());
+                request.setEndpoint(listVersionsRequest.getEndpoint());
+                return new VersionHistoryIterator(request);
+            }
+        };
+    }
+
+    public PurgeVersionsResult purgeVersions(PurgeVersionsRequest purgeVersionsRequest) {
+        assertParameterNotNull(purgeVersionsRequest, "purgeVersionsRequest");
+        assertParameterNotNull(purgeVersionsRequest.getBucketName(), "bucketName");
+        ensureBucketNameValid(purgeVersionsRequest.getBucketName());
+        if (purgeVersionsRequest.getKeepLatest() < 1) {
+            throw new IllegalArgumentException("Keep latest of purge versions request should be positive");
+        }
+        if (purgeVersionsRequest.getTaskNum() < 1) {
+            throw new IllegalArgumentException("Task number of purge versions request should be positive");
+        }
+
+        long startTime = System.currentTimeMillis();
+        PurgeVersionsResult result = new PurgeVersionsResult();
+        ListVersionsRequest listRequest = new ListVersionsRequest(purgeVersionsRequest.getBucketName(),
+                purgeVersionsRequest.getPrefix(), null, null, null, LIST_MAX_RESULTS);
+        listRequest.setEncodingType(OSSConstants.URL_ENCODING);
+        listRequest.setRequestPayer(purgeVersionsRequest.getRequestPayer());
+        listRequest.setEndpoint(purgeVersionsRequest.getEndpoint());
+        VersionHistoryIterator histories = new VersionHistoryIterator(listRequest);
+
+        Batcher batcher = new Batcher(purgeVersionsRequest, result);
+        long keyCount = 0;
+        long versionCount = 0;
+        try {
+            while (histories.hasNext()) {
+                VersionHistory history = histories.next();
+                keyCount++;
+                versionCount += history.getVersions().size();
+                List<OSSVersionSummary> selected = select(history, purgeVersionsRequest);
+                if (selected.size() > DELETE_BATCH_SIZE && selected.get(selected.size() - 1).isLatest()) {
+                    // too many for one request with the delete marker, which waits for the next run
+                    selected.remove(selected.size() - 1);
+                }
+                if (!selected.isEmpty() && selected.get(selected.size() - 1).isLatest()) {
+                    // the delete marker goes in the same request as the versions below it, so that
+                    // a failed request can't leave an older version current
+                    batcher.reserve(selected.size());
+                }
+                for (OSSVersionSummary version : selected) {
+                    batcher.add(version);
+                }
+            }
+            batcher.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ClientException("The version purge is interrupted.", e);
+        } finally {
+            batcher.shutdown();
+        }
+
+        synchronized (result) {
+            result.setKeyCount(keyCount);
+            result.setVersionCount(versionCount);
+            result.setRequestCount(result.getRequestCount() + histories.getRequestCount());
+            result.setElapsedMillis(System.currentTimeMillis() - startTime);
+        }
+        return result;
+    }
+
+    /**
+     * Selects the versions of a key to delete, from the newest one.
+     */
+    static List<OSSVersionSummary> select(VersionHistory history, PurgeVersionsRequest request) {
+        List<OSSVersionSummary> versions = history.getVersions();
+        List<OSSVersionSummary> selected = new ArrayList<OSSVersionSummary>();
+        Date before = request.getNoncurrentBefore();
+        for (int i = request.getKeepLatest(); i < versions.size(); i++) {
+            // a version becomes noncurrent when the next one is written
+            Date noncurrentSince = versions.get(i - 1).getLastModified();
+            if (before == null || (noncurrentSince != null && noncurrentSince.before(before))) {
+                selected.add(versions.get(i));
+            }
+        }
+        OSSVersionSummary latest = versions.get(0);
+        if (request.isRemoveExpiredDeleteMarkers() && latest.isDeleteMarker() && latest.isLatest()
+                && selected.size() == versions.size() - 1
+                && (before == null || (latest.getLastModified() != null && latest.getLastModified().before(before)))) {
+            selected.add(latest);
+        }
+        return selected;
+    }
+
+    /**
+     * Collects versions into DeleteVersions requests, sent by a pool of tasks.
+     * At most twice the task number of requests wait for a task, which bounds
+     * the memory while the listing runs ahead.
+     */
+    private class Batcher {
+        private final PurgeVersionsRequest request;
+        private final PurgeVersionsResult result;
+        private final ExecutorService service;
+        private final Semaphore pendingBatches;
+        private List<OSSVersionSummary> batch = new ArrayList<OSSVersionSummary>(DELETE_BATCH_SIZE);
+
+        Batcher(PurgeVersionsRequest request, PurgeVersionsResult result) {
+            this.request = request;
+            this.result = result;
+            this.service = Executors.newFixedThreadPool(request.getTaskNum());
+            this.pendingBatches = new Semaphore(request.getTaskNum() * 2);
+        }
+
+        /**
+         * Makes sure the next count versions go into the same request.
+         */
+        void reserve(int count) throws InterruptedException {
+            if (batch.size() + count > DELETE_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void add(OSSVersionSummary version) throws InterruptedException {
+            batch.add(version);
+            if (batch.size() == DELETE_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() throws InterruptedException {
+            if (batch.isEmpty()) {
+                return;
+            }
+            final List<OSSVersionSummary> versions = batch;
+            batch = new ArrayList<OSSVersionSummary>(DELETE_BATCH_SIZE);
+            pendingBatches.acquire();
+            service.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        delete(versions);
+                    } finally {
+                        pendingBatches.release();
+                    }
+                }
+            });
+        }
+
+        private void delete(List<OSSVersionSummary> versions) {
+            List<KeyVersion> keys = new ArrayList<KeyVersion>(versions.size());
+            int deleteMarkers = 0;
+            for (OSSVersionSummary version : versions) {
+                keys.add(new KeyVersion(version.getKey(), version.getVersionId()));
+                if (version.isDeleteMarker()) {
+                    deleteMarkers++;
+                }
+            }
+            DeleteVersionsRequest deleteVersionsRequest = new DeleteVersionsRequest(request.getBucketName())
+                    .withKeys(keys).withQuiet(true);
+            deleteVersionsRequest.setRequestPayer(request.getRequestPayer());
+            deleteVersionsRequest.setEndpoint(request.getEndpoint());
+            try {
+                objectOperation.deleteVersions(deleteVersionsRequest);
+                synchronized (result) {
+                    result.setRequestCount(result.getRequestCount() + 1);
+                    result.setDeletedVersionCount(result.getDeletedVersionCount() + versions.size() - deleteMarkers);
+                    result.setDeletedDeleteMarkerCount(result.getDeletedDeleteMarkerCount() + deleteMarkers);
+                }
+            } catch (Exception e) {
+                OSSVersionSummary first = versions.get(0);
+                logException(String.format("Failed to delete %d versions from %s: ", versions.size(), first.getKey()), e);
+                synchronized (result) {
+                    result.setRequestCount(result.getRequestCount() + 1);
+                    result.setFailedVersionCount(result.getFailedVersionCount() + versions.size());
+                    if (result.getFailures().size() < MAX_REPORTED_FAILURES) {
+                        result.getFailures().add(new PurgeVersionsResult.Failure(first.getKey(),
+                                first.getVersionId(), versions.size(), e));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Waits for the sent requests.
+         */
+        void shutdown() {
+            service.shutdown();
+            try {
+                while (!service.awaitTermination(1, TimeUnit.SECONDS)) {
+                }
+            } catch (InterruptedException e) {
+                service.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    protected OSSListIteratorOperation listIteratorOperation;
+    protected OSSObjectOperation objectOperation;
+}
@@ -0,0 +1,398 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.internal;
+
+import static com.aliyun.oss.common.utils.LogUtils.logException;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.aliyun.oss.InconsistentException;
+import com.aliyun.oss.common.comm.io.ByteBufferInputStream;
+import com.aliyun.oss.common.metrics.ObjectCacheStatistics;
+import com.aliyun.oss.common.utils.CRC64;
+import com.aliyun.oss.internal.ObjectMetadataCache.CacheKey;
+import com.aliyun.oss.model.OSSObject;
+import com.aliyun.oss.model.ObjectMetadata;
+
+/**
+ * Caches the contents of objects in files of a local directory, so that
+ * repeated reads of an object are served from a memory-mapped file.
+ *
+ * The files are named by the CRC64 and the ETag of the content, so objects
+ * with the same content share a file, and the files of a previous process
+ * are reused once a read tells which content a key has. The bucket, key and
+ * version id entries pointing to the files are kept in memory. An entry is
+ * served without a request for the time to live, then it's revalidated with
+ * If-None-Match and If-Modified-Since. The least recently read files are
+ * deleted when the total size goes over the maximum.
+ */
+public class ObjectContentCache implements InvalidatableCache {
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final Pattern CONTENT_NAME = Pattern.compile("[0-9a-f]{16}-[0-9A-Za-z_-]+");
+
+    private static final class ContentFile {
+        private final String name;
+        private final File file;
+        private final long size;
+
+        ContentFile(String name, File file, long size) {
+            this.name = name;
+            this.file = file;
+            this.size = size;
+        }
+    }
+
+    /**
+     * A cached object: its metadata, its content file and its expiration time.
+     */
+    public static final class Entry {
+        private final ContentFile content;
+        private final ObjectMetadata metadata;
+        private final Long crc64;
+        private final long expiresAt;
+
+        Entry(ContentFile content, ObjectMetadata metadata, Long crc64, long expiresAt) {
+            this.content = content;
+            this.metadata = metadata;
+            this.crc64 = crc64;
+            this.expiresAt = expiresAt;
+        }
+
+        public boolean isFresh() {
+            return System.currentTimeMillis() < expiresAt;
+        }
+
+        /**
+         * Gets a copy of the metadata, which the caller may modify.
+         */
+        public ObjectMetadata getMetadata() {
+            return ObjectMetadataCache.copy(metadata);
+        }
+
+        public Long getCrc64() {
+            return crc64;
+        }
+
+        public String getETag() {
+            return metadata.getETag();
+        }
+
+        public long getSize() {
+            return content.size;
+        }
+    }
+
+    private final File directory;
+    private final long maxSize;
+    private final long timeToLive;
+    private final Map<CacheKey, Entry> entries = new HashMap<CacheKey, Entry>();
+    private final LinkedHashMap<String, ContentFile> files = new LinkedHashMap<String, ContentFile>(16, 0.75f, true);
+    private long size;
+    private long generation;
+
+    private long hitCount;
+    private long missCount;
+    private long revalidationCount;
+    private long notModifiedCount;
+    private long evictionCount;
+    private long bytesServed;
+    private long bytesDownloaded;
+
+    /**
+     * @param directory
+     *            The directory of the cached files, created if it doesn't
+     *            exist. The cache files left in it are reused.
+     * @param maxSize
+     *            The maximum total size in bytes of the cached files.
+     * @param timeToLive
+     *            The time in milliseconds an entry is served without a request.
+     */
+    public ObjectContentCache(File directory, long maxSize, long timeToLive) {
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IllegalArgumentException("Cannot create the object cache directory " + directory);
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The max size of the object cache should be positive.");
+        }
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+
+        File[] existing = directory.listFiles();
+        if (existing != null) {
+            // least recently modified first, as if they were read in that order
+            Arrays.sort(existing, new Comparator<File>() {
+                @Override
+                public int compare(File a, File b) {
+                    long diff = a.lastModified() - b.lastModified();
+                    return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+                }
+            });
+            for (File file : existing) {
+                if (file.getName().endsWith(TEMP_SUFFIX)) {
+                    delete(file);
+                } else if (file.isFile() && CONTENT_NAME.matcher(file.getName()).matches()) {
+                    files.put(file.getName(), new ContentFile(file.getName(), file, file.length()));
+                    size += file.length();
+                }
+            }
+            evict(null);
+        }
+    }
+
+    /**
+     * Looks up the cached object of a key, null if it's not cached. A stale
+     * entry is returned too, its ETag is used to revalidate it.
+     */
+    public synchronized Entry get(String bucketName, String key, String versionId) {
+        Entry entry = entries.get(new CacheKey(bucketName, key, versionId));
+        if (entry == null) {
+            missCount++;
+        } else if (entry.isFresh()) {
+            hitCount++;
+        } else {
+            revalidationCount++;
+        }
+        return entry;
+    }
+
+    /**
+     * Gets the generation to pass to {@link #put}, taken before the GET
+     * request is sent.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Caches the content of a GET response, reading and closing its content
+     * stream. Returns null without reading the content if the object can't be
+     * cached: it's too large or the response has no ETag or CRC64, and the
+     * previous entry of the key is dropped.
+     *
+     * If a write invalidated any key since the given generation, the entry is
+     * cached as expired, so that it's revalidated before it's served.
+     */
+    public Entry put(String bucketName, String key, String versionId, OSSObject ossObject, long generation)
+            throws IOException {
+        ObjectMetadata metadata = ossObject.getObjectMetadata();
+        Long crc64 = ossObject.getServerCRC();
+        String eTag = metadata.getETag();
+        long length = metadata.getContentLength();
+        if (crc64 == null || eTag == null || length < 0 || length > maxSize || length > Integer.MAX_VALUE) {
+            synchronized (this) {
+                // the cached content, if any, is out of date
+                entries.remove(new CacheKey(bucketName, key, versionId));
+            }
+            return null;
+        }
+
+        String name = String.format("%016x-%s", crc64, eTag.replaceAll("[^0-9A-Za-z-]", "_"));
+        ContentFile content;
+        synchronized (this) {
+            content = files.get(name);
+        }
+        if (content != null) {
+            ossObject.forcedClose();
+        } else {
+            content = download(name, ossObject, length, crc64);
+        }
+
+        synchronized (this) {
+            long expiresAt = generation == this.generation ? System.currentTimeMillis() + timeToLive : 0;
+            Entry entry = new Entry(content, ObjectMetadataCache.copy(metadata), crc64, expiresAt);
+            entries.put(new CacheKey(bucketName, key, versionId), entry);
+            return entry;
+        }
+    }
+
+    private ContentFile download(String name, OSSObject ossObject, long length, long crc64) throws IOException {
+        File temp = File.createTempFile(name + "-", TEMP_SUFFIX, directory);
+        try {
+            CRC64 crc = new CRC64();
+            long written = 0;
+            InputStream in = ossObject.getObjectContent();
+            OutputStream out = new FileOutputStream(temp);
+            try {
+                byte[] buffer = new byte[64 * 1024];
+                int len;
+                while ((len = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, len);
+                    crc.update(buffer, len);
+                    written += len;
+                }
+            } finally {
+                out.close();
+                in.close();
+            }
+            if (written != length) {
+                throw new IOException("The object content is truncated, " + written + " of " + length + " bytes.");
+            }
+            if (crc.getValue() != crc64) {
+                throw new InconsistentException(crc.getValue(), crc64, ossObject.getRequestId());
+            }
+
+            File file = new File(directory, name);
+            synchronized (this) {
+                bytesDownloaded += length;
+                ContentFile content = files.get(name);
+                if (content != null) {
+                    return content;
+                }
+                if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+                    throw new IOException("Cannot rename " + temp + " to " + file);
+                }
+                content = new ContentFile(name, file, length);
+                files.put(name, content);
+                size += length;
+                evict(content);
+                return content;
+            }
+        } finally {
+            if (temp.exists()) {
+                delete(temp);
+            }
+        }
+    }
+
+    /**
+     * Opens the content of an entry as a stream of its memory-mapped file,
+     * null if the file was evicted or deleted.
+     */
+    public InputStream open(Entry entry) {
+        synchronized (this) {
+            // touches the file as the most recently read
+            if (files.get(entry.content.name) != entry.content) {
+                return null;
+            }
+            bytesServed += entry.content.size;
+        }
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(entry.content.file, "r");
+            if (file.length() != entry.content.size) {
+                return null;
+            }
+            // the mapping stays valid after the file is closed
+            return new ByteBufferInputStream(
+                    file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, entry.content.size));
+        } catch (IOException e) {
+            logException("Cannot open the cached file " + entry.content.file + ": ", e);
+            return null;
+        } finally {
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Renews a stale entry after a 304 Not Modified answer.
+     */
+    public synchronized void renew(String bucketName, String key, String versionId, Entry entry) {
+        notModifiedCount++;
+        CacheKey cacheKey = new CacheKey(bucketName, key, versionId);
+        if (entries.get(cacheKey) == entry) {
+            entries.put(cacheKey, new Entry(entry.content, entry.metadata, entry.crc64,
+                    System.currentTimeMillis() + timeToLive));
+        }
+    }
+
+    /**
+     * Drops an entry which could not be served or revalidated, e.g. the
+     * object doesn't exist anymore.
+     */
+    public synchronized void remove(String bucketName, String key, String versionId, Entry entry) {
+        CacheKey cacheKey = new CacheKey(bucketName, key, versionId);
+        if (entries.get(cacheKey) == entry) {
+            entries.remove(cacheKey);
+        }
+    }
+
+    @Override
+    public synchronized void invalidate(String bucketName, String key, String versionId) {
+        generation++;
+        entries.remove(new CacheKey(bucketName, key, null));
+        if (versionId != null) {
+            entries.remove(new CacheKey(bucketName, key, versionId));
+        }
+    }
+
+    @Override
+    public synchronized void invalidatePrefix(String bucketName, String prefix) {
+        generation++;
+        for (Iterator<CacheKey> it = entries.keySet().iterator(); it.hasNext();) {
+            CacheKey cacheKey = it.next();
+            if (cacheKey.bucketName.equals(bucketName) && cacheKey.key.startsWith(prefix)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Deletes the least recently read files until the total size fits, except
+     * the given one, and drops the entries pointing to them.
+     */
+    private void evict(ContentFile keep) {
+        for (Iterator<ContentFile> it = files.values().iterator(); size > maxSize && it.hasNext();) {
+            ContentFile content = it.next();
+            if (content == keep) {
+                continue;
+            }
+            it.remove();
+            size -= content.size;
+            evictionCount++;
+            delete(content.file);
+            for (Iterator<Entry> entryIt = entries.values().iterator(); entryIt.hasNext();) {
+                if (entryIt.next().content == content) {
+                    entryIt.remove();
+                }
+            }
+        }
+    }
+
+    private static void delete(File file) {
+        // a file still mapped by a reader can't be deleted on some platforms
+        if (!file.delete() && file.exists()) {
+            file.deleteOnExit();
+        }
+    }
+
+    public synchronized ObjectCacheStatistics getStatistics() {
+        return new ObjectCacheStatistics(size, maxSize, files.size(), entries.size(), hitCount, missCount,
+                revalidationCount, notModifiedCount, evictionCount, bytesServed, bytesDownloaded);
+    }
+}
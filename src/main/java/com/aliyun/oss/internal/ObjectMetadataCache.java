@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.internal;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.aliyun.oss.common.metrics.MetadataCacheStatistics;
+import com.aliyun.oss.model.ObjectMetadata;
+
+/**
+ * Caches the {@link ObjectMetadata} returned by HEAD requests, keyed by
+ * bucket, key and version id. An entry is served without a request for the
+ * time to live, then it's revalidated with If-None-Match, and the least
+ * recently used entries are dropped when the cache is full.
+ *
+ * The writes of the client invalidate the entries of the keys they touch. A
+ * HEAD which was in flight during an invalidation of its key doesn't populate
+ * the cache, since it may have read the metadata before the write. An
+ * invalidation is remembered only while a HEAD which began before it is in
+ * flight.
+ */
+public class ObjectMetadataCache implements InvalidatableCache {
+
+    static final class CacheKey {
+        final String bucketName;
+        final String key;
+        final String versionId;
+
+        CacheKey(String bucketName, String key, String versionId) {
+            this.bucketName = bucketName;
+            this.key = key;
+            this.versionId = versionId;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            return bucketName.equals(other.bucketName) && key.equals(other.key)
+                    && (versionId == null ? other.versionId == null : versionId.equals(other.versionId));
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = bucketName.hashCode() * 31 + key.hashCode();
+            return versionId == null ? hash : hash * 31 + versionId.hashCode();
+        }
+    }
+
+    /**
+     * A cached metadata and its expiration time.
+     */
+    public static final class CachedMetadata {
+        private final ObjectMetadata metadata;
+        private final long expiresAt;
+
+        CachedMetadata(ObjectMetadata metadata, long expiresAt) {
+            this.metadata = metadata;
+            this.expiresAt = expiresAt;
+        }
+
+        public boolean isFresh() {
+            return System.currentTimeMillis() < expiresAt;
+        }
+
+        public String getETag() {
+            return metadata.getETag();
+        }
+
+        /**
+         * Gets a copy of the metadata, which the caller may modify.
+         */
+        public ObjectMetadata getMetadata() {
+            return copy(metadata);
+        }
+    }
+
+    private final int maxEntries;
+    private final long timeToLive;
+    private final LinkedHashMap<CacheKey, CachedMetadata> entries;
+
+    // invalidations while HEAD requests are in flight, see put
+    private long generation;
+    // the generations of the HEAD requests in flight, with their counts
+    private final TreeMap<Long, Integer> loading = new TreeMap<Long, Integer>();
+    // in order of generation, the latest invalidation of a key is moved last
+    private final LinkedHashMap<CacheKey, Long> invalidated = new LinkedHashMap<CacheKey, Long>();
+    private long prefixInvalidated = -1;
+
+    private long hitCount;
+    private long missCount;
+    private long revalidationCount;
+    private long notModifiedCount;
+    private long evictionCount;
+    private long invalidationCount;
+
+    /**
+     * @param maxEntries
+     *            The maximum number of cached entries.
+     * @param timeToLive
+     *            The time in milliseconds an entry is served without a request.
+     */
+    public ObjectMetadataCache(final int maxEntries, long timeToLive) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("The max entries of the metadata cache should be positive.");
+        }
+        this.maxEntries = maxEntries;
+        this.timeToLive = timeToLive;
+        this.entries = new LinkedHashMap<CacheKey, CachedMetadata>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CachedMetadata> eldest) {
+                if (size() > maxEntries) {
+                    evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Looks up the metadata of a key, null if it's not cached. A stale entry
+     * is returned too, its ETag is used to revalidate it.
+     */
+    public synchronized CachedMetadata get(String bucketName, String key, String versionId) {
+        CachedMetadata entry = entries.get(new CacheKey(bucketName, key, versionId));
+        if (entry == null) {
+            missCount++;
+        } else if (entry.isFresh()) {
+            hitCount++;
+        } else {
+            revalidationCount++;
+        }
+        return entry;
+    }
+
+    /**
+     * Marks the start of a HEAD request, returns the generation to pass to
+     * {@link #put} or {@link #renew}. Every call must be followed by
+     * {@link #endLoad(long)} with the same generation.
+     */
+    public synchronized long beginLoad() {
+        Integer count = loading.get(generation);
+        loading.put(generation, count == null ? 1 : count + 1);
+        return generation;
+    }
+
+    /**
+     * Marks the end of the HEAD request which began at the given generation,
+     * and forgets the invalidations no HEAD request in flight began before.
+     */
+    public synchronized void endLoad(long generation) {
+        Integer count = loading.get(generation);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            loading.put(generation, count - 1);
+            return;
+        }
+        loading.remove(generation);
+
+        if (loading.isEmpty()) {
+            invalidated.clear();
+            prefixInvalidated = -1;
+            return;
+        }
+        long oldest = loading.firstKey();
+        for (Iterator<Long> it = invalidated.values().iterator(); it.hasNext();) {
+            if (it.next() > oldest) {
+                break;
+            }
+            it.remove();
+        }
+        if (prefixInvalidated <= oldest) {
+            prefixInvalidated = -1;
+        }
+    }
+
+    /**
+     * Caches the metadata returned by a HEAD request which began at the given
+     * generation, unless the key was invalidated since.
+     */
+    public synchronized void put(String bucketName, String key, String versionId, ObjectMetadata metadata,
+            long generation) {
+        CacheKey cacheKey = new CacheKey(bucketName, key, versionId);
+        if (isInvalidatedSince(cacheKey, generation)) {
+            return;
+        }
+        entries.put(cacheKey, new CachedMetadata(copy(metadata), System.currentTimeMillis() + timeToLive));
+    }
+
+    /**
+     * Renews a stale entry after a 304 Not Modified answer to the HEAD request
+     * which began at the given generation, returns a copy of its metadata.
+     */
+    public synchronized ObjectMetadata renew(String bucketName, String key, String versionId, CachedMetadata entry,
+            long generation) {
+        notModifiedCount++;
+        CacheKey cacheKey = new CacheKey(bucketName, key, versionId);
+        if (!isInvalidatedSince(cacheKey, generation) && entries.get(cacheKey) == entry) {
+            entries.put(cacheKey, new CachedMetadata(entry.metadata, System.currentTimeMillis() + timeToLive));
+        }
+        return entry.getMetadata();
+    }
+
+    /**
+     * Drops a stale entry which could not be revalidated, e.g. the object
+     * doesn't exist anymore.
+     */
+    public synchronized void remove(String bucketName, String key, String versionId, CachedMetadata entry) {
+        CacheKey cacheKey = new CacheKey(bucketName, key, versionId);
+        if (entries.get(cacheKey) == entry) {
+            entries.remove(cacheKey);
+        }
+    }
+
+    @Override
+    public synchronized void invalidate(String bucketName, String key, String versionId) {
+        generation++;
+        invalidate(new CacheKey(bucketName, key, null));
+        if (versionId != null) {
+            invalidate(new CacheKey(bucketName, key, versionId));
+        }
+    }
+
+    private void invalidate(CacheKey cacheKey) {
+        if (entries.remove(cacheKey) != null) {
+            invalidationCount++;
+        }
+        if (!loading.isEmpty()) {
+            invalidated.remove(cacheKey);
+            invalidated.put(cacheKey, generation);
+        }
+    }
+
+    @Override
+    public synchronized void invalidatePrefix(String bucketName, String prefix) {
+        generation++;
+        for (Iterator<CacheKey> it = entries.keySet().iterator(); it.hasNext();) {
+            CacheKey cacheKey = it.next();
+            if (cacheKey.bucketName.equals(bucketName) && cacheKey.key.startsWith(prefix)) {
+                it.remove();
+                invalidationCount++;
+            }
+        }
+        if (!loading.isEmpty()) {
+            prefixInvalidated = generation;
+        }
+    }
+
+    private boolean isInvalidatedSince(CacheKey cacheKey, long generation) {
+        if (prefixInvalidated > generation) {
+            return true;
+        }
+        Long invalidatedAt = invalidated.get(cacheKey);
+        return invalidatedAt != null && invalidatedAt > generation;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized MetadataCacheStatistics getStatistics() {
+        return new MetadataCacheStatistics(entries.size(), maxEntries, hitCount, missCount, revalidationCount,
+                notModifiedCount, evictionCount, invalidationCount);
+    }
+
+    static ObjectMetadata copy(ObjectMetadata metadata) {
+        ObjectMetadata copy = new ObjectMetadata();
+        copy.setUserMetadata(metadata.getUserMetadata());
+        for (Map.Entry<String, Object> header : metadata.getRawMetadata().entrySet()) {
+            Object value = header.getValue();
+            copy.setHeader(header.getKey(), value instanceof Date ? new Date(((Date) value).getTime()) : value);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.internal;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.aliyun.oss.ClientException;
+
+/**
+ * Iterates over the items of a paginated listing. As soon as a truncated page
+ * arrives, the next one is requested on the executor, so the round trip of
+ * the listing overlaps with the processing of the current page. At most two
+ * pages are held.
+ *
+ * @param <P>
+ *            The page, such as an ObjectListing.
+ * @param <T>
+ *            The item of the page.
+ */
+public abstract class PrefetchingIterator<P, T> implements Iterator<T> {
+    private final ExecutorService executor;
+    private Iterator<T> items = Collections.<T>emptyList().iterator();
+    private P page;
+    private Future<P> nextPage;
+    private long pageCount;
+
+    /**
+     * @param executor
+     *            The executor of the prefetches, or null to request every page
+     *            when it's needed.
+     */
+    protected PrefetchingIterator(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Requests the page after the previous one, or the first page if previous
+     * is null. Pages are requested one at a time.
+     */
+    protected abstract P fetch(P previous);
+
+    protected abstract List<T> getItems(P page);
+
+    protected abstract boolean isTruncated(P page);
+
+    /**
+     * Gets the number of pages returned so far.
+     */
+    public long getPageCount() {
+        return pageCount;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!items.hasNext()) {
+            if (page != null && !isTruncated(page)) {
+                return false;
+            }
+            page = nextPage != null ? await(nextPage) : fetch(page);
+            nextPage = null;
+            pageCount++;
+            items = getItems(page).iterator();
+            if (isTruncated(page) && executor != null) {
+                final P current = page;
+                nextPage = executor.submit(new Callable<P>() {
+                    @Override
+                    public P call() {
+                        return fetch(current);
+                    }
+                });
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return items.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    private P await(Future<P> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ClientException("Interrupted while waiting for the next page.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ClientException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.internal;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caches the endpoints resolved by
+ * {@link OSSUtils#determineFinalEndpoint(URI, String, com.aliyun.oss.ClientConfiguration, ResolvedEndpointCache)}
+ * per endpoint, bucket and addressing mode (cname support and SLD). Every
+ * service client owns one. The cname exclude list the cname entries were
+ * resolved with is kept, and the cache is dropped when it changes.
+ */
+public class ResolvedEndpointCache {
+    /**
+     * The cache is dropped when it grows over this many entries.
+     */
+    public static final int MAX_ENTRIES = 4096;
+
+    private static final String NO_BUCKET = "/";
+
+    private final Mode plain = new Mode();
+    private final Mode sld = new Mode();
+    private final Mode cname = new Mode();
+    private final Mode cnameSld = new Mode();
+    private final AtomicInteger size = new AtomicInteger();
+
+    private volatile String[] cnameExcludeList = new String[0];
+
+    /**
+     * The resolved endpoints of one addressing mode, per endpoint and bucket.
+     */
+    private static final class Mode {
+        final ConcurrentMap<URI, ConcurrentMap<String, URI>> endpoints =
+                new ConcurrentHashMap<URI, ConcurrentMap<String, URI>>();
+    }
+
+    /**
+     * Gets a resolved endpoint, null if it's not cached.
+     */
+    public URI get(URI endpoint, String bucket, boolean supportCname, boolean sldEnabled) {
+        ConcurrentMap<String, URI> buckets = mode(supportCname, sldEnabled).endpoints.get(endpoint);
+        return buckets != null ? buckets.get(bucket != null ? bucket : NO_BUCKET) : null;
+    }
+
+    public void put(URI endpoint, String bucket, boolean supportCname, boolean sldEnabled, URI resolved) {
+        if (size.incrementAndGet() > MAX_ENTRIES) {
+            clear();
+            size.incrementAndGet();
+        }
+        ConcurrentMap<URI, ConcurrentMap<String, URI>> endpoints = mode(supportCname, sldEnabled).endpoints;
+        ConcurrentMap<String, URI> buckets = endpoints.get(endpoint);
+        if (buckets == null) {
+            ConcurrentMap<String, URI> created = new ConcurrentHashMap<String, URI>();
+            buckets = endpoints.putIfAbsent(endpoint, created);
+            if (buckets == null) {
+                buckets = created;
+            }
+        }
+        buckets.put(bucket != null ? bucket : NO_BUCKET, resolved);
+    }
+
+    /**
+     * Drops the cname entries if the exclude list differs from the one they
+     * were resolved with.
+     */
+    public void checkCnameExcludeList(List<String> excludeList) {
+        if (!matches(cnameExcludeList, excludeList)) {
+            synchronized (this) {
+                if (!matches(cnameExcludeList, excludeList)) {
+                    cname.endpoints.clear();
+                    cnameSld.endpoints.clear();
+                    cnameExcludeList = excludeList.toArray(new String[excludeList.size()]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops all the resolved endpoints.
+     */
+    public void clear() {
+        plain.endpoints.clear();
+        sld.endpoints.clear();
+        cname.endpoints.clear();
+        cnameSld.endpoints.clear();
+        size.set(0);
+    }
+
+    private Mode mode(boolean supportCname, boolean sldEnabled) {
+        if (supportCname) {
+            return sldEnabled ? cnameSld : cname;
+        }
+        return sldEnabled ? sld : plain;
+    }
+
+    private static boolean matches(String[] snapshot, List<String> excludeList) {
+        int n = excludeList.size();
+        if (snapshot.length != n) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            if (!snapshot[i].equals(excludeList.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
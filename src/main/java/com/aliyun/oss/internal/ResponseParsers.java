@@ -1476,29 +1476,13 @@ public final class ResponseParsers {
                 versionListing.setNextVersionIdMarker(isNullOrEmpty(nextMarker) ? null : nextMarker);
             }
 
-            List<Element> objectSummaryElems = root.getChildren("Version");
-            for (Element elem : objectSummaryElems) {
-                OSSVersionSummary ossVersionSummary = new OSSVersionSummary();
-
-                ossVersionSummary.setKey(decodeIfSpecified(elem.getChildText("Key"), shouldSDKDecode));
-                ossVersionSummary.setVersionId(elem.getChildText("VersionId"));
-                ossVersionSummary.setIsLatest("true".equals(elem.getChildText("IsLatest")));
-                ossVersionSummary.setETag(trimQuotes(elem.getChildText("ETag")));
-                ossVersionSummary.setLastModified(DateUtil.parseIso8601Date(elem.getChildText("LastModified")));
-                ossVersionSummary.setSize(Long.valueOf(elem.getChildText("Size")));
-                ossVersionSummary.setStorageClass(elem.getChildText("StorageClass"));
-                ossVersionSummary.setBucketName(versionListing.getBucketName());
-                ossVersionSummary.setIsDeleteMarker(false);
-
-                String id = elem.getChild("Owner").getChildText("ID");
-                String displayName = elem.getChild("Owner").getChildText("DisplayName");
-                ossVersionSummary.setOwner(new Owner(id, displayName));
-
-                versionListing.getVersionSummaries().add(ossVersionSummary);
-            }
-
-            List<Element> delSummaryElems = root.getChildren("DeleteMarker");
-            for (Element elem : delSummaryElems) {
+            // versions and delete markers are kept in the response order, which
+            // lists the versions of a key together from the newest one
+            for (Element elem : root.getChildren()) {
+                boolean deleteMarker = elem.getName().equals("DeleteMarker");
+                if (!deleteMarker && !elem.getName().equals("Version")) {
+                    continue;
+                }
                 OSSVersionSummary ossVersionSummary = new OSSVersionSummary();
 
                 ossVersionSummary.setKey(decodeIfSpecified(elem.getChildText("Key"), shouldSDKDecode));
@@ -1506,7 +1490,12 @@ public final class ResponseParsers {
                 ossVersionSummary.setIsLatest("true".equals(elem.getChildText("IsLatest")));
                 ossVersionSummary.setLastModified(DateUtil.parseIso8601Date(elem.getChildText("LastModified")));
                 ossVersionSummary.setBucketName(versionListing.getBucketName());
-                ossVersionSummary.setIsDeleteMarker(true);
+                ossVersionSummary.setIsDeleteMarker(deleteMarker);
+                if (!deleteMarker) {
+                    ossVersionSummary.setETag(trimQuotes(elem.getChildText("ETag")));
+                    ossVersionSummary.setSize(Long.valueOf(elem.getChildText("Size")));
+                    ossVersionSummary.setStorageClass(elem.getChildText("StorageClass"));
+                }
 
                 String id = elem.getChild("Owner").getChildText("ID");
                 String displayName = elem.getChild("Owner").getChildText("DisplayName");
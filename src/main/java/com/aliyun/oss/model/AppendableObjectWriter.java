@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+import java.io.OutputStream;
+
+/**
+ * Writes to an appendable object through buffered AppendObject calls, see
+ * {@link AppendableObjectWriterRequest}. The position and the CRC64 of the
+ * object are carried from one append to the next.
+ *
+ * Appends run on a background thread in write order, so writes continue into
+ * the next buffer while the previous one is sent. {@link #flush()} returns
+ * once everything written so far is appended. When an append fails, the
+ * writer reads the object length with a HEAD request: if the append did land
+ * it goes on, otherwise it retries at the object length. Once the retries
+ * are exhausted the writer fails, the bytes not yet appended are dropped and
+ * the next write, flush or close throws the error.
+ *
+ * The writer must be closed to append the last bytes and stop its thread.
+ */
+public abstract class AppendableObjectWriter extends OutputStream {
+
+    public abstract String getBucketName();
+
+    public abstract String getKey();
+
+    /**
+     * Gets the object length after the last completed append, which is the
+     * position of the next one.
+     */
+    public abstract long getPosition();
+
+    /**
+     * Gets the CRC64 of the object after the last completed append, or null
+     * if it is unknown.
+     */
+    public abstract Long getObjectCRC();
+
+    /**
+     * Gets the number of completed append requests.
+     */
+    public abstract long getAppendCount();
+}
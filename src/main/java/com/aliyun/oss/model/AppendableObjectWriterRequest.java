@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+/**
+ * The request to open an {@link AppendableObjectWriter} on an appendable
+ * object.
+ *
+ * Written bytes are buffered and appended when a buffer is full, when it has
+ * held data for the flush interval, or on flush and close. When no position is
+ * given the writer starts at the end of the existing object, or at 0 if it
+ * does not exist, with the object's CRC64 taken from a HEAD request.
+ */
+public class AppendableObjectWriterRequest extends GenericRequest {
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+    public static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
+    public AppendableObjectWriterRequest(String bucketName, String key) {
+        super(bucketName, key);
+    }
+
+    public Long getPosition() {
+        return position;
+    }
+
+    /**
+     * Sets the position of the first append, which is the current length of
+     * the object. If it's null, the length is read with a HEAD request.
+     */
+    public void setPosition(Long position) {
+        this.position = position;
+    }
+
+    public AppendableObjectWriterRequest withPosition(Long position) {
+        setPosition(position);
+        return this;
+    }
+
+    public Long getInitCRC() {
+        return initCRC;
+    }
+
+    /**
+     * Sets the CRC64 of the object content before the position. It is only
+     * used along with the position.
+     */
+    public void setInitCRC(Long initCRC) {
+        this.initCRC = initCRC;
+    }
+
+    public AppendableObjectWriterRequest withInitCRC(Long initCRC) {
+        setInitCRC(initCRC);
+        return this;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Sets the buffer size, which is the size of a full append.
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public AppendableObjectWriterRequest withBufferSize(int bufferSize) {
+        setBufferSize(bufferSize);
+        return this;
+    }
+
+    public int getBufferCount() {
+        return bufferCount;
+    }
+
+    /**
+     * Sets the number of buffers. While one buffer is being appended the
+     * writes go to the next one, and they only wait for an append once all
+     * the buffers are full. 1 makes every full buffer wait for its append.
+     */
+    public void setBufferCount(int bufferCount) {
+        this.bufferCount = bufferCount;
+    }
+
+    public AppendableObjectWriterRequest withBufferCount(int bufferCount) {
+        setBufferCount(bufferCount);
+        return this;
+    }
+
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    /**
+     * Sets the milliseconds after which buffered bytes are appended even if
+     * the buffer is not full. 0 disables the time based flush.
+     */
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public AppendableObjectWriterRequest withFlushInterval(long flushInterval) {
+        setFlushInterval(flushInterval);
+        return this;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Sets how many times an append is retried after the position has been
+     * recovered from a failure.
+     */
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public AppendableObjectWriterRequest withMaxRetries(int maxRetries) {
+        setMaxRetries(maxRetries);
+        return this;
+    }
+
+    public ObjectMetadata getObjectMetadata() {
+        return objectMetadata;
+    }
+
+    /**
+     * Sets the metadata the object is created with, it is sent with the
+     * append at position 0 only.
+     */
+    public void setObjectMetadata(ObjectMetadata objectMetadata) {
+        this.objectMetadata = objectMetadata;
+    }
+
+    public AppendableObjectWriterRequest withObjectMetadata(ObjectMetadata objectMetadata) {
+        setObjectMetadata(objectMetadata);
+        return this;
+    }
+
+    // The position of the first append, null to read it with HEAD.
+    private Long position;
+    // The CRC64 of the object before the position.
+    private Long initCRC;
+    // The size of a full append. By default it's 1MB.
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    // The number of buffers, one is filled while the others are appended.
+    private int bufferCount = 2;
+    // Milliseconds after which a partial buffer is appended, 0 to disable.
+    private long flushInterval = DEFAULT_FLUSH_INTERVAL;
+    // Retries of an append after recovering the position.
+    private int maxRetries = 3;
+    private ObjectMetadata objectMetadata;
+}
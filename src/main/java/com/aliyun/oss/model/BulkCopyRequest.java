@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+/**
+ * The request to copy, or move, every object under a prefix to another
+ * prefix, possibly in another bucket of the same region.
+ */
+public class BulkCopyRequest extends WebServiceRequest {
+
+    public BulkCopyRequest(String sourceBucketName, String sourcePrefix, String destinationBucketName,
+            String destinationPrefix) {
+        this.sourceBucketName = sourceBucketName;
+        this.sourcePrefix = sourcePrefix;
+        this.destinationBucketName = destinationBucketName;
+        this.destinationPrefix = destinationPrefix;
+    }
+
+    public String getSourceBucketName() {
+        return sourceBucketName;
+    }
+
+    public void setSourceBucketName(String sourceBucketName) {
+        this.sourceBucketName = sourceBucketName;
+    }
+
+    public String getSourcePrefix() {
+        return sourcePrefix;
+    }
+
+    public void setSourcePrefix(String sourcePrefix) {
+        this.sourcePrefix = sourcePrefix;
+    }
+
+    public String getDestinationBucketName() {
+        return destinationBucketName;
+    }
+
+    public void setDestinationBucketName(String destinationBucketName) {
+        this.destinationBucketName = destinationBucketName;
+    }
+
+    public String getDestinationPrefix() {
+        return destinationPrefix;
+    }
+
+    public void setDestinationPrefix(String destinationPrefix) {
+        this.destinationPrefix = destinationPrefix;
+    }
+
+    /**
+     * Gets whether the source objects are deleted after they are copied,
+     * which turns the copy into a move.
+     */
+    public boolean isDeleteSource() {
+        return deleteSource;
+    }
+
+    public void setDeleteSource(boolean deleteSource) {
+        this.deleteSource = deleteSource;
+    }
+
+    public BulkCopyRequest withDeleteSource(boolean deleteSource) {
+        setDeleteSource(deleteSource);
+        return this;
+    }
+
+    public int getTaskNum() {
+        return taskNum;
+    }
+
+    /**
+     * Sets the number of objects copied concurrently, from 1 to 1000.
+     */
+    public void setTaskNum(int taskNum) {
+        if (taskNum < 1) {
+            this.taskNum = 1;
+        } else if (taskNum > 1000) {
+            this.taskNum = 1000;
+        } else {
+            this.taskNum = taskNum;
+        }
+    }
+
+    public long getMultipartCopyThreshold() {
+        return multipartCopyThreshold;
+    }
+
+    /**
+     * Sets the size from which an object is copied by parallel
+     * UploadPartCopy requests instead of one CopyObject request.
+     */
+    public void setMultipartCopyThreshold(long multipartCopyThreshold) {
+        this.multipartCopyThreshold = multipartCopyThreshold;
+    }
+
+    public String getJournalFile() {
+        return journalFile;
+    }
+
+    /**
+     * Sets the local file recording the objects copied and deleted so far.
+     * An interrupted or partly failed copy run again with the same journal
+     * skips the objects already done. The journal is deleted once every
+     * object is done.
+     */
+    public void setJournalFile(String journalFile) {
+        this.journalFile = journalFile;
+    }
+
+    public Payer getRequestPayer() {
+        return payer;
+    }
+
+    public void setRequestPayer(Payer payer) {
+        this.payer = payer;
+    }
+
+    private String sourceBucketName;
+    private String sourcePrefix;
+    private String destinationBucketName;
+    private String destinationPrefix;
+    // Delete the source objects once copied.
+    private boolean deleteSource = false;
+    // Concurrent object copy count. By default it's 16.
+    private int taskNum = 16;
+    // Objects from this size are copied by parts. By default it's 256MB.
+    private long multipartCopyThreshold = 256 * 1024 * 1024;
+    // The journal file's local path, null for no journal.
+    private String journalFile;
+    private Payer payer;
+}
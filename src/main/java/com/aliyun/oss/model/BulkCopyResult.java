@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The result of a bulk copy or move. Objects that failed are neither
+ * deleted nor recorded in the journal, so running the request again retries
+ * them.
+ */
+public class BulkCopyResult {
+
+    /**
+     * An object that failed to be copied or deleted.
+     */
+    public static class Failure {
+        private final String key;
+        private final boolean delete;
+        private final Exception exception;
+
+        public Failure(String key, boolean delete, Exception exception) {
+            this.key = key;
+            this.delete = delete;
+            this.exception = exception;
+        }
+
+        /**
+         * The source object key.
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Whether the object was copied but its deletion failed.
+         */
+        public boolean isDelete() {
+            return delete;
+        }
+
+        public Exception getException() {
+            return exception;
+        }
+    }
+
+    public long getObjectsCopied() {
+        return objectsCopied;
+    }
+
+    public void setObjectsCopied(long objectsCopied) {
+        this.objectsCopied = objectsCopied;
+    }
+
+    public long getBytesCopied() {
+        return bytesCopied;
+    }
+
+    public void setBytesCopied(long bytesCopied) {
+        this.bytesCopied = bytesCopied;
+    }
+
+    public long getObjectsDeleted() {
+        return objectsDeleted;
+    }
+
+    public void setObjectsDeleted(long objectsDeleted) {
+        this.objectsDeleted = objectsDeleted;
+    }
+
+    /**
+     * Gets the number of objects skipped because the journal shows they were
+     * copied by a previous run.
+     */
+    public long getObjectsSkipped() {
+        return objectsSkipped;
+    }
+
+    public void setObjectsSkipped(long objectsSkipped) {
+        this.objectsSkipped = objectsSkipped;
+    }
+
+    /**
+     * Gets the number of failed copies and deletes.
+     */
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public void setFailedCount(long failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    /**
+     * Gets the failures, at most the first 1000 of them.
+     */
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    public void setFailures(List<Failure> failures) {
+        this.failures = failures;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public double getObjectsPerSecond() {
+        return elapsedMillis > 0 ? objectsCopied * 1000.0 / elapsedMillis : 0;
+    }
+
+    public double getBytesPerSecond() {
+        return elapsedMillis > 0 ? bytesCopied * 1000.0 / elapsedMillis : 0;
+    }
+
+    private long objectsCopied;
+    private long bytesCopied;
+    private long objectsDeleted;
+    private long objectsSkipped;
+    private long failedCount;
+    private List<Failure> failures = new ArrayList<Failure>();
+    private long elapsedMillis;
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+import java.io.File;
+import java.util.Iterator;
+
+/**
+ * The request to upload many local files, typically small ones, to a bucket.
+ * The files are given by an iterator, which is consumed as the uploads go,
+ * so they need not all be known, or held in memory, up front.
+ */
+public class BulkUploadRequest extends WebServiceRequest {
+
+    /**
+     * A file and the key of its object.
+     */
+    public static class Entry {
+        private final String key;
+        private final File file;
+
+        public Entry(String key, File file) {
+            this.key = key;
+            this.file = file;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public File getFile() {
+            return file;
+        }
+    }
+
+    public BulkUploadRequest(String bucketName, Iterator<Entry> entries) {
+        this.bucketName = bucketName;
+        this.entries = entries;
+    }
+
+    public BulkUploadRequest(String bucketName, Iterable<Entry> entries) {
+        this(bucketName, entries.iterator());
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public void setBucketName(String bucketName) {
+        this.bucketName = bucketName;
+    }
+
+    public Iterator<Entry> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(Iterator<Entry> entries) {
+        this.entries = entries;
+    }
+
+    public int getTaskNum() {
+        return taskNum;
+    }
+
+    /**
+     * Sets the number of requests in flight, from 1 to 1000. It is further
+     * limited to the client's maximum connections, so every request has a
+     * pooled connection ready.
+     */
+    public void setTaskNum(int taskNum) {
+        if (taskNum < 1) {
+            this.taskNum = 1;
+        } else if (taskNum > 1000) {
+            this.taskNum = 1000;
+        } else {
+            this.taskNum = taskNum;
+        }
+    }
+
+    public int getMaxBufferedFileSize() {
+        return maxBufferedFileSize;
+    }
+
+    /**
+     * Sets the size up to which a file is read into a buffer reused by the
+     * uploading thread; larger files are streamed from disk.
+     */
+    public void setMaxBufferedFileSize(int maxBufferedFileSize) {
+        this.maxBufferedFileSize = maxBufferedFileSize;
+    }
+
+    /**
+     * Gets whether the connections are opened before the first upload.
+     */
+    public boolean isPrewarmConnections() {
+        return prewarmConnections;
+    }
+
+    public void setPrewarmConnections(boolean prewarmConnections) {
+        this.prewarmConnections = prewarmConnections;
+    }
+
+    public ObjectMetadata getObjectMetadata() {
+        return objectMetadata;
+    }
+
+    /**
+     * Sets the metadata every object is uploaded with, the content type
+     * being derived from the key when it is not set.
+     */
+    public void setObjectMetadata(ObjectMetadata objectMetadata) {
+        this.objectMetadata = objectMetadata;
+    }
+
+    public Payer getRequestPayer() {
+        return payer;
+    }
+
+    public void setRequestPayer(Payer payer) {
+        this.payer = payer;
+    }
+
+    private String bucketName;
+    private Iterator<Entry> entries;
+    // Requests in flight. By default it's 32.
+    private int taskNum = 32;
+    // Files up to this size are read into a reused buffer. By default it's 1MB.
+    private int maxBufferedFileSize = 1024 * 1024;
+    private boolean prewarmConnections = true;
+    private ObjectMetadata objectMetadata;
+    private Payer payer;
+}
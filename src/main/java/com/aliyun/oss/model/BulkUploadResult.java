@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The result of a bulk upload.
+ */
+public class BulkUploadResult {
+
+    /**
+     * A file that failed to be uploaded.
+     */
+    public static class Failure {
+        private final String key;
+        private final Exception exception;
+
+        public Failure(String key, Exception exception) {
+            this.key = key;
+            this.exception = exception;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public Exception getException() {
+            return exception;
+        }
+    }
+
+    public long getObjectsUploaded() {
+        return objectsUploaded;
+    }
+
+    public void setObjectsUploaded(long objectsUploaded) {
+        this.objectsUploaded = objectsUploaded;
+    }
+
+    public long getBytesUploaded() {
+        return bytesUploaded;
+    }
+
+    public void setBytesUploaded(long bytesUploaded) {
+        this.bytesUploaded = bytesUploaded;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public void setFailedCount(long failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    /**
+     * Gets the failures, at most the first 1000 of them.
+     */
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    public void setFailures(List<Failure> failures) {
+        this.failures = failures;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public double getObjectsPerSecond() {
+        return elapsedMillis > 0 ? objectsUploaded * 1000.0 / elapsedMillis : 0;
+    }
+
+    public double getBytesPerSecond() {
+        return elapsedMillis > 0 ? bytesUploaded * 1000.0 / elapsedMillis : 0;
+    }
+
+    private long objectsUploaded;
+    private long bytesUploaded;
+    private long failedCount;
+    private List<Failure> failures = new ArrayList<Failure>();
+    private long elapsedMillis;
+}
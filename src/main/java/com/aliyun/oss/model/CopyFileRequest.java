@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+/**
+ * The request to copy a large object with parallel UploadPartCopy requests,
+ * the source and the destination can be in different buckets of the same
+ * region.
+ */
+public class CopyFileRequest extends WebServiceRequest {
+
+    public CopyFileRequest(String sourceBucketName, String sourceKey, String destinationBucketName,
+            String destinationKey) {
+        this.sourceBucketName = sourceBucketName;
+        this.sourceKey = sourceKey;
+        this.destinationBucketName = destinationBucketName;
+        this.destinationKey = destinationKey;
+    }
+
+    public CopyFileRequest(String sourceBucketName, String sourceKey, String destinationBucketName,
+            String destinationKey, long partSize, int taskNum) {
+        this(sourceBucketName, sourceKey, destinationBucketName, destinationKey);
+        setPartSize(partSize);
+        setTaskNum(taskNum);
+    }
+
+    public String getSourceBucketName() {
+        return sourceBucketName;
+    }
+
+    public void setSourceBucketName(String sourceBucketName) {
+        this.sourceBucketName = sourceBucketName;
+    }
+
+    public String getSourceKey() {
+        return sourceKey;
+    }
+
+    public void setSourceKey(String sourceKey) {
+        this.sourceKey = sourceKey;
+    }
+
+    public String getSourceVersionId() {
+        return sourceVersionId;
+    }
+
+    public void setSourceVersionId(String sourceVersionId) {
+        this.sourceVersionId = sourceVersionId;
+    }
+
+    public String getDestinationBucketName() {
+        return destinationBucketName;
+    }
+
+    public void setDestinationBucketName(String destinationBucketName) {
+        this.destinationBucketName = destinationBucketName;
+    }
+
+    public String getDestinationKey() {
+        return destinationKey;
+    }
+
+    public void setDestinationKey(String destinationKey) {
+        this.destinationKey = destinationKey;
+    }
+
+    /**
+     * Gets the part size, 0 means it's chosen from the source object size.
+     */
+    public long getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * Sets the part size, 0 means it's chosen from the source object size. A
+     * part size below 100KB is raised to 100KB, and the part size is raised
+     * if the object would otherwise have more than 10000 parts.
+     */
+    public void setPartSize(long partSize) {
+        if (partSize <= 0) {
+            this.partSize = 0;
+        } else if (partSize < 1024 * 100) {
+            this.partSize = 1024 * 100;
+        } else {
+            this.partSize = partSize;
+        }
+    }
+
+    public int getTaskNum() {
+        return taskNum;
+    }
+
+    public void setTaskNum(int taskNum) {
+        if (taskNum < 1) {
+            this.taskNum = 1;
+        } else if (taskNum > 1000) {
+            this.taskNum = 1000;
+        } else {
+            this.taskNum = taskNum;
+        }
+    }
+
+    public boolean isEnableCheckpoint() {
+        return enableCheckpoint;
+    }
+
+    public void setEnableCheckpoint(boolean enableCheckpoint) {
+        this.enableCheckpoint = enableCheckpoint;
+    }
+
+    public String getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    public void setCheckpointFile(String checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+
+    /**
+     * Gets the metadata of the destination object, null means the content
+     * type, user metadata and the content headers of the source are copied.
+     */
+    public ObjectMetadata getObjectMetadata() {
+        return objectMetadata;
+    }
+
+    public void setObjectMetadata(ObjectMetadata objectMetadata) {
+        this.objectMetadata = objectMetadata;
+    }
+
+    public Payer getRequestPayer() {
+        return payer;
+    }
+
+    public void setRequestPayer(Payer payer) {
+        this.payer = payer;
+    }
+
+    private String sourceBucketName;
+    private String sourceKey;
+    private String sourceVersionId;
+    private String destinationBucketName;
+    private String destinationKey;
+    // Part size, by default it's chosen from the source object size.
+    private long partSize = 0;
+    // Concurrent UploadPartCopy count. By default it's 5.
+    private int taskNum = 5;
+    // Enable the checkpoint
+    private boolean enableCheckpoint = false;
+    // The checkpoint file's local path.
+    private String checkpointFile;
+    // The metadata of the destination object.
+    private ObjectMetadata objectMetadata;
+    private Payer payer;
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+/**
+ * The request to delete a directory and everything under it in a bucket with
+ * hierarchical namespace, with concurrent recursive DeleteDirectory requests.
+ *
+ * The subdirectories are discovered with delimiter listings down to the
+ * discovery depth. Every subtree at that depth is deleted by its own
+ * sequence of recursive DeleteDirectory requests, following the delete
+ * token, and a directory is deleted once all its subdirectories are gone.
+ */
+public class DeleteDirectoryTreeRequest extends DirectoryTreeRequest {
+
+    public DeleteDirectoryTreeRequest(String bucketName, String directoryName) {
+        super(bucketName, directoryName);
+    }
+
+    public int getDiscoveryDepth() {
+        return discoveryDepth;
+    }
+
+    /**
+     * Sets how many levels of subdirectories are listed to split the tree,
+     * 0 deletes the whole tree with one sequence of requests.
+     */
+    public void setDiscoveryDepth(int discoveryDepth) {
+        this.discoveryDepth = discoveryDepth;
+    }
+
+    public String getJournalFile() {
+        return journalFile;
+    }
+
+    /**
+     * Sets the journal file, which records the deleted subtrees and the
+     * delete token of the subtrees in progress. Running the request again
+     * with the same journal resumes every subtree at its token. The journal
+     * is removed once the directory is deleted.
+     */
+    public void setJournalFile(String journalFile) {
+        this.journalFile = journalFile;
+    }
+
+    // Levels of subdirectories listed to split the tree. By default it's 2.
+    private int discoveryDepth = 2;
+    private String journalFile;
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+/**
+ * The common settings of the concurrent directory tree operations of a
+ * bucket with hierarchical namespace, see {@link DeleteDirectoryTreeRequest}
+ * and {@link RenameDirectoryTreeRequest}.
+ */
+public abstract class DirectoryTreeRequest extends GenericRequest {
+
+    protected DirectoryTreeRequest(String bucketName, String directoryName) {
+        super(bucketName, directoryName);
+    }
+
+    public String getDirectoryName() {
+        return super.getKey();
+    }
+
+    public void setDirectoryName(String directoryName) {
+        super.setKey(directoryName);
+    }
+
+    public int getTaskNum() {
+        return taskNum;
+    }
+
+    /**
+     * Sets the number of concurrent requests, from 1 to 1000.
+     */
+    public void setTaskNum(int taskNum) {
+        if (taskNum < 1) {
+            this.taskNum = 1;
+        } else if (taskNum > 1000) {
+            this.taskNum = 1000;
+        } else {
+            this.taskNum = taskNum;
+        }
+    }
+
+    public int getMaxQps() {
+        return maxQps;
+    }
+
+    /**
+     * Sets the maximum number of requests per second, 0 for no limit.
+     */
+    public void setMaxQps(int maxQps) {
+        this.maxQps = maxQps;
+    }
+
+    public boolean isBucketQosLimited() {
+        return bucketQosLimited;
+    }
+
+    /**
+     * Sets whether the requests per second are also limited to the TotalQps
+     * of the bucket's QoS, which is read once with GetBucketQosInfo. It takes
+     * effect when the bucket has a QoS limit and the caller is allowed to
+     * read it.
+     */
+    public void setBucketQosLimited(boolean bucketQosLimited) {
+        this.bucketQosLimited = bucketQosLimited;
+    }
+
+    // Concurrent requests. By default it's 16.
+    private int taskNum = 16;
+    // Requests per second, 0 for no limit.
+    private int maxQps = 0;
+    // Flag of limiting the requests per second to the bucket's TotalQps.
+    private boolean bucketQosLimited = false;
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The result of a directory tree delete or rename. Entries that failed are
+ * left in place, so running the request again retries them.
+ */
+public class DirectoryTreeResult {
+
+    /**
+     * A directory or file the operation failed on.
+     */
+    public static class Failure {
+        private final String name;
+        private final Exception exception;
+
+        public Failure(String name, Exception exception) {
+            this.name = name;
+            this.exception = exception;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Exception getException() {
+            return exception;
+        }
+    }
+
+    /**
+     * Gets the number of directories processed on their own: deleted by a
+     * sequence of recursive deletes, or merged into the destination.
+     */
+    public long getDirectories() {
+        return directories;
+    }
+
+    public void setDirectories(long directories) {
+        this.directories = directories;
+    }
+
+    /**
+     * Gets the number of files and directories deleted, as reported by the
+     * DeleteDirectory requests.
+     */
+    public long getEntriesDeleted() {
+        return entriesDeleted;
+    }
+
+    public void setEntriesDeleted(long entriesDeleted) {
+        this.entriesDeleted = entriesDeleted;
+    }
+
+    /**
+     * Gets the number of Rename requests that succeeded.
+     */
+    public long getEntriesRenamed() {
+        return entriesRenamed;
+    }
+
+    public void setEntriesRenamed(long entriesRenamed) {
+        this.entriesRenamed = entriesRenamed;
+    }
+
+    /**
+     * Gets the number of requests sent, listings included.
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    public void setRequestCount(long requestCount) {
+        this.requestCount = requestCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public void setFailedCount(long failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    /**
+     * Gets the failures, the first 1000 of them.
+     */
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    private long directories;
+    private long entriesDeleted;
+    private long entriesRenamed;
+    private long requestCount;
+    private long elapsedMillis;
+    private long failedCount;
+    private List<Failure> failures = new ArrayList<Failure>();
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The manifest.json of an inventory report, which lists the gzip CSV data
+ * files of the report and the schema of their rows.
+ */
+public class InventoryManifest {
+
+    /**
+     * A data file of the report.
+     */
+    public static class DataFile {
+        private String key;
+        private long size;
+        private String md5Checksum;
+
+        public DataFile(String key, long size, String md5Checksum) {
+            this.key = key;
+            this.size = size;
+            this.md5Checksum = md5Checksum;
+        }
+
+        /**
+         * Gets the key of the file in the destination bucket.
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Gets the size of the compressed file.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Gets the hex MD5 of the compressed file.
+         */
+        public String getMd5Checksum() {
+            return md5Checksum;
+        }
+    }
+
+    private String sourceBucket;
+    private String destinationBucket;
+    private String version;
+    private String creationTimestamp;
+    private String fileFormat;
+    private List<String> fileSchema = new ArrayList<String>();
+    private List<DataFile> files = new ArrayList<DataFile>();
+
+    public String getSourceBucket() {
+        return sourceBucket;
+    }
+
+    public void setSourceBucket(String sourceBucket) {
+        this.sourceBucket = sourceBucket;
+    }
+
+    public String getDestinationBucket() {
+        return destinationBucket;
+    }
+
+    public void setDestinationBucket(String destinationBucket) {
+        this.destinationBucket = destinationBucket;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    /**
+     * Gets the creation time of the report, in seconds since the epoch.
+     */
+    public String getCreationTimestamp() {
+        return creationTimestamp;
+    }
+
+    public void setCreationTimestamp(String creationTimestamp) {
+        this.creationTimestamp = creationTimestamp;
+    }
+
+    /**
+     * Gets the format of the data files, see {@link InventoryFormat}.
+     */
+    public String getFileFormat() {
+        return fileFormat;
+    }
+
+    public void setFileFormat(String fileFormat) {
+        this.fileFormat = fileFormat;
+    }
+
+    /**
+     * Gets the field names of the columns, such as Bucket, Key and the
+     * {@link InventoryOptionalFields} of the inventory configuration.
+     */
+    public List<String> getFileSchema() {
+        return fileSchema;
+    }
+
+    public void setFileSchema(List<String> fileSchema) {
+        this.fileSchema = fileSchema;
+    }
+
+    public List<DataFile> getFiles() {
+        return files;
+    }
+
+    public void setFiles(List<DataFile> files) {
+        this.files = files;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Iterates over the rows of an inventory report, see
+ * {@link InventoryReaderRequest}.
+ *
+ * The data files of the report are downloaded and decompressed by several
+ * threads while the rows are consumed, so rows of different files come
+ * interleaved. The MD5 and the size of every file are checked against the
+ * manifest. A failed file makes {@link #hasNext()} throw a ClientException.
+ *
+ * The reader must be closed if it's not iterated to the end, to stop the
+ * downloads.
+ */
+public abstract class InventoryReader implements Iterator<InventoryRecord>, Closeable {
+
+    public abstract InventoryManifest getManifest();
+
+    /**
+     * Gets the number of rows returned so far.
+     */
+    public abstract long getRecordCount();
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Inventory records cannot be removed.");
+    }
+
+    /**
+     * Stops the downloads, without throwing IOException.
+     */
+    @Override
+    public abstract void close();
+}
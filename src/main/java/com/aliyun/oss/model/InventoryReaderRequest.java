@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+/**
+ * The request to open an {@link InventoryReader} on an inventory report. The
+ * bucket is the destination bucket of the inventory and the key is the
+ * manifest.json of the report.
+ */
+public class InventoryReaderRequest extends GenericRequest {
+    public static final int DEFAULT_TASK_NUM = 4;
+    public static final int DEFAULT_MAX_RETRIES = 3;
+
+    public InventoryReaderRequest(String bucketName, String manifestKey) {
+        super(bucketName, manifestKey);
+    }
+
+    public int getTaskNum() {
+        return taskNum;
+    }
+
+    /**
+     * Sets the number of data files downloaded at the same time.
+     */
+    public void setTaskNum(int taskNum) {
+        this.taskNum = taskNum;
+    }
+
+    public InventoryReaderRequest withTaskNum(int taskNum) {
+        setTaskNum(taskNum);
+        return this;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Sets how many times a download broken in the middle is resumed with a
+     * ranged GET from the bytes already read.
+     */
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public InventoryReaderRequest withMaxRetries(int maxRetries) {
+        setMaxRetries(maxRetries);
+        return this;
+    }
+
+    private int taskNum = DEFAULT_TASK_NUM;
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+}
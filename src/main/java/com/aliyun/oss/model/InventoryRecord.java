@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.Map;
+
+import com.aliyun.oss.common.utils.DateUtil;
+import com.aliyun.oss.common.utils.HttpUtil;
+import com.aliyun.oss.internal.OSSConstants;
+
+/**
+ * A row of an inventory report. The values are kept as read from the CSV
+ * file and converted by the getters, which return null for a field missing
+ * from the schema of the report.
+ */
+public class InventoryRecord {
+    private final Map<String, Integer> columns;
+    private final String[] values;
+
+    /**
+     * @param columns
+     *            The column index of each field name of the schema.
+     * @param values
+     *            The values of the row.
+     */
+    public InventoryRecord(Map<String, Integer> columns, String[] values) {
+        this.columns = columns;
+        this.values = values;
+    }
+
+    /**
+     * Gets the raw value of a field, such as one of the
+     * {@link InventoryOptionalFields}, or null if the report does not have it.
+     */
+    public String getValue(String field) {
+        Integer column = columns.get(field);
+        return column == null || column >= values.length ? null : values[column];
+    }
+
+    public String getBucketName() {
+        return getValue("Bucket");
+    }
+
+    /**
+     * Gets the object key, which the report stores url encoded.
+     */
+    public String getKey() {
+        String key = getValue("Key");
+        return key == null ? null : HttpUtil.urlDecode(key, OSSConstants.DEFAULT_CHARSET_NAME);
+    }
+
+    public String getVersionId() {
+        return getValue("VersionId");
+    }
+
+    public Boolean isLatest() {
+        return booleanValue("IsLatest");
+    }
+
+    public Boolean isDeleteMarker() {
+        return booleanValue("IsDeleteMarker");
+    }
+
+    public Long getSize() {
+        String size = getValue(InventoryOptionalFields.Size);
+        return size == null || size.length() == 0 ? null : Long.valueOf(size);
+    }
+
+    public String getStorageClass() {
+        return getValue(InventoryOptionalFields.StorageClass);
+    }
+
+    /**
+     * Gets the last modified date, or null if it's missing or malformed.
+     */
+    public Date getLastModifiedDate() {
+        String date = getValue(InventoryOptionalFields.LastModifiedDate);
+        if (date == null || date.length() == 0) {
+            return null;
+        }
+        try {
+            return DateUtil.parseIso8601Date(date);
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    public String getETag() {
+        return getValue(InventoryOptionalFields.ETag);
+    }
+
+    public Boolean isMultipartUploaded() {
+        return booleanValue(InventoryOptionalFields.IsMultipartUploaded);
+    }
+
+    public String getEncryptionStatus() {
+        return getValue(InventoryOptionalFields.EncryptionStatus);
+    }
+
+    private Boolean booleanValue(String field) {
+        String value = getValue(field);
+        return value == null || value.length() == 0 ? null : Boolean.valueOf(value);
+    }
+}
@@ -145,7 +145,11 @@ public class OSSObject extends GenericResult implements Closeable {
      * @throws IOException
      */
     public void forcedClose() throws IOException {
-        this.response.abort();
+        if (this.response != null) {
+            this.response.abort();
+        } else {
+            close();
+        }
     }
 
     @Override
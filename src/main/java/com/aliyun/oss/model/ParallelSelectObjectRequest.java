@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+/**
+ * The request class that is to select an object with multiple concurrent
+ * split range selects.
+ *
+ * The select metadata of the object is created (if not exists) to get the
+ * number of splits, the splits are partitioned into ranges and every range is
+ * selected by a separate request. The records are returned by a
+ * {@link SelectRecordIterator}, in object order when ordered is set, or as
+ * soon as any range produces them otherwise.
+ */
+public class ParallelSelectObjectRequest extends SelectObjectRequest {
+    public static final int DEFAULT_MAX_BUFFERED_RECORDS = 64 * 1024;
+
+    public ParallelSelectObjectRequest(String bucketName, String key) {
+        super(bucketName, key);
+    }
+
+    public int getTaskNum() {
+        return taskNum;
+    }
+
+    /**
+     * Sets the number of concurrent select requests.
+     */
+    public void setTaskNum(int taskNum) {
+        this.taskNum = taskNum;
+    }
+
+    public ParallelSelectObjectRequest withTaskNum(int taskNum) {
+        setTaskNum(taskNum);
+        return this;
+    }
+
+    public int getSplitsPerRange() {
+        return splitsPerRange;
+    }
+
+    /**
+     * Sets the number of splits selected by one request. 0 means the splits are
+     * evenly distributed over the tasks.
+     */
+    public void setSplitsPerRange(int splitsPerRange) {
+        this.splitsPerRange = splitsPerRange;
+    }
+
+    public ParallelSelectObjectRequest withSplitsPerRange(int splitsPerRange) {
+        setSplitsPerRange(splitsPerRange);
+        return this;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * Sets whether the records are returned in the order of the object.
+     */
+    public void setOrdered(boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    public ParallelSelectObjectRequest withOrdered(boolean ordered) {
+        setOrdered(ordered);
+        return this;
+    }
+
+    public int getMaxBufferedRecords() {
+        return maxBufferedRecords;
+    }
+
+    /**
+     * Sets the number of records each task may buffer before it waits for the
+     * caller to consume them.
+     */
+    public void setMaxBufferedRecords(int maxBufferedRecords) {
+        this.maxBufferedRecords = maxBufferedRecords;
+    }
+
+    public ParallelSelectObjectRequest withMaxBufferedRecords(int maxBufferedRecords) {
+        setMaxBufferedRecords(maxBufferedRecords);
+        return this;
+    }
+
+    // The number of concurrent select requests.
+    private int taskNum = 5;
+    // The number of splits of one select request, 0 for even distribution.
+    private int splitsPerRange = 0;
+    // Flag of returning records in object order.
+    private boolean ordered = true;
+    // The number of records buffered by one task.
+    private int maxBufferedRecords = DEFAULT_MAX_BUFFERED_RECORDS;
+}
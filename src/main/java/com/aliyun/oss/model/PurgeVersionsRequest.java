@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+import java.util.Date;
+
+/**
+ * The request to delete old versions of the objects of a versioned bucket.
+ *
+ * For every key under the prefix, the newest keepLatest versions are kept.
+ * The older ones are deleted, only those that became noncurrent before
+ * noncurrentBefore if it's set. A version becomes noncurrent when the next
+ * one is written. With removeExpiredDeleteMarkers, a delete marker left as
+ * the only version of a key is deleted too, which removes the key from the
+ * bucket.
+ */
+public class PurgeVersionsRequest extends GenericRequest {
+    public static final int DEFAULT_TASK_NUM = 4;
+
+    public PurgeVersionsRequest(String bucketName) {
+        super(bucketName);
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public PurgeVersionsRequest withPrefix(String prefix) {
+        setPrefix(prefix);
+        return this;
+    }
+
+    public int getKeepLatest() {
+        return keepLatest;
+    }
+
+    /**
+     * Sets the number of versions kept for each key, including the current
+     * one, at least 1.
+     */
+    public void setKeepLatest(int keepLatest) {
+        this.keepLatest = keepLatest;
+    }
+
+    public PurgeVersionsRequest withKeepLatest(int keepLatest) {
+        setKeepLatest(keepLatest);
+        return this;
+    }
+
+    public Date getNoncurrentBefore() {
+        return noncurrentBefore;
+    }
+
+    /**
+     * Sets the time before which a version must have become noncurrent to be
+     * deleted. If it's null the versions are deleted regardless of age.
+     */
+    public void setNoncurrentBefore(Date noncurrentBefore) {
+        this.noncurrentBefore = noncurrentBefore;
+    }
+
+    public PurgeVersionsRequest withNoncurrentBefore(Date noncurrentBefore) {
+        setNoncurrentBefore(noncurrentBefore);
+        return this;
+    }
+
+    public boolean isRemoveExpiredDeleteMarkers() {
+        return removeExpiredDeleteMarkers;
+    }
+
+    /**
+     * Sets whether a current delete marker is deleted once no other version of
+     * its key is left. With noncurrentBefore set, the delete marker must be
+     * older than it too.
+     */
+    public void setRemoveExpiredDeleteMarkers(boolean removeExpiredDeleteMarkers) {
+        this.removeExpiredDeleteMarkers = removeExpiredDeleteMarkers;
+    }
+
+    public PurgeVersionsRequest withRemoveExpiredDeleteMarkers(boolean removeExpiredDeleteMarkers) {
+        setRemoveExpiredDeleteMarkers(removeExpiredDeleteMarkers);
+        return this;
+    }
+
+    public int getTaskNum() {
+        return taskNum;
+    }
+
+    /**
+     * Sets the number of DeleteVersions requests sent at the same time.
+     */
+    public void setTaskNum(int taskNum) {
+        this.taskNum = taskNum;
+    }
+
+    public PurgeVersionsRequest withTaskNum(int taskNum) {
+        setTaskNum(taskNum);
+        return this;
+    }
+
+    private String prefix;
+    private int keepLatest = 1;
+    private Date noncurrentBefore;
+    private boolean removeExpiredDeleteMarkers;
+    private int taskNum = DEFAULT_TASK_NUM;
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The result of a version purge. Failed DeleteVersions requests are
+ * reported with their first version, up to 1000 of them.
+ */
+public class PurgeVersionsResult {
+
+    /**
+     * A failed DeleteVersions request.
+     */
+    public static class Failure {
+        private final String key;
+        private final String versionId;
+        private final int versionCount;
+        private final Exception exception;
+
+        public Failure(String key, String versionId, int versionCount, Exception exception) {
+            this.key = key;
+            this.versionId = versionId;
+            this.versionCount = versionCount;
+            this.exception = exception;
+        }
+
+        /**
+         * Gets the key of the first version of the request.
+         */
+        public String getKey() {
+            return key;
+        }
+
+        public String getVersionId() {
+            return versionId;
+        }
+
+        /**
+         * Gets the number of versions of the request.
+         */
+        public int getVersionCount() {
+            return versionCount;
+        }
+
+        public Exception getException() {
+            return exception;
+        }
+    }
+
+    private long keyCount;
+    private long versionCount;
+    private long deletedVersionCount;
+    private long deletedDeleteMarkerCount;
+    private long requestCount;
+    private long failedVersionCount;
+    private long elapsedMillis;
+    private List<Failure> failures = new ArrayList<Failure>();
+
+    /**
+     * Gets the number of keys listed.
+     */
+    public long getKeyCount() {
+        return keyCount;
+    }
+
+    public void setKeyCount(long keyCount) {
+        this.keyCount = keyCount;
+    }
+
+    /**
+     * Gets the number of versions and delete markers listed.
+     */
+    public long getVersionCount() {
+        return versionCount;
+    }
+
+    public void setVersionCount(long versionCount) {
+        this.versionCount = versionCount;
+    }
+
+    /**
+     * Gets the number of deleted versions, delete markers excluded.
+     */
+    public long getDeletedVersionCount() {
+        return deletedVersionCount;
+    }
+
+    public void setDeletedVersionCount(long deletedVersionCount) {
+        this.deletedVersionCount = deletedVersionCount;
+    }
+
+    public long getDeletedDeleteMarkerCount() {
+        return deletedDeleteMarkerCount;
+    }
+
+    public void setDeletedDeleteMarkerCount(long deletedDeleteMarkerCount) {
+        this.deletedDeleteMarkerCount = deletedDeleteMarkerCount;
+    }
+
+    /**
+     * Gets the number of ListVersions and DeleteVersions requests.
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    public void setRequestCount(long requestCount) {
+        this.requestCount = requestCount;
+    }
+
+    /**
+     * Gets the number of versions and delete markers of the failed requests.
+     */
+    public long getFailedVersionCount() {
+        return failedVersionCount;
+    }
+
+    public void setFailedVersionCount(long failedVersionCount) {
+        this.failedVersionCount = failedVersionCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    public void setFailures(List<Failure> failures) {
+        this.failures = failures;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+/**
+ * The request to rename a directory in a bucket with hierarchical namespace,
+ * merging it into the destination directory if that already exists.
+ *
+ * A directory whose destination does not exist is renamed by a single
+ * Rename request. Otherwise its files and subdirectories are renamed into
+ * the destination concurrently, the subdirectories that exist on both sides
+ * are merged the same way, and the emptied source directories are deleted.
+ * Entries whose destination file already exists are left in place and
+ * reported as failures.
+ */
+public class RenameDirectoryTreeRequest extends DirectoryTreeRequest {
+
+    public RenameDirectoryTreeRequest(String bucketName, String sourceDirectoryName,
+            String destinationDirectoryName) {
+        super(bucketName, sourceDirectoryName);
+        this.destinationDirectoryName = destinationDirectoryName;
+    }
+
+    public String getDestinationDirectoryName() {
+        return destinationDirectoryName;
+    }
+
+    public void setDestinationDirectoryName(String destinationDirectoryName) {
+        this.destinationDirectoryName = destinationDirectoryName;
+    }
+
+    private String destinationDirectoryName;
+}
@@ -6,7 +6,6 @@ import com.aliyun.oss.event.ProgressListener;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.ByteBuffer;
 import java.util.zip.CRC32;
 
 import static com.aliyun.oss.event.ProgressPublisher.publishSelectProgress;
@@ -36,13 +35,24 @@ public class SelectInputStream extends FilterInputStream {
     private static final int SELECT_VERSION = 1;
     private static final long DEFAULT_NOTIFICATION_THRESHOLD = 50 * 1024 * 1024;//notify every scanned 50MB
 
+    /**
+     * frame type, payload length, header checksum and scanned data bytes
+     */
+    private static final int FRAME_HEADER_LENGTH = 20;
+    public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+    private static final int MIN_BUFFER_SIZE = 64;
+    private static final int INITIAL_RECORD_CAPACITY = 256;
+
+    /**
+     * Frames are decoded from this buffer, header fields are read in place and
+     * payload bytes are handed out (or checksummed) in bulk.
+     */
+    private final byte[] buffer;
+    private int bufferPos;
+    private int bufferLimit;
+
     private long currentFrameOffset;
     private long currentFramePayloadLength;
-    private byte[] currentFrameTypeBytes;
-    private byte[] currentFramePayloadLengthBytes;
-    private byte[] currentFrameHeaderChecksumBytes;
-    private byte[] scannedDataBytes;
-    private byte[] currentFramePayloadChecksumBytes;
     private boolean finished;
     private ProgressListener selectProgressListener;
     private long nextNotificationScannedSize;
@@ -55,15 +65,30 @@ public class SelectInputStream extends FilterInputStream {
      */
     private boolean firstReadFrame;
 
+    private byte[] recordDelimiter;
+    private int[] recordDelimiterFailure;
+    private int recordDelimiterMatched;
+    /**
+     * Holds the bytes of a record which spans several frames or buffer fills.
+     */
+    private byte[] recordCarry;
+    private int recordCarryLength;
+    private byte[] recordBuffer;
+    private int recordOffset;
+    private int recordLength;
+
     public SelectInputStream(InputStream in, ProgressListener selectProgressListener, boolean payloadCrcEnabled) {
+        this(in, selectProgressListener, payloadCrcEnabled, DEFAULT_BUFFER_SIZE);
+    }
+
+    public SelectInputStream(InputStream in, ProgressListener selectProgressListener, boolean payloadCrcEnabled,
+            int bufferSize) {
         super(in);
+        buffer = new byte[Math.max(bufferSize, MIN_BUFFER_SIZE)];
+        bufferPos = 0;
+        bufferLimit = 0;
         currentFrameOffset = 0;
         currentFramePayloadLength = 0;
-        currentFrameTypeBytes = new byte[4];
-        currentFramePayloadLengthBytes = new byte[4];
-        currentFrameHeaderChecksumBytes = new byte[4];
-        scannedDataBytes = new byte[8];
-        currentFramePayloadChecksumBytes = new byte[4];
         finished = false;
         firstReadFrame = true;
         this.selectProgressListener = selectProgressListener;
@@ -73,22 +98,57 @@ public class SelectInputStream extends FilterInputStream {
             this.crc32 = new CRC32();
             this.crc32.reset();
         }
+        setRecordDelimiter("\n");
     }
 
-    private void internalRead(byte[] buf, int off, int len) throws IOException {
-        int bytesRead = 0;
-        while (bytesRead < len) {
-            int bytes = in.read(buf, off + bytesRead, len - bytesRead);
+    /**
+     * Makes sure at least n undecoded bytes are in the buffer, n must not exceed the buffer size.
+     */
+    private void fill(int n) throws IOException {
+        int remaining = bufferLimit - bufferPos;
+        if (remaining >= n) {
+            return;
+        }
+        if (bufferPos > 0) {
+            System.arraycopy(buffer, bufferPos, buffer, 0, remaining);
+            bufferPos = 0;
+            bufferLimit = remaining;
+        }
+        while (bufferLimit < n) {
+            int bytes = in.read(buffer, bufferLimit, buffer.length - bufferLimit);
             if (bytes < 0) {
-                throw new SelectObjectException(SelectObjectException.INVALID_INPUT_STREAM, "Invalid input stream end found, need another " + (len - bytesRead) + " bytes", requestId);
+                throw new SelectObjectException(SelectObjectException.INVALID_INPUT_STREAM, "Invalid input stream end found, need another " + (n - bufferLimit) + " bytes", requestId);
             }
+            bufferLimit += bytes;
+        }
+    }
+
+    private int readInt() {
+        int value = ((buffer[bufferPos] & 0xff) << 24) | ((buffer[bufferPos + 1] & 0xff) << 16)
+                | ((buffer[bufferPos + 2] & 0xff) << 8) | (buffer[bufferPos + 3] & 0xff);
+        bufferPos += 4;
+        return value;
+    }
+
+    private long readLong() {
+        long high = readInt() & 0xffffffffL;
+        long low = readInt() & 0xffffffffL;
+        return (high << 32) | low;
+    }
+
+    private void readFully(byte[] buf) throws IOException {
+        int bytesRead = 0;
+        while (bytesRead < buf.length) {
+            fill(1);
+            int bytes = Math.min(bufferLimit - bufferPos, buf.length - bytesRead);
+            System.arraycopy(buffer, bufferPos, buf, bytesRead, bytes);
+            bufferPos += bytes;
             bytesRead += bytes;
         }
     }
 
-    private void validateCheckSum(byte[] checksumBytes, CRC32 crc32) throws IOException {
+    private void validateCheckSum(int currentChecksum) throws IOException {
         if (payloadCrcEnabled) {
-            int currentChecksum = ByteBuffer.wrap(checksumBytes).getInt();
             if (crc32.getValue() != ((long)currentChecksum & 0xffffffffL)) {
                 throw new SelectObjectException(SelectObjectException.INVALID_CRC, "Frame crc check failed, actual " + crc32.getValue() + ", expect: " + currentChecksum, requestId);
             }
@@ -99,49 +159,47 @@ public class SelectInputStream extends FilterInputStream {
     private void readFrame() throws IOException {
         while (currentFrameOffset >= currentFramePayloadLength && !finished) {
             if (!firstReadFrame) {
-                internalRead(currentFramePayloadChecksumBytes, 0, 4);
-                validateCheckSum(currentFramePayloadChecksumBytes, crc32);
+                fill(4);
+                validateCheckSum(readInt());
             }
             firstReadFrame = false;
             //advance to next frame
-            internalRead(currentFrameTypeBytes, 0, 4);
+            fill(FRAME_HEADER_LENGTH);
             //first byte is version byte
-            if (currentFrameTypeBytes[0] != SELECT_VERSION) {
-                throw new SelectObjectException(SelectObjectException.INVALID_SELECT_VERSION, "Invalid select version found " + currentFrameTypeBytes[0] + ", expect: " + SELECT_VERSION, requestId);
+            if (buffer[bufferPos] != SELECT_VERSION) {
+                throw new SelectObjectException(SelectObjectException.INVALID_SELECT_VERSION, "Invalid select version found " + buffer[bufferPos] + ", expect: " + SELECT_VERSION, requestId);
             }
-            internalRead(currentFramePayloadLengthBytes, 0, 4);
-            internalRead(currentFrameHeaderChecksumBytes, 0, 4);
-            internalRead(scannedDataBytes, 0, 8);
+            int type = readInt() & 0x00ffffff;
+            int payloadLength = readInt();
+            //skip header checksum
+            bufferPos += 4;
             if (payloadCrcEnabled) {
-                crc32.update(scannedDataBytes);
+                crc32.update(buffer, bufferPos, 8);
             }
+            long scannedDataSize = readLong();
 
-            currentFrameTypeBytes[0] = 0;
-            int type = ByteBuffer.wrap(currentFrameTypeBytes).getInt();
             switch (type) {
                 case DATA_FRAME_MAGIC:
-                    currentFramePayloadLength = ByteBuffer.wrap(currentFramePayloadLengthBytes).getInt() - 8;
+                    currentFramePayloadLength = payloadLength - 8;
                     currentFrameOffset = 0;
                     break;
                 case CONTINUOUS_FRAME_MAGIC:
                     //just break, continue
                     break;
                 case END_FRAME_MAGIC:
-                    currentFramePayloadLength = ByteBuffer.wrap(currentFramePayloadLengthBytes).getInt() - 8;
-                    byte[] totalScannedDataSizeBytes = new byte[8];
-                    internalRead(totalScannedDataSizeBytes, 0, 8);
-                    byte[] statusBytes = new byte[4];
-                    internalRead(statusBytes, 0, 4);
+                    currentFramePayloadLength = payloadLength - 8;
+                    //total scan size and status
+                    fill(12);
                     if (payloadCrcEnabled) {
-                        crc32.update(totalScannedDataSizeBytes);
-                        crc32.update(statusBytes);
+                        crc32.update(buffer, bufferPos, 12);
                     }
-                    int status = ByteBuffer.wrap(statusBytes).getInt();
+                    bufferPos += 8;
+                    int status = readInt();
                     int errorMessageSize = (int)(currentFramePayloadLength - 12);
                     String error = "";
                     if (errorMessageSize > 0) {
                         byte[] errorMessageBytes = new byte[errorMessageSize];
-                        internalRead(errorMessageBytes, 0, errorMessageSize);
+                        readFully(errorMessageBytes);
                         error = new String(errorMessageBytes);
                         if (payloadCrcEnabled) {
                             crc32.update(errorMessageBytes);
@@ -149,9 +207,8 @@ public class SelectInputStream extends FilterInputStream {
                     }
                     finished = true;
                     currentFramePayloadLength = currentFrameOffset;
-                    internalRead(currentFramePayloadChecksumBytes, 0, 4);
-
-                    validateCheckSum(currentFramePayloadChecksumBytes, crc32);
+                    fill(4);
+                    validateCheckSum(readInt());
                     if (status / 100 != 2) {
                         if (error.contains(".")) {
                             throw new SelectObjectException(error.split("\\.")[0], error.substring(error.indexOf(".") + 1), requestId);
@@ -169,7 +226,6 @@ public class SelectInputStream extends FilterInputStream {
             if (finished) {
                 eventType = ProgressEventType.SELECT_COMPLETED_EVENT;
             }
-            long scannedDataSize = ByteBuffer.wrap(scannedDataBytes).getLong();
             if (scannedDataSize >= nextNotificationScannedSize || finished) {
                 publishSelectProgress(selectProgressListener, eventType, scannedDataSize);
                 nextNotificationScannedSize += DEFAULT_NOTIFICATION_THRESHOLD;
@@ -177,16 +233,36 @@ public class SelectInputStream extends FilterInputStream {
         }
     }
 
+    /**
+     * Returns the number of payload bytes of current frame which are available in the buffer,
+     * or -1 if all frames are consumed.
+     */
+    private int fillPayload() throws IOException {
+        readFrame();
+        if (currentFrameOffset >= currentFramePayloadLength) {
+            return -1;
+        }
+        if (bufferPos == bufferLimit) {
+            fill(1);
+        }
+        return (int)Math.min(bufferLimit - bufferPos, currentFramePayloadLength - currentFrameOffset);
+    }
+
+    private void consumePayload(int len) {
+        if (payloadCrcEnabled) {
+            crc32.update(buffer, bufferPos, len);
+        }
+        bufferPos += len;
+        currentFrameOffset += len;
+    }
+
     @Override
     public int read() throws IOException {
-        readFrame();
-        int byteRead = in.read();
-        if (byteRead >= 0) {
-            currentFrameOffset++;
-            if (payloadCrcEnabled) {
-                crc32.update(byteRead);
-            }
+        if (fillPayload() < 0) {
+            return -1;
         }
+        int byteRead = buffer[bufferPos] & 0xff;
+        consumePayload(1);
         return byteRead;
     }
 
@@ -197,19 +273,32 @@ public class SelectInputStream extends FilterInputStream {
 
     @Override
     public int read(byte[] buf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
         readFrame();
-        int bytesToRead = (int)Math.min(len, currentFramePayloadLength - currentFrameOffset);
-        if (bytesToRead != 0) {
-            int bytes = in.read(buf, off, bytesToRead);
-            if (bytes > 0) {
-                currentFrameOffset += bytes;
-                if (payloadCrcEnabled) {
-                    crc32.update(buf, off, bytes);
-                }
+        long frameRemaining = currentFramePayloadLength - currentFrameOffset;
+        if (frameRemaining <= 0) {
+            return -1;
+        }
+
+        if (bufferPos == bufferLimit && len >= buffer.length) {
+            // large reads go to the caller's buffer directly
+            int bytes = in.read(buf, off, (int)Math.min(len, frameRemaining));
+            if (bytes < 0) {
+                throw new SelectObjectException(SelectObjectException.INVALID_INPUT_STREAM, "Invalid input stream end found, need another " + frameRemaining + " bytes", requestId);
+            }
+            currentFrameOffset += bytes;
+            if (payloadCrcEnabled) {
+                crc32.update(buf, off, bytes);
             }
             return bytes;
         }
-        return -1;
+
+        int bytes = Math.min(len, fillPayload());
+        System.arraycopy(buffer, bufferPos, buf, off, bytes);
+        consumePayload(bytes);
+        return bytes;
     }
 
     @Override
@@ -220,4 +309,159 @@ public class SelectInputStream extends FilterInputStream {
     public void setRequestId(String requestId) {
         this.requestId = requestId;
     }
+
+    /**
+     * Sets the delimiter used by {@link #nextRecord()} to split the output into records,
+     * it should be the record delimiter of the output serialization. Default is "\n".
+     */
+    public void setRecordDelimiter(String recordDelimiter) {
+        setRecordDelimiter(recordDelimiter.getBytes());
+    }
+
+    public void setRecordDelimiter(byte[] recordDelimiter) {
+        if (recordDelimiter == null || recordDelimiter.length == 0) {
+            throw new IllegalArgumentException("Record delimiter should not be empty");
+        }
+        int[] failure = new int[recordDelimiter.length];
+        for (int i = 1, k = 0; i < recordDelimiter.length; i++) {
+            while (k > 0 && recordDelimiter[i] != recordDelimiter[k]) {
+                k = failure[k - 1];
+            }
+            if (recordDelimiter[i] == recordDelimiter[k]) {
+                k++;
+            }
+            failure[i] = k;
+        }
+        this.recordDelimiter = recordDelimiter.clone();
+        this.recordDelimiterFailure = failure;
+        this.recordDelimiterMatched = 0;
+    }
+
+    /**
+     * Advances to the next record of the select output. The record is exposed through
+     * {@link #getRecordBuffer()}, {@link #getRecordOffset()} and {@link #getRecordLength()},
+     * and stays valid until the next call on this stream. Records which are complete in one
+     * frame are not copied. Do not mix this with the read methods.
+     *
+     * @return true if a record is available, false if the select output is consumed.
+     * @throws IOException
+     *            If the frames are corrupted or the select failed.
+     */
+    public boolean nextRecord() throws IOException {
+        recordCarryLength = 0;
+        while (true) {
+            int available = fillPayload();
+            if (available < 0) {
+                recordDelimiterMatched = 0;
+                if (recordCarryLength > 0) {
+                    // the last record has no delimiter
+                    setRecord(recordCarry, 0, recordCarryLength);
+                    return true;
+                }
+                setRecord(null, 0, 0);
+                return false;
+            }
+
+            int start = bufferPos;
+            int end = start + available;
+            int i = scanDelimiter(start, end);
+            if (i >= 0) {
+                int consumed = i + 1 - start;
+                int length = recordCarryLength + consumed - recordDelimiter.length;
+                consumePayload(consumed);
+                recordDelimiterMatched = 0;
+                if (recordCarryLength == 0) {
+                    setRecord(buffer, start, length);
+                } else {
+                    if (length > recordCarryLength) {
+                        appendCarry(start, length - recordCarryLength);
+                    }
+                    setRecord(recordCarry, 0, length);
+                }
+                return true;
+            }
+            consumePayload(available);
+            appendCarry(start, available);
+        }
+    }
+
+    /**
+     * Returns the index in buffer where the delimiter ends, or -1 if it is not completed in [start, end).
+     */
+    private int scanDelimiter(int start, int end) {
+        byte[] delimiter = recordDelimiter;
+        if (delimiter.length == 1) {
+            byte d = delimiter[0];
+            for (int i = start; i < end; i++) {
+                if (buffer[i] == d) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int matched = recordDelimiterMatched;
+        for (int i = start; i < end; i++) {
+            byte b = buffer[i];
+            while (matched > 0 && delimiter[matched] != b) {
+                matched = recordDelimiterFailure[matched - 1];
+            }
+            if (delimiter[matched] == b) {
+                matched++;
+            }
+            if (matched == delimiter.length) {
+                return i;
+            }
+        }
+        recordDelimiterMatched = matched;
+        return -1;
+    }
+
+    private void appendCarry(int off, int len) {
+        if (recordCarry == null) {
+            recordCarry = new byte[Math.max(INITIAL_RECORD_CAPACITY, len)];
+        } else if (recordCarryLength + len > recordCarry.length) {
+            byte[] grown = new byte[Math.max(recordCarry.length * 2, recordCarryLength + len)];
+            System.arraycopy(recordCarry, 0, grown, 0, recordCarryLength);
+            recordCarry = grown;
+        }
+        System.arraycopy(buffer, off, recordCarry, recordCarryLength, len);
+        recordCarryLength += len;
+    }
+
+    private void setRecord(byte[] buf, int off, int len) {
+        recordBuffer = buf;
+        recordOffset = off;
+        recordLength = len;
+    }
+
+    public byte[] getRecordBuffer() {
+        return recordBuffer;
+    }
+
+    public int getRecordOffset() {
+        return recordOffset;
+    }
+
+    public int getRecordLength() {
+        return recordLength;
+    }
+
+    /**
+     * Decodes all remaining records and passes them to the listener.
+     *
+     * @param listener
+     *            The {@link SelectRecordListener} which consumes the records.
+     * @return the number of records.
+     * @throws IOException
+     *            If the frames are corrupted, the select failed or the listener failed.
+     */
+    public long readRecords(SelectRecordListener listener) throws IOException {
+        long records = 0;
+        while (nextRecord()) {
+            listener.onRecord(recordBuffer, recordOffset, recordLength);
+            records++;
+        }
+        return records;
+    }
 }
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Iterates over the records of a parallel select, see
+ * {@link ParallelSelectObjectRequest}. Each record is returned without the
+ * record delimiter.
+ *
+ * The iterator must be closed if it is not consumed to the end, otherwise the
+ * pending select requests are kept waiting.
+ */
+public interface SelectRecordIterator extends Iterator<byte[]>, Closeable {
+
+    /**
+     * Gets the number of splits of the object.
+     */
+    public int getSplits();
+
+    @Override
+    public void close();
+}
@@ -0,0 +1,25 @@
+package com.aliyun.oss.model;
+
+import java.io.IOException;
+
+/**
+ * Receives the records decoded by {@link SelectInputStream#readRecords(SelectRecordListener)}.
+ *
+ * The record bytes are not copied out of the decoder, the array is only valid during the call
+ * and will be overwritten afterwards. Copy the bytes if they must be kept.
+ */
+public interface SelectRecordListener {
+    /**
+     * Called once per record, the record delimiter is not included.
+     *
+     * @param buf
+     *            The buffer holding the record.
+     * @param off
+     *            The offset of the record in buf.
+     * @param len
+     *            The length of the record.
+     * @throws IOException
+     *            If the record could not be consumed, stops the decoding.
+     */
+    public void onRecord(byte[] buf, int off, int len) throws IOException;
+}
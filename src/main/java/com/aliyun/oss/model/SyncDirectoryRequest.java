@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+/**
+ * The request to synchronize a local directory to a prefix: new and changed
+ * files are uploaded, unchanged ones are left alone and, optionally, objects
+ * whose local file is gone are deleted.
+ */
+public class SyncDirectoryRequest extends WebServiceRequest {
+
+    public SyncDirectoryRequest(String bucketName, String prefix, String localDirectory) {
+        this.bucketName = bucketName;
+        this.prefix = prefix;
+        this.localDirectory = localDirectory;
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public void setBucketName(String bucketName) {
+        this.bucketName = bucketName;
+    }
+
+    /**
+     * Gets the prefix the relative paths of the local files are appended to,
+     * "backup/" for instance. A "/" is added to a prefix which doesn't end
+     * with one, so "backup" syncs the same tree as "backup/".
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public String getLocalDirectory() {
+        return localDirectory;
+    }
+
+    public void setLocalDirectory(String localDirectory) {
+        this.localDirectory = localDirectory;
+    }
+
+    public String getManifestFile() {
+        return manifestFile;
+    }
+
+    /**
+     * Sets the local file caching the size, modification time, CRC64 and
+     * ETag of every file synchronized. With a manifest, a file whose size and
+     * modification time did not change since the last run, and whose object
+     * ETag did not change either, is known to be in sync from the listing
+     * alone; without it, files of the same size as their object are read to
+     * compare their CRC64 with the object's.
+     */
+    public void setManifestFile(String manifestFile) {
+        this.manifestFile = manifestFile;
+    }
+
+    /**
+     * Gets whether objects under the prefix without a local file are deleted.
+     */
+    public boolean isDeleteRemoved() {
+        return deleteRemoved;
+    }
+
+    public void setDeleteRemoved(boolean deleteRemoved) {
+        this.deleteRemoved = deleteRemoved;
+    }
+
+    public SyncDirectoryRequest withDeleteRemoved(boolean deleteRemoved) {
+        setDeleteRemoved(deleteRemoved);
+        return this;
+    }
+
+    /**
+     * Gets whether the synchronization is only planned: nothing is uploaded
+     * or deleted, and the result lists what would be.
+     */
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    public SyncDirectoryRequest withDryRun(boolean dryRun) {
+        setDryRun(dryRun);
+        return this;
+    }
+
+    public int getTaskNum() {
+        return taskNum;
+    }
+
+    /**
+     * Sets the number of files uploaded or compared concurrently, from 1 to
+     * 1000.
+     */
+    public void setTaskNum(int taskNum) {
+        if (taskNum < 1) {
+            this.taskNum = 1;
+        } else if (taskNum > 1000) {
+            this.taskNum = 1000;
+        } else {
+            this.taskNum = taskNum;
+        }
+    }
+
+    public long getMultipartUploadThreshold() {
+        return multipartUploadThreshold;
+    }
+
+    /**
+     * Sets the size from which a file is uploaded by parts instead of one
+     * PutObject request.
+     */
+    public void setMultipartUploadThreshold(long multipartUploadThreshold) {
+        this.multipartUploadThreshold = multipartUploadThreshold;
+    }
+
+    public long getPartSize() {
+        return partSize;
+    }
+
+    public void setPartSize(long partSize) {
+        this.partSize = partSize;
+    }
+
+    public Payer getRequestPayer() {
+        return payer;
+    }
+
+    public void setRequestPayer(Payer payer) {
+        this.payer = payer;
+    }
+
+    private String bucketName;
+    private String prefix;
+    private String localDirectory;
+    // The manifest file's local path, null for no manifest.
+    private String manifestFile;
+    // Delete the objects whose local file is gone.
+    private boolean deleteRemoved = false;
+    // Plan only, do not upload or delete.
+    private boolean dryRun = false;
+    // Concurrent file count. By default it's 8.
+    private int taskNum = 8;
+    // Files from this size are uploaded by parts. By default it's 64MB.
+    private long multipartUploadThreshold = 64 * 1024 * 1024;
+    // The part size of multipart uploads. By default it's 8MB.
+    private long partSize = 8 * 1024 * 1024;
+    private Payer payer;
+}
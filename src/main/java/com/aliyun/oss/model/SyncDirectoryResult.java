@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The result of a directory synchronization. Files that failed are left out
+ * of the manifest, so the next run compares them again.
+ */
+public class SyncDirectoryResult {
+
+    /**
+     * A file that failed to be uploaded or compared, or an object that failed
+     * to be deleted.
+     */
+    public static class Failure {
+        private final String key;
+        private final boolean delete;
+        private final Exception exception;
+
+        public Failure(String key, boolean delete, Exception exception) {
+            this.key = key;
+            this.delete = delete;
+            this.exception = exception;
+        }
+
+        /**
+         * The object key.
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Whether the failure was deleting an object.
+         */
+        public boolean isDelete() {
+            return delete;
+        }
+
+        public Exception getException() {
+            return exception;
+        }
+    }
+
+    /**
+     * Gets the number of files uploaded, or to be uploaded in a dry run.
+     */
+    public long getFilesUploaded() {
+        return filesUploaded;
+    }
+
+    public void setFilesUploaded(long filesUploaded) {
+        this.filesUploaded = filesUploaded;
+    }
+
+    public long getBytesUploaded() {
+        return bytesUploaded;
+    }
+
+    public void setBytesUploaded(long bytesUploaded) {
+        this.bytesUploaded = bytesUploaded;
+    }
+
+    /**
+     * Gets the number of objects deleted, or to be deleted in a dry run.
+     */
+    public long getObjectsDeleted() {
+        return objectsDeleted;
+    }
+
+    public void setObjectsDeleted(long objectsDeleted) {
+        this.objectsDeleted = objectsDeleted;
+    }
+
+    /**
+     * Gets the number of files already in sync.
+     */
+    public long getFilesUnchanged() {
+        return filesUnchanged;
+    }
+
+    public void setFilesUnchanged(long filesUnchanged) {
+        this.filesUnchanged = filesUnchanged;
+    }
+
+    /**
+     * Gets the number of files whose CRC64 was compared with their object's,
+     * because the manifest could not tell whether they changed.
+     */
+    public long getFilesCompared() {
+        return filesCompared;
+    }
+
+    public void setFilesCompared(long filesCompared) {
+        this.filesCompared = filesCompared;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public void setFailedCount(long failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    /**
+     * Gets the failures, at most the first 1000 of them.
+     */
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    public void setFailures(List<Failure> failures) {
+        this.failures = failures;
+    }
+
+    /**
+     * Gets the keys a dry run would upload, empty otherwise.
+     */
+    public List<String> getPlannedUploads() {
+        return plannedUploads;
+    }
+
+    public void setPlannedUploads(List<String> plannedUploads) {
+        this.plannedUploads = plannedUploads;
+    }
+
+    /**
+     * Gets the keys a dry run would delete, empty otherwise.
+     */
+    public List<String> getPlannedDeletes() {
+        return plannedDeletes;
+    }
+
+    public void setPlannedDeletes(List<String> plannedDeletes) {
+        this.plannedDeletes = plannedDeletes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    private long filesUploaded;
+    private long bytesUploaded;
+    private long objectsDeleted;
+    private long filesUnchanged;
+    private long filesCompared;
+    private long failedCount;
+    private List<Failure> failures = new ArrayList<Failure>();
+    private List<String> plannedUploads = new ArrayList<String>();
+    private List<String> plannedDeletes = new ArrayList<String>();
+    private long elapsedMillis;
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.common.utils.CRC64;
+import com.aliyun.oss.model.AppendObjectRequest;
+import com.aliyun.oss.model.AppendableObjectWriter;
+import com.aliyun.oss.model.AppendableObjectWriterRequest;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.stub.OSSStubServer;
+import com.aliyun.oss.stub.StubFault;
+import com.aliyun.oss.stub.StubObjectStore.StubObject;
+
+/**
+ * Appends through an {@link AppendableObjectWriter} to the in-process stub server.
+ */
+public class AppendableObjectWriterTest {
+    private static final String BUCKET = "append-bucket";
+
+    private OSSStubServer server;
+    private OSS client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new OSSStubServer().start();
+        ClientBuilderConfiguration conf = OSSStubServer.newClientConfiguration();
+        conf.setMaxErrorRetry(0);
+        client = new OSSClientBuilder().build(server.getEndpoint(), "ak", "sk", conf);
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        server.close();
+    }
+
+    private static byte[] data(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static long crc(byte[] data) {
+        return new CRC64(data, data.length).getValue();
+    }
+
+    @Test
+    public void testBufferedAppends() throws IOException {
+        byte[] data = data(10000, 1);
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType("text/plain");
+        metadata.addUserMetadata("source", "test");
+        AppendableObjectWriter writer = client.createAppendableObjectWriter(
+                new AppendableObjectWriterRequest(BUCKET, "log").withBufferSize(1000).withFlushInterval(0)
+                        .withObjectMetadata(metadata));
+        Assertions.assertEquals(0, writer.getPosition());
+        for (int off = 0; off < data.length; off += 100) {
+            writer.write(data, off, 100);
+        }
+        writer.close();
+        writer.close();
+
+        StubObject object = server.getStore().getObject(BUCKET, "log");
+        Assertions.assertArrayEquals(data, object.getData());
+        Assertions.assertEquals("text/plain", object.getContentType());
+        Assertions.assertEquals("test", object.getUserMetadata().get("x-oss-meta-source"));
+        Assertions.assertEquals(10, writer.getAppendCount());
+        Assertions.assertEquals(data.length, writer.getPosition());
+        Assertions.assertEquals(Long.valueOf(crc(data)), writer.getObjectCRC());
+        Assertions.assertEquals(object.getCrc64(), writer.getObjectCRC().longValue());
+        try {
+            writer.write(1);
+            Assertions.fail("write after close should fail");
+        } catch (ClientException e) {
+        }
+    }
+
+    @Test
+    public void testFlush() throws Exception {
+        AppendableObjectWriter writer = client.createAppendableObjectWriter(
+                new AppendableObjectWriterRequest(BUCKET, "flushed").withFlushInterval(100));
+        writer.write("first line\n".getBytes());
+        // the partial buffer is appended after the flush interval
+        long deadline = System.currentTimeMillis() + 5000;
+        while (server.getStore().getObject(BUCKET, "flushed") == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(11, server.getStore().getObject(BUCKET, "flushed").getSize());
+
+        writer.write('x');
+        writer.flush();
+        Assertions.assertEquals(12, writer.getPosition());
+        Assertions.assertEquals(12, server.getStore().getObject(BUCKET, "flushed").getSize());
+        long appends = writer.getAppendCount();
+        writer.flush();
+        writer.close();
+        Assertions.assertEquals(appends, writer.getAppendCount());
+    }
+
+    @Test
+    public void testContinueExistingObject() throws IOException {
+        byte[] head = data(3000, 2);
+        byte[] tail = data(5000, 3);
+        client.appendObject(new AppendObjectRequest(BUCKET, "existing", new ByteArrayInputStream(head))
+                .withPosition(0L));
+
+        AppendableObjectWriter writer = client.createAppendableObjectWriter(
+                new AppendableObjectWriterRequest(BUCKET, "existing").withBufferSize(1024).withBufferCount(1));
+        Assertions.assertEquals(head.length, writer.getPosition());
+        Assertions.assertEquals(Long.valueOf(crc(head)), writer.getObjectCRC());
+        writer.write(tail);
+        writer.close();
+
+        byte[] expected = Arrays.copyOf(head, head.length + tail.length);
+        System.arraycopy(tail, 0, expected, head.length, tail.length);
+        Assertions.assertArrayEquals(expected, server.getStore().getObject(BUCKET, "existing").getData());
+        Assertions.assertEquals(Long.valueOf(crc(expected)), writer.getObjectCRC());
+    }
+
+    @Test
+    public void testRecoverPosition() throws IOException {
+        // a stale position is corrected from the object length
+        byte[] first = data(500, 4);
+        client.appendObject(new AppendObjectRequest(BUCKET, "shared", new ByteArrayInputStream(first))
+                .withPosition(0L));
+        AppendableObjectWriter writer = client.createAppendableObjectWriter(
+                new AppendableObjectWriterRequest(BUCKET, "shared").withPosition(0L).withFlushInterval(0));
+        byte[] second = data(700, 5);
+        writer.write(second);
+        writer.flush();
+        Assertions.assertEquals(first.length + second.length, writer.getPosition());
+
+        // a reset connection, the append is retried at the same position
+        server.failNext("POST", StubFault.CONNECTION_RESET, 1);
+        byte[] third = data(300, 6);
+        writer.write(third);
+        writer.close();
+        Assertions.assertEquals(1, server.getFaultCount());
+
+        byte[] object = server.getStore().getObject(BUCKET, "shared").getData();
+        Assertions.assertEquals(first.length + second.length + third.length, object.length);
+        Assertions.assertArrayEquals(third, Arrays.copyOfRange(object, first.length + second.length, object.length));
+        Assertions.assertEquals(Long.valueOf(crc(object)), writer.getObjectCRC());
+    }
+
+    @Test
+    public void testFailure() throws IOException {
+        server.getStore().putObject(BUCKET, "normal", new byte[10]);
+        AppendableObjectWriter writer = client.createAppendableObjectWriter(
+                new AppendableObjectWriterRequest(BUCKET, "normal").withFlushInterval(0));
+        Assertions.assertEquals(10, writer.getPosition());
+        writer.write(new byte[100]);
+        try {
+            writer.close();
+            Assertions.fail("append to a normal object should fail");
+        } catch (OSSException e) {
+            Assertions.assertEquals("ObjectNotAppendable", e.getErrorCode());
+        }
+        Assertions.assertEquals(0, writer.getAppendCount());
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.model.BulkCopyRequest;
+import com.aliyun.oss.model.BulkCopyResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Runs bulk copies against a local server which keeps the objects of one bucket in memory.
+ */
+public class BulkCopyTest {
+    private static final int OBJECTS = 2500;
+    private static final Pattern DELETE_KEY = Pattern.compile("<Key>(.*?)</Key>");
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private OSS client;
+    private final NavigableMap<String, Long> objects = new ConcurrentSkipListMap<String, Long>();
+    private final AtomicInteger deleteRequests = new AtomicInteger();
+    private volatile String failedKey;
+
+    @Before
+    public void setUp() throws IOException {
+        for (int i = 0; i < OBJECTS; i++) {
+            objects.put(String.format("raw/2024/%05d.log", i), (long) i);
+        }
+        objects.put("raw/2023/old.log", 1L);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String body = read(exchange.getRequestBody());
+                String method = exchange.getRequestMethod();
+                String query = exchange.getRequestURI().getRawQuery();
+                String path = exchange.getRequestURI().getPath();
+                exchange.getResponseHeaders().add("x-oss-request-id", "stub-request-id");
+                if ("GET".equals(method)) {
+                    list(exchange, query);
+                } else if ("PUT".equals(method)) {
+                    String source = exchange.getRequestHeaders().getFirst("x-oss-copy-source");
+                    String sourceKey = URLDecoder.decode(source.substring("/bucket/".length()), "UTF-8");
+                    Long size = objects.get(sourceKey);
+                    if (size == null || sourceKey.equals(failedKey)) {
+                        send(exchange, 500, "<Error><Code>InternalError</Code><Message>error</Message>"
+                                + "<RequestId>stub-request-id</RequestId></Error>");
+                    } else {
+                        objects.put(path.substring("/bucket/".length()), size);
+                        send(exchange, 200, "<CopyObjectResult><LastModified>2024-01-01T00:00:00.000Z</LastModified>"
+                                + "<ETag>\"etag\"</ETag></CopyObjectResult>");
+                    }
+                } else if ("POST".equals(method)) {
+                    deleteRequests.incrementAndGet();
+                    Matcher matcher = DELETE_KEY.matcher(body);
+                    while (matcher.find()) {
+                        objects.remove(matcher.group(1));
+                    }
+                    send(exchange, 200, "<DeleteResult></DeleteResult>");
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+
+        ClientBuilderConfiguration conf = new ClientBuilderConfiguration();
+        conf.setSLDEnabled(true);
+        conf.setMaxErrorRetry(0);
+        client = new OSSClientBuilder().build("http://127.0.0.1:" + server.getAddress().getPort(), "ak", "sk", conf);
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    private void list(HttpExchange exchange, String query) throws IOException {
+        String prefix = "";
+        String token = null;
+        int maxKeys = 100;
+        for (String param : query.split("&")) {
+            String[] kv = param.split("=", 2);
+            String value = kv.length > 1 ? URLDecoder.decode(kv[1], "UTF-8") : "";
+            if (kv[0].equals("prefix")) {
+                prefix = value;
+            } else if (kv[0].equals("continuation-token")) {
+                token = value;
+            } else if (kv[0].equals("max-keys")) {
+                maxKeys = Integer.parseInt(value);
+            }
+        }
+        StringBuilder contents = new StringBuilder();
+        int count = 0;
+        String last = null;
+        boolean truncated = false;
+        Map<String, Long> tail = token == null ? objects.tailMap(prefix, true) : objects.tailMap(token, false);
+        for (Map.Entry<String, Long> entry : tail.entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            if (count == maxKeys) {
+                truncated = true;
+                break;
+            }
+            contents.append("<Contents><Key>").append(entry.getKey()).append("</Key>")
+                    .append("<LastModified>2024-01-01T00:00:00.000Z</LastModified><ETag>\"etag\"</ETag>")
+                    .append("<Size>").append(entry.getValue()).append("</Size><StorageClass>Standard</StorageClass>")
+                    .append("</Contents>");
+            last = entry.getKey();
+            count++;
+        }
+        send(exchange, 200, "<ListBucketResult><Name>bucket</Name><Prefix>" + prefix + "</Prefix><MaxKeys>"
+                + maxKeys + "</MaxKeys><KeyCount>" + count + "</KeyCount><IsTruncated>" + truncated
+                + "</IsTruncated>" + (truncated ? "<NextContinuationToken>" + last + "</NextContinuationToken>" : "")
+                + contents + "</ListBucketResult>");
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        int len;
+        while ((len = in.read(buf)) != -1) {
+            out.write(buf, 0, len);
+        }
+        return out.toString("UTF-8");
+    }
+
+    private static void send(HttpExchange exchange, int status, String xml) throws IOException {
+        byte[] data = xml.getBytes("UTF-8");
+        exchange.sendResponseHeaders(status, data.length);
+        exchange.getResponseBody().write(data);
+    }
+
+    private int count(String prefix) {
+        int count = 0;
+        for (String key : objects.tailMap(prefix, true).keySet()) {
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testMoveWithJournal() throws IOException {
+        File journal = File.createTempFile("bulk-copy", ".journal");
+        try {
+            failedKey = "raw/2024/01234.log";
+            BulkCopyRequest request = new BulkCopyRequest("bucket", "raw/2024/", "bucket", "archive/2024/")
+                    .withDeleteSource(true);
+            request.setJournalFile(journal.getPath());
+            BulkCopyResult result = client.bulkCopy(request);
+
+            Assertions.assertEquals(OBJECTS - 1, result.getObjectsCopied());
+            Assertions.assertEquals(OBJECTS - 1, result.getObjectsDeleted());
+            Assertions.assertEquals(1, result.getFailedCount());
+            Assertions.assertEquals(failedKey, result.getFailures().get(0).getKey());
+            Assertions.assertFalse(result.getFailures().get(0).isDelete());
+            Assertions.assertEquals(3, deleteRequests.get());
+            Assertions.assertEquals(OBJECTS - 1, count("archive/2024/"));
+            Assertions.assertEquals(Long.valueOf(2499), objects.get("archive/2024/02499.log"));
+            Assertions.assertEquals(1, count("raw/2024/"));
+            Assertions.assertTrue(objects.containsKey("raw/2023/old.log"));
+            Assertions.assertTrue(journal.exists());
+
+            // the second run only moves the failed object, then drops the journal
+            failedKey = null;
+            result = client.bulkCopy(request);
+            Assertions.assertEquals(1, result.getObjectsCopied());
+            Assertions.assertEquals(1, result.getObjectsDeleted());
+            Assertions.assertEquals(0, result.getFailedCount());
+            Assertions.assertEquals(OBJECTS, count("archive/2024/"));
+            Assertions.assertEquals(0, count("raw/2024/"));
+            Assertions.assertFalse(journal.exists());
+        } finally {
+            journal.delete();
+        }
+    }
+
+    @Test
+    public void testCopyResumeSkipsCopied() throws IOException {
+        File journal = File.createTempFile("bulk-copy", ".journal");
+        try {
+            failedKey = "raw/2024/00007.log";
+            BulkCopyRequest request = new BulkCopyRequest("bucket", "raw/2024/", "bucket", "copy/");
+            request.setJournalFile(journal.getPath());
+            request.setTaskNum(4);
+            BulkCopyResult result = client.bulkCopy(request);
+            Assertions.assertEquals(OBJECTS - 1, result.getObjectsCopied());
+            Assertions.assertEquals(0, deleteRequests.get());
+
+            failedKey = null;
+            result = client.bulkCopy(request);
+            Assertions.assertEquals(1, result.getObjectsCopied());
+            Assertions.assertEquals(OBJECTS - 1, result.getObjectsSkipped());
+            Assertions.assertEquals(OBJECTS, count("copy/"));
+            Assertions.assertEquals(OBJECTS, count("raw/2024/"));
+        } finally {
+            journal.delete();
+        }
+    }
+
+    @Test
+    public void testDestinationWithinSource() {
+        try {
+            client.bulkCopy(new BulkCopyRequest("bucket", "raw/", "bucket", "raw/copy/"));
+            Assertions.fail("overlapping prefixes should be rejected");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+}
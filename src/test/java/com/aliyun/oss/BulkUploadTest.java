@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.common.utils.IOUtils;
+import com.aliyun.oss.model.BulkUploadRequest;
+import com.aliyun.oss.model.BulkUploadResult;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Uploads temporary files to a local server which keeps the objects in
+ * memory.
+ */
+public class BulkUploadTest {
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private OSS client;
+    private File directory;
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<String, byte[]>();
+    private final Map<String, String> contentTypes = new ConcurrentHashMap<String, String>();
+    private final Map<String, String> cacheControls = new ConcurrentHashMap<String, String>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("bulk-upload", "");
+        directory.delete();
+        directory.mkdirs();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                int current = inFlight.incrementAndGet();
+                synchronized (maxInFlight) {
+                    maxInFlight.set(Math.max(maxInFlight.get(), current));
+                }
+                try {
+                    byte[] body = read(exchange.getRequestBody());
+                    String key = exchange.getRequestURI().getPath().substring("/bucket/".length());
+                    // give the other requests time to overlap
+                    Thread.sleep(2);
+                    objects.put(key, body);
+                    contentTypes.put(key, String.valueOf(exchange.getRequestHeaders().getFirst("Content-Type")));
+                    cacheControls.put(key, String.valueOf(exchange.getRequestHeaders().getFirst("Cache-Control")));
+                    exchange.getResponseHeaders().add("x-oss-request-id", "stub-request-id");
+                    exchange.getResponseHeaders().add("ETag", "\"etag\"");
+                    exchange.sendResponseHeaders(200, -1);
+                } catch (InterruptedException e) {
+                    exchange.sendResponseHeaders(500, -1);
+                } finally {
+                    inFlight.decrementAndGet();
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+
+        ClientBuilderConfiguration conf = new ClientBuilderConfiguration();
+        conf.setSLDEnabled(true);
+        conf.setMaxErrorRetry(0);
+        conf.setMaxConnections(4);
+        conf.setCrcCheckEnabled(false);
+        client = new OSSClientBuilder().build("http://127.0.0.1:" + server.getAddress().getPort(), "ak", "sk", conf);
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        int len;
+        while ((len = in.read(buf)) != -1) {
+            out.write(buf, 0, len);
+        }
+        return out.toByteArray();
+    }
+
+    private File write(String name, byte[] data) throws IOException {
+        File file = new File(directory, name);
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            IOUtils.safeClose(out);
+        }
+        return file;
+    }
+
+    private static byte[] content(int index, int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (index + i);
+        }
+        return data;
+    }
+
+    @Test
+    public void testBulkUpload() throws IOException {
+        List<BulkUploadRequest.Entry> entries = new ArrayList<BulkUploadRequest.Entry>();
+        long bytes = 0;
+        for (int i = 0; i < 200; i++) {
+            // from empty files to files larger than the buffer
+            int size = (i * 97) % 3000;
+            bytes += size;
+            entries.add(new BulkUploadRequest.Entry("data/" + i + ".json", write(i + ".json", content(i, size))));
+        }
+        entries.add(new BulkUploadRequest.Entry("data/missing.json", new File(directory, "missing.json")));
+
+        BulkUploadRequest request = new BulkUploadRequest("bucket", entries);
+        request.setMaxBufferedFileSize(2048);
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setCacheControl("no-cache");
+        request.setObjectMetadata(metadata);
+        BulkUploadResult result = client.bulkUpload(request);
+
+        Assertions.assertEquals(200, result.getObjectsUploaded());
+        Assertions.assertEquals(bytes, result.getBytesUploaded());
+        Assertions.assertEquals(1, result.getFailedCount());
+        Assertions.assertEquals("data/missing.json", result.getFailures().get(0).getKey());
+        for (int i = 0; i < 200; i++) {
+            String key = "data/" + i + ".json";
+            Assertions.assertArrayEquals(content(i, (i * 97) % 3000), objects.get(key));
+            Assertions.assertEquals("application/json", contentTypes.get(key));
+            Assertions.assertEquals("no-cache", cacheControls.get(key));
+        }
+        // no more requests in flight than pooled connections
+        Assertions.assertTrue(maxInFlight.get() <= 4, "max in flight " + maxInFlight.get());
+        Assertions.assertTrue(maxInFlight.get() > 1, "max in flight " + maxInFlight.get());
+    }
+
+    @Test
+    public void testIteratorFailure() throws IOException {
+        final File file = write("a.txt", "a".getBytes());
+        Iterator<BulkUploadRequest.Entry> entries = new Iterator<BulkUploadRequest.Entry>() {
+            private int count;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public BulkUploadRequest.Entry next() {
+                if (count++ == 10) {
+                    throw new IllegalStateException("listing failed");
+                }
+                return new BulkUploadRequest.Entry("a" + count, file);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        try {
+            client.bulkUpload(new BulkUploadRequest("bucket", entries));
+            Assertions.fail("the iterator failure should be thrown");
+        } catch (ClientException e) {
+            Assertions.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        Assertions.assertEquals(10, objects.size());
+        Assertions.assertArrayEquals("a".getBytes(), objects.get("a1"));
+    }
+
+    @Test
+    public void testEmpty() {
+        BulkUploadResult result = client.bulkUpload(new BulkUploadRequest("bucket",
+                Arrays.<BulkUploadRequest.Entry>asList()));
+        Assertions.assertEquals(0, result.getObjectsUploaded());
+        Assertions.assertEquals(0, result.getFailedCount());
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.model.CopyFileRequest;
+import com.aliyun.oss.model.CopyFileResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Runs parallel copies against a local server which records the UploadPartCopy requests.
+ */
+public class CopyFileTest {
+    private static final long MB = 1024 * 1024;
+    private static final Pattern PART_NUMBER = Pattern.compile("partNumber=(\\d+)");
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private OSS client;
+    private volatile long sourceSize;
+    private volatile String sourceETag = "source-etag";
+    private volatile int failedPart = -1;
+    private final List<String> ranges = Collections.synchronizedList(new ArrayList<String>());
+    private final List<String> initiateHeaders = Collections.synchronizedList(new ArrayList<String>());
+    private final AtomicInteger completes = new AtomicInteger();
+    private final AtomicInteger aborts = new AtomicInteger();
+    private volatile String completeBody;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String body = read(exchange.getRequestBody());
+                String method = exchange.getRequestMethod();
+                String query = exchange.getRequestURI().getRawQuery();
+                exchange.getResponseHeaders().add("x-oss-request-id", "stub-request-id");
+                if ("HEAD".equals(method)) {
+                    exchange.getResponseHeaders().add("Content-Length", Long.toString(sourceSize));
+                    exchange.getResponseHeaders().add("ETag", "\"" + sourceETag + "\"");
+                    exchange.getResponseHeaders().add("Last-Modified", "Mon, 01 Jan 2024 00:00:00 GMT");
+                    exchange.getResponseHeaders().add("Content-Type", "text/csv");
+                    exchange.sendResponseHeaders(200, -1);
+                } else if ("POST".equals(method) && query.startsWith("uploads")) {
+                    initiateHeaders.add(exchange.getRequestHeaders().getFirst("Content-Type"));
+                    send(exchange, 200, "<InitiateMultipartUploadResult><Bucket>dst</Bucket><Key>dst-key</Key>"
+                            + "<UploadId>upload-id</UploadId></InitiateMultipartUploadResult>");
+                } else if ("PUT".equals(method)) {
+                    Matcher matcher = PART_NUMBER.matcher(query);
+                    matcher.find();
+                    int partNumber = Integer.parseInt(matcher.group(1));
+                    String ifMatch = exchange.getRequestHeaders().getFirst("x-oss-copy-source-if-match");
+                    if (partNumber == failedPart || !sourceETag.equals(ifMatch)) {
+                        send(exchange, 412, "<Error><Code>PreconditionFailed</Code><Message>error</Message>"
+                                + "<RequestId>stub-request-id</RequestId></Error>");
+                    } else {
+                        ranges.add(partNumber + ":" + exchange.getRequestHeaders().getFirst("x-oss-copy-source-range"));
+                        send(exchange, 200, "<CopyPartResult><ETag>\"part-" + partNumber + "\"</ETag></CopyPartResult>");
+                    }
+                } else if ("POST".equals(method)) {
+                    completes.incrementAndGet();
+                    completeBody = body;
+                    send(exchange, 200, "<CompleteMultipartUploadResult><Bucket>dst</Bucket><Key>dst-key</Key>"
+                            + "<ETag>\"object-etag\"</ETag></CompleteMultipartUploadResult>");
+                } else if ("DELETE".equals(method)) {
+                    aborts.incrementAndGet();
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+
+        ClientBuilderConfiguration conf = new ClientBuilderConfiguration();
+        conf.setSLDEnabled(true);
+        conf.setMaxErrorRetry(0);
+        client = new OSSClientBuilder().build("http://127.0.0.1:" + server.getAddress().getPort(), "ak", "sk", conf);
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        int len;
+        while ((len = in.read(buf)) != -1) {
+            out.write(buf, 0, len);
+        }
+        return out.toString("UTF-8");
+    }
+
+    private static void send(HttpExchange exchange, int status, String xml) throws IOException {
+        byte[] data = xml.getBytes("UTF-8");
+        exchange.sendResponseHeaders(status, data.length);
+        exchange.getResponseBody().write(data);
+    }
+
+    private List<String> sortedRanges() {
+        List<String> sorted = new ArrayList<String>(ranges);
+        Collections.sort(sorted, new java.util.Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                return Integer.parseInt(a.split(":")[0]) - Integer.parseInt(b.split(":")[0]);
+            }
+        });
+        return sorted;
+    }
+
+    @Test
+    public void testAutoPartSize() throws Throwable {
+        // 100MB with 5 tasks: 5MB parts raised to the 8MB minimum, 13 parts
+        sourceSize = 100 * MB;
+        CopyFileResult result = client.copyFile(new CopyFileRequest("src", "src-key", "dst", "dst-key"));
+
+        Assertions.assertEquals("object-etag", result.getMultipartUploadResult().getETag());
+        List<String> sorted = sortedRanges();
+        Assertions.assertEquals(13, sorted.size());
+        Assertions.assertEquals("1:bytes=0-" + (8 * MB - 1), sorted.get(0));
+        Assertions.assertEquals("13:bytes=" + (96 * MB) + "-" + (100 * MB - 1), sorted.get(12));
+        Assertions.assertEquals(1, completes.get());
+        Assertions.assertTrue(completeBody.contains("<PartNumber>13</PartNumber><ETag>&quot;part-13&quot;</ETag>"));
+        Assertions.assertEquals("text/csv", initiateHeaders.get(0));
+    }
+
+    @Test
+    public void testExplicitAndEmpty() throws Throwable {
+        sourceSize = 1000 * 1024;
+        client.copyFile(new CopyFileRequest("src", "src-key", "dst", "dst-key", 300 * 1024, 3));
+        Assertions.assertEquals(4, ranges.size());
+        Assertions.assertEquals("4:bytes=" + (900 * 1024) + "-" + (1000 * 1024 - 1), sortedRanges().get(3));
+
+        ranges.clear();
+        sourceSize = 0;
+        client.copyFile(new CopyFileRequest("src", "src-key", "dst", "dst-key"));
+        Assertions.assertEquals(Collections.singletonList("1:null"), ranges);
+    }
+
+    @Test
+    public void testFailureAbortsWithoutCheckpoint() throws Throwable {
+        sourceSize = 20 * MB;
+        failedPart = 2;
+        try {
+            client.copyFile(new CopyFileRequest("src", "src-key", "dst", "dst-key"));
+            Assertions.fail("copy should fail");
+        } catch (OSSException e) {
+            Assertions.assertEquals("PreconditionFailed", e.getErrorCode());
+        }
+        Assertions.assertEquals(0, completes.get());
+        Assertions.assertEquals(1, aborts.get());
+    }
+
+    @Test
+    public void testResumeFromCheckpoint() throws Throwable {
+        File checkpoint = File.createTempFile("copy", ".ccp");
+        checkpoint.delete();
+        try {
+            sourceSize = 20 * MB;
+            failedPart = 2;
+            CopyFileRequest request = new CopyFileRequest("src", "src-key", "dst", "dst-key", 4 * MB, 1);
+            request.setEnableCheckpoint(true);
+            request.setCheckpointFile(checkpoint.getPath());
+            try {
+                client.copyFile(request);
+                Assertions.fail("copy should fail");
+            } catch (OSSException e) {
+                Assertions.assertEquals("PreconditionFailed", e.getErrorCode());
+            }
+            Assertions.assertEquals(0, aborts.get());
+            Assertions.assertTrue(checkpoint.exists());
+            Assertions.assertEquals(4, ranges.size());
+
+            // only the failed part is copied again
+            ranges.clear();
+            failedPart = -1;
+            client.copyFile(request);
+            Assertions.assertEquals(Collections.singletonList("2:bytes=" + (4 * MB) + "-" + (8 * MB - 1)), ranges);
+            Assertions.assertEquals(1, completes.get());
+            Assertions.assertFalse(checkpoint.exists());
+
+            // a changed source restarts the copy
+            ranges.clear();
+            failedPart = 3;
+            try {
+                client.copyFile(request);
+                Assertions.fail("copy should fail");
+            } catch (OSSException e) {
+            }
+            sourceETag = "changed-etag";
+            failedPart = -1;
+            ranges.clear();
+            client.copyFile(request);
+            Assertions.assertEquals(5, ranges.size());
+        } finally {
+            checkpoint.delete();
+        }
+    }
+}
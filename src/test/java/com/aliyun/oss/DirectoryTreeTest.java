@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.event.ProgressEvent;
+import com.aliyun.oss.event.ProgressEventType;
+import com.aliyun.oss.event.ProgressListener;
+import com.aliyun.oss.model.DeleteDirectoryTreeRequest;
+import com.aliyun.oss.model.DirectoryTreeResult;
+import com.aliyun.oss.model.RenameDirectoryTreeRequest;
+import com.aliyun.oss.stub.OSSStubServer;
+import com.aliyun.oss.stub.StubFault;
+
+/**
+ * Deletes and renames directory trees on the in-process stub server, which
+ * answers the delete directory and rename requests of hierarchical namespace.
+ */
+public class DirectoryTreeTest {
+    private static final String BUCKET = "hns-bucket";
+
+    private OSSStubServer server;
+    private OSS client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new OSSStubServer().start();
+        // a few entries per delete request, so that deletes take several requests
+        server.getStore().setDeleteDirectoryPageSize(3);
+        ClientBuilderConfiguration conf = OSSStubServer.newClientConfiguration();
+        conf.setMaxErrorRetry(0);
+        client = new OSSClientBuilder().build(server.getEndpoint(), "ak", "sk", conf);
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        server.close();
+    }
+
+    private void put(String key) {
+        server.getStore().putObject(BUCKET, key, key.endsWith("/") ? new byte[0] : key.getBytes());
+    }
+
+    /**
+     * Creates the directory with 3 subdirectories of 2 subdirectories with 2
+     * files each, and one deep path, returns the number of entries.
+     */
+    private int createTree(String directory) {
+        int entries = 0;
+        put(directory + "/");
+        entries++;
+        for (int i = 0; i < 3; i++) {
+            put(directory + "/d" + i + "/");
+            entries++;
+            for (int j = 0; j < 2; j++) {
+                put(directory + "/d" + i + "/e" + j + "/");
+                put(directory + "/d" + i + "/e" + j + "/f0");
+                put(directory + "/d" + i + "/e" + j + "/f1");
+                entries += 3;
+            }
+        }
+        put(directory + "/d0/e0/x/");
+        put(directory + "/d0/e0/x/y/");
+        put(directory + "/d0/e0/x/y/deep");
+        put(directory + "/top");
+        return entries + 4;
+    }
+
+    private List<String> keys(String prefix) {
+        List<String> keys = new ArrayList<String>();
+        for (String key : server.getStore().listKeys(BUCKET)) {
+            if (key.startsWith(prefix)) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    @Test
+    public void testDeleteTree() {
+        int entries = createTree("a");
+        put("ab/keep");
+        put("b/keep");
+
+        final AtomicLong progressed = new AtomicLong();
+        final List<ProgressEventType> events = new ArrayList<ProgressEventType>();
+        DeleteDirectoryTreeRequest request = new DeleteDirectoryTreeRequest(BUCKET, "a/");
+        request.setTaskNum(4);
+        request.setProgressListener(new ProgressListener() {
+            @Override
+            public void progressChanged(ProgressEvent progressEvent) {
+                if (progressEvent.getEventType() == ProgressEventType.REQUEST_BYTE_TRANSFER_EVENT) {
+                    progressed.addAndGet(progressEvent.getBytes());
+                } else {
+                    synchronized (events) {
+                        events.add(progressEvent.getEventType());
+                    }
+                }
+            }
+        });
+        DirectoryTreeResult result = client.deleteDirectoryTree(request);
+
+        Assertions.assertEquals(0, result.getFailedCount());
+        Assertions.assertEquals(entries, result.getEntriesDeleted());
+        Assertions.assertEquals(entries, progressed.get());
+        // the directory, its 3 subdirectories and their 6 subdirectories at depth 2
+        Assertions.assertEquals(10, result.getDirectories());
+        Assertions.assertTrue(keys("a/").isEmpty());
+        Assertions.assertEquals(2, server.getStore().listKeys(BUCKET).size());
+        Assertions.assertEquals(ProgressEventType.TRANSFER_STARTED_EVENT, events.get(0));
+        Assertions.assertEquals(ProgressEventType.TRANSFER_COMPLETED_EVENT, events.get(events.size() - 1));
+    }
+
+    @Test
+    public void testDeleteResumesFromJournal() throws IOException {
+        int entries = createTree("a");
+        File journal = File.createTempFile("delete-tree", ".journal");
+        journal.delete();
+        try {
+            DeleteDirectoryTreeRequest request = new DeleteDirectoryTreeRequest(BUCKET, "a");
+            request.setTaskNum(1);
+            request.setJournalFile(journal.getPath());
+
+            server.failNext("POST", StubFault.SERVICE_UNAVAILABLE, 4);
+            DirectoryTreeResult first = client.deleteDirectoryTree(request);
+            Assertions.assertEquals(4, first.getFailedCount());
+            Assertions.assertEquals(4, first.getFailures().size());
+            Assertions.assertTrue(first.getFailures().get(0).getException() instanceof OSSException);
+            Assertions.assertTrue(journal.isFile());
+            // the parents of failed directories are kept
+            Assertions.assertFalse(keys("a/").isEmpty());
+
+            DirectoryTreeResult second = client.deleteDirectoryTree(request);
+            Assertions.assertEquals(0, second.getFailedCount());
+            Assertions.assertEquals(entries, first.getEntriesDeleted() + second.getEntriesDeleted());
+            Assertions.assertTrue(keys("a/").isEmpty());
+            Assertions.assertFalse(journal.exists());
+        } finally {
+            journal.delete();
+        }
+    }
+
+    @Test
+    public void testRenameTree() {
+        int entries = createTree("src");
+
+        DirectoryTreeResult result = client.renameDirectoryTree(new RenameDirectoryTreeRequest(BUCKET, "src", "dst"));
+
+        Assertions.assertEquals(0, result.getFailedCount());
+        Assertions.assertEquals(1, result.getEntriesRenamed());
+        Assertions.assertEquals(1, result.getRequestCount());
+        Assertions.assertTrue(keys("src/").isEmpty());
+        Assertions.assertEquals(entries, keys("dst/").size());
+    }
+
+    @Test
+    public void testRenameMergesIntoExistingDirectory() {
+        createTree("src");
+        put("dst/");
+        put("dst/d0/");
+        put("dst/d0/e1/");
+        put("dst/d0/e1/other");
+        put("dst/existing");
+
+        RenameDirectoryTreeRequest request = new RenameDirectoryTreeRequest(BUCKET, "src", "dst");
+        request.setTaskNum(4);
+        DirectoryTreeResult result = client.renameDirectoryTree(request);
+
+        Assertions.assertEquals(0, result.getFailedCount());
+        Assertions.assertTrue(keys("src").isEmpty());
+        // src, src/d0 and src/d0/e1 are merged and deleted
+        Assertions.assertEquals(3, result.getDirectories());
+        // d1, d2 and top under src, e0 under src/d0, f0 and f1 under src/d0/e1
+        Assertions.assertEquals(6, result.getEntriesRenamed());
+        Assertions.assertNotNull(server.getStore().getObject(BUCKET, "dst/d0/e1/other"));
+        Assertions.assertNotNull(server.getStore().getObject(BUCKET, "dst/d0/e1/f1"));
+        Assertions.assertNotNull(server.getStore().getObject(BUCKET, "dst/d0/e0/x/y/deep"));
+        Assertions.assertNotNull(server.getStore().getObject(BUCKET, "dst/d2/e1/f0"));
+        Assertions.assertNotNull(server.getStore().getObject(BUCKET, "dst/existing"));
+        Assertions.assertNotNull(server.getStore().getObject(BUCKET, "dst/top"));
+    }
+
+    @Test
+    public void testRenameConflictKeepsSource() {
+        createTree("src");
+        put("dst/");
+        put("dst/d1/");
+        put("dst/d1/e0/");
+        put("dst/d1/e0/f0");
+
+        DirectoryTreeResult result = client.renameDirectoryTree(new RenameDirectoryTreeRequest(BUCKET, "src", "dst"));
+
+        Assertions.assertEquals(1, result.getFailedCount());
+        Assertions.assertEquals("src/d1/e0/f0", result.getFailures().get(0).getName());
+        Assertions.assertEquals(OSSErrorCode.FILE_ALREADY_EXISTS,
+                ((OSSException) result.getFailures().get(0).getException()).getErrorCode());
+        // everything else is moved, the conflicting file and its parents stay
+        Assertions.assertEquals(4, keys("src").size());
+        Assertions.assertNotNull(server.getStore().getObject(BUCKET, "src/d1/e0/f0"));
+        Assertions.assertNotNull(server.getStore().getObject(BUCKET, "dst/d1/e0/f1"));
+        Assertions.assertNotNull(server.getStore().getObject(BUCKET, "dst/d2/e0/f0"));
+    }
+
+    @Test
+    public void testRenameIntoItself() {
+        createTree("src");
+        try {
+            client.renameDirectoryTree(new RenameDirectoryTreeRequest(BUCKET, "src", "src/sub"));
+            Assertions.fail("rename into the source should fail");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
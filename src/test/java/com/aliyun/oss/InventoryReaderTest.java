@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.common.utils.DateUtil;
+import com.aliyun.oss.common.utils.HttpUtil;
+import com.aliyun.oss.model.InventoryReader;
+import com.aliyun.oss.model.InventoryReaderRequest;
+import com.aliyun.oss.model.InventoryRecord;
+import com.aliyun.oss.stub.OSSStubServer;
+import com.aliyun.oss.stub.StubFault;
+
+/**
+ * Reads inventory reports stored on the in-process stub server.
+ */
+public class InventoryReaderTest {
+    private static final String BUCKET = "inventory-dest";
+    private static final String PREFIX = "inventory/src-bucket/inv0/";
+    private static final String SCHEMA = "Bucket, Key, Size, StorageClass, LastModifiedDate, ETag, IsMultipartUploaded";
+
+    private OSSStubServer server;
+    private OSS client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new OSSStubServer().start();
+        ClientBuilderConfiguration conf = OSSStubServer.newClientConfiguration();
+        conf.setMaxErrorRetry(0);
+        client = new OSSClientBuilder().build(server.getEndpoint(), "ak", "sk", conf);
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        server.close();
+    }
+
+    private static String key(int file, int row) {
+        return "dir " + file + "/obj,\"" + row + "\".txt";
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        gzip.write(text.getBytes("UTF-8"));
+        gzip.close();
+        return out.toByteArray();
+    }
+
+    private static String md5(byte[] data) throws Exception {
+        return String.format("%032X", new BigInteger(1, MessageDigest.getInstance("MD5").digest(data)));
+    }
+
+    /**
+     * Stores a report of the given data files and rows per file, returns the
+     * manifest key.
+     */
+    private String putReport(int files, int rows, boolean corrupt) throws Exception {
+        StringBuilder manifest = new StringBuilder();
+        manifest.append("{\"creationTimestamp\":\"1642994594\",\"destinationBucket\":\"").append(BUCKET)
+                .append("\",\"fileFormat\":\"CSV\",\"fileSchema\":\"").append(SCHEMA).append("\",\"files\":[");
+        for (int f = 0; f < files; f++) {
+            StringBuilder csv = new StringBuilder();
+            for (int r = 0; r < rows; r++) {
+                csv.append("\"src-bucket\",\"").append(HttpUtil.urlEncode(key(f, r), "UTF-8")).append("\",\"")
+                        .append(r).append("\",\"Standard\",\"2022-01-24T03:00:35Z\",\"\"\"E").append(r)
+                        .append("\"\"\",\"").append(r % 2 == 0).append("\"\n");
+            }
+            byte[] data = gzip(csv.toString());
+            String dataKey = PREFIX + "data/file-" + f + ".csv.gz";
+            server.getStore().putObject(BUCKET, dataKey, data);
+            manifest.append(f > 0 ? "," : "").append("{\"key\":\"").append(dataKey).append("\",\"size\":")
+                    .append(data.length).append(",\"MD5checksum\":\"")
+                    .append(corrupt && f == files - 1 ? md5(new byte[0]) : md5(data)).append("\"}");
+        }
+        manifest.append("],\"sourceBucket\":\"src-bucket\",\"version\":\"2019-09-01\"}");
+        String manifestKey = PREFIX + "2022-01-24T03-00Z/manifest.json";
+        server.getStore().putObject(BUCKET, manifestKey, manifest.toString().getBytes("UTF-8"));
+        return manifestKey;
+    }
+
+    @Test
+    public void testReadReport() throws Exception {
+        String manifestKey = putReport(5, 2500, false);
+
+        InventoryReader reader = client.createInventoryReader(new InventoryReaderRequest(BUCKET, manifestKey)
+                .withTaskNum(3));
+        Assertions.assertEquals("src-bucket", reader.getManifest().getSourceBucket());
+        Assertions.assertEquals(5, reader.getManifest().getFiles().size());
+        Assertions.assertEquals(7, reader.getManifest().getFileSchema().size());
+
+        Set<String> keys = new HashSet<String>();
+        while (reader.hasNext()) {
+            InventoryRecord record = reader.next();
+            Assertions.assertTrue(keys.add(record.getKey()));
+            int row = Integer.parseInt(record.getKey().substring(record.getKey().indexOf('"') + 1,
+                    record.getKey().lastIndexOf('"')));
+            Assertions.assertEquals("src-bucket", record.getBucketName());
+            Assertions.assertEquals(Long.valueOf(row), record.getSize());
+            Assertions.assertEquals("Standard", record.getStorageClass());
+            Assertions.assertEquals(DateUtil.parseIso8601Date("2022-01-24T03:00:35Z"), record.getLastModifiedDate());
+            Assertions.assertEquals("\"E" + row + "\"", record.getETag());
+            Assertions.assertEquals(Boolean.valueOf(row % 2 == 0), record.isMultipartUploaded());
+            Assertions.assertNull(record.getVersionId());
+            Assertions.assertNull(record.getEncryptionStatus());
+        }
+        Assertions.assertEquals(5 * 2500, keys.size());
+        Assertions.assertEquals(5 * 2500, reader.getRecordCount());
+        Assertions.assertTrue(keys.contains(key(4, 2499)));
+        reader.close();
+    }
+
+    @Test
+    public void testResumeBrokenDownloads() throws Exception {
+        String manifestKey = putReport(2, 20000, false);
+        // breaks the manifest download and the first data file download in the middle
+        server.failNext("GET", StubFault.BODY_RESET, 2);
+
+        InventoryReader reader = client.createInventoryReader(new InventoryReaderRequest(BUCKET, manifestKey)
+                .withTaskNum(1));
+        int count = 0;
+        while (reader.hasNext()) {
+            reader.next();
+            count++;
+        }
+        Assertions.assertEquals(2 * 20000, count);
+    }
+
+    @Test
+    public void testChecksumMismatch() throws Exception {
+        String manifestKey = putReport(2, 10, true);
+
+        InventoryReader reader = client.createInventoryReader(new InventoryReaderRequest(BUCKET, manifestKey));
+        try {
+            while (reader.hasNext()) {
+                reader.next();
+            }
+            Assertions.fail("the MD5 check should fail");
+        } catch (ClientException e) {
+            Assertions.assertTrue(e.getMessage().contains("MD5"));
+        }
+    }
+
+    @Test
+    public void testCloseStopsDownloads() throws Exception {
+        String manifestKey = putReport(8, 5000, false);
+
+        InventoryReader reader = client.createInventoryReader(new InventoryReaderRequest(BUCKET, manifestKey)
+                .withTaskNum(2));
+        Assertions.assertTrue(reader.hasNext());
+        reader.next();
+        reader.close();
+        try {
+            while (reader.hasNext()) {
+                reader.next();
+            }
+            Assertions.fail("a closed reader should fail");
+        } catch (ClientException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.internal.PrefetchingIterator;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.ListMultipartUploadsRequest;
+import com.aliyun.oss.model.ListObjectsRequest;
+import com.aliyun.oss.model.ListObjectsV2Request;
+import com.aliyun.oss.model.ListPartsRequest;
+import com.aliyun.oss.model.MultipartUpload;
+import com.aliyun.oss.model.OSSObjectSummary;
+import com.aliyun.oss.model.PartSummary;
+import com.aliyun.oss.model.UploadPartRequest;
+import com.aliyun.oss.stub.OSSStubServer;
+
+/**
+ * Iterates over the list APIs of the in-process stub server with small pages.
+ */
+public class ListIteratorTest {
+    private static final String BUCKET = "list-bucket";
+
+    private OSSStubServer server;
+    private OSS client;
+    private List<String> keys = new ArrayList<String>();
+
+    @Before
+    public void setUp() throws IOException {
+        server = new OSSStubServer().start();
+        ClientBuilderConfiguration conf = OSSStubServer.newClientConfiguration();
+        conf.setMaxErrorRetry(0);
+        client = new OSSClientBuilder().build(server.getEndpoint(), "ak", "sk", conf);
+        for (int i = 0; i < 50; i++) {
+            String key = String.format("dir/%02d/object", i);
+            keys.add(key);
+            server.getStore().putObject(BUCKET, key, key.getBytes());
+        }
+        server.getStore().putObject(BUCKET, "other", new byte[1]);
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        server.close();
+    }
+
+    private static List<String> keysOf(Iterable<OSSObjectSummary> summaries) {
+        List<String> keys = new ArrayList<String>();
+        for (OSSObjectSummary summary : summaries) {
+            keys.add(summary.getKey());
+        }
+        return keys;
+    }
+
+    @Test
+    public void testIterateObjects() {
+        ListObjectsRequest request = new ListObjectsRequest(BUCKET, "dir/", null, null, 7);
+        Iterable<OSSObjectSummary> objects = client.iterateObjects(request);
+        Assertions.assertEquals(keys, keysOf(objects));
+        Assertions.assertEquals(8, server.getRequestCount());
+        // iterating again starts from the initial marker
+        Assertions.assertEquals(keys, keysOf(objects));
+
+        request = new ListObjectsRequest(BUCKET, "dir/", "dir/44/object", null, 7);
+        Assertions.assertEquals(keys.subList(45, 50), keysOf(client.iterateObjects(request)));
+    }
+
+    @Test
+    public void testIterateObjectsWithDelimiter() {
+        // pages of common prefixes only are skipped
+        ListObjectsRequest request = new ListObjectsRequest(BUCKET, null, null, "/", 1);
+        Assertions.assertEquals(Arrays.asList("other"), keysOf(client.iterateObjects(request)));
+        Assertions.assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void testIterateObjectsV2() {
+        ListObjectsV2Request request = new ListObjectsV2Request(BUCKET, "dir/");
+        request.setMaxKeys(10);
+        Iterable<OSSObjectSummary> objects = client.iterateObjectsV2(request);
+        Assertions.assertEquals(keys, keysOf(objects));
+        Assertions.assertEquals(5, server.getRequestCount());
+        Assertions.assertEquals(keys, keysOf(objects));
+    }
+
+    @Test
+    public void testPrefetch() throws InterruptedException {
+        ListObjectsRequest request = new ListObjectsRequest(BUCKET, "dir/", null, null, 25);
+        Iterator<OSSObjectSummary> objects = client.iterateObjects(request).iterator();
+        Assertions.assertEquals(keys.get(0), objects.next().getKey());
+        // the second page is requested while the first one is iterated
+        long deadline = System.currentTimeMillis() + 10000;
+        while (server.getRequestCount() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(2, server.getRequestCount());
+        int count = 1;
+        while (objects.hasNext()) {
+            objects.next();
+            count++;
+        }
+        Assertions.assertEquals(50, count);
+        Assertions.assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void testIterateMultipartUploads() {
+        List<String> uploadIds = new ArrayList<String>();
+        for (int i = 0; i < 5; i++) {
+            uploadIds.add(client.initiateMultipartUpload(new InitiateMultipartUploadRequest(BUCKET, "upload"))
+                    .getUploadId());
+        }
+        for (int i = 1; i <= 9; i++) {
+            UploadPartRequest part = new UploadPartRequest(BUCKET, "upload", uploadIds.get(0), i,
+                    new ByteArrayInputStream(new byte[] { (byte) i }), 1);
+            client.uploadPart(part);
+        }
+
+        ListMultipartUploadsRequest uploadsRequest = new ListMultipartUploadsRequest(BUCKET);
+        uploadsRequest.setMaxUploads(2);
+        List<String> listed = new ArrayList<String>();
+        for (MultipartUpload upload : client.iterateMultipartUploads(uploadsRequest)) {
+            listed.add(upload.getUploadId());
+        }
+        Assertions.assertEquals(5, listed.size());
+        Assertions.assertTrue(listed.containsAll(uploadIds));
+
+        ListPartsRequest partsRequest = new ListPartsRequest(BUCKET, "upload", uploadIds.get(0));
+        partsRequest.setMaxParts(4);
+        int partNumber = 0;
+        for (PartSummary part : client.iterateParts(partsRequest)) {
+            Assertions.assertEquals(++partNumber, part.getPartNumber());
+        }
+        Assertions.assertEquals(9, partNumber);
+    }
+
+    @Test
+    public void testPrefetchFailure() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Iterator<Integer> items = new PrefetchingIterator<List<Integer>, Integer>(executor) {
+                @Override
+                protected List<Integer> fetch(List<Integer> previous) {
+                    if (previous != null) {
+                        throw new ClientException("second page failed");
+                    }
+                    return Arrays.asList(1, 2);
+                }
+
+                @Override
+                protected List<Integer> getItems(List<Integer> page) {
+                    return page;
+                }
+
+                @Override
+                protected boolean isTruncated(List<Integer> page) {
+                    return true;
+                }
+            };
+            Assertions.assertEquals(1, items.next().intValue());
+            Assertions.assertEquals(2, items.next().intValue());
+            try {
+                items.hasNext();
+                Assertions.fail("the failure of the prefetch should be thrown");
+            } catch (ClientException e) {
+                Assertions.assertEquals("second page failed", e.getErrorMessage());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.common.metrics.MetadataCacheStatistics;
+import com.aliyun.oss.internal.ObjectMetadataCache;
+import com.aliyun.oss.model.CopyObjectRequest;
+import com.aliyun.oss.model.HeadObjectRequest;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.stub.OSSStubServer;
+
+/**
+ * Caches object metadata of the in-process stub server.
+ */
+public class MetadataCacheTest {
+    private static final String BUCKET = "cache-bucket";
+
+    private OSSStubServer server;
+    private OSS client;
+
+    private void start(int maxEntries, long timeToLive) throws IOException {
+        server = new OSSStubServer().start();
+        ClientBuilderConfiguration conf = OSSStubServer.newClientConfiguration();
+        conf.setMaxErrorRetry(0);
+        conf.setMetadataCacheMaxEntries(maxEntries);
+        conf.setMetadataCacheTimeToLive(timeToLive);
+        client = new OSSClientBuilder().build(server.getEndpoint(), "ak", "sk", conf);
+    }
+
+    @After
+    public void tearDown() {
+        if (client != null) {
+            client.shutdown();
+            server.close();
+        }
+    }
+
+    @Test
+    public void testHits() throws IOException {
+        start(100, 60000);
+        server.getStore().putObject(BUCKET, "key", "v1".getBytes());
+
+        ObjectMetadata metadata = client.getObjectMetadata(BUCKET, "key");
+        Assertions.assertEquals(server.getStore().getObject(BUCKET, "key").getETag(), metadata.getETag());
+        // the caller gets its own copy
+        metadata.setContentType("changed");
+        Assertions.assertEquals(2, client.getObjectMetadata(BUCKET, "key").getContentLength());
+        Assertions.assertNotEquals("changed", client.headObject(new HeadObjectRequest(BUCKET, "key")).getContentType());
+        Assertions.assertTrue(client.doesObjectExist(BUCKET, "key"));
+        Assertions.assertEquals(1, server.getRequestCount());
+
+        // constraints bypass the cache
+        HeadObjectRequest conditional = new HeadObjectRequest(BUCKET, "key");
+        conditional.setModifiedSinceConstraint(new java.util.Date(0));
+        client.headObject(conditional);
+        Assertions.assertEquals(2, server.getRequestCount());
+
+        MetadataCacheStatistics statistics = client.getMetadataCacheStatistics();
+        Assertions.assertEquals(1, statistics.getSize());
+        Assertions.assertEquals(1, statistics.getMissCount());
+        Assertions.assertEquals(3, statistics.getHitCount());
+        Assertions.assertEquals(0.75, statistics.getHitRatio(), 0.001);
+    }
+
+    @Test
+    public void testInvalidation() throws IOException {
+        start(100, 60000);
+        client.putObject(BUCKET, "key", new ByteArrayInputStream("v1".getBytes()));
+        Assertions.assertEquals(2, client.getObjectMetadata(BUCKET, "key").getContentLength());
+
+        client.putObject(BUCKET, "key", new ByteArrayInputStream("version 2".getBytes()));
+        Assertions.assertEquals(9, client.getObjectMetadata(BUCKET, "key").getContentLength());
+
+        client.copyObject(new CopyObjectRequest(BUCKET, "key", BUCKET, "copy"));
+        Assertions.assertEquals(9, client.getObjectMetadata(BUCKET, "copy").getContentLength());
+        client.putObject(BUCKET, "key", new ByteArrayInputStream("3".getBytes()));
+        client.copyObject(new CopyObjectRequest(BUCKET, "key", BUCKET, "copy"));
+        Assertions.assertEquals(1, client.getObjectMetadata(BUCKET, "copy").getContentLength());
+
+        client.deleteObject(BUCKET, "key");
+        Assertions.assertFalse(client.doesObjectExist(BUCKET, "key"));
+        Assertions.assertTrue(client.doesObjectExist(BUCKET, "copy"));
+
+        MetadataCacheStatistics statistics = client.getMetadataCacheStatistics();
+        // the key after its second put, the copy after its second copy
+        Assertions.assertEquals(3, statistics.getInvalidationCount());
+        Assertions.assertEquals(1, statistics.getHitCount());
+    }
+
+    @Test
+    public void testRevalidation() throws IOException {
+        // every lookup revalidates the entry
+        start(100, 0);
+        server.getStore().putObject(BUCKET, "key", "v1".getBytes());
+        String eTag = client.getObjectMetadata(BUCKET, "key").getETag();
+        Assertions.assertEquals(eTag, client.getObjectMetadata(BUCKET, "key").getETag());
+        Assertions.assertEquals(eTag, client.getObjectMetadata(BUCKET, "key").getETag());
+
+        // written by another client
+        server.getStore().putObject(BUCKET, "key", "v2".getBytes());
+        Assertions.assertNotEquals(eTag, client.getObjectMetadata(BUCKET, "key").getETag());
+
+        server.getStore().clear();
+        Assertions.assertFalse(client.doesObjectExist(BUCKET, "key"));
+
+        MetadataCacheStatistics statistics = client.getMetadataCacheStatistics();
+        Assertions.assertEquals(1, statistics.getMissCount());
+        Assertions.assertEquals(4, statistics.getRevalidationCount());
+        Assertions.assertEquals(2, statistics.getNotModifiedCount());
+        Assertions.assertEquals(0, statistics.getSize());
+        Assertions.assertEquals(5, server.getRequestCount());
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        start(2, 60000);
+        for (int i = 0; i < 3; i++) {
+            server.getStore().putObject(BUCKET, "key" + i, new byte[i]);
+            client.getObjectMetadata(BUCKET, "key" + i);
+        }
+        MetadataCacheStatistics statistics = client.getMetadataCacheStatistics();
+        Assertions.assertEquals(2, statistics.getSize());
+        Assertions.assertEquals(1, statistics.getEvictionCount());
+
+        // key0 was the least recently used
+        client.getObjectMetadata(BUCKET, "key2");
+        client.getObjectMetadata(BUCKET, "key0");
+        Assertions.assertEquals(4, client.getMetadataCacheStatistics().getMissCount());
+        Assertions.assertEquals(1, client.getMetadataCacheStatistics().getHitCount());
+    }
+
+    @Test
+    public void testDisabled() throws IOException {
+        start(0, 60000);
+        server.getStore().putObject(BUCKET, "key", "v1".getBytes());
+        client.getObjectMetadata(BUCKET, "key");
+        client.getObjectMetadata(BUCKET, "key");
+        Assertions.assertEquals(2, server.getRequestCount());
+        Assertions.assertNull(client.getMetadataCacheStatistics());
+    }
+
+    @Test
+    public void testOverlappingLoads() {
+        ObjectMetadataCache cache = new ObjectMetadataCache(10, 60000);
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setHeader("ETag", "\"v1\"");
+
+        long first = cache.beginLoad();
+        cache.invalidate(BUCKET, "key1", null);
+        long second = cache.beginLoad();
+        cache.invalidate(BUCKET, "key2", null);
+        cache.endLoad(first);
+
+        // the second load began after key1 was invalidated, but before key2 was
+        cache.put(BUCKET, "key1", null, metadata, second);
+        cache.put(BUCKET, "key2", null, metadata, second);
+        Assertions.assertNotNull(cache.get(BUCKET, "key1", null));
+        Assertions.assertNull(cache.get(BUCKET, "key2", null));
+
+        long third = cache.beginLoad();
+        cache.endLoad(second);
+        cache.put(BUCKET, "key2", null, metadata, third);
+        Assertions.assertNotNull(cache.get(BUCKET, "key2", null));
+        cache.endLoad(third);
+    }
+}
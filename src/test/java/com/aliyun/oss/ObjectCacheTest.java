@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.common.metrics.ObjectCacheStatistics;
+import com.aliyun.oss.model.GetObjectRequest;
+import com.aliyun.oss.model.OSSObject;
+import com.aliyun.oss.stub.OSSStubServer;
+
+/**
+ * Caches object contents of the in-process stub server in a local directory.
+ */
+public class ObjectCacheTest {
+    private static final String BUCKET = "cache-bucket";
+
+    private File directory;
+    private OSSStubServer server;
+    private OSS client;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("oss-object-cache", "");
+        directory.delete();
+        server = new OSSStubServer().start();
+    }
+
+    private OSS newClient(long maxSize, long timeToLive) {
+        ClientBuilderConfiguration conf = OSSStubServer.newClientConfiguration();
+        conf.setMaxErrorRetry(0);
+        conf.setObjectCacheDirectory(directory);
+        conf.setObjectCacheMaxSize(maxSize);
+        conf.setObjectCacheTimeToLive(timeToLive);
+        client = new OSSClientBuilder().build(server.getEndpoint(), "ak", "sk", conf);
+        return client;
+    }
+
+    @After
+    public void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        server.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private static String read(OSSObject ossObject) throws IOException {
+        InputStream in = ossObject.getObjectContent();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[7];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                out.write(buffer, 0, len);
+            }
+            return out.toString();
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testHits() throws IOException {
+        newClient(1024, 60000);
+        server.getStore().putObject(BUCKET, "key", "cached content".getBytes());
+
+        Assertions.assertEquals("cached content", read(client.getObject(BUCKET, "key")));
+        OSSObject cached = client.getObject(BUCKET, "key");
+        Assertions.assertEquals(14, cached.getObjectMetadata().getContentLength());
+        Assertions.assertEquals(server.getStore().getObject(BUCKET, "key").getETag(),
+                cached.getObjectMetadata().getETag());
+        Assertions.assertEquals("cached content", read(cached));
+        Assertions.assertEquals(1, server.getRequestCount());
+
+        // ranges bypass the cache
+        GetObjectRequest range = new GetObjectRequest(BUCKET, "key");
+        range.setRange(0, 5);
+        Assertions.assertEquals("cached", read(client.getObject(range)));
+        Assertions.assertEquals(2, server.getRequestCount());
+
+        ObjectCacheStatistics statistics = client.getObjectCacheStatistics();
+        Assertions.assertEquals(1, statistics.getFileCount());
+        Assertions.assertEquals(14, statistics.getSize());
+        Assertions.assertEquals(1, statistics.getMissCount());
+        Assertions.assertEquals(1, statistics.getHitCount());
+        Assertions.assertEquals(28, statistics.getBytesServed());
+        Assertions.assertEquals(14, statistics.getBytesDownloaded());
+    }
+
+    @Test
+    public void testRevalidation() throws IOException {
+        newClient(1024, 0);
+        server.getStore().putObject(BUCKET, "key", "v1".getBytes());
+
+        Assertions.assertEquals("v1", read(client.getObject(BUCKET, "key")));
+        Assertions.assertEquals("v1", read(client.getObject(BUCKET, "key")));
+        Assertions.assertEquals(2, server.getRequestCount());
+        Assertions.assertEquals(1, client.getObjectCacheStatistics().getNotModifiedCount());
+
+        // written by another client
+        server.getStore().putObject(BUCKET, "key", "version 2".getBytes());
+        Assertions.assertEquals("version 2", read(client.getObject(BUCKET, "key")));
+        server.getStore().clear();
+        try {
+            client.getObject(BUCKET, "key");
+            Assertions.fail("the deleted object should not be served");
+        } catch (OSSException e) {
+            Assertions.assertEquals(OSSErrorCode.NO_SUCH_KEY, e.getErrorCode());
+        }
+
+        ObjectCacheStatistics statistics = client.getObjectCacheStatistics();
+        Assertions.assertEquals(3, statistics.getRevalidationCount());
+        Assertions.assertEquals(0, statistics.getEntryCount());
+        Assertions.assertEquals(2, statistics.getFileCount());
+    }
+
+    @Test
+    public void testInvalidation() throws IOException {
+        newClient(1024, 60000);
+        client.putObject(BUCKET, "key", new ByteArrayInputStream("v1".getBytes()));
+        Assertions.assertEquals("v1", read(client.getObject(BUCKET, "key")));
+        client.putObject(BUCKET, "key", new ByteArrayInputStream("version 2".getBytes()));
+        Assertions.assertEquals("version 2", read(client.getObject(BUCKET, "key")));
+        client.deleteObject(BUCKET, "key");
+        try {
+            client.getObject(BUCKET, "key");
+            Assertions.fail("the deleted object should not be served");
+        } catch (OSSException e) {
+            Assertions.assertEquals(OSSErrorCode.NO_SUCH_KEY, e.getErrorCode());
+        }
+        Assertions.assertEquals(0, client.getObjectCacheStatistics().getHitCount());
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        newClient(25, 60000);
+        server.getStore().putObject(BUCKET, "a", "0123456789".getBytes());
+        server.getStore().putObject(BUCKET, "b", "abcdefghij".getBytes());
+        server.getStore().putObject(BUCKET, "c", "ABCDEFGHIJ".getBytes());
+        server.getStore().putObject(BUCKET, "large", new byte[26]);
+
+        read(client.getObject(BUCKET, "a"));
+        read(client.getObject(BUCKET, "b"));
+        read(client.getObject(BUCKET, "a"));
+        // evicts b, the least recently read
+        read(client.getObject(BUCKET, "c"));
+        // too large to be cached
+        Assertions.assertEquals(26, read(client.getObject(BUCKET, "large")).length());
+        Assertions.assertEquals(4, server.getRequestCount());
+
+        Assertions.assertEquals("0123456789", read(client.getObject(BUCKET, "a")));
+        Assertions.assertEquals("ABCDEFGHIJ", read(client.getObject(BUCKET, "c")));
+        Assertions.assertEquals(4, server.getRequestCount());
+        Assertions.assertEquals("abcdefghij", read(client.getObject(BUCKET, "b")));
+        Assertions.assertEquals(5, server.getRequestCount());
+
+        ObjectCacheStatistics statistics = client.getObjectCacheStatistics();
+        Assertions.assertEquals(2, statistics.getEvictionCount());
+        Assertions.assertEquals(20, statistics.getSize());
+        Assertions.assertEquals(2, directory.listFiles().length);
+    }
+
+    @Test
+    public void testReuseFiles() throws IOException {
+        newClient(1024, 60000);
+        server.getStore().putObject(BUCKET, "key", "persistent".getBytes());
+        server.getStore().putObject(BUCKET, "same", "persistent".getBytes());
+        read(client.getObject(BUCKET, "key"));
+        read(client.getObject(BUCKET, "same"));
+        Assertions.assertEquals(1, directory.listFiles().length);
+        Assertions.assertEquals(10, client.getObjectCacheStatistics().getBytesDownloaded());
+        client.shutdown();
+
+        // a new client knows the content of the key after one request
+        newClient(1024, 60000);
+        Assertions.assertEquals(1, client.getObjectCacheStatistics().getFileCount());
+        File file = new File(directory, "local.txt");
+        client.getObject(new GetObjectRequest(BUCKET, "key"), file);
+        client.getObject(new GetObjectRequest(BUCKET, "key"), file);
+        Assertions.assertEquals(10, file.length());
+        Assertions.assertEquals(3, server.getRequestCount());
+        Assertions.assertEquals(0, client.getObjectCacheStatistics().getBytesDownloaded());
+        file.delete();
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.model.ParallelSelectObjectRequest;
+import com.aliyun.oss.model.SelectRecordIterator;
+import com.aliyun.oss.utils.SelectFrameUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Runs parallel select against a local server which speaks the select frame protocol.
+ */
+public class ParallelSelectObjectTest {
+    private static final int LINES = 1000;
+    private static final int SPLITS = 37;
+    private static final Pattern SPLIT_RANGE = Pattern.compile("split-range=(\\d+)-(\\d+)");
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private OSS client;
+    private volatile int failedSplit = -1;
+    private final Set<String> requestedRanges = Collections.synchronizedSet(new HashSet<String>());
+
+    private static int firstLine(int split) {
+        return (int) ((long) split * LINES / SPLITS);
+    }
+
+    private static String line(int i) {
+        return i + ",name-" + i + "," + (i * 7 % 100);
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    String body = readBody(exchange.getRequestBody());
+                    byte[] response;
+                    if (exchange.getRequestURI().getQuery().contains("csv/meta")) {
+                        response = SelectFrameUtils.csvMetaEndFrame(LINES * 20, SPLITS, LINES, 3);
+                    } else {
+                        Matcher m = SPLIT_RANGE.matcher(body);
+                        Assertions.assertTrue(m.find());
+                        int start = Integer.parseInt(m.group(1));
+                        int end = Integer.parseInt(m.group(2));
+                        requestedRanges.add(start + "-" + end);
+                        response = select(start, end);
+                    }
+                    exchange.getResponseHeaders().add("x-oss-request-id", "stub-request-id");
+                    exchange.getResponseHeaders().add("x-oss-select-output-raw", "false");
+                    exchange.sendResponseHeaders(206, response.length);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write(response);
+                    out.close();
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        ClientBuilderConfiguration conf = new ClientBuilderConfiguration();
+        conf.setSLDEnabled(true);
+        conf.setMaxErrorRetry(0);
+        client = new OSSClientBuilder().build("http://127.0.0.1:" + server.getAddress().getPort(), "ak", "sk", conf);
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    private byte[] select(int startSplit, int endSplit) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = firstLine(startSplit); i < firstLine(endSplit + 1); i++) {
+            sb.append(line(i)).append("\n");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] payload = sb.toString().getBytes();
+        // small frames so that records span frames
+        for (int off = 0; off < payload.length; off += 100) {
+            byte[] frame = SelectFrameUtils.dataFrame(payload, off, Math.min(100, payload.length - off), off);
+            out.write(frame, 0, frame.length);
+        }
+        byte[] end;
+        if (failedSplit >= startSplit && failedSplit <= endSplit) {
+            end = SelectFrameUtils.endFrame(payload.length, 400, "InvalidCsvLine.split " + failedSplit + " is invalid");
+        } else {
+            end = SelectFrameUtils.endFrame(payload.length, 206, null);
+        }
+        out.write(end, 0, end.length);
+        return out.toByteArray();
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[1024];
+        int len;
+        while ((len = in.read(buf)) != -1) {
+            out.write(buf, 0, len);
+        }
+        return out.toString();
+    }
+
+    private ParallelSelectObjectRequest createRequest() {
+        ParallelSelectObjectRequest request = new ParallelSelectObjectRequest("bucket", "data.csv");
+        request.setExpression("select * from ossobject");
+        request.getOutputSerialization().setPayloadCrcEnabled(true);
+        return request;
+    }
+
+    @Test
+    public void testOrderedSelect() {
+        ParallelSelectObjectRequest request = createRequest().withTaskNum(4).withSplitsPerRange(3)
+                .withMaxBufferedRecords(10);
+        SelectRecordIterator records = client.selectObjectParallel(request);
+        Assertions.assertEquals(SPLITS, records.getSplits());
+        int i = 0;
+        while (records.hasNext()) {
+            Assertions.assertEquals(line(i++), new String(records.next()));
+        }
+        records.close();
+        Assertions.assertEquals(LINES, i);
+        Assertions.assertEquals((SPLITS + 2) / 3, requestedRanges.size());
+        Assertions.assertTrue(requestedRanges.contains("36-36"));
+    }
+
+    @Test
+    public void testUnorderedSelect() {
+        ParallelSelectObjectRequest request = createRequest().withTaskNum(3).withOrdered(false);
+        SelectRecordIterator records = client.selectObjectParallel(request);
+        List<String> lines = new ArrayList<String>();
+        while (records.hasNext()) {
+            lines.add(new String(records.next()));
+        }
+        records.close();
+        Assertions.assertEquals(LINES, lines.size());
+        Assertions.assertEquals(3, requestedRanges.size());
+        Set<String> expected = new HashSet<String>();
+        for (int i = 0; i < LINES; i++) {
+            expected.add(line(i));
+        }
+        Assertions.assertEquals(expected, new HashSet<String>(lines));
+    }
+
+    @Test
+    public void testSelectFailed() {
+        failedSplit = 20;
+        SelectRecordIterator records = client.selectObjectParallel(createRequest().withTaskNum(4).withSplitsPerRange(2));
+        int count = 0;
+        try {
+            while (records.hasNext()) {
+                records.next();
+                count++;
+            }
+            Assertions.fail("select should fail");
+        } catch (ClientException e) {
+            Assertions.assertTrue(e.getMessage().contains("split 20 is invalid"));
+        }
+        // records of the ranges before the failed one are returned
+        Assertions.assertTrue(count >= firstLine(20));
+        Assertions.assertFalse(records.hasNext());
+    }
+
+    @Test
+    public void testCloseEarly() {
+        SelectRecordIterator records = client.selectObjectParallel(createRequest().withTaskNum(2).withSplitsPerRange(1)
+                .withMaxBufferedRecords(1));
+        Assertions.assertEquals(line(0), new String(records.next()));
+        records.close();
+        Assertions.assertFalse(records.hasNext());
+    }
+
+    @Test
+    public void testSplitRanges() {
+        ParallelSelectObjectRequest request = createRequest();
+        request.setSplitRange(0, 1);
+        try {
+            client.selectObjectParallel(request);
+            Assertions.fail("split range should not be set");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.common.utils.BinaryUtil;
+import com.aliyun.oss.common.utils.CRC64;
+import com.aliyun.oss.common.utils.IOUtils;
+import com.aliyun.oss.model.SyncDirectoryRequest;
+import com.aliyun.oss.model.SyncDirectoryResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Synchronizes a temporary directory to a local server which keeps the
+ * objects of one bucket in memory.
+ */
+public class SyncDirectoryTest {
+    private static final Pattern DELETE_KEY = Pattern.compile("<Key>(.*?)</Key>");
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private OSS client;
+    private File directory;
+    private File manifest;
+    private final NavigableMap<String, byte[]> objects = new ConcurrentSkipListMap<String, byte[]>();
+    private final AtomicInteger puts = new AtomicInteger();
+    private final AtomicInteger heads = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("sync", "");
+        directory.delete();
+        directory.mkdirs();
+        manifest = File.createTempFile("sync", ".manifest");
+        manifest.delete();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body = read(exchange.getRequestBody());
+                String method = exchange.getRequestMethod();
+                String key = exchange.getRequestURI().getPath().substring("/bucket/".length());
+                exchange.getResponseHeaders().add("x-oss-request-id", "stub-request-id");
+                if ("GET".equals(method)) {
+                    list(exchange, exchange.getRequestURI().getRawQuery());
+                } else if ("PUT".equals(method)) {
+                    puts.incrementAndGet();
+                    objects.put(key, body);
+                    addObjectHeaders(exchange, body);
+                    exchange.sendResponseHeaders(200, -1);
+                } else if ("HEAD".equals(method)) {
+                    heads.incrementAndGet();
+                    byte[] data = objects.get(key);
+                    if (data == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                    } else {
+                        addObjectHeaders(exchange, data);
+                        exchange.getResponseHeaders().add("Content-Length", String.valueOf(data.length));
+                        exchange.sendResponseHeaders(200, -1);
+                    }
+                } else if ("POST".equals(method)) {
+                    Matcher matcher = DELETE_KEY.matcher(new String(body, "UTF-8"));
+                    while (matcher.find()) {
+                        objects.remove(matcher.group(1));
+                    }
+                    send(exchange, "<DeleteResult></DeleteResult>");
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+
+        ClientBuilderConfiguration conf = new ClientBuilderConfiguration();
+        conf.setSLDEnabled(true);
+        conf.setMaxErrorRetry(0);
+        client = new OSSClientBuilder().build("http://127.0.0.1:" + server.getAddress().getPort(), "ak", "sk", conf);
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        delete(directory);
+        manifest.delete();
+    }
+
+    private static void addObjectHeaders(HttpExchange exchange, byte[] data) {
+        CRC64 crc = new CRC64();
+        crc.update(data, data.length);
+        exchange.getResponseHeaders().add("ETag", "\"" + eTag(data) + "\"");
+        exchange.getResponseHeaders().add("x-oss-hash-crc64ecma",
+                new BigInteger(Long.toHexString(crc.getValue()), 16).toString());
+    }
+
+    private static String eTag(byte[] data) {
+        return String.format("%032X", new BigInteger(1, BinaryUtil.calculateMd5(data)));
+    }
+
+    private void list(HttpExchange exchange, String query) throws IOException {
+        String prefix = "";
+        for (String param : query.split("&")) {
+            String[] kv = param.split("=", 2);
+            if (kv[0].equals("prefix") && kv.length > 1) {
+                prefix = URLDecoder.decode(kv[1], "UTF-8");
+            }
+        }
+        StringBuilder contents = new StringBuilder();
+        int count = 0;
+        for (Map.Entry<String, byte[]> entry : objects.tailMap(prefix, true).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            contents.append("<Contents><Key>").append(entry.getKey()).append("</Key>")
+                    .append("<LastModified>2024-01-01T00:00:00.000Z</LastModified>")
+                    .append("<ETag>\"").append(eTag(entry.getValue())).append("\"</ETag>")
+                    .append("<Size>").append(entry.getValue().length).append("</Size>")
+                    .append("<StorageClass>Standard</StorageClass></Contents>");
+            count++;
+        }
+        send(exchange, "<ListBucketResult><Name>bucket</Name><Prefix>" + prefix + "</Prefix><MaxKeys>1000</MaxKeys>"
+                + "<KeyCount>" + count + "</KeyCount><IsTruncated>false</IsTruncated>" + contents
+                + "</ListBucketResult>");
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        int len;
+        while ((len = in.read(buf)) != -1) {
+            out.write(buf, 0, len);
+        }
+        return out.toByteArray();
+    }
+
+    private static void send(HttpExchange exchange, String xml) throws IOException {
+        byte[] data = xml.getBytes("UTF-8");
+        exchange.sendResponseHeaders(200, data.length);
+        exchange.getResponseBody().write(data);
+    }
+
+    private File write(String path, String content) throws IOException {
+        File file = new File(directory, path);
+        file.getParentFile().mkdirs();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            IOUtils.safeClose(out);
+        }
+        return file;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private SyncDirectoryRequest request() {
+        SyncDirectoryRequest request = new SyncDirectoryRequest("bucket", "backup/", directory.getPath())
+                .withDeleteRemoved(true);
+        request.setManifestFile(manifest.getPath());
+        return request;
+    }
+
+    @Test
+    public void testIncrementalSync() throws IOException {
+        File a = write("a.txt", "aaaa");
+        write("sub/b.txt", "bbbb");
+        write("sub/c.bin", "cccccccc");
+        objects.put("backup/sub/b.txt", "bbbb".getBytes("UTF-8"));
+        objects.put("backup/stale.txt", "old".getBytes("UTF-8"));
+        objects.put("other/keep.txt", "keep".getBytes("UTF-8"));
+
+        // b.txt is only known to be in sync by its CRC64
+        SyncDirectoryResult result = client.syncDirectory(request());
+        Assertions.assertEquals(0, result.getFailedCount());
+        Assertions.assertEquals(2, result.getFilesUploaded());
+        Assertions.assertEquals(12, result.getBytesUploaded());
+        Assertions.assertEquals(1, result.getFilesUnchanged());
+        Assertions.assertEquals(1, result.getFilesCompared());
+        Assertions.assertEquals(1, result.getObjectsDeleted());
+        Assertions.assertEquals(1, heads.get());
+        Assertions.assertEquals(2, puts.get());
+        Assertions.assertEquals(Arrays.asList("backup/a.txt", "backup/sub/b.txt", "backup/sub/c.bin",
+                "other/keep.txt"), Arrays.asList(objects.keySet().toArray()));
+        Assertions.assertTrue(manifest.isFile());
+
+        // nothing changed: the listing is enough
+        heads.set(0);
+        puts.set(0);
+        result = client.syncDirectory(request());
+        Assertions.assertEquals(3, result.getFilesUnchanged());
+        Assertions.assertEquals(0, result.getFilesCompared());
+        Assertions.assertEquals(0, result.getFilesUploaded());
+        Assertions.assertEquals(0, heads.get());
+        Assertions.assertEquals(0, puts.get());
+
+        // same size, new content
+        write("a.txt", "AAAA");
+        a.setLastModified(a.lastModified() + 2000);
+        result = client.syncDirectory(request());
+        Assertions.assertEquals(1, result.getFilesUploaded());
+        Assertions.assertEquals(1, heads.get());
+        Assertions.assertEquals(1, puts.get());
+        Assertions.assertEquals("AAAA", new String(objects.get("backup/a.txt"), "UTF-8"));
+
+        // the object changed behind the manifest's back
+        heads.set(0);
+        puts.set(0);
+        objects.put("backup/sub/c.bin", "xxxxxxxx".getBytes("UTF-8"));
+        result = client.syncDirectory(request());
+        Assertions.assertEquals(1, result.getFilesUploaded());
+        Assertions.assertEquals(2, result.getFilesUnchanged());
+        Assertions.assertEquals("cccccccc", new String(objects.get("backup/sub/c.bin"), "UTF-8"));
+    }
+
+    @Test
+    public void testDryRun() throws IOException {
+        write("a.txt", "aaaa");
+        write("new.txt", "new");
+        objects.put("backup/a.txt", "aaaa".getBytes("UTF-8"));
+        objects.put("backup/gone.txt", "gone".getBytes("UTF-8"));
+
+        SyncDirectoryResult result = client.syncDirectory(request().withDryRun(true));
+        Assertions.assertEquals(Arrays.asList("backup/new.txt"), result.getPlannedUploads());
+        Assertions.assertEquals(Arrays.asList("backup/gone.txt"), result.getPlannedDeletes());
+        Assertions.assertEquals(1, result.getFilesUnchanged());
+        Assertions.assertEquals(0, puts.get());
+        Assertions.assertEquals(2, objects.size());
+        Assertions.assertFalse(manifest.exists());
+    }
+
+    @Test
+    public void testKeepRemoved() throws IOException {
+        write("a.txt", "aaaa");
+        objects.put("backup/gone.txt", "gone".getBytes("UTF-8"));
+        SyncDirectoryRequest request = request().withDeleteRemoved(false);
+        SyncDirectoryResult result = client.syncDirectory(request);
+        Assertions.assertEquals(1, result.getFilesUploaded());
+        Assertions.assertEquals(0, result.getObjectsDeleted());
+        Assertions.assertTrue(objects.containsKey("backup/gone.txt"));
+    }
+
+    @Test
+    public void testPrefixWithoutSeparator() throws IOException {
+        write("a.txt", "aaaa");
+        objects.put("backup/gone.txt", "gone".getBytes("UTF-8"));
+        objects.put("backup-old/x", "x".getBytes("UTF-8"));
+        objects.put("backup2/y", "y".getBytes("UTF-8"));
+        SyncDirectoryRequest request = request();
+        request.setPrefix("backup");
+        SyncDirectoryResult result = client.syncDirectory(request);
+        Assertions.assertEquals(1, result.getFilesUploaded());
+        Assertions.assertEquals(1, result.getObjectsDeleted());
+        Assertions.assertTrue(objects.containsKey("backup/a.txt"));
+        Assertions.assertFalse(objects.containsKey("backup/gone.txt"));
+        Assertions.assertTrue(objects.containsKey("backup-old/x"));
+        Assertions.assertTrue(objects.containsKey("backup2/y"));
+    }
+}
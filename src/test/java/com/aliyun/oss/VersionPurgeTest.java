@@ -0,0 +1,350 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jdom2.Element;
+import org.jdom2.input.SAXBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.common.utils.DateUtil;
+import com.aliyun.oss.common.utils.HttpUtil;
+import com.aliyun.oss.common.utils.IOUtils;
+import com.aliyun.oss.model.ListVersionsRequest;
+import com.aliyun.oss.model.OSSVersionSummary;
+import com.aliyun.oss.model.PurgeVersionsRequest;
+import com.aliyun.oss.model.PurgeVersionsResult;
+import com.aliyun.oss.model.VersionHistory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Lists and purges versions on a local server which keeps the version
+ * histories in memory and answers ListVersions and DeleteVersions.
+ */
+public class VersionPurgeTest {
+    private static final long HOUR = 3600 * 1000L;
+    private static final long NOW = System.currentTimeMillis() / 1000 * 1000;
+
+    private static class Version {
+        final String id;
+        final boolean deleteMarker;
+        final Date lastModified;
+
+        Version(String id, boolean deleteMarker, Date lastModified) {
+            this.id = id;
+            this.deleteMarker = deleteMarker;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private OSS client;
+    // the versions of each key, from the newest one
+    private final TreeMap<String, List<Version>> histories = new TreeMap<String, List<Version>>();
+    private final AtomicInteger listRequests = new AtomicInteger();
+    private final AtomicInteger deleteRequests = new AtomicInteger();
+    private final AtomicInteger failingDeletes = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    Map<String, String> params = params(exchange.getRequestURI().getRawQuery());
+                    byte[] body = IOUtils.readStreamAsByteArray(exchange.getRequestBody());
+                    exchange.getResponseHeaders().add("x-oss-request-id", "stub-request-id");
+                    if (exchange.getRequestMethod().equals("GET") && params.containsKey("versions")) {
+                        listRequests.incrementAndGet();
+                        send(exchange, 200, listVersions(params));
+                    } else if (exchange.getRequestMethod().equals("POST") && params.containsKey("delete")) {
+                        deleteRequests.incrementAndGet();
+                        if (failingDeletes.getAndDecrement() > 0) {
+                            send(exchange, 500, "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Error><Code>InternalError"
+                                    + "</Code><Message>failed</Message><RequestId>stub-request-id</RequestId></Error>");
+                        } else {
+                            deleteVersions(body);
+                            exchange.sendResponseHeaders(200, -1);
+                        }
+                    } else {
+                        exchange.sendResponseHeaders(501, -1);
+                    }
+                } catch (Exception e) {
+                    exchange.sendResponseHeaders(500, -1);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+
+        ClientBuilderConfiguration conf = new ClientBuilderConfiguration();
+        conf.setSLDEnabled(true);
+        conf.setMaxErrorRetry(0);
+        client = new OSSClientBuilder().build("http://127.0.0.1:" + server.getAddress().getPort(), "ak", "sk", conf);
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    private static Map<String, String> params(String query) {
+        Map<String, String> params = new HashMap<String, String>();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                int eq = param.indexOf('=');
+                params.put(HttpUtil.urlDecode(eq < 0 ? param : param.substring(0, eq), "UTF-8"),
+                        eq < 0 ? "" : HttpUtil.urlDecode(param.substring(eq + 1), "UTF-8"));
+            }
+        }
+        return params;
+    }
+
+    private static void send(HttpExchange exchange, int status, String xml) throws IOException {
+        byte[] data = xml.getBytes("UTF-8");
+        exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, data.length);
+        exchange.getResponseBody().write(data);
+    }
+
+    private synchronized String listVersions(Map<String, String> params) {
+        String prefix = params.containsKey("prefix") ? params.get("prefix") : "";
+        String keyMarker = params.get("key-marker");
+        String versionIdMarker = params.get("version-id-marker");
+        int maxKeys = params.containsKey("max-keys") ? Integer.parseInt(params.get("max-keys")) : 100;
+        boolean url = "url".equals(params.get("encoding-type"));
+
+        StringBuilder entries = new StringBuilder();
+        int count = 0;
+        String nextKeyMarker = null;
+        String nextVersionIdMarker = null;
+        boolean truncated = false;
+        Map<String, List<Version>> keys = keyMarker == null ? histories.tailMap(prefix, true)
+                : histories.tailMap(keyMarker, true);
+        for (Map.Entry<String, List<Version>> entry : keys.entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            List<Version> versions = entry.getValue();
+            int start = 0;
+            if (key.equals(keyMarker)) {
+                if (versionIdMarker == null) {
+                    continue;
+                }
+                while (start < versions.size() && !versions.get(start).id.equals(versionIdMarker)) {
+                    start++;
+                }
+                start++;
+            }
+            for (int i = start; i < versions.size(); i++) {
+                if (count == maxKeys) {
+                    truncated = true;
+                    break;
+                }
+                Version version = versions.get(i);
+                String name = version.deleteMarker ? "DeleteMarker" : "Version";
+                entries.append("<").append(name).append("><Key>").append(url ? HttpUtil.urlEncode(key, "UTF-8") : key)
+                        .append("</Key><VersionId>").append(version.id).append("</VersionId><IsLatest>")
+                        .append(i == 0).append("</IsLatest><LastModified>")
+                        .append(DateUtil.formatIso8601Date(version.lastModified)).append("</LastModified>");
+                if (!version.deleteMarker) {
+                    entries.append("<ETag>\"E\"</ETag><Size>1</Size><StorageClass>Standard</StorageClass>");
+                }
+                entries.append("<Owner><ID>1</ID><DisplayName>1</DisplayName></Owner></").append(name).append(">");
+                count++;
+                nextKeyMarker = url ? HttpUtil.urlEncode(key, "UTF-8") : key;
+                nextVersionIdMarker = version.id;
+            }
+            if (truncated) {
+                break;
+            }
+        }
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<ListVersionsResult>");
+        xml.append("<Name>bucket</Name><MaxKeys>").append(maxKeys).append("</MaxKeys><IsTruncated>").append(truncated)
+                .append("</IsTruncated>");
+        if (url) {
+            xml.append("<EncodingType>url</EncodingType>");
+        }
+        if (truncated) {
+            xml.append("<NextKeyMarker>").append(nextKeyMarker).append("</NextKeyMarker><NextVersionIdMarker>")
+                    .append(nextVersionIdMarker).append("</NextVersionIdMarker>");
+        }
+        return xml.append(entries).append("</ListVersionsResult>").toString();
+    }
+
+    private synchronized void deleteVersions(byte[] body) throws Exception {
+        Element root = new SAXBuilder().build(new ByteArrayInputStream(body)).getRootElement();
+        for (Element object : root.getChildren("Object")) {
+            List<Version> versions = histories.get(object.getChildText("Key"));
+            for (int i = 0; versions != null && i < versions.size(); i++) {
+                if (versions.get(i).id.equals(object.getChildText("VersionId"))) {
+                    versions.remove(i);
+                    break;
+                }
+            }
+            if (versions != null && versions.isEmpty()) {
+                histories.remove(object.getChildText("Key"));
+            }
+        }
+    }
+
+    /**
+     * Adds a key whose versions, from the newest one, were written the given
+     * hours ago, a negative number of hours being a delete marker.
+     */
+    private void addKey(String key, int... hoursAgo) {
+        List<Version> versions = new ArrayList<Version>();
+        for (int i = 0; i < hoursAgo.length; i++) {
+            versions.add(new Version(key.hashCode() + "-" + i, hoursAgo[i] < 0,
+                    new Date(NOW - Math.abs(hoursAgo[i]) * HOUR)));
+        }
+        histories.put(key, versions);
+    }
+
+    private List<String> versionIds(String key) {
+        List<String> ids = new ArrayList<String>();
+        if (histories.containsKey(key)) {
+            for (Version version : histories.get(key)) {
+                ids.add(version.id);
+            }
+        }
+        return ids;
+    }
+
+    @Test
+    public void testIterateVersionHistories() {
+        for (int i = 0; i < 50; i++) {
+            addKey(String.format("dir/key %02d&", i), 1, -2, 3, -4, 5, 6, 7);
+        }
+        addKey("other", 1);
+
+        int keys = 0;
+        // pages of 5 split most histories
+        for (VersionHistory history : client.iterateVersionHistories(
+                new ListVersionsRequest("bucket", "dir/", null, null, null, 5))) {
+            Assertions.assertEquals(String.format("dir/key %02d&", keys), history.getKey());
+            Assertions.assertEquals(7, history.getVersions().size());
+            for (int i = 0; i < 7; i++) {
+                OSSVersionSummary version = history.getVersions().get(i);
+                Assertions.assertEquals(history.getKey(), version.getKey());
+                Assertions.assertEquals(history.getKey().hashCode() + "-" + i, version.getVersionId());
+                Assertions.assertEquals(i == 0, version.isLatest());
+                Assertions.assertEquals(i == 1 || i == 3, version.isDeleteMarker());
+            }
+            keys++;
+        }
+        Assertions.assertEquals(50, keys);
+        Assertions.assertEquals(50 * 7 / 5, listRequests.get());
+    }
+
+    @Test
+    public void testKeepLatest() {
+        for (int i = 0; i < 1500; i++) {
+            addKey("key" + i, 1, 2, -3, 4);
+        }
+        addKey("single", 1);
+
+        PurgeVersionsResult result = client.purgeVersions(new PurgeVersionsRequest("bucket").withKeepLatest(2));
+
+        Assertions.assertEquals(1501, result.getKeyCount());
+        Assertions.assertEquals(1500 * 4 + 1, result.getVersionCount());
+        Assertions.assertEquals(1500, result.getDeletedVersionCount());
+        Assertions.assertEquals(1500, result.getDeletedDeleteMarkerCount());
+        Assertions.assertEquals(0, result.getFailedVersionCount());
+        Assertions.assertEquals(3, deleteRequests.get());
+        Assertions.assertEquals(listRequests.get() + deleteRequests.get(), result.getRequestCount());
+        Assertions.assertEquals(2, versionIds("key7").size());
+        Assertions.assertEquals(versionIds("key7").get(0), "key7".hashCode() + "-0");
+        Assertions.assertEquals(1, versionIds("single").size());
+    }
+
+    @Test
+    public void testNoncurrentBefore() {
+        // the 2nd version became noncurrent 1 hour ago, the 3rd 5 hours ago, the 4th 10 hours ago
+        addKey("a", 1, 5, 10, 20);
+
+        PurgeVersionsResult result = client.purgeVersions(
+                new PurgeVersionsRequest("bucket").withNoncurrentBefore(new Date(NOW - 3 * HOUR)));
+
+        Assertions.assertEquals(2, result.getDeletedVersionCount());
+        Assertions.assertEquals(2, versionIds("a").size());
+    }
+
+    @Test
+    public void testRemoveExpiredDeleteMarkers() {
+        addKey("deleted", -1, 2, 3);
+        addKey("lone-marker", -1);
+        addKey("recent-marker", -1, 2);
+        addKey("live", 1, -2, 3);
+
+        PurgeVersionsResult result = client.purgeVersions(new PurgeVersionsRequest("bucket")
+                .withRemoveExpiredDeleteMarkers(true).withNoncurrentBefore(new Date(NOW - HOUR / 2)));
+
+        Assertions.assertFalse(histories.containsKey("deleted"));
+        Assertions.assertFalse(histories.containsKey("lone-marker"));
+        Assertions.assertFalse(histories.containsKey("recent-marker"));
+        Assertions.assertEquals(1, versionIds("live").size());
+        Assertions.assertEquals(4, result.getDeletedDeleteMarkerCount());
+        Assertions.assertEquals(4, result.getDeletedVersionCount());
+    }
+
+    @Test
+    public void testFailedRequests() {
+        for (int i = 0; i < 2500; i++) {
+            addKey("key" + i, 1, 2);
+        }
+        failingDeletes.set(1);
+
+        PurgeVersionsResult result = client.purgeVersions(new PurgeVersionsRequest("bucket").withTaskNum(1));
+
+        Assertions.assertEquals(1000, result.getFailedVersionCount());
+        Assertions.assertEquals(1500, result.getDeletedVersionCount());
+        Assertions.assertEquals(1, result.getFailures().size());
+        Assertions.assertEquals("key0", result.getFailures().get(0).getKey());
+        Assertions.assertEquals(1000, result.getFailures().get(0).getVersionCount());
+        Assertions.assertEquals("InternalError", ((OSSException) result.getFailures().get(0).getException())
+                .getErrorCode());
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.ClientBuilderConfiguration;
+import com.aliyun.oss.ClientErrorCode;
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSClientBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class AdaptiveConcurrencyLimiterTest {
+    private static final long MS = 1000000L;
+
+    @Test
+    public void testAdditiveIncrease() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 6);
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < limiter.getLimit(); i++) {
+                Assertions.assertTrue(limiter.acquire(0));
+            }
+            Assertions.assertFalse(limiter.acquire(0));
+            int limit = limiter.getLimit();
+            for (int i = 0; i < limit; i++) {
+                limiter.release(System.nanoTime(), 10 * MS, false);
+            }
+            Assertions.assertEquals(0, limiter.getInFlight());
+        }
+        Assertions.assertEquals(6, limiter.getLimit());
+    }
+
+    @Test
+    public void testNoIncreaseWhenSlowOrIdle() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 100);
+        limiter.acquire(0);
+        limiter.release(System.nanoTime(), 10 * MS, false);
+        for (int i = 0; i < 100; i++) {
+            // latency far above the lowest one seen
+            for (int j = 0; j < 4; j++) {
+                limiter.acquire(0);
+            }
+            for (int j = 0; j < 4; j++) {
+                limiter.release(System.nanoTime(), 50 * MS, false);
+            }
+            // one request at a time does not use the limit
+            limiter.acquire(0);
+            limiter.release(System.nanoTime(), 10 * MS, false);
+        }
+        Assertions.assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    public void testMultiplicativeDecrease() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(100, 2, 100);
+        long startTime = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire(0);
+        }
+        // a burst of throttled requests backs off once
+        for (int i = 0; i < 10; i++) {
+            limiter.release(startTime, 10 * MS, true);
+        }
+        Assertions.assertEquals(70, limiter.getLimit());
+
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire(0);
+            limiter.release(System.nanoTime(), -1, true);
+        }
+        Assertions.assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void testAcquireWaitsForRelease() throws InterruptedException {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1);
+        Assertions.assertTrue(limiter.acquire(0));
+        long start = System.currentTimeMillis();
+        Assertions.assertFalse(limiter.acquire(50));
+        Assertions.assertTrue(System.currentTimeMillis() - start >= 50);
+
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                }
+                limiter.release(System.nanoTime(), MS, false);
+            }
+        }).start();
+        Assertions.assertTrue(limiter.acquire(-1));
+        Assertions.assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    public void testClientFailsFastOverLimit() throws Exception {
+        final CountDownLatch received = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                InputStream in = exchange.getRequestBody();
+                while (in.read() != -1) {
+                }
+                received.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                }
+                exchange.getResponseHeaders().add("x-oss-request-id", "stub-request-id");
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+
+        ClientBuilderConfiguration conf = new ClientBuilderConfiguration();
+        conf.setSLDEnabled(true);
+        conf.setAdaptiveConcurrencyEnabled(true);
+        conf.setInitialConcurrencyLimit(1);
+        conf.setConcurrencyLimitTimeout(0);
+        final OSS client = new OSSClientBuilder().build(
+                "http://127.0.0.1:" + server.getAddress().getPort(), "ak", "sk", conf);
+        try {
+            Thread first = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    client.putObject("bucket", "first", new ByteArrayInputStream(new byte[10]));
+                }
+            });
+            first.start();
+            Assertions.assertTrue(received.await(10, TimeUnit.SECONDS));
+
+            try {
+                client.putObject("bucket", "second", new ByteArrayInputStream(new byte[10]));
+                Assertions.fail("request over the limit should fail");
+            } catch (ClientException e) {
+                Assertions.assertEquals(ClientErrorCode.CONCURRENCY_LIMIT_EXCEEDED, e.getErrorCode());
+            }
+
+            release.countDown();
+            first.join();
+            // the slot of the first request is given back
+            client.putObject("bucket", "third", new ByteArrayInputStream(new byte[10]));
+        } finally {
+            release.countDown();
+            client.shutdown();
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.ClientBuilderConfiguration;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSClientBuilder;
+import com.aliyun.oss.common.metrics.ConnectionPoolMetricsListener;
+import com.aliyun.oss.common.metrics.ConnectionPoolStatistics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class ConnectionPoolStatisticsTest {
+    private HttpServer server;
+    private String endpoint;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                InputStream in = exchange.getRequestBody();
+                while (in.read() != -1) {
+                }
+                exchange.getResponseHeaders().add("x-oss-request-id", "stub-request-id");
+                exchange.getResponseHeaders().add("ETag", "\"etag\"");
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        endpoint = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testStatistics() {
+        ClientBuilderConfiguration conf = new ClientBuilderConfiguration();
+        conf.setSLDEnabled(true);
+        OSS client = new OSSClientBuilder().build(endpoint, "ak", "sk", conf);
+        try {
+            for (int i = 0; i < 10; i++) {
+                client.putObject("bucket", "key" + i, new ByteArrayInputStream("data".getBytes()));
+            }
+            ConnectionPoolStatistics statistics = client.getConnectionPoolStatistics();
+            Assertions.assertEquals(10, statistics.getLeasedConnections());
+            Assertions.assertEquals(10, statistics.getLeaseWaitTime().getCount());
+            Assertions.assertTrue(statistics.getCreatedConnections() >= 1);
+            Assertions.assertEquals(statistics.getCreatedConnections(), statistics.getConnectTime().getCount());
+            Assertions.assertEquals(0, statistics.getTlsHandshakeTime().getCount());
+            Assertions.assertTrue(statistics.getReuseRatio() > 0);
+            Assertions.assertEquals(0, statistics.getTotal().getLeased());
+            Assertions.assertEquals(conf.getMaxConnections(), statistics.getTotal().getMax());
+
+            ConnectionPoolStatistics.RouteStatistics route = statistics.getRoutes().get(endpoint);
+            Assertions.assertNotNull(route, statistics.getRoutes().toString());
+            Assertions.assertTrue(route.getAvailable() >= 1);
+            Assertions.assertEquals(0, route.getPending());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void testMetricsListener() throws InterruptedException {
+        final CountDownLatch reported = new CountDownLatch(2);
+        ClientBuilderConfiguration conf = new ClientBuilderConfiguration();
+        conf.setSLDEnabled(true);
+        conf.setConnectionPoolMetricsInterval(50);
+        conf.setConnectionPoolMetricsListener(new ConnectionPoolMetricsListener() {
+            @Override
+            public void onStatistics(ConnectionPoolStatistics statistics) {
+                if (statistics.getLeasedConnections() > 0) {
+                    reported.countDown();
+                }
+            }
+        });
+        OSS client = new OSSClientBuilder().build(endpoint, "ak", "sk", conf);
+        try {
+            client.putObject("bucket", "key", new ByteArrayInputStream("data".getBytes()));
+            Assertions.assertTrue(reported.await(10, TimeUnit.SECONDS));
+        } finally {
+            client.shutdown();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.security.KeyStore;
+import java.util.concurrent.Executors;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.ClientBuilderConfiguration;
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSClientBuilder;
+import com.aliyun.oss.common.metrics.ConnectionPoolStatistics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+public class ConnectionPrewarmTest {
+    private HttpsServer server;
+    private String endpoint;
+
+    @Before
+    public void setUp() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        InputStream in = getClass().getResourceAsStream("/ssl/localhost.jks");
+        try {
+            keyStore.load(in, "password".toCharArray());
+        } finally {
+            in.close();
+        }
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(keyStore, "password".toCharArray());
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(kmf.getKeyManagers(), null, null);
+
+        server = HttpsServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(sslContext));
+        // the handshake is done by the exchange thread, which then waits for a request
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                InputStream in = exchange.getRequestBody();
+                while (in.read() != -1) {
+                }
+                exchange.getResponseHeaders().add("x-oss-request-id", "stub-request-id");
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        endpoint = "https://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private OSS createClient(String endpoint) {
+        ClientBuilderConfiguration conf = new ClientBuilderConfiguration();
+        conf.setSLDEnabled(true);
+        conf.setVerifySSLEnable(false);
+        conf.setMaxErrorRetry(0);
+        conf.setConnectionTimeout(5000);
+        conf.setTlsSessionCacheSize(16);
+        conf.setTlsSessionTimeout(60 * 1000);
+        return new OSSClientBuilder().build(endpoint, "ak", "sk", conf);
+    }
+
+    @Test
+    public void testPrewarm() {
+        OSS client = createClient(endpoint);
+        try {
+            Assertions.assertEquals(4, client.prewarm("bucket", 4));
+            ConnectionPoolStatistics statistics = client.getConnectionPoolStatistics();
+            Assertions.assertEquals(4, statistics.getCreatedConnections());
+            Assertions.assertEquals(4, statistics.getTlsHandshakeTime().getCount());
+            Assertions.assertEquals(4, statistics.getRoutes().get(endpoint).getAvailable());
+            Assertions.assertEquals(0, statistics.getTotal().getLeased());
+
+            // requests and further prewarming reuse the open connections
+            for (int i = 0; i < 4; i++) {
+                client.putObject("bucket", "key" + i, new ByteArrayInputStream(new byte[10]));
+            }
+            Assertions.assertEquals(2, client.prewarm("bucket", 2));
+            Assertions.assertEquals(4, client.getConnectionPoolStatistics().getCreatedConnections());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void testPrewarmUnreachable() throws IOException {
+        ServerSocket socket = new ServerSocket(0);
+        int port = socket.getLocalPort();
+        socket.close();
+
+        OSS client = createClient("https://127.0.0.1:" + port);
+        try {
+            client.prewarm(null, 2);
+            Assertions.fail("prewarm should fail");
+        } catch (ClientException e) {
+            Assertions.assertEquals(0, client.getConnectionPoolStatistics().getTotal().getLeased());
+        } finally {
+            client.shutdown();
+        }
+    }
+}
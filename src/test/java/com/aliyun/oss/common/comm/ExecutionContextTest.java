@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.OSSException;
+
+public class ExecutionContextTest {
+
+    private static ResponseHandler responseHandler() {
+        return new ResponseHandler() {
+            @Override
+            public void handle(ResponseMessage response) throws OSSException, ClientException {
+            }
+        };
+    }
+
+    @Test
+    public void testSharedHandlersAreCopiedOnWrite() {
+        ResponseHandler first = responseHandler();
+        ResponseHandler second = responseHandler();
+        List<ResponseHandler> shared = Collections.unmodifiableList(Arrays.asList(first));
+
+        ExecutionContext context = new ExecutionContext();
+        context.setSharedResponseHandlers(shared);
+        Assertions.assertSame(shared, context.responseHandlers());
+
+        context.addResponseHandler(second);
+        Assertions.assertEquals(Arrays.asList(first), shared);
+        Assertions.assertEquals(Arrays.asList(first, second), context.responseHandlers());
+
+        // the copy is the context's own from now on
+        context.getResponseHandlers().add(0, second);
+        Assertions.assertEquals(Arrays.asList(second, first, second), context.getResponseHandlers());
+    }
+
+    @Test
+    public void testNewContext() {
+        ExecutionContext context = new ExecutionContext();
+        Assertions.assertTrue(context.requestHandlers().isEmpty());
+        Assertions.assertTrue(context.responseHandlers().isEmpty());
+        Assertions.assertTrue(context.signerHandlers().isEmpty());
+
+        context.getResquestHandlers().add(new RequestHandler() {
+            @Override
+            public void handle(RequestMessage request) throws OSSException, ClientException {
+            }
+        });
+        Assertions.assertEquals(1, context.requestHandlers().size());
+        Assertions.assertTrue(new ExecutionContext().requestHandlers().isEmpty());
+    }
+}
@@ -19,6 +19,13 @@
 
 package com.aliyun.oss.common.comm;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.junit.jupiter.api.*;
 import org.junit.Test;
 
@@ -30,4 +37,74 @@ public class IdleConnectionReaperTest {
         Assertions.assertFalse(IdleConnectionReaper.shutdown());
         Assertions.assertEquals(0, IdleConnectionReaper.size());
     }
+
+    static class RecordingConnectionManager extends PoolingHttpClientConnectionManager {
+        final CountDownLatch reaped = new CountDownLatch(2);
+        volatile long idleTime;
+
+        @Override
+        public void closeIdleConnections(long idletime, TimeUnit tunit) {
+            idleTime = tunit.toMillis(idletime);
+            reaped.countDown();
+            super.closeIdleConnections(idletime, tunit);
+        }
+    }
+
+    @Test
+    public void testPerPoolIdleTime() throws InterruptedException {
+        RecordingConnectionManager fast = new RecordingConnectionManager();
+        RecordingConnectionManager slow = new RecordingConnectionManager();
+        try {
+            Assertions.assertTrue(IdleConnectionReaper.registerConnectionManager(fast, 200, -1));
+            Assertions.assertFalse(IdleConnectionReaper.registerConnectionManager(fast, 200, -1));
+            Assertions.assertTrue(IdleConnectionReaper.registerConnectionManager(slow, 60 * 1000, 60 * 1000));
+            Assertions.assertEquals(2, IdleConnectionReaper.size());
+
+            Assertions.assertTrue(fast.reaped.await(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(200, fast.idleTime);
+            Assertions.assertEquals(2, slow.reaped.getCount());
+
+            Assertions.assertTrue(IdleConnectionReaper.removeConnectionManager(fast));
+            Assertions.assertFalse(IdleConnectionReaper.removeConnectionManager(fast));
+            Assertions.assertEquals(1, IdleConnectionReaper.size());
+        } finally {
+            IdleConnectionReaper.shutdown();
+            fast.shutdown();
+            slow.shutdown();
+        }
+        Assertions.assertEquals(0, IdleConnectionReaper.size());
+    }
+
+    @Test
+    public void testArmedOnRelease() throws InterruptedException {
+        InstrumentedConnectionManager pool = new InstrumentedConnectionManager(RegistryBuilder
+                .<ConnectionSocketFactory> create().register("http", PlainConnectionSocketFactory.INSTANCE).build(),
+                null);
+        try {
+            Assertions.assertTrue(IdleConnectionReaper.registerConnectionManager(pool, 200, -1));
+            Assertions.assertFalse(IdleConnectionReaper.isScheduled(pool));
+
+            IdleConnectionReaper.connectionReleased(pool);
+            Assertions.assertTrue(IdleConnectionReaper.isScheduled(pool));
+
+            // the pool holds no connections, so the check doesn't arm another one
+            long deadline = System.currentTimeMillis() + 5000;
+            while (IdleConnectionReaper.isScheduled(pool) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            Assertions.assertFalse(IdleConnectionReaper.isScheduled(pool));
+        } finally {
+            IdleConnectionReaper.shutdown();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testReapInterval() {
+        Assertions.assertEquals(5000, IdleConnectionReaper.reapInterval(60 * 1000, -1));
+        Assertions.assertEquals(500, IdleConnectionReaper.reapInterval(1000, -1));
+        Assertions.assertEquals(1500, IdleConnectionReaper.reapInterval(60 * 1000, 3000));
+        Assertions.assertEquals(100, IdleConnectionReaper.reapInterval(10, -1));
+        Assertions.assertEquals(5000, IdleConnectionReaper.reapInterval(-1, -1));
+    }
 }
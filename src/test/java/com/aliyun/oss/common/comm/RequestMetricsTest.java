@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.ClientBuilderConfiguration;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSClientBuilder;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.common.metrics.OperationMetrics;
+import com.aliyun.oss.common.metrics.RequestMetrics;
+import com.aliyun.oss.common.utils.IOUtils;
+import com.aliyun.oss.model.OSSObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class RequestMetricsTest {
+    private static final byte[] CONTENT = new byte[10000];
+
+    private HttpServer server;
+    private String endpoint;
+    private final AtomicInteger failures = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                InputStream in = exchange.getRequestBody();
+                while (in.read() != -1) {
+                }
+                exchange.getResponseHeaders().add("x-oss-request-id", "stub-request-id");
+                String path = exchange.getRequestURI().getPath();
+                if (path.endsWith("/missing")) {
+                    sendError(exchange, 404, "NoSuchKey");
+                } else if (path.endsWith("/flaky") && failures.getAndIncrement() == 0) {
+                    sendError(exchange, 503, "ServiceUnavailable");
+                } else if ("GET".equals(exchange.getRequestMethod())) {
+                    exchange.sendResponseHeaders(200, CONTENT.length);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write(CONTENT);
+                } else {
+                    exchange.getResponseHeaders().add("ETag", "\"etag\"");
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+        endpoint = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String code) throws IOException {
+        byte[] error = ("<Error><Code>" + code + "</Code><Message>error</Message>"
+                + "<RequestId>stub-request-id</RequestId></Error>").getBytes();
+        exchange.sendResponseHeaders(status, error.length);
+        exchange.getResponseBody().write(error);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private OSS createClient(boolean requestMetricsEnabled) {
+        ClientBuilderConfiguration conf = new ClientBuilderConfiguration();
+        conf.setSLDEnabled(true);
+        conf.setMaxErrorRetry(1);
+        conf.setRequestMetricsEnabled(requestMetricsEnabled);
+        return new OSSClientBuilder().build(endpoint, "ak", "sk", conf);
+    }
+
+    private static OperationMetrics find(RequestMetrics metrics, String operation, String bucketName) {
+        for (OperationMetrics operationMetrics : metrics.getAllOperationMetrics()) {
+            if (operationMetrics.getOperation().equals(operation)
+                    && operationMetrics.getBucketName().equals(bucketName)) {
+                return operationMetrics;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testRecordOperations() throws IOException {
+        OSS client = createClient(true);
+        try {
+            for (int i = 0; i < 3; i++) {
+                client.putObject("bucket", "key" + i, new ByteArrayInputStream(new byte[100]));
+            }
+            OSSObject object = client.getObject("other-bucket", "key");
+            IOUtils.readStreamAsByteArray(object.getObjectContent());
+            object.close();
+            try {
+                client.getObject("bucket", "missing");
+                Assertions.fail("get object should fail");
+            } catch (OSSException e) {
+                Assertions.assertEquals("NoSuchKey", e.getErrorCode());
+            }
+            client.deleteObject("bucket", "flaky");
+
+            RequestMetrics metrics = client.getRequestMetrics();
+            OperationMetrics put = find(metrics, "PutObject", "bucket");
+            Assertions.assertNotNull(put, metrics.getAllOperationMetrics().toString());
+            Assertions.assertEquals(3, put.getRequests());
+            Assertions.assertEquals(0, put.getErrors());
+            Assertions.assertTrue(put.getBytesSent() > 300);
+            Assertions.assertEquals(3, put.getTotalTime().getCount());
+            Assertions.assertEquals(3, put.getTimeToFirstByte().getCount());
+            Assertions.assertEquals(3, put.getSignTime().getCount());
+            Assertions.assertEquals(3, put.getParseTime().getCount());
+            Assertions.assertEquals(1, put.getConnectTime().getCount());
+            Assertions.assertTrue(put.getTotalTime().snapshot().getMaxNanos() > 0);
+
+            OperationMetrics get = find(metrics, "GetObject", "other-bucket");
+            Assertions.assertNotNull(get);
+            Assertions.assertEquals(1, get.getRequests());
+            Assertions.assertTrue(get.getBytesReceived() > CONTENT.length);
+            Assertions.assertEquals(1, get.getTransferTime().getCount());
+
+            OperationMetrics missing = find(metrics, "GetObject", "bucket");
+            Assertions.assertEquals(1, missing.getRequests());
+            Assertions.assertEquals(1, missing.getErrors());
+            Assertions.assertEquals(0, missing.getParseTime().getCount());
+
+            OperationMetrics delete = find(metrics, "DeleteObject", "bucket");
+            Assertions.assertEquals(1, delete.getRequests());
+            Assertions.assertEquals(0, delete.getErrors());
+            Assertions.assertEquals(1, delete.getRetries());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void testDisabled() {
+        OSS client = createClient(false);
+        try {
+            client.putObject("bucket", "key", new ByteArrayInputStream(new byte[100]));
+            Assertions.assertTrue(client.getRequestMetrics().getAllOperationMetrics().isEmpty());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void testBucketTagLimit() {
+        RequestMetrics metrics = new RequestMetrics();
+        for (int i = 0; i < RequestMetrics.MAX_BUCKETS_PER_OPERATION + 10; i++) {
+            metrics.getOperationMetrics("PutObject", "bucket-" + i);
+        }
+        metrics.getOperationMetrics("ListBuckets", null);
+        Assertions.assertEquals(RequestMetrics.MAX_BUCKETS_PER_OPERATION + 2, metrics.getAllOperationMetrics().size());
+        Assertions.assertSame(metrics.getOperationMetrics("PutObject", "bucket-0"),
+                metrics.getOperationMetrics("PutObject", "bucket-0"));
+        Assertions.assertEquals(RequestMetrics.OTHER_BUCKETS,
+                metrics.getOperationMetrics("PutObject", "new-bucket").getBucketName());
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.comm;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.conn.DnsResolver;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.ClientBuilderConfiguration;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSClientBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class RoundRobinDnsResolverTest {
+
+    private static class FakeDnsResolver implements DnsResolver {
+        private final InetAddress[] addresses;
+        private final AtomicInteger lookups = new AtomicInteger();
+        private volatile boolean failing;
+
+        FakeDnsResolver(String... ips) throws UnknownHostException {
+            addresses = new InetAddress[ips.length];
+            for (int i = 0; i < ips.length; i++) {
+                addresses[i] = InetAddress.getByName(ips[i]);
+            }
+        }
+
+        @Override
+        public InetAddress[] resolve(String host) throws UnknownHostException {
+            lookups.incrementAndGet();
+            if (failing) {
+                throw new UnknownHostException(host);
+            }
+            return addresses.clone();
+        }
+    }
+
+    @Test
+    public void testRoundRobinAndTtl() throws UnknownHostException {
+        FakeDnsResolver fake = new FakeDnsResolver("10.0.0.1", "10.0.0.2", "10.0.0.3");
+        RoundRobinDnsResolver resolver = new RoundRobinDnsResolver(fake, 60000, 3, 60000);
+        Set<InetAddress> first = new HashSet<InetAddress>();
+        for (int i = 0; i < 6; i++) {
+            InetAddress[] addresses = resolver.resolve("oss.example.com");
+            Assertions.assertEquals(3, addresses.length);
+            Assertions.assertEquals(fake.addresses[i % 3], addresses[0]);
+            first.add(addresses[0]);
+        }
+        Assertions.assertEquals(3, first.size());
+        Assertions.assertEquals(1, fake.lookups.get());
+
+        resolver = new RoundRobinDnsResolver(fake, 0, 3, 60000);
+        resolver.resolve("oss.example.com");
+        resolver.resolve("oss.example.com");
+        Assertions.assertEquals(3, fake.lookups.get());
+
+        // stale addresses are kept when the refresh fails
+        fake.failing = true;
+        Assertions.assertEquals(3, resolver.resolve("oss.example.com").length);
+        try {
+            resolver.resolve("other.example.com");
+            Assertions.fail("unknown host should fail");
+        } catch (UnknownHostException e) {
+        }
+    }
+
+    @Test
+    public void testQuarantine() throws UnknownHostException {
+        FakeDnsResolver fake = new FakeDnsResolver("10.0.0.1", "10.0.0.2", "10.0.0.3");
+        RoundRobinDnsResolver resolver = new RoundRobinDnsResolver(fake, 60000, 2, 60000);
+        InetAddress bad = fake.addresses[1];
+
+        resolver.connectFailed(bad);
+        Assertions.assertFalse(resolver.isQuarantined(bad));
+        resolver.connectFailed(bad);
+        Assertions.assertTrue(resolver.isQuarantined(bad));
+        for (int i = 0; i < 6; i++) {
+            InetAddress[] addresses = resolver.resolve("oss.example.com");
+            Assertions.assertEquals(bad, addresses[2]);
+        }
+
+        resolver.connectSucceeded(bad);
+        Assertions.assertFalse(resolver.isQuarantined(bad));
+
+        resolver = new RoundRobinDnsResolver(fake, 60000, 1, 0);
+        resolver.connectFailed(bad);
+        Assertions.assertFalse(resolver.isQuarantined(bad));
+    }
+
+    @Test
+    public void testSpreadConnections() throws Exception {
+        final AtomicInteger[] hits = { new AtomicInteger(), new AtomicInteger() };
+        HttpServer first = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        int port = first.getAddress().getPort();
+        HttpServer second = HttpServer.create(new InetSocketAddress("127.0.0.2", port), 0);
+        HttpServer[] servers = { first, second };
+        for (int i = 0; i < servers.length; i++) {
+            final AtomicInteger counter = hits[i];
+            servers[i].createContext("/", new HttpHandler() {
+                @Override
+                public void handle(HttpExchange exchange) throws IOException {
+                    InputStream in = exchange.getRequestBody();
+                    while (in.read() != -1) {
+                    }
+                    counter.incrementAndGet();
+                    exchange.getResponseHeaders().add("x-oss-request-id", "stub-request-id");
+                    exchange.getResponseHeaders().add("Connection", "close");
+                    exchange.sendResponseHeaders(200, -1);
+                    exchange.close();
+                }
+            });
+            servers[i].start();
+        }
+
+        // 127.0.0.3 has no server and refuses connections
+        FakeDnsResolver fake = new FakeDnsResolver("127.0.0.1", "127.0.0.2", "127.0.0.3");
+        RoundRobinDnsResolver resolver = new RoundRobinDnsResolver(fake, 60000, 2, 60000);
+        ClientBuilderConfiguration conf = new ClientBuilderConfiguration();
+        conf.setSLDEnabled(true);
+        conf.setDnsResolver(resolver);
+        OSS client = new OSSClientBuilder().build("http://oss-test.local:" + port, "ak", "sk", conf);
+        try {
+            for (int i = 0; i < 12; i++) {
+                client.putObject("bucket", "key" + i, new ByteArrayInputStream(new byte[10]));
+            }
+            Assertions.assertTrue(hits[0].get() >= 4, "hits " + hits[0] + ", " + hits[1]);
+            Assertions.assertTrue(hits[1].get() >= 4, "hits " + hits[0] + ", " + hits[1]);
+            Assertions.assertEquals(12, hits[0].get() + hits[1].get());
+            Assertions.assertTrue(resolver.isQuarantined(fake.addresses[2]));
+            Assertions.assertEquals(1, fake.lookups.get());
+        } finally {
+            client.shutdown();
+            first.stop(0);
+            second.stop(0);
+        }
+    }
+}
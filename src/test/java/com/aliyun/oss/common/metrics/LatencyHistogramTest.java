@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.metrics;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketBounds() {
+        long[] values = {0, 1, 63, 64, 65, 127, 128, 1000, 123456789L, 1L << 40, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = LatencyHistogram.bucketIndex(value);
+            long upper = LatencyHistogram.bucketUpperBound(index);
+            if (value < (1L << 47)) {
+                Assertions.assertTrue(upper >= value);
+                Assertions.assertTrue(upper - value <= value / 32, "value " + value + " upper " + upper);
+            }
+            if (index > 0) {
+                Assertions.assertTrue(LatencyHistogram.bucketUpperBound(index - 1) < upper);
+            }
+        }
+        for (long value = 0; value < 100000; value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            Assertions.assertTrue(LatencyHistogram.bucketUpperBound(index) >= value);
+            Assertions.assertTrue(index == 0 || LatencyHistogram.bucketUpperBound(index - 1) < value);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        LatencyHistogram.Snapshot empty = histogram.snapshot();
+        Assertions.assertEquals(0, empty.getCount());
+        Assertions.assertEquals(0, empty.getPercentileNanos(99));
+
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(i * 1000L);
+        }
+        histogram.record(-5);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        Assertions.assertEquals(10001, snapshot.getCount());
+        Assertions.assertEquals(10000 * 1000L, snapshot.getMaxNanos());
+        Assertions.assertEquals(0, snapshot.getPercentileNanos(0));
+        long p50 = snapshot.getPercentileNanos(50);
+        Assertions.assertTrue(p50 >= 5000 * 1000L && p50 <= 5000 * 1000L * 33 / 32, String.valueOf(p50));
+        long p99 = snapshot.getPercentileNanos(99);
+        Assertions.assertTrue(p99 >= 9900 * 1000L && p99 <= 9900 * 1000L * 33 / 32, String.valueOf(p99));
+        Assertions.assertEquals(10000 * 1000L, snapshot.getPercentileNanos(100));
+        Assertions.assertEquals(5000.5 * 1000 * 10000 / 10001, snapshot.getMeanNanos(), 1);
+    }
+
+    @Test
+    public void testConcurrentRecord() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Random random = new Random();
+                    for (int j = 0; j < 100000; j++) {
+                        histogram.record(random.nextInt(1000000));
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertEquals(400000, histogram.getCount());
+        Assertions.assertEquals(400000, histogram.snapshot().getCount());
+    }
+}
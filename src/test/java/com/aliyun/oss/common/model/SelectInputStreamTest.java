@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.model.SelectInputStream;
+import com.aliyun.oss.model.SelectObjectException;
+import com.aliyun.oss.model.SelectRecordListener;
+import com.aliyun.oss.utils.SelectFrameUtils;
+
+public class SelectInputStreamTest {
+
+    private static byte[] payload(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i % 251);
+        }
+        return data;
+    }
+
+    private static SelectInputStream open(byte[] frames, int bufferSize) {
+        return new SelectInputStream(new ByteArrayInputStream(frames), null, true, bufferSize);
+    }
+
+    @Test
+    public void testReadSingleBytes() throws IOException {
+        byte[] data = payload(1000);
+        SelectInputStream in = open(SelectFrameUtils.encode(data, 7), 64);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            out.write(b);
+        }
+        Assertions.assertArrayEquals(data, out.toByteArray());
+        Assertions.assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void testReadBlocks() throws IOException {
+        byte[] data = payload(100000);
+        // 4096 bytes reads bypass the 64 bytes buffer, 10 bytes reads go through it
+        int[] readSizes = {10, 4096};
+        for (int readSize : readSizes) {
+            SelectInputStream in = open(SelectFrameUtils.encode(data, 3000), 64);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[readSize];
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                out.write(buf, 0, len);
+            }
+            Assertions.assertArrayEquals(data, out.toByteArray());
+        }
+    }
+
+    @Test
+    public void testContinuousFrame() throws IOException {
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        frames.write(SelectFrameUtils.continuousFrame(10));
+        frames.write(SelectFrameUtils.dataFrame("a,b\n".getBytes(), 20));
+        frames.write(SelectFrameUtils.continuousFrame(30));
+        frames.write(SelectFrameUtils.dataFrame("c,d\n".getBytes(), 40));
+        frames.write(SelectFrameUtils.endFrame(40, 206, null));
+
+        SelectInputStream in = open(frames.toByteArray(), 64);
+        byte[] buf = new byte[100];
+        int total = 0;
+        int len;
+        while ((len = in.read(buf, total, buf.length - total)) != -1) {
+            total += len;
+        }
+        Assertions.assertEquals("a,b\nc,d\n", new String(buf, 0, total));
+    }
+
+    @Test
+    public void testRecords() throws IOException {
+        String text = "a\nbb\n\nccc" + new String(new char[300]).replace('\0', 'x') + "\nlast";
+        List<String> expected = Arrays.asList(text.split("\n", -1));
+        for (int frameSize = 1; frameSize < 80; frameSize += 13) {
+            SelectInputStream in = open(SelectFrameUtils.encode(text.getBytes(), frameSize), 64);
+            final List<String> records = new ArrayList<String>();
+            long count = in.readRecords(new SelectRecordListener() {
+                @Override
+                public void onRecord(byte[] buf, int off, int len) {
+                    records.add(new String(buf, off, len));
+                }
+            });
+            Assertions.assertEquals(expected.size(), count);
+            Assertions.assertEquals(expected, records);
+            Assertions.assertFalse(in.nextRecord());
+        }
+    }
+
+    @Test
+    public void testMultiByteDelimiter() throws IOException {
+        String text = "r1\r\nr\r2\r\n\r\nr4\r\n";
+        for (int frameSize = 1; frameSize < 8; frameSize++) {
+            SelectInputStream in = open(SelectFrameUtils.encode(text.getBytes(), frameSize), 64);
+            in.setRecordDelimiter("\r\n");
+            List<String> records = new ArrayList<String>();
+            while (in.nextRecord()) {
+                records.add(new String(in.getRecordBuffer(), in.getRecordOffset(), in.getRecordLength()));
+            }
+            Assertions.assertEquals(Arrays.asList("r1", "r\r2", "", "r4"), records);
+        }
+
+        SelectInputStream in = open(SelectFrameUtils.encode("aabaab".getBytes(), 2), 64);
+        in.setRecordDelimiter("aab");
+        Assertions.assertTrue(in.nextRecord());
+        Assertions.assertEquals(0, in.getRecordLength());
+        Assertions.assertTrue(in.nextRecord());
+        Assertions.assertEquals(0, in.getRecordLength());
+        Assertions.assertFalse(in.nextRecord());
+    }
+
+    @Test
+    public void testInvalidCrc() throws IOException {
+        byte[] frames = SelectFrameUtils.encode(payload(100), 100);
+        // corrupt the payload of the data frame
+        frames[30] ^= 1;
+        SelectInputStream in = open(frames, 64);
+        try {
+            while (in.read() != -1) {
+            }
+            Assertions.fail("crc check should fail");
+        } catch (SelectObjectException e) {
+            Assertions.assertEquals(SelectObjectException.INVALID_CRC, e.getErrorCode());
+        }
+    }
+
+    @Test
+    public void testErrorEndFrame() throws IOException {
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        frames.write(SelectFrameUtils.dataFrame("a\n".getBytes(), 2));
+        frames.write(SelectFrameUtils.endFrame(2, 400, "InvalidCsvLine.line 2 is invalid"));
+        SelectInputStream in = open(frames.toByteArray(), 64);
+        Assertions.assertTrue(in.nextRecord());
+        try {
+            in.nextRecord();
+            Assertions.fail("select should fail");
+        } catch (SelectObjectException e) {
+            Assertions.assertEquals("InvalidCsvLine", e.getErrorCode());
+            Assertions.assertEquals("line 2 is invalid", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testTruncatedStream() throws IOException {
+        byte[] frames = SelectFrameUtils.encode(payload(100), 100);
+        SelectInputStream in = open(Arrays.copyOf(frames, 50), 64);
+        try {
+            in.read(new byte[100]);
+            in.read(new byte[100]);
+            Assertions.fail("truncated stream should fail");
+        } catch (SelectObjectException e) {
+            Assertions.assertEquals(SelectObjectException.INVALID_INPUT_STREAM, e.getErrorCode());
+        }
+    }
+}
@@ -937,7 +937,7 @@ public class RequestMarshallersTest {
         List<DeleteVersionsRequest.KeyVersion> keys = new ArrayList<DeleteVersionsRequest.KeyVersion>();
         keys.add(new DeleteVersionsRequest.KeyVersion("key1", "version"));
         request.setKeys(keys);
-        byte[] data = deleteVersionsRequestMarshaller.marshall(request);
+        byte[] data = deleteVersionsRequestMarshaller.marshall(request).toByteArray();
         ByteArrayInputStream is = new ByteArrayInputStream(data);
 
         SAXBuilder builder = new SAXBuilder();
@@ -963,7 +963,7 @@ public class RequestMarshallersTest {
         request.setExpression("select * from table;");
         request.setMaxSkippedRecordsAllowed(10);
 
-        byte[] data = selectObjectRequestMarshaller.marshall(request);
+        byte[] data = selectObjectRequestMarshaller.marshall(request).toByteArray();
         ByteArrayInputStream is = new ByteArrayInputStream(data);
 
         SAXBuilder builder = new SAXBuilder();
@@ -1243,4 +1243,112 @@ public class RequestMarshallersTest {
         Assertions.assertEquals("true", status);
     }
 
+    private static String read(FixedLengthInputStream is) throws IOException {
+        byte[] data = new byte[(int) is.getLength()];
+        int off = 0;
+        int len;
+        while (off < data.length && (len = is.read(data, off, data.length - off)) > 0) {
+            off += len;
+        }
+        Assertions.assertEquals(-1, is.read());
+        return new String(data, "UTF-8");
+    }
+
+    @Test
+    public void testDeleteObjectsRequestMarshallerOutput() throws IOException {
+        DeleteObjectsRequest request = new DeleteObjectsRequest("bucket");
+        request.setKeys(Arrays.asList("a", "k<&>\"\t\r\n", "\u4e2d\u6587/\ud83d\ude00"));
+        String expected = "<Delete><Quiet>false</Quiet>"
+                + "<Object><Key>a</Key></Object>"
+                + "<Object><Key>k&lt;&amp;&gt;&quot;&#x0009;&#x000D;&#x000A;</Key></Object>"
+                + "<Object><Key>\u4e2d\u6587/\ud83d\ude00</Key></Object>"
+                + "</Delete>";
+        Assertions.assertArrayEquals(expected.getBytes("UTF-8"), deleteObjectsRequestMarshaller.marshall(request).toByteArray());
+    }
+
+    @Test
+    public void testDeleteVersionsRequestMarshallerOutput() throws IOException {
+        DeleteVersionsRequest request = new DeleteVersionsRequest("bucket");
+        request.setQuiet(true);
+        List<DeleteVersionsRequest.KeyVersion> keys = new ArrayList<DeleteVersionsRequest.KeyVersion>();
+        keys.add(new DeleteVersionsRequest.KeyVersion("a&b", "v1"));
+        keys.add(new DeleteVersionsRequest.KeyVersion("c"));
+        request.setKeys(keys);
+        String expected = "<Delete><Quiet>true</Quiet>"
+                + "<Object><Key>a&amp;b</Key><VersionId>v1</VersionId></Object>"
+                + "<Object><Key>c</Key></Object>"
+                + "</Delete>";
+        Assertions.assertArrayEquals(expected.getBytes("UTF-8"), deleteVersionsRequestMarshaller.marshall(request).toByteArray());
+    }
+
+    @Test
+    public void testCompleteMultipartUploadRequestMarshallerOutput() throws IOException {
+        List<PartETag> parts = new ArrayList<PartETag>();
+        parts.add(new PartETag(1, "ETAG1"));
+        parts.add(new PartETag(10000, "\"ETAG2\""));
+        CompleteMultipartUploadRequest request = new CompleteMultipartUploadRequest("bucket", "key", "id", parts);
+        String expected = "<CompleteMultipartUpload>"
+                + "<Part><PartNumber>1</PartNumber><ETag>&quot;ETAG1&quot;</ETag></Part>"
+                + "<Part><PartNumber>10000</PartNumber><ETag>&quot;ETAG2&quot;</ETag></Part>"
+                + "</CompleteMultipartUpload>";
+        Assertions.assertEquals(expected, read(completeMultipartUploadRequestMarshaller.marshall(request)));
+    }
+
+    @Test
+    public void testSetBucketLifecycleRequestMarshallerOutput() throws IOException {
+        SetBucketLifecycleRequest request = new SetBucketLifecycleRequest("bucket");
+        Map<String, String> tags = new LinkedHashMap<String, String>();
+        tags.put("k", "v");
+        LifecycleRule rule = new LifecycleRule("rule1", "logs/", LifecycleRule.RuleStatus.Enabled, 30);
+        rule.setTags(tags);
+        rule.setAbortMultipartUpload(new LifecycleRule.AbortMultipartUpload(7));
+        List<LifecycleRule.StorageTransition> transitions = new ArrayList<LifecycleRule.StorageTransition>();
+        transitions.add(new LifecycleRule.StorageTransition(10, StorageClass.IA));
+        rule.setStorageTransition(transitions);
+        request.AddLifecycleRule(rule);
+        LifecycleRule rule2 = new LifecycleRule("rule2", null, LifecycleRule.RuleStatus.Disabled);
+        rule2.setExpiredDeleteMarker(true);
+        rule2.setNoncurrentVersionExpiration(new LifecycleRule.NoncurrentVersionExpiration(5));
+        List<LifecycleRule.NoncurrentVersionStorageTransition> noncurrent = new ArrayList<LifecycleRule.NoncurrentVersionStorageTransition>();
+        noncurrent.add(new LifecycleRule.NoncurrentVersionStorageTransition(3, StorageClass.Archive));
+        rule2.setNoncurrentVersionStorageTransitions(noncurrent);
+        request.AddLifecycleRule(rule2);
+        String expected = "<LifecycleConfiguration>"
+                + "<Rule><ID>rule1</ID><Prefix>logs/</Prefix><Tag><Key>k</Key><Value>v</Value></Tag>"
+                + "<Status>Enabled</Status><Expiration><Days>30</Days></Expiration>"
+                + "<AbortMultipartUpload><Days>7</Days></AbortMultipartUpload>"
+                + "<Transition><Days>10</Days><StorageClass>IA</StorageClass></Transition></Rule>"
+                + "<Rule><ID>rule2</ID><Prefix></Prefix><Status>Disabled</Status>"
+                + "<Expiration><ExpiredObjectDeleteMarker>true</ExpiredObjectDeleteMarker></Expiration>"
+                + "<NoncurrentVersionExpiration><NoncurrentDays>5</NoncurrentDays></NoncurrentVersionExpiration>"
+                + "<NoncurrentVersionTransition><NoncurrentDays>3</NoncurrentDays><StorageClass>Archive</StorageClass></NoncurrentVersionTransition>"
+                + "</Rule></LifecycleConfiguration>";
+        Assertions.assertEquals(expected, read(setBucketLifecycleRequestMarshaller.marshall(request)));
+    }
+
+    @Test
+    public void testSetBucketCORSRequestMarshallerOutput() throws IOException {
+        SetBucketCORSRequest request = new SetBucketCORSRequest("bucket");
+        SetBucketCORSRequest.CORSRule corsRule = new SetBucketCORSRequest.CORSRule();
+        corsRule.addAllowdOrigin("*");
+        corsRule.addAllowedMethod("GET");
+        corsRule.addAllowedHeader("x-oss-*");
+        corsRule.addExposeHeader("ETag");
+        corsRule.setMaxAgeSeconds(100);
+        request.addCorsRule(corsRule);
+        request.setResponseVary(true);
+        String expected = "<CORSConfiguration><CORSRule><AllowedOrigin>*</AllowedOrigin>"
+                + "<AllowedMethod>GET</AllowedMethod><AllowedHeader>x-oss-*</AllowedHeader>"
+                + "<ExposeHeader>ETag</ExposeHeader><MaxAgeSeconds>100</MaxAgeSeconds></CORSRule>"
+                + "<ResponseVary>true</ResponseVary></CORSConfiguration>";
+        Assertions.assertEquals(expected, read(setBucketCORSRequestMarshaller.marshall(request)));
+    }
+
+    @Test
+    public void testSetBucketTaggingRequestMarshallerOutput() throws IOException {
+        SetTaggingRequest request = new SetTaggingRequest("bucket", "key");
+        request.setTag("k1", "v\u00e9");
+        String expected = "<Tagging><TagSet><Tag><Key>k1</Key><Value>v\u00e9</Value></Tag></TagSet></Tagging>";
+        Assertions.assertEquals(expected, read(setBucketTaggingRequestMarshaller.marshall(request)));
+    }
 }
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.common.parser;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.common.comm.io.FixedLengthInputStream;
+import com.aliyun.oss.common.utils.BinaryUtil;
+import com.aliyun.oss.common.utils.IOUtils;
+
+public class XmlWriterTest {
+
+    @Test
+    public void testUtf8MatchesGetBytes() throws IOException {
+        Random random = new Random(1);
+        char[] samples = { 'a', '/', 'é', '中', '\ud83d', '\ude00', '￿' };
+        for (int n = 0; n < 1000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int len = random.nextInt(20);
+            for (int i = 0; i < len; i++) {
+                if (random.nextInt(4) == 0) {
+                    sb.append("😀");
+                } else {
+                    sb.append(samples[random.nextInt(samples.length)]);
+                }
+            }
+            String text = sb.toString();
+            XmlWriter xml = new XmlWriter(16);
+            xml.text(text);
+            Assertions.assertArrayEquals(text.getBytes("UTF-8"), xml.toByteArray(), text);
+        }
+    }
+
+    @Test
+    public void testElements() throws IOException {
+        XmlWriter xml = new XmlWriter(1);
+        xml.start("A").element("N", 0).element("N", 1234567890123L).element("N", -5)
+                .element("B", true).element("S", (Object) null)
+                .escapedElement("K", "<a & \"b\">\t\r\n").escapedElement("E", null)
+                .start("T").quoted("etag").end("T").end("A");
+        String expected = "<A><N>0</N><N>1234567890123</N><N>-5</N><B>true</B><S>null</S>"
+                + "<K>&lt;a &amp; &quot;b&quot;&gt;&#x0009;&#x000D;&#x000A;</K><E></E>"
+                + "<T>&quot;etag&quot;</T></A>";
+        Assertions.assertEquals(expected, new String(xml.toByteArray(), "UTF-8"));
+        Assertions.assertEquals(expected.length(), xml.size());
+        Assertions.assertArrayEquals(BinaryUtil.calculateMd5(expected.getBytes("UTF-8")), xml.md5());
+
+        FixedLengthInputStream in = xml.toInputStream();
+        Assertions.assertEquals(expected.length(), in.getLength());
+        Assertions.assertEquals(expected, IOUtils.readStreamAsString(in, "UTF-8"));
+    }
+}
@@ -19,6 +19,9 @@
 
 package com.aliyun.oss.common.utils;
 
+import java.util.Random;
+
+import org.apache.commons.codec.binary.Base64;
 import org.junit.jupiter.api.Assertions;
 
 import org.junit.Test;
@@ -31,6 +34,16 @@ public class BinaryUtilTest {
         Assertions.assertArrayEquals(BinaryUtil.fromBase64String(BinaryUtil.toBase64String(binaryData)), binaryData);
     }
 
+    @Test
+    public void testBase64StringMatchesCodec() {
+        Random random = new Random(0);
+        for (int len = 0; len < 70; len++) {
+            byte[] binaryData = new byte[len];
+            random.nextBytes(binaryData);
+            Assertions.assertEquals(new String(Base64.encodeBase64(binaryData)), BinaryUtil.toBase64String(binaryData));
+        }
+    }
+
     @Test
     public void TestCalculateMd5() {
         String binaryString = "OssService";
@@ -22,11 +22,14 @@ package com.aliyun.oss.common.utils;
 
 import com.aliyun.oss.ClientConfiguration;
 import com.aliyun.oss.internal.OSSUtils;
+import com.aliyun.oss.internal.ResolvedEndpointCache;
 import org.junit.jupiter.api.*;
 import org.junit.Test;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Random;
 
 import org.junit.jupiter.api.Assertions;
 
@@ -108,4 +111,63 @@ public class OSSUtilsTest {
             Assertions.assertTrue(e instanceof  NullPointerException);
         }
     }
+
+    @Test
+    public void testValidatorsMatchRegex() throws Exception {
+        String alphabet = "abz09-_A.\u00e9/";
+        Random random = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            int length = random.nextInt(70);
+            StringBuilder sb = new StringBuilder();
+            for (int j = 0; j < length; j++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String name = sb.toString();
+            Assertions.assertEquals(name.matches("^[a-z0-9][a-z0-9-_]{1,61}[a-z0-9]$"),
+                    OSSUtils.validateBucketName(name), name);
+            Assertions.assertEquals(name.matches("^[a-z0-9][a-z0-9-]{1,61}[a-z0-9]$"),
+                    OSSUtils.validateBucketNameCreation(name), name);
+            Assertions.assertEquals(name.matches("^[a-zA-Z0-9._-]+$"), OSSUtils.validateEndpoint(name), name);
+        }
+
+        String[] parts = { "a", "\u00e9", "\u4e2d", "\ud83d\ude00", "\ud83d", "\ude00" };
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int count = 300 + random.nextInt(800);
+            for (int j = 0; j < count; j++) {
+                sb.append(parts[random.nextInt(parts.length)]);
+            }
+            String key = sb.toString();
+            int encodedLength = key.getBytes("utf-8").length;
+            Assertions.assertEquals(encodedLength < 1024, OSSUtils.validateObjectKey(key), "length " + encodedLength);
+        }
+    }
+
+    @Test
+    public void testDetermineFinalEndpoint() throws Exception {
+        ClientConfiguration conf = new ClientConfiguration();
+        URI endpoint = new URI("http://oss-cn-hangzhou.aliyuncs.com:8080");
+        URI cname = new URI("https://img.example.com");
+        ResolvedEndpointCache cache = new ResolvedEndpointCache();
+
+        URI resolved = OSSUtils.determineFinalEndpoint(endpoint, "bucket", conf, cache);
+        Assertions.assertEquals("http://bucket.oss-cn-hangzhou.aliyuncs.com:8080", resolved.toString());
+        Assertions.assertSame(resolved, OSSUtils.determineFinalEndpoint(endpoint, "bucket", conf, cache));
+        Assertions.assertEquals("http://oss-cn-hangzhou.aliyuncs.com:8080",
+                OSSUtils.determineFinalEndpoint(endpoint, null, conf, cache).toString());
+        Assertions.assertEquals("https://img.example.com",
+                OSSUtils.determineFinalEndpoint(cname, "bucket", conf, cache).toString());
+
+        conf.setSupportCname(false);
+        Assertions.assertEquals("https://bucket.img.example.com",
+                OSSUtils.determineFinalEndpoint(cname, "bucket", conf, cache).toString());
+        conf.setSupportCname(true);
+        conf.setCnameExcludeList(Arrays.asList("example.com"));
+        Assertions.assertEquals("https://bucket.img.example.com",
+                OSSUtils.determineFinalEndpoint(cname, "bucket", conf, cache).toString());
+
+        conf.setSLDEnabled(true);
+        Assertions.assertEquals("http://oss-cn-hangzhou.aliyuncs.com:8080",
+                OSSUtils.determineFinalEndpoint(endpoint, "bucket", conf, cache).toString());
+    }
 }
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.perftests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.aliyun.oss.ClientBuilderConfiguration;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSClientBuilder;
+import com.aliyun.oss.model.BulkUploadRequest;
+import com.aliyun.oss.model.BulkUploadResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Uploads small files to a local server that discards them, first by
+ * putObject calls from a thread pool and then by bulkUpload, usage:
+ * BulkUploadBenchmark [files, default 20000] [threads, default 32]
+ */
+public class BulkUploadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int fileCount = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        ExecutorService serverExecutor = Executors.newFixedThreadPool(threads * 2);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                InputStream in = exchange.getRequestBody();
+                byte[] buf = new byte[16 * 1024];
+                while (in.read(buf) != -1) {
+                }
+                exchange.getResponseHeaders().add("x-oss-request-id", "bench");
+                exchange.getResponseHeaders().add("ETag", "\"etag\"");
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+
+        // 4 to 64KB files
+        File directory = File.createTempFile("bulk-upload-bench", "");
+        directory.delete();
+        directory.mkdirs();
+        final List<BulkUploadRequest.Entry> entries = new ArrayList<BulkUploadRequest.Entry>();
+        Random random = new Random(0);
+        long bytes = 0;
+        for (int i = 0; i < fileCount; i++) {
+            byte[] data = new byte[4096 + random.nextInt(60 * 1024)];
+            random.nextBytes(data);
+            File file = new File(directory, i + ".bin");
+            FileOutputStream out = new FileOutputStream(file);
+            out.write(data);
+            out.close();
+            entries.add(new BulkUploadRequest.Entry("bench/" + i + ".bin", file));
+            bytes += data.length;
+        }
+
+        ClientBuilderConfiguration conf = new ClientBuilderConfiguration();
+        conf.setSLDEnabled(true);
+        conf.setMaxConnections(threads);
+        final OSS client = new OSSClientBuilder().build("http://127.0.0.1:" + server.getAddress().getPort(), "ak",
+                "sk", conf);
+        try {
+            // warm up
+            client.bulkUpload(new BulkUploadRequest("bucket", entries.subList(0, Math.min(2000, fileCount))));
+
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            long start = System.nanoTime();
+            for (final BulkUploadRequest.Entry entry : entries) {
+                pool.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        client.putObject("bucket", entry.getKey(), entry.getFile());
+                    }
+                });
+            }
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.HOURS);
+            report("putObject pool", fileCount, bytes, System.nanoTime() - start);
+
+            BulkUploadRequest request = new BulkUploadRequest("bucket", entries);
+            request.setTaskNum(threads);
+            start = System.nanoTime();
+            BulkUploadResult result = client.bulkUpload(request);
+            report("bulkUpload", result.getObjectsUploaded(), result.getBytesUploaded(), System.nanoTime() - start);
+        } finally {
+            client.shutdown();
+            server.stop(0);
+            serverExecutor.shutdown();
+            for (BulkUploadRequest.Entry entry : entries) {
+                entry.getFile().delete();
+            }
+            directory.delete();
+        }
+    }
+
+    private static void report(String name, long objects, long bytes, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.println(String.format("%-16s %,d objects, %,d bytes in %.2f s: %,.0f objects/s, %.1f MB/s", name,
+                objects, bytes, seconds, objects / seconds, bytes / seconds / 1024 / 1024));
+    }
+}
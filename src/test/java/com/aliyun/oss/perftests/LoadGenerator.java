@@ -0,0 +1,579 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.perftests;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import com.aliyun.oss.ClientBuilderConfiguration;
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSClientBuilder;
+import com.aliyun.oss.ServiceException;
+import com.aliyun.oss.common.utils.VersionInfoUtils;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.ListObjectsV2Request;
+import com.aliyun.oss.model.OSSObject;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PartETag;
+import com.aliyun.oss.model.UploadPartRequest;
+import com.aliyun.oss.stub.OSSStubServer;
+import com.aliyun.oss.stub.StubFault;
+
+/**
+ * Runs the scenarios of a scenarios file against an OSS endpoint or the in-process
+ * {@link OSSStubServer}, and reports latency percentiles, throughput and errors per
+ * operation, usage:
+ * LoadGenerator [scenarios file, default perftests/loadgen-scenarios.xml on the classpath]
+ * [-o results.csv] [scenario name ...]
+ *
+ * With a rate the run is open loop: requests are sent at their arrival times whether or
+ * not earlier requests have completed, and the latency of a request is measured from its
+ * arrival time, so a stalled server shows up as queueing delay instead of fewer samples.
+ * Without a rate the run is closed loop, each worker sends its next request as soon as
+ * the previous one completes.
+ */
+public class LoadGenerator {
+
+    private static final String DEFAULT_SCENARIOS = "perftests/loadgen-scenarios.xml";
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    /**
+     * The statistics of one operation type, latencies are recorded in microseconds.
+     */
+    public static class OperationStats {
+        private final OperationType type;
+        private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+        private final Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+
+        OperationStats(OperationType type) {
+            this.type = type;
+        }
+
+        synchronized Histogram drain() {
+            Histogram interval = recorder.getIntervalHistogram();
+            total.add(interval);
+            return interval;
+        }
+
+        public OperationType getType() {
+            return type;
+        }
+
+        /**
+         * The latencies of the successful operations, in microseconds.
+         */
+        public synchronized Histogram getHistogram() {
+            return total.copy();
+        }
+
+        public synchronized long getCount() {
+            return total.getTotalCount();
+        }
+
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        public long getErrorCount() {
+            return errors.get();
+        }
+    }
+
+    private final LoadScenario scenario;
+    private final PrintStream out;
+    private final Map<OperationType, OperationStats> stats =
+            new EnumMap<OperationType, OperationStats>(OperationType.class);
+    private final ConcurrentMap<String, AtomicLong> errors = new ConcurrentHashMap<String, AtomicLong>();
+    private final ThreadLocal<byte[]> readBuffers = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[64 * 1024];
+        }
+    };
+
+    private OSSStubServer stub;
+    private OSS client;
+    private String[] keys;
+    private byte[] payload;
+    private volatile long measureStart;
+    private long measureEnd;
+    private int maxBacklog;
+
+    public LoadGenerator(LoadScenario scenario, PrintStream out) {
+        this.scenario = scenario;
+        this.out = out;
+        for (OperationType type : OperationType.values()) {
+            stats.put(type, new OperationStats(type));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String file = null;
+        String csv = null;
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-o") && i + 1 < args.length) {
+                csv = args[++i];
+            } else if (file == null && new File(args[i]).isFile()) {
+                file = args[i];
+            } else {
+                names.add(args[i]);
+            }
+        }
+
+        InputStream in = file != null ? new FileInputStream(file)
+                : LoadGenerator.class.getClassLoader().getResourceAsStream(DEFAULT_SCENARIOS);
+        List<LoadScenario> scenarios;
+        try {
+            scenarios = LoadScenario.load(in);
+        } finally {
+            in.close();
+        }
+
+        for (LoadScenario scenario : scenarios) {
+            if (!names.isEmpty() && !names.contains(scenario.getName())) {
+                continue;
+            }
+            LoadGenerator generator = new LoadGenerator(scenario, System.out);
+            generator.run();
+            generator.printReport(System.out);
+            if (csv != null) {
+                generator.writeCsv(new File(csv));
+            }
+        }
+    }
+
+    /**
+     * Runs the scenario, including the preparation of the keys and the warmup.
+     */
+    public void run() throws Exception {
+        setUp();
+        try {
+            long start = System.nanoTime();
+            measureStart = start + TimeUnit.SECONDS.toNanos(scenario.getWarmupSeconds());
+            long end = measureStart + TimeUnit.SECONDS.toNanos(scenario.getDurationSeconds());
+            ScheduledExecutorService reporter = startReporter();
+            try {
+                if (scenario.getRate() > 0) {
+                    runOpenLoop(start, end);
+                } else {
+                    runClosedLoop(end);
+                }
+                measureEnd = System.nanoTime();
+            } finally {
+                reporter.shutdownNow();
+            }
+            for (OperationStats s : stats.values()) {
+                s.drain();
+            }
+        } finally {
+            tearDown();
+        }
+    }
+
+    private void setUp() throws Exception {
+        ClientBuilderConfiguration conf;
+        String endpoint = scenario.getEndpoint();
+        if (scenario.isStub()) {
+            stub = new OSSStubServer().start();
+            stub.setSeed(scenario.getSeed());
+            stub.setLatency(scenario.getStubLatency()).setBandwidth(scenario.getStubBandwidth());
+            stub.setFaultRate(StubFault.SERVICE_UNAVAILABLE, scenario.getStubErrorRate());
+            endpoint = stub.getEndpoint();
+            conf = OSSStubServer.newClientConfiguration();
+        } else {
+            conf = new ClientBuilderConfiguration();
+        }
+        conf.setMaxConnections(scenario.getMaxConnections() > 0 ? scenario.getMaxConnections()
+                : Math.max(scenario.getConcurrency(), conf.getMaxConnections()));
+        if (scenario.getMaxErrorRetry() >= 0) {
+            conf.setMaxErrorRetry(scenario.getMaxErrorRetry());
+        }
+        if (scenario.getSocketTimeout() > 0) {
+            conf.setSocketTimeout(scenario.getSocketTimeout());
+        }
+        if (scenario.getConnectionTimeout() > 0) {
+            conf.setConnectionTimeout(scenario.getConnectionTimeout());
+        }
+        conf.setCrcCheckEnabled(scenario.isCrcCheckEnabled());
+        client = new OSSClientBuilder().build(endpoint, scenario.getAccessKeyId(),
+                scenario.getAccessKeySecret(), conf);
+
+        long maxSize = scenario.getMaxSize();
+        if (maxSize > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Object sizes larger than 2GB are not supported");
+        }
+        payload = new byte[(int) maxSize];
+        new Random(scenario.getSeed()).nextBytes(payload);
+
+        keys = new String[scenario.getKeyCount()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = scenario.getKeyPrefix() + String.format("%08d", i);
+        }
+
+        // the stub creates buckets on first use
+        if (!scenario.isStub() && !client.doesBucketExist(scenario.getBucketName())) {
+            client.createBucket(scenario.getBucketName());
+        }
+        if (scenario.isPrepare()) {
+            prepare();
+        }
+    }
+
+    private void prepare() throws InterruptedException {
+        ThreadPoolExecutor pool = newPool();
+        Random random = new Random(scenario.getSeed());
+        for (final String key : keys) {
+            final long size = scenario.nextSize(random);
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        put(key, size);
+                    } catch (RuntimeException e) {
+                        recordError("PREPARE", e);
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+    private void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        if (stub != null) {
+            stub.close();
+        }
+    }
+
+    private ThreadPoolExecutor newPool() {
+        return new ThreadPoolExecutor(scenario.getConcurrency(), scenario.getConcurrency(), 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>());
+    }
+
+    /**
+     * Sends the requests at their arrival times, on an unbounded queue so that the
+     * arrivals never wait for the workers.
+     */
+    private void runOpenLoop(long start, long end) throws InterruptedException {
+        ThreadPoolExecutor pool = newPool();
+        Random random = new Random(scenario.getSeed());
+        double meanInterval = 1e9 / scenario.getRate();
+        long next = start;
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            while (wait > 0) {
+                LockSupport.parkNanos(wait);
+                wait = next - System.nanoTime();
+            }
+            final LoadScenario.Operation operation = scenario.nextOperation(random);
+            final String key = keys[random.nextInt(keys.length)];
+            final long size = scenario.nextSize(random);
+            final long arrival = next;
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    execute(operation, key, size, arrival);
+                }
+            });
+            maxBacklog = Math.max(maxBacklog, pool.getQueue().size());
+            if (scenario.isPoisson()) {
+                next += (long) (-Math.log(1 - random.nextDouble()) * meanInterval);
+            } else {
+                next += (long) meanInterval;
+            }
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+    private void runClosedLoop(final long end) throws InterruptedException {
+        Thread[] workers = new Thread[scenario.getConcurrency()];
+        for (int i = 0; i < workers.length; i++) {
+            final Random random = new Random(scenario.getSeed() + i + 1);
+            workers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    long now;
+                    while ((now = System.nanoTime()) < end) {
+                        execute(scenario.nextOperation(random), keys[random.nextInt(keys.length)],
+                                scenario.nextSize(random), now);
+                    }
+                }
+            }, "loadgen-worker-" + i);
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private void execute(LoadScenario.Operation operation, String key, long size, long arrival) {
+        OperationType type = operation.getType();
+        long bytes = 0;
+        try {
+            switch (type) {
+            case PUT:
+                put(key, size);
+                bytes = size;
+                break;
+            case GET:
+                bytes = get(key);
+                break;
+            case HEAD:
+                client.getObjectMetadata(scenario.getBucketName(), key);
+                break;
+            case LIST:
+                ListObjectsV2Request request = new ListObjectsV2Request(scenario.getBucketName(),
+                        scenario.getKeyPrefix());
+                request.setStartAfter(key);
+                request.setMaxKeys(operation.getMaxKeys());
+                client.listObjectsV2(request);
+                break;
+            case MULTIPART:
+                multipartUpload(key, size, operation.getPartSize());
+                bytes = size;
+                break;
+            }
+        } catch (Exception e) {
+            if (arrival >= measureStart) {
+                stats.get(type).errors.incrementAndGet();
+                recordError(type.name(), e);
+            }
+            return;
+        }
+        if (arrival >= measureStart) {
+            OperationStats s = stats.get(type);
+            s.recorder.recordValue(Math.max(0, (System.nanoTime() - arrival) / 1000));
+            s.bytes.addAndGet(bytes);
+        }
+    }
+
+    private void put(String key, long size) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(size);
+        client.putObject(scenario.getBucketName(), key, new ByteArrayInputStream(payload, 0, (int) size), metadata);
+    }
+
+    private long get(String key) throws IOException {
+        OSSObject object = client.getObject(scenario.getBucketName(), key);
+        InputStream in = object.getObjectContent();
+        byte[] buf = readBuffers.get();
+        long total = 0;
+        try {
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                total += len;
+            }
+        } finally {
+            in.close();
+        }
+        return total;
+    }
+
+    private void multipartUpload(String key, long size, long partSize) {
+        String bucket = scenario.getBucketName();
+        String uploadId = client.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucket, key))
+                .getUploadId();
+        List<PartETag> parts = new ArrayList<PartETag>();
+        long offset = 0;
+        int partNumber = 1;
+        do {
+            long len = Math.min(partSize, size - offset);
+            UploadPartRequest request = new UploadPartRequest(bucket, key, uploadId, partNumber++,
+                    new ByteArrayInputStream(payload, (int) offset, (int) len), len);
+            parts.add(client.uploadPart(request).getPartETag());
+            offset += len;
+        } while (offset < size);
+        client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, key, uploadId, parts));
+    }
+
+    private void recordError(String operation, Exception e) {
+        String code = null;
+        if (e instanceof ServiceException) {
+            code = ((ServiceException) e).getErrorCode();
+        } else if (e instanceof ClientException) {
+            code = ((ClientException) e).getErrorCode();
+        }
+        if (code == null) {
+            code = e.getClass().getSimpleName();
+        }
+        String name = operation + " " + code;
+        AtomicLong count = errors.get(name);
+        if (count == null) {
+            AtomicLong created = new AtomicLong();
+            count = errors.putIfAbsent(name, created);
+            if (count == null) {
+                count = created;
+            }
+        }
+        count.incrementAndGet();
+    }
+
+    private ScheduledExecutorService startReporter() {
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        final long interval = scenario.getReportIntervalSeconds();
+        if (interval <= 0) {
+            return reporter;
+        }
+        reporter.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                long elapsed = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - measureStart);
+                if (elapsed < 0) {
+                    out.println(String.format("[warmup %3ds]", -elapsed));
+                    return;
+                }
+                for (OperationStats s : stats.values()) {
+                    Histogram h = s.drain();
+                    if (h.getTotalCount() > 0) {
+                        out.println(String.format("[%4ds] %-9s %,8.1f ops/s  p50 %8.2f ms  p99 %8.2f ms  max %8.2f ms",
+                                elapsed, s.getType(), (double) h.getTotalCount() / interval,
+                                millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(99)),
+                                millis(h.getMaxValue())));
+                    }
+                }
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+        return reporter;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private double elapsedSeconds() {
+        return (measureEnd - measureStart) / 1e9;
+    }
+
+    public OperationStats getStats(OperationType type) {
+        return stats.get(type);
+    }
+
+    /**
+     * The error counts by operation and error code, e.g. "GET NoSuchKey".
+     */
+    public Map<String, Long> getErrors() {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> e : errors.entrySet()) {
+            result.put(e.getKey(), e.getValue().get());
+        }
+        return result;
+    }
+
+    public void printReport(PrintStream ps) {
+        ps.println(String.format("Scenario %s on %s, SDK %s, %s, %d workers, %d s", scenario.getName(),
+                scenario.getEndpoint(), VersionInfoUtils.getVersion(),
+                scenario.getRate() > 0 ? String.format("open loop %.1f/s %s", scenario.getRate(),
+                        scenario.isPoisson() ? "poisson" : "uniform") : "closed loop",
+                scenario.getConcurrency(), scenario.getDurationSeconds()));
+        ps.println(String.format("%-9s %10s %8s %10s %9s %9s %9s %9s %9s %9s", "operation", "count", "errors",
+                "ops/s", "MB/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        double seconds = elapsedSeconds();
+        for (OperationStats s : stats.values()) {
+            Histogram h = s.getHistogram();
+            if (h.getTotalCount() == 0 && s.getErrorCount() == 0) {
+                continue;
+            }
+            ps.println(String.format("%-9s %,10d %,8d %,10.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f", s.getType(),
+                    h.getTotalCount(), s.getErrorCount(), h.getTotalCount() / seconds,
+                    s.getBytes() / seconds / 1024 / 1024, millis(h.getValueAtPercentile(50)),
+                    millis(h.getValueAtPercentile(90)), millis(h.getValueAtPercentile(99)),
+                    millis(h.getValueAtPercentile(99.9)), millis(h.getMaxValue())));
+        }
+        if (scenario.getRate() > 0) {
+            ps.println(String.format("max backlog %,d requests", maxBacklog));
+        }
+        for (Map.Entry<String, Long> e : getErrors().entrySet()) {
+            ps.println(String.format("error %-40s %,d", e.getKey(), e.getValue()));
+        }
+    }
+
+    /**
+     * Appends one line per operation to a csv file, to compare runs across SDK versions
+     * and client settings.
+     */
+    public void writeCsv(File file) throws IOException {
+        boolean header = !file.exists() || file.length() == 0;
+        PrintWriter writer = new PrintWriter(new FileWriter(file, true));
+        try {
+            if (header) {
+                writer.println("sdkVersion,scenario,operation,count,errors,opsPerSecond,mbPerSecond,"
+                        + "p50Ms,p90Ms,p99Ms,p999Ms,maxMs");
+            }
+            double seconds = elapsedSeconds();
+            for (OperationStats s : stats.values()) {
+                Histogram h = s.getHistogram();
+                if (h.getTotalCount() == 0 && s.getErrorCount() == 0) {
+                    continue;
+                }
+                List<Object> row = Arrays.<Object>asList(VersionInfoUtils.getVersion(), scenario.getName(),
+                        s.getType(), h.getTotalCount(), s.getErrorCount(),
+                        String.format("%.1f", h.getTotalCount() / seconds),
+                        String.format("%.2f", s.getBytes() / seconds / 1024 / 1024),
+                        millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(90)),
+                        millis(h.getValueAtPercentile(99)), millis(h.getValueAtPercentile(99.9)),
+                        millis(h.getMaxValue()));
+                StringBuilder line = new StringBuilder();
+                for (Object value : row) {
+                    if (line.length() > 0) {
+                        line.append(',');
+                    }
+                    line.append(value);
+                }
+                writer.println(line);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.perftests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+public class LoadGeneratorTest {
+
+    private static LoadScenario scenario(String body) throws IOException {
+        String xml = "<scenarios><scenario name=\"test\">" + body + "</scenario></scenarios>";
+        return LoadScenario.load(new ByteArrayInputStream(xml.getBytes("UTF-8"))).get(0);
+    }
+
+    @Test
+    public void testLoadBundledScenarios() throws IOException {
+        InputStream in = getClass().getClassLoader().getResourceAsStream("perftests/loadgen-scenarios.xml");
+        List<LoadScenario> scenarios = LoadScenario.load(in);
+        in.close();
+        Assertions.assertEquals(3, scenarios.size());
+
+        LoadScenario mixed = scenarios.get(0);
+        Assertions.assertEquals("mixed-stub", mixed.getName());
+        Assertions.assertTrue(mixed.isStub());
+        Assertions.assertEquals(500.0, mixed.getRate());
+        Assertions.assertTrue(mixed.isPoisson());
+        Assertions.assertEquals(5, mixed.getOperations().size());
+        Assertions.assertEquals(1024 * 1024, mixed.getOperations().get(4).getPartSize());
+        Assertions.assertEquals(4 * 1024 * 1024, mixed.getMaxSize());
+        Assertions.assertEquals(0.001, mixed.getStubErrorRate());
+
+        Assertions.assertEquals(0.0, scenarios.get(1).getRate());
+        Assertions.assertFalse(scenarios.get(2).isStub());
+        Assertions.assertFalse(scenarios.get(2).isPoisson());
+    }
+
+    @Test
+    public void testDistributions() throws IOException {
+        LoadScenario s = scenario("<operations><operation type=\"put\" weight=\"1\"/>"
+                + "<operation type=\"GET\" weight=\"3\"/></operations>"
+                + "<sizes><size weight=\"1\">1KB</size><size weight=\"1\" min=\"10\" max=\"20\"/></sizes>");
+        Random random = new Random(0);
+        int gets = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (s.nextOperation(random).getType() == OperationType.GET) {
+                gets++;
+            }
+            long size = s.nextSize(random);
+            Assertions.assertTrue(size == 1024 || (size >= 10 && size <= 20));
+        }
+        Assertions.assertTrue(gets > 7000 && gets < 8000);
+
+        Assertions.assertEquals(1536, LoadScenario.parseBytes("1.5KB"));
+        Assertions.assertEquals(3L * 1024 * 1024 * 1024, LoadScenario.parseBytes("3gb"));
+        Assertions.assertEquals(100, LoadScenario.parseBytes("100B"));
+    }
+
+    @Test
+    public void testOpenLoopAgainstStub() throws Exception {
+        LoadScenario s = scenario("<keyCount>20</keyCount><duration>1</duration><rate>200</rate>"
+                + "<concurrency>4</concurrency><reportInterval>0</reportInterval>"
+                + "<operations><operation type=\"PUT\" weight=\"1\"/><operation type=\"GET\" weight=\"1\"/>"
+                + "<operation type=\"HEAD\" weight=\"1\"/><operation type=\"LIST\" weight=\"1\" maxKeys=\"5\"/>"
+                + "<operation type=\"MULTIPART\" weight=\"1\" partSize=\"100KB\"/></operations>"
+                + "<sizes><size min=\"1KB\" max=\"256KB\"/></sizes>");
+        LoadGenerator generator = new LoadGenerator(s, System.out);
+        generator.run();
+
+        long total = 0;
+        for (OperationType type : OperationType.values()) {
+            LoadGenerator.OperationStats stats = generator.getStats(type);
+            Assertions.assertTrue(stats.getCount() > 0, type.name());
+            Assertions.assertEquals(0, stats.getErrorCount(), type.name());
+            total += stats.getCount();
+        }
+        Assertions.assertTrue(generator.getErrors().isEmpty(), generator.getErrors().toString());
+        // 200 arrivals per second for one second
+        Assertions.assertTrue(total > 100 && total < 400, String.valueOf(total));
+        Assertions.assertTrue(generator.getStats(OperationType.GET).getBytes() > 0);
+
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        generator.printReport(new PrintStream(report));
+        Assertions.assertTrue(report.toString().contains("MULTIPART"));
+    }
+
+    @Test
+    public void testClosedLoopErrorsAgainstStub() throws Exception {
+        LoadScenario s = scenario("<keyCount>10</keyCount><duration>1</duration><concurrency>2</concurrency>"
+                + "<reportInterval>0</reportInterval><client maxErrorRetry=\"0\"/>"
+                + "<stub errorRate=\"0.2\"/><prepare>false</prepare>"
+                + "<operations><operation type=\"GET\" weight=\"1\"/></operations>");
+        LoadGenerator generator = new LoadGenerator(s, System.out);
+        generator.run();
+
+        LoadGenerator.OperationStats stats = generator.getStats(OperationType.GET);
+        Assertions.assertTrue(stats.getErrorCount() > 0);
+        // nothing was prepared, so every GET fails, either with 404 or with an injected 503
+        Assertions.assertEquals(0, stats.getCount());
+        Assertions.assertTrue(generator.getErrors().containsKey("GET NoSuchKey"), generator.getErrors().toString());
+        Assertions.assertTrue(generator.getErrors().containsKey("GET ServiceUnavailable"),
+                generator.getErrors().toString());
+    }
+}
@@ -0,0 +1,428 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.perftests;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.JDOMException;
+import org.jdom2.input.SAXBuilder;
+
+/**
+ * One load generator scenario: where to send requests, the operation mix, the object
+ * size distribution and how requests arrive. Scenarios are read from an xml file, see
+ * src/test/resources/perftests/loadgen-scenarios.xml for all the supported elements.
+ */
+public class LoadScenario {
+
+    /**
+     * The endpoint value that runs the scenario against an in-process stub server.
+     */
+    public static final String STUB_ENDPOINT = "stub";
+
+    public static class Operation {
+        private final OperationType type;
+        private final int weight;
+        private final int maxKeys;
+        private final long partSize;
+
+        Operation(OperationType type, int weight, int maxKeys, long partSize) {
+            this.type = type;
+            this.weight = weight;
+            this.maxKeys = maxKeys;
+            this.partSize = partSize;
+        }
+
+        public OperationType getType() {
+            return type;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        /**
+         * The page size of LIST operations.
+         */
+        public int getMaxKeys() {
+            return maxKeys;
+        }
+
+        /**
+         * The part size of MULTIPART operations.
+         */
+        public long getPartSize() {
+            return partSize;
+        }
+    }
+
+    /**
+     * A weighted object size, uniformly distributed between min and max.
+     */
+    public static class Size {
+        private final long min;
+        private final long max;
+        private final int weight;
+
+        Size(long min, long max, int weight) {
+            this.min = min;
+            this.max = max;
+            this.weight = weight;
+        }
+
+        public long getMin() {
+            return min;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+    }
+
+    private String name;
+    private String endpoint = STUB_ENDPOINT;
+    private String accessKeyId = "ak";
+    private String accessKeySecret = "sk";
+    private String bucketName = "loadgen-bucket";
+    private String keyPrefix = "loadgen/";
+    private int keyCount = 1000;
+    private boolean prepare = true;
+    private int durationSeconds = 60;
+    private int warmupSeconds = 0;
+    private int reportIntervalSeconds = 10;
+    private double rate = 0;
+    private boolean poisson = true;
+    private int concurrency = 16;
+    private long seed = 0;
+    private final List<Operation> operations = new ArrayList<Operation>();
+    private final List<Size> sizes = new ArrayList<Size>();
+    private int operationWeight;
+    private int sizeWeight;
+
+    private int maxConnections = -1;
+    private int maxErrorRetry = -1;
+    private int socketTimeout = -1;
+    private int connectionTimeout = -1;
+    private boolean crcCheckEnabled = true;
+
+    private long stubLatency = 0;
+    private long stubBandwidth = 0;
+    private double stubErrorRate = 0;
+
+    /**
+     * Reads all the scenarios of a scenarios file.
+     */
+    public static List<LoadScenario> load(InputStream in) throws IOException {
+        Document doc;
+        try {
+            doc = new SAXBuilder().build(in);
+        } catch (JDOMException e) {
+            throw new IllegalArgumentException("Invalid scenarios file: " + e.getMessage(), e);
+        }
+        List<LoadScenario> scenarios = new ArrayList<LoadScenario>();
+        for (Element e : doc.getRootElement().getChildren("scenario")) {
+            scenarios.add(parse(e));
+        }
+        return scenarios;
+    }
+
+    static LoadScenario parse(Element root) {
+        LoadScenario s = new LoadScenario();
+        s.name = root.getAttributeValue("name", "scenario");
+        s.endpoint = text(root, "endpoint", s.endpoint);
+        s.accessKeyId = text(root, "accessKeyId", s.accessKeyId);
+        s.accessKeySecret = text(root, "accessKeySecret", s.accessKeySecret);
+        s.bucketName = text(root, "bucket", s.bucketName);
+        s.keyPrefix = text(root, "keyPrefix", s.keyPrefix);
+        s.keyCount = Integer.parseInt(text(root, "keyCount", String.valueOf(s.keyCount)));
+        s.prepare = Boolean.parseBoolean(text(root, "prepare", String.valueOf(s.prepare)));
+        s.durationSeconds = Integer.parseInt(text(root, "duration", String.valueOf(s.durationSeconds)));
+        s.warmupSeconds = Integer.parseInt(text(root, "warmup", String.valueOf(s.warmupSeconds)));
+        s.reportIntervalSeconds = Integer.parseInt(text(root, "reportInterval",
+                String.valueOf(s.reportIntervalSeconds)));
+        s.concurrency = Integer.parseInt(text(root, "concurrency", String.valueOf(s.concurrency)));
+        s.seed = Long.parseLong(text(root, "seed", String.valueOf(s.seed)));
+
+        Element rate = root.getChild("rate");
+        if (rate != null) {
+            s.rate = Double.parseDouble(rate.getTextTrim());
+            String arrivals = rate.getAttributeValue("arrivals", "poisson");
+            if (!arrivals.equals("poisson") && !arrivals.equals("uniform")) {
+                throw new IllegalArgumentException("Unknown arrivals " + arrivals + " in scenario " + s.name);
+            }
+            s.poisson = arrivals.equals("poisson");
+        }
+
+        Element operations = root.getChild("operations");
+        if (operations != null) {
+            for (Element e : operations.getChildren("operation")) {
+                OperationType type = OperationType.valueOf(e.getAttributeValue("type").toUpperCase(Locale.ENGLISH));
+                int weight = Integer.parseInt(e.getAttributeValue("weight", "1"));
+                int maxKeys = Integer.parseInt(e.getAttributeValue("maxKeys", "100"));
+                long partSize = parseBytes(e.getAttributeValue("partSize", "8MB"));
+                s.addOperation(new Operation(type, weight, maxKeys, partSize));
+            }
+        }
+        if (s.operations.isEmpty()) {
+            s.addOperation(new Operation(OperationType.GET, 1, 100, 0));
+        }
+
+        Element sizes = root.getChild("sizes");
+        if (sizes != null) {
+            for (Element e : sizes.getChildren("size")) {
+                int weight = Integer.parseInt(e.getAttributeValue("weight", "1"));
+                String min = e.getAttributeValue("min");
+                if (min != null) {
+                    s.addSize(new Size(parseBytes(min), parseBytes(e.getAttributeValue("max", min)), weight));
+                } else {
+                    long size = parseBytes(e.getTextTrim());
+                    s.addSize(new Size(size, size, weight));
+                }
+            }
+        }
+        if (s.sizes.isEmpty()) {
+            s.addSize(new Size(4096, 4096, 1));
+        }
+
+        Element client = root.getChild("client");
+        if (client != null) {
+            s.maxConnections = Integer.parseInt(client.getAttributeValue("maxConnections", "-1"));
+            s.maxErrorRetry = Integer.parseInt(client.getAttributeValue("maxErrorRetry", "-1"));
+            s.socketTimeout = Integer.parseInt(client.getAttributeValue("socketTimeout", "-1"));
+            s.connectionTimeout = Integer.parseInt(client.getAttributeValue("connectionTimeout", "-1"));
+            s.crcCheckEnabled = Boolean.parseBoolean(client.getAttributeValue("crcCheck", "true"));
+        }
+
+        Element stub = root.getChild("stub");
+        if (stub != null) {
+            s.stubLatency = Long.parseLong(stub.getAttributeValue("latency", "0"));
+            s.stubBandwidth = parseBytes(stub.getAttributeValue("bandwidth", "0"));
+            s.stubErrorRate = Double.parseDouble(stub.getAttributeValue("errorRate", "0"));
+        }
+
+        if (s.keyCount <= 0 || s.concurrency <= 0 || s.durationSeconds <= 0 || s.rate < 0) {
+            throw new IllegalArgumentException("keyCount, concurrency and duration must be positive in scenario "
+                    + s.name);
+        }
+        return s;
+    }
+
+    private static String text(Element parent, String name, String defaultValue) {
+        Element e = parent.getChild(name);
+        return e == null ? defaultValue : e.getTextTrim();
+    }
+
+    /**
+     * Parses a size such as 4096, 64KB, 8MB or 1GB.
+     */
+    static long parseBytes(String value) {
+        String v = value.trim().toUpperCase(Locale.ENGLISH);
+        long unit = 1;
+        if (v.endsWith("KB")) {
+            unit = 1024L;
+        } else if (v.endsWith("MB")) {
+            unit = 1024L * 1024;
+        } else if (v.endsWith("GB")) {
+            unit = 1024L * 1024 * 1024;
+        }
+        if (unit > 1) {
+            v = v.substring(0, v.length() - 2).trim();
+        } else if (v.endsWith("B")) {
+            v = v.substring(0, v.length() - 1).trim();
+        }
+        return (long) (Double.parseDouble(v) * unit);
+    }
+
+    private void addOperation(Operation operation) {
+        operations.add(operation);
+        operationWeight += operation.getWeight();
+    }
+
+    private void addSize(Size size) {
+        sizes.add(size);
+        sizeWeight += size.getWeight();
+    }
+
+    /**
+     * Draws the next operation of the mix.
+     */
+    public Operation nextOperation(Random random) {
+        int n = random.nextInt(operationWeight);
+        for (Operation operation : operations) {
+            n -= operation.getWeight();
+            if (n < 0) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    /**
+     * Draws the next object size of the distribution.
+     */
+    public long nextSize(Random random) {
+        int n = random.nextInt(sizeWeight);
+        Size size = sizes.get(sizes.size() - 1);
+        for (Size s : sizes) {
+            n -= s.getWeight();
+            if (n < 0) {
+                size = s;
+                break;
+            }
+        }
+        if (size.getMax() <= size.getMin()) {
+            return size.getMin();
+        }
+        return size.getMin() + (long) (random.nextDouble() * (size.getMax() - size.getMin() + 1));
+    }
+
+    /**
+     * The largest object size of the distribution.
+     */
+    public long getMaxSize() {
+        long max = 0;
+        for (Size size : sizes) {
+            max = Math.max(max, size.getMax());
+        }
+        return max;
+    }
+
+    public boolean isStub() {
+        return STUB_ENDPOINT.equals(endpoint);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getAccessKeyId() {
+        return accessKeyId;
+    }
+
+    public String getAccessKeySecret() {
+        return accessKeySecret;
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    public int getKeyCount() {
+        return keyCount;
+    }
+
+    /**
+     * Whether to write all the keys before the run, so that GET and HEAD find them.
+     */
+    public boolean isPrepare() {
+        return prepare;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public int getReportIntervalSeconds() {
+        return reportIntervalSeconds;
+    }
+
+    /**
+     * The arrivals per second of an open loop run, 0 for a closed loop run where each
+     * worker sends its next request as soon as the previous one completes.
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    public boolean isPoisson() {
+        return poisson;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public List<Operation> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    public List<Size> getSizes() {
+        return Collections.unmodifiableList(sizes);
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getMaxErrorRetry() {
+        return maxErrorRetry;
+    }
+
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public int getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    public boolean isCrcCheckEnabled() {
+        return crcCheckEnabled;
+    }
+
+    public long getStubLatency() {
+        return stubLatency;
+    }
+
+    public long getStubBandwidth() {
+        return stubBandwidth;
+    }
+
+    public double getStubErrorRate() {
+        return stubErrorRate;
+    }
+}
@@ -21,5 +21,8 @@ package com.aliyun.oss.perftests;
 
 public enum OperationType {
     PUT,
-    GET
+    GET,
+    HEAD,
+    LIST,
+    MULTIPART
 }
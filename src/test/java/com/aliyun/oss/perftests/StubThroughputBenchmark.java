@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.perftests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Random;
+
+import com.aliyun.oss.ClientBuilderConfiguration;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSClientBuilder;
+import com.aliyun.oss.model.DownloadFileRequest;
+import com.aliyun.oss.model.ListObjectsV2Request;
+import com.aliyun.oss.model.ListObjectsV2Result;
+import com.aliyun.oss.model.UploadFileRequest;
+import com.aliyun.oss.stub.OSSStubServer;
+import com.aliyun.oss.stub.StubFault;
+
+/**
+ * Measures uploadFile, downloadFile and listing throughput against the in-process
+ * {@link OSSStubServer}, without credentials or network, usage:
+ * StubThroughputBenchmark [file MB, default 256] [tasks, default 8] [latency ms, default 0]
+ * [bandwidth KB/s per connection, default 0 for unlimited] [503 rate, default 0]
+ */
+public class StubThroughputBenchmark {
+
+    public static void main(String[] args) throws Throwable {
+        int fileMB = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int tasks = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        long latency = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        long bandwidth = (args.length > 3 ? Long.parseLong(args[3]) : 0) * 1024;
+        double faultRate = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+
+        OSSStubServer server = new OSSStubServer().start();
+        server.setLatency(latency).setBandwidth(bandwidth).setFaultRate(StubFault.SERVICE_UNAVAILABLE, faultRate);
+        ClientBuilderConfiguration conf = OSSStubServer.newClientConfiguration();
+        conf.setMaxConnections(Math.max(tasks, conf.getMaxConnections()));
+        conf.setMaxErrorRetry(10);
+        OSS client = new OSSClientBuilder().build(server.getEndpoint(), "ak", "sk", conf);
+
+        File file = File.createTempFile("stub-throughput", ".bin");
+        File downloaded = new File(file.getPath() + ".download");
+        try {
+            byte[] chunk = new byte[1024 * 1024];
+            new Random(0).nextBytes(chunk);
+            FileOutputStream out = new FileOutputStream(file);
+            for (int i = 0; i < fileMB; i++) {
+                out.write(chunk);
+            }
+            out.close();
+            long bytes = file.length();
+
+            UploadFileRequest upload = new UploadFileRequest("bench-bucket", "big.bin", file.getPath(),
+                    8 * 1024 * 1024, tasks);
+            long requests = server.getRequestCount();
+            long start = System.nanoTime();
+            client.uploadFile(upload);
+            report("uploadFile", bytes, System.nanoTime() - start, server.getRequestCount() - requests);
+
+            DownloadFileRequest download = new DownloadFileRequest("bench-bucket", "big.bin", downloaded.getPath(),
+                    8 * 1024 * 1024, tasks, false);
+            requests = server.getRequestCount();
+            start = System.nanoTime();
+            client.downloadFile(download);
+            report("downloadFile", bytes, System.nanoTime() - start, server.getRequestCount() - requests);
+
+            for (int i = 0; i < 100000; i++) {
+                server.getStore().putObject("bench-bucket", String.format("list/%02d/object-%06d", i % 100, i),
+                        new byte[0]);
+            }
+            requests = server.getRequestCount();
+            start = System.nanoTime();
+            long keys = 0;
+            String token = null;
+            do {
+                ListObjectsV2Request request = new ListObjectsV2Request("bench-bucket", "list/");
+                request.setMaxKeys(1000);
+                request.setContinuationToken(token);
+                ListObjectsV2Result result = client.listObjectsV2(request);
+                keys += result.getKeyCount();
+                token = result.getNextContinuationToken();
+            } while (token != null);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format("%-14s %,d keys in %.2f s: %,.0f keys/s, %d requests", "listObjectsV2",
+                    keys, seconds, keys / seconds, server.getRequestCount() - requests));
+            System.out.println(String.format("%d faults injected", server.getFaultCount()));
+        } finally {
+            client.shutdown();
+            server.close();
+            file.delete();
+            downloaded.delete();
+        }
+    }
+
+    private static void report(String name, long bytes, long nanos, long requests) {
+        double seconds = nanos / 1e9;
+        System.out.println(String.format("%-14s %,d bytes in %.2f s: %.1f MB/s, %d requests", name, bytes, seconds,
+                bytes / seconds / 1024 / 1024, requests));
+    }
+}
@@ -0,0 +1,811 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.stub;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.aliyun.oss.ClientBuilderConfiguration;
+import com.aliyun.oss.common.utils.DateUtil;
+
+/**
+ * An in-process OSS endpoint for end-to-end tests and throughput benchmarks without
+ * credentials or network. One NIO selector thread serves HTTP/1.1 keep-alive
+ * connections on 127.0.0.1, the operations on the {@link StubObjectStore}, which hash
+ * every body, run on a pool with a thread per processor.
+ * <p>
+ * Requests are addressed path style, build the client with {@link #newClientConfiguration()}.
+ * The latency delays every response, the bandwidth limits each connection in both
+ * directions, and {@link StubFault}s can be injected for the next requests or at a rate
+ * drawn from a seeded random, so a run can be repeated.
+ */
+public class OSSStubServer implements Closeable {
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+    private static final int MAX_HEADER_SIZE = 64 * 1024;
+    private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(ISO_8859_1);
+
+    private static final int HEADERS = 0;
+    private static final int BODY = 1;
+    private static final int CHUNK_SIZE = 2;
+    private static final int CHUNK_DATA = 3;
+    private static final int CHUNK_END = 4;
+    private static final int TRAILER = 5;
+    private static final int ANSWERING = 6;
+
+    private static final int START_RESPONSE = 0;
+    private static final int RESUME_READ = 1;
+    private static final int RESUME_WRITE = 2;
+
+    private static final class PendingFault {
+        final String method;
+        final StubFault fault;
+        int count;
+
+        PendingFault(String method, StubFault fault, int count) {
+            this.method = method;
+            this.fault = fault;
+            this.count = count;
+        }
+    }
+
+    private final StubObjectStore store;
+    private volatile long latencyMillis;
+    private volatile long bandwidth;
+    private volatile long slowBodyRate = 16 * 1024;
+
+    private final LinkedList<PendingFault> pendingFaults = new LinkedList<PendingFault>();
+    private final Map<StubFault, Double> faultRates = new EnumMap<StubFault, Double>(StubFault.class);
+    private Random random = new Random(0);
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong faultCount = new AtomicLong();
+    private final AtomicLong connectionCount = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    private final PriorityQueue<Connection> timers = new PriorityQueue<Connection>(16, new Comparator<Connection>() {
+        @Override
+        public int compare(Connection a, Connection b) {
+            return a.wakeAt < b.wakeAt ? -1 : a.wakeAt == b.wakeAt ? 0 : 1;
+        }
+    });
+    private final ConcurrentLinkedQueue<Connection> handled = new ConcurrentLinkedQueue<Connection>();
+    private ExecutorService workers;
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread thread;
+    private volatile boolean running;
+
+    public OSSStubServer() {
+        this(new StubObjectStore());
+    }
+
+    public OSSStubServer(StubObjectStore store) {
+        this.store = store;
+    }
+
+    /**
+     * A client configuration for the stub, which takes path style requests.
+     */
+    public static ClientBuilderConfiguration newClientConfiguration() {
+        ClientBuilderConfiguration conf = new ClientBuilderConfiguration();
+        conf.setSLDEnabled(true);
+        return conf;
+    }
+
+    /**
+     * Binds an ephemeral port on 127.0.0.1 and starts serving.
+     */
+    public synchronized OSSStubServer start() throws IOException {
+        if (running) {
+            return this;
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().setReuseAddress(true);
+        serverChannel.socket().bind(new InetSocketAddress("127.0.0.1", 0), 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread worker = new Thread(runnable, "oss-stub-worker");
+                worker.setDaemon(true);
+                return worker;
+            }
+        });
+        running = true;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                serve();
+            }
+        }, "oss-stub-server-" + getPort());
+        thread.setDaemon(true);
+        thread.start();
+        return this;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdownNow();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public String getEndpoint() {
+        return "http://127.0.0.1:" + getPort();
+    }
+
+    public StubObjectStore getStore() {
+        return store;
+    }
+
+    /**
+     * Delays every response by the given time, 0 answers right away.
+     */
+    public OSSStubServer setLatency(long millis) {
+        this.latencyMillis = millis;
+        return this;
+    }
+
+    /**
+     * Limits each connection to the given bytes per second for request bodies and
+     * responses, 0 means unlimited.
+     */
+    public OSSStubServer setBandwidth(long bytesPerSecond) {
+        this.bandwidth = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * The rate of responses sent with {@link StubFault#SLOW_BODY}, 16KB per second by default.
+     */
+    public OSSStubServer setSlowBodyRate(long bytesPerSecond) {
+        this.slowBodyRate = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * Injects the fault into the next count requests.
+     */
+    public OSSStubServer failNext(StubFault fault, int count) {
+        return failNext(null, fault, count);
+    }
+
+    /**
+     * Injects the fault into the next count requests of the given HTTP method.
+     */
+    public OSSStubServer failNext(String method, StubFault fault, int count) {
+        synchronized (pendingFaults) {
+            pendingFaults.add(new PendingFault(method, fault, count));
+        }
+        return this;
+    }
+
+    /**
+     * Injects the fault into the given share of the requests, drawn from a random seeded with 0
+     * or with {@link #setSeed(long)}.
+     */
+    public OSSStubServer setFaultRate(StubFault fault, double rate) {
+        synchronized (pendingFaults) {
+            faultRates.put(fault, rate);
+        }
+        return this;
+    }
+
+    public OSSStubServer setSeed(long seed) {
+        synchronized (pendingFaults) {
+            random = new Random(seed);
+        }
+        return this;
+    }
+
+    public void clearFaults() {
+        synchronized (pendingFaults) {
+            pendingFaults.clear();
+            faultRates.clear();
+        }
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getFaultCount() {
+        return faultCount.get();
+    }
+
+    public long getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    private StubFault nextFault(String method) {
+        synchronized (pendingFaults) {
+            for (Iterator<PendingFault> it = pendingFaults.iterator(); it.hasNext();) {
+                PendingFault pending = it.next();
+                if (pending.method == null || pending.method.equalsIgnoreCase(method)) {
+                    if (--pending.count <= 0) {
+                        it.remove();
+                    }
+                    return pending.fault;
+                }
+            }
+            for (Map.Entry<StubFault, Double> rate : faultRates.entrySet()) {
+                if (random.nextDouble() < rate.getValue()) {
+                    return rate.getKey();
+                }
+            }
+        }
+        return null;
+    }
+
+    private void serve() {
+        try {
+            while (running) {
+                Connection next = timers.peek();
+                long timeout = 0;
+                if (next != null) {
+                    timeout = Math.max(1, (next.wakeAt - System.nanoTime() + 999999) / 1000000);
+                }
+                selector.select(timeout);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            connection.onReadable();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.onWritable();
+                        }
+                    } catch (Exception e) {
+                        connection.close();
+                    }
+                }
+                while ((next = handled.poll()) != null) {
+                    try {
+                        next.onHandled();
+                    } catch (Exception e) {
+                        next.close();
+                    }
+                }
+                long now = System.nanoTime();
+                while ((next = timers.peek()) != null && next.wakeAt - now <= 0) {
+                    timers.poll();
+                    try {
+                        next.onTimer();
+                    } catch (Exception e) {
+                        next.close();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            running = false;
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                try {
+                    key.channel().close();
+                } catch (IOException e) {
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            connectionCount.incrementAndGet();
+        }
+    }
+
+    private static String reason(int status) {
+        switch (status) {
+            case 200: return "OK";
+            case 204: return "No Content";
+            case 206: return "Partial Content";
+            case 400: return "Bad Request";
+            case 404: return "Not Found";
+            case 409: return "Conflict";
+            case 416: return "Requested Range Not Satisfiable";
+            case 500: return "Internal Server Error";
+            case 501: return "Not Implemented";
+            case 503: return "Service Unavailable";
+            default: return "Status " + status;
+        }
+    }
+
+    private final class Connection {
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private ByteBuffer in = ByteBuffer.allocate(16 * 1024);
+        private int state = HEADERS;
+
+        private String method;
+        private String target;
+        private Map<String, String> headers;
+        private boolean keepAlive;
+        private byte[] body;
+        private int bodyPosition;
+        private ByteArrayOutputStream chunks;
+        private long chunkRemaining;
+
+        private StubRequest request;
+        private StubResponse response;
+        private StubFault fault;
+        private ByteBuffer[] out;
+        private long written;
+        private long resetAfter;
+
+        private long rate;
+        private long rateStart;
+        private long rateBytes;
+        private long wakeAt;
+        private int wakeAction;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void onReadable() throws IOException {
+            if (state == ANSWERING) {
+                return;
+            }
+            long allowed = allowance();
+            if (allowed <= 0) {
+                pause(RESUME_READ);
+                return;
+            }
+            int n;
+            if (state == BODY && in.position() == 0) {
+                // large bodies are read in place
+                int max = (int) Math.min(body.length - bodyPosition, allowed);
+                n = channel.read(ByteBuffer.wrap(body, bodyPosition, max));
+                if (n > 0) {
+                    bodyPosition += n;
+                }
+            } else {
+                if (!in.hasRemaining()) {
+                    if (state == HEADERS && in.capacity() >= MAX_HEADER_SIZE) {
+                        close();
+                        return;
+                    }
+                    ByteBuffer larger = ByteBuffer.allocate(in.capacity() * 2);
+                    in.flip();
+                    larger.put(in);
+                    in = larger;
+                }
+                if (allowed < in.remaining()) {
+                    in.limit(in.position() + (int) allowed);
+                }
+                n = channel.read(in);
+                in.limit(in.capacity());
+            }
+            if (n < 0) {
+                close();
+                return;
+            }
+            bytesReceived.addAndGet(n);
+            if (rate > 0) {
+                rateBytes += n;
+            }
+            process();
+        }
+
+        private void process() throws IOException {
+            while (true) {
+                switch (state) {
+                    case HEADERS: {
+                        int end = indexOf(in, "\r\n\r\n");
+                        if (end < 0) {
+                            return;
+                        }
+                        parseHeaders(new String(in.array(), 0, end, ISO_8859_1));
+                        consume(end + 4);
+                        if ("chunked".equalsIgnoreCase(headers.get("Transfer-Encoding"))) {
+                            chunks = new ByteArrayOutputStream();
+                            state = CHUNK_SIZE;
+                        } else {
+                            String contentLength = headers.get("Content-Length");
+                            body = new byte[contentLength == null ? 0 : Integer.parseInt(contentLength.trim())];
+                            bodyPosition = 0;
+                            state = BODY;
+                        }
+                        if ("100-continue".equalsIgnoreCase(headers.get("Expect"))) {
+                            channel.write(ByteBuffer.wrap(CONTINUE));
+                        }
+                        rate = bandwidth;
+                        rateStart = System.nanoTime();
+                        rateBytes = 0;
+                        break;
+                    }
+                    case BODY: {
+                        int n = Math.min(in.position(), body.length - bodyPosition);
+                        System.arraycopy(in.array(), 0, body, bodyPosition, n);
+                        bodyPosition += n;
+                        consume(n);
+                        if (bodyPosition == body.length) {
+                            dispatch();
+                        }
+                        return;
+                    }
+                    case CHUNK_SIZE: {
+                        String line = readLine();
+                        if (line == null) {
+                            return;
+                        }
+                        int extension = line.indexOf(';');
+                        chunkRemaining = Long.parseLong((extension < 0 ? line : line.substring(0, extension)).trim(),
+                                16);
+                        state = chunkRemaining == 0 ? TRAILER : CHUNK_DATA;
+                        break;
+                    }
+                    case CHUNK_DATA: {
+                        int n = (int) Math.min(in.position(), chunkRemaining);
+                        chunks.write(in.array(), 0, n);
+                        consume(n);
+                        chunkRemaining -= n;
+                        if (chunkRemaining > 0) {
+                            return;
+                        }
+                        state = CHUNK_END;
+                        break;
+                    }
+                    case CHUNK_END: {
+                        if (readLine() == null) {
+                            return;
+                        }
+                        state = CHUNK_SIZE;
+                        break;
+                    }
+                    case TRAILER: {
+                        String line = readLine();
+                        if (line == null) {
+                            return;
+                        }
+                        if (line.length() == 0) {
+                            body = chunks.toByteArray();
+                            chunks = null;
+                            dispatch();
+                            return;
+                        }
+                        break;
+                    }
+                    default:
+                        return;
+                }
+            }
+        }
+
+        private void parseHeaders(String block) {
+            String[] lines = block.split("\r\n");
+            String[] requestLine = lines[0].split(" ");
+            method = requestLine[0];
+            target = requestLine[1];
+            headers = StubRequest.newHeaderMap();
+            for (int i = 1; i < lines.length; i++) {
+                int colon = lines[i].indexOf(':');
+                if (colon > 0) {
+                    headers.put(lines[i].substring(0, colon).trim(), lines[i].substring(colon + 1).trim());
+                }
+            }
+            String connection = headers.get("Connection");
+            keepAlive = requestLine.length > 2 && requestLine[2].equals("HTTP/1.1")
+                    ? !"close".equalsIgnoreCase(connection) : "keep-alive".equalsIgnoreCase(connection);
+        }
+
+        private String readLine() {
+            int end = indexOf(in, "\r\n");
+            if (end < 0) {
+                return null;
+            }
+            String line = new String(in.array(), 0, end, ISO_8859_1);
+            consume(end + 2);
+            return line;
+        }
+
+        private void consume(int n) {
+            in.flip();
+            in.position(n);
+            in.compact();
+        }
+
+        private void dispatch() throws IOException {
+            state = ANSWERING;
+            key.interestOps(0);
+            rate = 0;
+            request = new StubRequest(String.format("%024X", requestCount.incrementAndGet()), method, target, headers);
+            request.setBody(body);
+            body = null;
+            fault = nextFault(method);
+            if (fault != null) {
+                faultCount.incrementAndGet();
+            }
+            if (fault == StubFault.SERVICE_UNAVAILABLE) {
+                response = StubResponse.error(request, 503, "ServiceUnavailable", "Please reduce your request rate.");
+                onHandled();
+            } else if (fault == StubFault.CONNECTION_RESET) {
+                onHandled();
+            } else {
+                workers.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            response = store.handle(request);
+                        } catch (Exception e) {
+                            response = StubResponse.error(request, 500, "InternalError", String.valueOf(e));
+                        }
+                        handled.add(Connection.this);
+                        selector.wakeup();
+                    }
+                });
+            }
+        }
+
+        /**
+         * Called on the selector thread once the operation has run.
+         */
+        void onHandled() throws IOException {
+            if (!channel.isOpen()) {
+                return;
+            }
+            long latency = latencyMillis;
+            if (latency > 0) {
+                schedule(System.nanoTime() + latency * 1000000L, START_RESPONSE);
+            } else {
+                startResponse();
+            }
+        }
+
+        private void startResponse() throws IOException {
+            if (fault == StubFault.CONNECTION_RESET) {
+                reset();
+                return;
+            }
+            boolean sendBody = response.isSendBody() && !method.equals("HEAD");
+            StringBuilder head = new StringBuilder(256);
+            head.append("HTTP/1.1 ").append(response.getStatus()).append(' ').append(reason(response.getStatus()));
+            head.append("\r\nServer: AliyunOSS\r\nDate: ").append(DateUtil.formatRfc822Date(new Date()));
+            head.append("\r\nx-oss-request-id: ").append(request.getRequestId());
+            head.append("\r\nConnection: ").append(keepAlive ? "keep-alive" : "close");
+            head.append("\r\nContent-Length: ").append(response.getLength());
+            for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+                head.append("\r\n").append(header.getKey()).append(": ").append(header.getValue());
+            }
+            head.append("\r\n\r\n");
+            ByteBuffer headBuffer = ByteBuffer.wrap(head.toString().getBytes(ISO_8859_1));
+            if (sendBody) {
+                out = new ByteBuffer[] {headBuffer,
+                        ByteBuffer.wrap(response.getBody(), response.getOffset(), response.getLength())};
+            } else {
+                out = new ByteBuffer[] {headBuffer};
+            }
+
+            written = 0;
+            resetAfter = -1;
+            if (fault == StubFault.BODY_RESET) {
+                resetAfter = sendBody ? headBuffer.remaining() + response.getLength() / 2 : 0;
+            }
+            rate = bandwidth;
+            if (fault == StubFault.SLOW_BODY) {
+                rate = rate > 0 ? Math.min(rate, slowBodyRate) : slowBodyRate;
+            }
+            rateStart = System.nanoTime();
+            rateBytes = 0;
+            onWritable();
+        }
+
+        void onWritable() throws IOException {
+            if (out == null) {
+                return;
+            }
+            while (true) {
+                long allowed = allowance();
+                if (resetAfter >= 0) {
+                    if (written >= resetAfter) {
+                        reset();
+                        return;
+                    }
+                    allowed = Math.min(allowed, resetAfter - written);
+                }
+                if (allowed <= 0) {
+                    pause(RESUME_WRITE);
+                    return;
+                }
+                long remaining = 0;
+                ByteBuffer current = null;
+                for (ByteBuffer buffer : out) {
+                    remaining += buffer.remaining();
+                    if (current == null && buffer.hasRemaining()) {
+                        current = buffer;
+                    }
+                }
+                if (current == null) {
+                    finishResponse();
+                    return;
+                }
+                long n;
+                if (allowed >= remaining) {
+                    n = channel.write(out);
+                } else {
+                    int limit = current.limit();
+                    current.limit(current.position() + (int) Math.min(current.remaining(), allowed));
+                    n = channel.write(current);
+                    current.limit(limit);
+                }
+                written += n;
+                bytesSent.addAndGet(n);
+                if (rate > 0) {
+                    rateBytes += n;
+                }
+                if (n == 0) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+        }
+
+        private void finishResponse() throws IOException {
+            out = null;
+            request = null;
+            response = null;
+            fault = null;
+            rate = 0;
+            if (!keepAlive) {
+                close();
+                return;
+            }
+            state = HEADERS;
+            key.interestOps(SelectionKey.OP_READ);
+            if (in.position() > 0) {
+                process();
+            }
+        }
+
+        void onTimer() throws IOException {
+            if (!channel.isOpen()) {
+                return;
+            }
+            if (wakeAction == START_RESPONSE) {
+                startResponse();
+            } else if (wakeAction == RESUME_READ) {
+                key.interestOps(SelectionKey.OP_READ);
+            } else {
+                onWritable();
+            }
+        }
+
+        /**
+         * The bytes the connection may transfer now under its rate, with one quantum of burst.
+         */
+        private long allowance() {
+            if (rate <= 0) {
+                return Long.MAX_VALUE;
+            }
+            long elapsed = System.nanoTime() - rateStart;
+            return (long) (elapsed / 1e9 * rate) + quantum() - rateBytes;
+        }
+
+        private long quantum() {
+            return Math.max(1, Math.min(64 * 1024, rate / 100));
+        }
+
+        private void pause(int action) {
+            // wake up when a whole quantum may be sent
+            key.interestOps(0);
+            schedule(rateStart + (long) (rateBytes * 1e9 / rate), action);
+        }
+
+        private void schedule(long at, int action) {
+            wakeAt = at;
+            wakeAction = action;
+            timers.add(this);
+        }
+
+        private void reset() throws IOException {
+            channel.socket().setSoLinger(true, 0);
+            close();
+        }
+
+        void close() {
+            timers.remove(this);
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    private static int indexOf(ByteBuffer buffer, String pattern) {
+        byte[] array = buffer.array();
+        int end = buffer.position() - pattern.length();
+        outer:
+        for (int i = 0; i <= end; i++) {
+            for (int j = 0; j < pattern.length(); j++) {
+                if (array[i + j] != pattern.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
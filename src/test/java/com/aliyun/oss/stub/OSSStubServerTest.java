@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.stub;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import com.aliyun.oss.ClientBuilderConfiguration;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSClientBuilder;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.common.utils.CRC64;
+import com.aliyun.oss.common.utils.IOUtils;
+import com.aliyun.oss.model.DeleteObjectsRequest;
+import com.aliyun.oss.model.DeleteObjectsResult;
+import com.aliyun.oss.model.DownloadFileRequest;
+import com.aliyun.oss.model.GetObjectRequest;
+import com.aliyun.oss.model.ListObjectsRequest;
+import com.aliyun.oss.model.ListObjectsV2Request;
+import com.aliyun.oss.model.ListObjectsV2Result;
+import com.aliyun.oss.model.OSSObject;
+import com.aliyun.oss.model.OSSObjectSummary;
+import com.aliyun.oss.model.ObjectListing;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.UploadFileRequest;
+
+public class OSSStubServerTest {
+    private OSSStubServer server;
+    private OSS client;
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new OSSStubServer().start();
+        ClientBuilderConfiguration conf = OSSStubServer.newClientConfiguration();
+        conf.setMaxErrorRetry(3);
+        client = new OSSClientBuilder().build(server.getEndpoint(), "ak", "sk", conf);
+        directory = File.createTempFile("oss-stub", "");
+        directory.delete();
+        directory.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        server.close();
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    private static long crc64(byte[] data) {
+        CRC64 crc = new CRC64();
+        crc.update(data, data.length);
+        return crc.getValue();
+    }
+
+    @Test
+    public void testObjectOperations() throws IOException {
+        byte[] data = randomBytes(100000);
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.addUserMetadata("owner", "stub");
+        client.putObject("bucket", "dir/a b+c.bin", new ByteArrayInputStream(data), metadata);
+
+        OSSObject object = client.getObject("bucket", "dir/a b+c.bin");
+        Assertions.assertArrayEquals(data, IOUtils.readStreamAsByteArray(object.getObjectContent()));
+        Assertions.assertEquals("stub", object.getObjectMetadata().getUserMetadata().get("owner"));
+        Assertions.assertEquals(Long.valueOf(crc64(data)), object.getObjectMetadata().getServerCRC());
+
+        GetObjectRequest rangeRequest = new GetObjectRequest("bucket", "dir/a b+c.bin");
+        rangeRequest.setRange(1000, 1999);
+        object = client.getObject(rangeRequest);
+        Assertions.assertArrayEquals(Arrays.copyOfRange(data, 1000, 2000),
+                IOUtils.readStreamAsByteArray(object.getObjectContent()));
+
+        Assertions.assertEquals(data.length, client.getObjectMetadata("bucket", "dir/a b+c.bin").getContentLength());
+        client.deleteObject("bucket", "dir/a b+c.bin");
+        Assertions.assertFalse(client.doesObjectExist("bucket", "dir/a b+c.bin"));
+        try {
+            client.getObject("bucket", "dir/a b+c.bin");
+            Assertions.fail("the object was deleted");
+        } catch (OSSException e) {
+            Assertions.assertEquals("NoSuchKey", e.getErrorCode());
+        }
+    }
+
+    @Test
+    public void testUploadAndDownloadFile() throws Throwable {
+        byte[] data = randomBytes(5 * 1024 * 1024 + 123);
+        File file = new File(directory, "upload.bin");
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(data);
+        out.close();
+
+        UploadFileRequest uploadRequest = new UploadFileRequest("bucket", "big.bin", file.getPath(), 1024 * 1024, 4);
+        client.uploadFile(uploadRequest);
+        StubObjectStore.StubObject object = server.getStore().getObject("bucket", "big.bin");
+        Assertions.assertEquals(data.length, object.getSize());
+        Assertions.assertEquals(crc64(data), object.getCrc64());
+        Assertions.assertTrue(object.getETag().endsWith("-6"));
+        Assertions.assertEquals(0, server.getStore().getUploadCount());
+
+        File downloaded = new File(directory, "download.bin");
+        DownloadFileRequest downloadRequest = new DownloadFileRequest("bucket", "big.bin", downloaded.getPath(),
+                1024 * 1024, 4, false);
+        client.downloadFile(downloadRequest);
+        Assertions.assertArrayEquals(data, IOUtils.readStreamAsByteArray(new java.io.FileInputStream(downloaded)));
+    }
+
+    @Test
+    public void testListAndDeleteObjects() {
+        for (int dir = 0; dir < 3; dir++) {
+            for (int i = 0; i < 100; i++) {
+                server.getStore().putObject("bucket", "logs/" + dir + "/part " + i, new byte[i]);
+            }
+        }
+        server.getStore().putObject("bucket", "logs/top", new byte[1]);
+
+        List<String> prefixes = new ArrayList<String>();
+        List<String> keys = new ArrayList<String>();
+        String marker = null;
+        do {
+            ObjectListing listing = client.listObjects(new ListObjectsRequest("bucket", "logs/", marker, "/", 2));
+            prefixes.addAll(listing.getCommonPrefixes());
+            for (OSSObjectSummary summary : listing.getObjectSummaries()) {
+                keys.add(summary.getKey());
+            }
+            marker = listing.getNextMarker();
+        } while (marker != null);
+        Assertions.assertEquals(Arrays.asList("logs/0/", "logs/1/", "logs/2/"), prefixes);
+        Assertions.assertEquals(Arrays.asList("logs/top"), keys);
+
+        keys.clear();
+        String token = null;
+        do {
+            ListObjectsV2Request request = new ListObjectsV2Request("bucket", "logs/1/");
+            request.setMaxKeys(30);
+            request.setContinuationToken(token);
+            ListObjectsV2Result result = client.listObjectsV2(request);
+            for (OSSObjectSummary summary : result.getObjectSummaries()) {
+                keys.add(summary.getKey());
+            }
+            token = result.getNextContinuationToken();
+        } while (token != null);
+        Assertions.assertEquals(100, keys.size());
+        Assertions.assertEquals(server.getStore().listKeys("bucket").subList(100, 200), keys);
+
+        DeleteObjectsResult result = client.deleteObjects(new DeleteObjectsRequest("bucket").withKeys(keys)
+                .withQuiet(false));
+        Assertions.assertEquals(100, result.getDeletedObjects().size());
+        Assertions.assertEquals(201, server.getStore().listKeys("bucket").size());
+    }
+
+    @Test
+    public void testFaultsAreRetried() throws IOException {
+        byte[] data = randomBytes(1000);
+        server.failNext(StubFault.SERVICE_UNAVAILABLE, 2);
+        client.putObject("bucket", "key", new ByteArrayInputStream(data));
+        Assertions.assertEquals(3, server.getRequestCount());
+        Assertions.assertEquals(2, server.getFaultCount());
+
+        server.failNext("HEAD", StubFault.CONNECTION_RESET, 1);
+        Assertions.assertEquals(data.length, client.getObjectMetadata("bucket", "key").getContentLength());
+        Assertions.assertEquals(5, server.getRequestCount());
+
+        server.failNext(StubFault.SERVICE_UNAVAILABLE, 4);
+        try {
+            client.getObject("bucket", "key");
+            Assertions.fail("the retries are exhausted");
+        } catch (OSSException e) {
+            Assertions.assertEquals("ServiceUnavailable", e.getErrorCode());
+        }
+    }
+
+    @Test
+    public void testLatencyAndBandwidth() throws IOException {
+        server.getStore().putObject("bucket", "key", randomBytes(256 * 1024));
+
+        server.setLatency(200);
+        long start = System.nanoTime();
+        client.getObjectMetadata("bucket", "key");
+        Assertions.assertTrue(System.nanoTime() - start >= 200000000L);
+
+        server.setLatency(0).setBandwidth(1024 * 1024);
+        start = System.nanoTime();
+        IOUtils.readStreamAsByteArray(client.getObject("bucket", "key").getObjectContent());
+        long nanos = System.nanoTime() - start;
+        Assertions.assertTrue(nanos >= 200000000L && nanos < 2000000000L, "256KB at 1MB/s took " + nanos);
+
+        server.setBandwidth(0).setSlowBodyRate(512 * 1024).failNext(StubFault.SLOW_BODY, 1);
+        start = System.nanoTime();
+        IOUtils.readStreamAsByteArray(client.getObject("bucket", "key").getObjectContent());
+        Assertions.assertTrue(System.nanoTime() - start >= 400000000L);
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.stub;
+
+/**
+ * The failures the {@link OSSStubServer} can inject in place of a normal answer.
+ */
+public enum StubFault {
+
+    /**
+     * Answers 503 ServiceUnavailable without running the operation, the SDK retries it.
+     */
+    SERVICE_UNAVAILABLE,
+
+    /**
+     * Resets the connection after the request is read, without answering.
+     */
+    CONNECTION_RESET,
+
+    /**
+     * Runs the operation and sends the headers and half of the body, then resets the connection.
+     */
+    BODY_RESET,
+
+    /**
+     * Runs the operation and sends the response at the slow body rate of the server.
+     */
+    SLOW_BODY
+}
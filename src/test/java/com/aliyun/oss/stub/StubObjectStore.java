@@ -0,0 +1,945 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.stub;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jdom2.Element;
+import org.jdom2.input.SAXBuilder;
+
+import com.aliyun.oss.common.utils.BinaryUtil;
+import com.aliyun.oss.common.utils.CRC64;
+import com.aliyun.oss.common.utils.DateUtil;
+import com.aliyun.oss.common.utils.HttpUtil;
+
+/**
+ * The in-memory buckets of the {@link OSSStubServer}, and the OSS operations answered on
+ * them: put, append, get with Range, head, conditional get and head with If-None-Match,
+ * delete and copy of objects, multipart uploads (initiate, upload, upload copy, complete,
+ * abort, list parts and list uploads), ListObjects V1 and V2, DeleteObjects, and the
+ * delete directory and rename requests of buckets with hierarchical namespace. Every bucket name exists, objects carry their MD5
+ * ETag and CRC64 like the service does. A directory "a" is the entry "a/" or any key
+ * under "a/".
+ */
+public class StubObjectStore {
+    static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final BigInteger TWO_64 = BigInteger.ONE.shiftLeft(64);
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n";
+    private static final String OWNER = "<Owner><ID>1234567890</ID><DisplayName>1234567890</DisplayName></Owner>";
+
+    /**
+     * An object or an uploaded part.
+     */
+    public static final class StubObject {
+        private final byte[] data;
+        private final int offset;
+        private final int length;
+        private final String eTag;
+        private final long crc64;
+        private final long lastModified;
+        private final String type;
+        private final String contentType;
+        private final Map<String, String> userMetadata;
+
+        StubObject(byte[] data, int offset, int length, String eTag, long crc64, String type, String contentType,
+                Map<String, String> userMetadata) {
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+            this.eTag = eTag;
+            this.crc64 = crc64;
+            this.lastModified = System.currentTimeMillis();
+            this.type = type;
+            this.contentType = contentType;
+            this.userMetadata = userMetadata;
+        }
+
+        public byte[] getData() {
+            byte[] copy = new byte[length];
+            System.arraycopy(data, offset, copy, 0, length);
+            return copy;
+        }
+
+        public int getSize() {
+            return length;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public long getCrc64() {
+            return crc64;
+        }
+
+        public Date getLastModified() {
+            return new Date(lastModified);
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public Map<String, String> getUserMetadata() {
+            return userMetadata;
+        }
+    }
+
+    private static final class Upload {
+        final String bucket;
+        final String key;
+        final String uploadId;
+        final long initiated = System.currentTimeMillis();
+        final String contentType;
+        final Map<String, String> userMetadata;
+        final ConcurrentSkipListMap<Integer, StubObject> parts = new ConcurrentSkipListMap<Integer, StubObject>();
+
+        Upload(String bucket, String key, String uploadId, String contentType, Map<String, String> userMetadata) {
+            this.bucket = bucket;
+            this.key = key;
+            this.uploadId = uploadId;
+            this.contentType = contentType;
+            this.userMetadata = userMetadata;
+        }
+    }
+
+    private final ConcurrentMap<String, ConcurrentSkipListMap<String, StubObject>> buckets =
+            new ConcurrentHashMap<String, ConcurrentSkipListMap<String, StubObject>>();
+    private final ConcurrentSkipListMap<String, Upload> uploads = new ConcurrentSkipListMap<String, Upload>();
+    private final AtomicLong uploadIds = new AtomicLong();
+    private final AtomicLong deleteTokens = new AtomicLong();
+    private volatile int deleteDirectoryPageSize = 1000;
+
+    /**
+     * Stores an object directly, to prepare a download or listing benchmark.
+     */
+    public void putObject(String bucket, String key, byte[] data) {
+        bucket(bucket).put(key, newObject(data, 0, data.length, "Normal", "application/octet-stream",
+                Collections.<String, String>emptyMap()));
+    }
+
+    /**
+     * Returns the object, or null if it does not exist.
+     */
+    public StubObject getObject(String bucket, String key) {
+        return bucket(bucket).get(key);
+    }
+
+    public List<String> listKeys(String bucket) {
+        return new ArrayList<String>(bucket(bucket).keySet());
+    }
+
+    /**
+     * Sets the number of entries a recursive delete directory request removes before it
+     * returns a NextDeleteToken.
+     */
+    public void setDeleteDirectoryPageSize(int deleteDirectoryPageSize) {
+        this.deleteDirectoryPageSize = deleteDirectoryPageSize;
+    }
+
+    public int getUploadCount() {
+        return uploads.size();
+    }
+
+    public void clear() {
+        buckets.clear();
+        uploads.clear();
+    }
+
+    StubResponse handle(StubRequest request) throws Exception {
+        String method = request.getMethod();
+        if (request.getBucket() == null) {
+            return notImplemented(request);
+        }
+        if (request.getKey() == null) {
+            if (method.equals("GET") && request.hasParam("uploads")) {
+                return listMultipartUploads(request);
+            } else if (method.equals("GET") && "2".equals(request.getParam("list-type"))) {
+                return listObjects(request, true);
+            } else if (method.equals("GET") && !hasSubresource(request)) {
+                return listObjects(request, false);
+            } else if (method.equals("POST") && request.hasParam("delete")) {
+                return deleteObjects(request);
+            } else if (method.equals("PUT") && request.getParams().isEmpty()) {
+                bucket(request.getBucket());
+                return new StubResponse(200);
+            } else if (method.equals("DELETE") && request.getParams().isEmpty()) {
+                return deleteBucket(request);
+            }
+            return notImplemented(request);
+        }
+
+        if (method.equals("PUT")) {
+            if (request.hasParam("uploadId") && request.hasParam("partNumber")) {
+                return uploadPart(request);
+            } else if (request.getHeader("x-oss-copy-source") != null && !hasSubresource(request)) {
+                return copyObject(request);
+            } else if (!hasSubresource(request)) {
+                return putObject(request);
+            }
+        } else if (method.equals("GET")) {
+            if (request.hasParam("uploadId")) {
+                return listParts(request);
+            } else if (!hasSubresource(request)) {
+                return getObject(request, false);
+            }
+        } else if (method.equals("HEAD")) {
+            return getObject(request, true);
+        } else if (method.equals("DELETE")) {
+            if (request.hasParam("uploadId")) {
+                return abortMultipartUpload(request);
+            } else if (!hasSubresource(request)) {
+                bucket(request.getBucket()).remove(request.getKey());
+                return new StubResponse(204);
+            }
+        } else if (method.equals("POST")) {
+            if (request.hasParam("append") && request.hasParam("position")) {
+                return appendObject(request);
+            } else if (request.hasParam("x-oss-delete")) {
+                return deleteDirectory(request);
+            } else if (request.hasParam("x-oss-rename")) {
+                return renameObject(request);
+            } else if (request.hasParam("uploads")) {
+                return initiateMultipartUpload(request);
+            } else if (request.hasParam("uploadId")) {
+                return completeMultipartUpload(request);
+            }
+        }
+        return notImplemented(request);
+    }
+
+    /**
+     * Whether the request has a parameter other than the listing, response header and
+     * encoding ones, which selects a sub-resource such as acl or tagging.
+     */
+    private static boolean hasSubresource(StubRequest request) {
+        for (String name : request.getParams().keySet()) {
+            if (!name.equals("prefix") && !name.equals("marker") && !name.equals("max-keys")
+                    && !name.equals("delimiter") && !name.equals("encoding-type") && !name.startsWith("response-")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static StubResponse notImplemented(StubRequest request) {
+        return StubResponse.error(request, 501, "NotImplemented", "The stub does not implement " + request);
+    }
+
+    private ConcurrentSkipListMap<String, StubObject> bucket(String name) {
+        ConcurrentSkipListMap<String, StubObject> bucket = buckets.get(name);
+        if (bucket == null) {
+            ConcurrentSkipListMap<String, StubObject> created = new ConcurrentSkipListMap<String, StubObject>();
+            bucket = buckets.putIfAbsent(name, created);
+            if (bucket == null) {
+                bucket = created;
+            }
+        }
+        return bucket;
+    }
+
+    private StubResponse deleteBucket(StubRequest request) {
+        ConcurrentSkipListMap<String, StubObject> bucket = buckets.get(request.getBucket());
+        if (bucket != null && !bucket.isEmpty()) {
+            return StubResponse.error(request, 409, "BucketNotEmpty", "The bucket you tried to delete is not empty.");
+        }
+        buckets.remove(request.getBucket());
+        return new StubResponse(204);
+    }
+
+    private static StubObject newObject(byte[] data, int offset, int length, String type, String contentType,
+            Map<String, String> userMetadata) {
+        CRC64 crc = new CRC64();
+        crc.update(data, offset, length);
+        return new StubObject(data, offset, length, hex(md5(data, offset, length)), crc.getValue(), type,
+                contentType, userMetadata);
+    }
+
+    private static byte[] md5(byte[] data, int offset, int length) {
+        try {
+            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            md5.update(data, offset, length);
+            return md5.digest();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        return String.format("%0" + (bytes.length * 2) + "X", new BigInteger(1, bytes));
+    }
+
+    private static Map<String, String> userMetadata(StubRequest request) {
+        Map<String, String> metadata = new TreeMap<String, String>();
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            if (header.getKey().toLowerCase().startsWith("x-oss-meta-")) {
+                metadata.put(header.getKey().toLowerCase(), header.getValue());
+            }
+        }
+        return metadata;
+    }
+
+    private static String contentType(StubRequest request) {
+        String contentType = request.getHeader("Content-Type");
+        return contentType != null ? contentType : "application/octet-stream";
+    }
+
+    static String unsigned(long value) {
+        return value >= 0 ? Long.toString(value) : BigInteger.valueOf(value).add(TWO_64).toString();
+    }
+
+    private static String quote(String eTag) {
+        return "\"" + eTag + "\"";
+    }
+
+    private static String trimQuotes(String eTag) {
+        return eTag == null ? null : eTag.replace("\"", "").trim();
+    }
+
+    static String escape(String text) {
+        StringBuilder sb = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String replacement = c == '&' ? "&amp;" : c == '<' ? "&lt;" : c == '>' ? "&gt;"
+                    : c == '"' ? "&quot;" : c == '\'' ? "&apos;" : null;
+            if (replacement != null && sb == null) {
+                sb = new StringBuilder(text.length() + 16).append(text, 0, i);
+            }
+            if (sb != null) {
+                if (replacement != null) {
+                    sb.append(replacement);
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb == null ? text : sb.toString();
+    }
+
+    private static Element parseXml(byte[] body) throws Exception {
+        return new SAXBuilder().build(new ByteArrayInputStream(body)).getRootElement();
+    }
+
+    private static int intParam(StubRequest request, String name, int defaultValue) {
+        String value = request.getParam(name);
+        return value == null || value.length() == 0 ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static String param(StubRequest request, String name) {
+        String value = request.getParam(name);
+        return value == null ? "" : value;
+    }
+
+    private StubResponse putObject(StubRequest request) {
+        String contentMd5 = request.getHeader("Content-MD5");
+        byte[] body = request.getBody();
+        if (contentMd5 != null && !contentMd5.equals(BinaryUtil.toBase64String(md5(body, 0, body.length)))) {
+            return StubResponse.error(request, 400, "InvalidDigest", "The Content-MD5 you specified was invalid.");
+        }
+        ConcurrentSkipListMap<String, StubObject> bucket = bucket(request.getBucket());
+        if ("true".equals(request.getHeader("x-oss-forbid-overwrite")) && bucket.containsKey(request.getKey())) {
+            return StubResponse.error(request, 409, "FileAlreadyExists", "The object you specified already exists.");
+        }
+        StubObject object = newObject(body, 0, body.length, "Normal", contentType(request), userMetadata(request));
+        bucket.put(request.getKey(), object);
+        return new StubResponse(200).setHeader("ETag", quote(object.eTag))
+                .setHeader("x-oss-hash-crc64ecma", unsigned(object.crc64));
+    }
+
+    private StubResponse appendObject(StubRequest request) {
+        long position;
+        try {
+            position = Long.parseLong(request.getParam("position"));
+        } catch (NumberFormatException e) {
+            return StubResponse.error(request, 400, "InvalidArgument", "The position is invalid.");
+        }
+        byte[] body = request.getBody();
+        ConcurrentSkipListMap<String, StubObject> bucket = bucket(request.getBucket());
+        while (true) {
+            StubObject current = bucket.get(request.getKey());
+            if (current != null && !current.type.equals("Appendable")) {
+                return StubResponse.error(request, 409, "ObjectNotAppendable",
+                        "The object you specified is not appendable.");
+            }
+            long length = current == null ? 0 : current.length;
+            if (position != length) {
+                return StubResponse.error(request, 409, "PositionNotEqualToLength",
+                        "Position is not equal to file length.")
+                        .setHeader("x-oss-next-append-position", String.valueOf(length));
+            }
+            StubObject object;
+            boolean stored;
+            if (current == null) {
+                object = newObject(body, 0, body.length, "Appendable", contentType(request), userMetadata(request));
+                stored = bucket.putIfAbsent(request.getKey(), object) == null;
+            } else {
+                byte[] data = new byte[current.length + body.length];
+                System.arraycopy(current.data, current.offset, data, 0, current.length);
+                System.arraycopy(body, 0, data, current.length, body.length);
+                object = newObject(data, 0, data.length, "Appendable", current.contentType, current.userMetadata);
+                stored = bucket.replace(request.getKey(), current, object);
+            }
+            if (stored) {
+                return new StubResponse(200).setHeader("ETag", quote(object.eTag))
+                        .setHeader("x-oss-next-append-position", String.valueOf(object.length))
+                        .setHeader("x-oss-hash-crc64ecma", unsigned(object.crc64));
+            }
+        }
+    }
+
+    /**
+     * Returns the keys under the directory, the directory entry itself excluded, at most
+     * limit + 1 of them.
+     */
+    private static List<String> directoryKeys(ConcurrentSkipListMap<String, StubObject> bucket, String directory,
+            int limit) {
+        String prefix = directory + "/";
+        List<String> keys = new ArrayList<String>();
+        for (String key : bucket.tailMap(prefix, false).keySet()) {
+            if (!key.startsWith(prefix) || keys.size() > limit) {
+                break;
+            }
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    private StubResponse deleteDirectory(StubRequest request) {
+        ConcurrentSkipListMap<String, StubObject> bucket = bucket(request.getBucket());
+        String directory = request.getKey();
+        boolean recursive = "true".equals(request.getHeader("x-oss-delete-recursive"));
+        int pageSize = deleteDirectoryPageSize;
+        synchronized (bucket) {
+            List<String> keys = directoryKeys(bucket, directory, pageSize);
+            if (keys.isEmpty() && !bucket.containsKey(directory + "/")) {
+                return StubResponse.error(request, 404, "NoSuchKey", "The specified directory does not exist.");
+            }
+            if (!recursive && !keys.isEmpty()) {
+                return StubResponse.error(request, 409, "DirectoryNotEmpty", "The directory is not empty.");
+            }
+            int deleted = 0;
+            for (String key : keys.subList(0, Math.min(keys.size(), pageSize))) {
+                bucket.remove(key);
+                deleted++;
+            }
+            StringBuilder xml = new StringBuilder(XML_HEADER).append("<DeleteDirectoryResult>");
+            element(xml, "DirectoryName", directory);
+            if (keys.size() > pageSize) {
+                element(xml, "DeleteNumber", String.valueOf(deleted));
+                element(xml, "NextDeleteToken", String.valueOf(deleteTokens.incrementAndGet()));
+            } else {
+                if (bucket.remove(directory + "/") != null) {
+                    deleted++;
+                }
+                element(xml, "DeleteNumber", String.valueOf(deleted));
+            }
+            return StubResponse.xml(200, xml.append("</DeleteDirectoryResult>").toString());
+        }
+    }
+
+    /**
+     * Renames a file or a whole directory, which fails if the destination exists.
+     */
+    private StubResponse renameObject(StubRequest request) {
+        ConcurrentSkipListMap<String, StubObject> bucket = bucket(request.getBucket());
+        String source = StubRequest.decode(request.getHeader("x-oss-rename-source"));
+        String destination = request.getKey();
+        synchronized (bucket) {
+            if (bucket.containsKey(destination) || bucket.containsKey(destination + "/")
+                    || !directoryKeys(bucket, destination, 0).isEmpty()) {
+                return StubResponse.error(request, 409, "FileAlreadyExists", "The destination already exists.");
+            }
+            StubObject file = bucket.remove(source);
+            if (file != null) {
+                bucket.put(destination, file);
+                return new StubResponse(200);
+            }
+            List<String> keys = directoryKeys(bucket, source, Integer.MAX_VALUE - 1);
+            if (bucket.containsKey(source + "/")) {
+                keys.add(source + "/");
+            }
+            if (keys.isEmpty()) {
+                return StubResponse.error(request, 404, "NoSuchKey", "The specified key does not exist.");
+            }
+            for (String key : keys) {
+                bucket.put(destination + key.substring(source.length()), bucket.remove(key));
+            }
+            return new StubResponse(200);
+        }
+    }
+
+    /**
+     * Returns the object from x-oss-copy-source, /bucket/key with the key url encoded.
+     */
+    private StubObject copySource(StubRequest request) {
+        String source = request.getHeader("x-oss-copy-source");
+        if (source.startsWith("/")) {
+            source = source.substring(1);
+        }
+        int slash = source.indexOf('/');
+        if (slash < 0) {
+            return null;
+        }
+        return bucket(StubRequest.decode(source.substring(0, slash))).get(StubRequest.decode(source.substring(slash + 1)));
+    }
+
+    private StubResponse copyObject(StubRequest request) {
+        StubObject source = copySource(request);
+        if (source == null) {
+            return StubResponse.error(request, 404, "NoSuchKey", "The specified key does not exist.");
+        }
+        boolean replace = "REPLACE".equalsIgnoreCase(request.getHeader("x-oss-metadata-directive"));
+        StubObject object = new StubObject(source.data, source.offset, source.length, source.eTag, source.crc64,
+                source.type, replace ? contentType(request) : source.contentType,
+                replace ? userMetadata(request) : source.userMetadata);
+        bucket(request.getBucket()).put(request.getKey(), object);
+        return StubResponse.xml(200, XML_HEADER + "<CopyObjectResult><LastModified>"
+                + DateUtil.formatIso8601Date(object.getLastModified()) + "</LastModified><ETag>"
+                + escape(quote(object.eTag)) + "</ETag></CopyObjectResult>")
+                .setHeader("x-oss-hash-crc64ecma", unsigned(object.crc64));
+    }
+
+    /**
+     * Parses "bytes=first-last", "bytes=first-" or "bytes=-suffix" into {first, last}, or
+     * returns null when the range is invalid or not satisfiable.
+     */
+    static long[] parseRange(String range, long size) {
+        if (range == null || !range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = range.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.length() == 0) {
+                long suffix = Long.parseLong(last);
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.length() == 0 ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            }
+            if (start > end || start >= size) {
+                return null;
+            }
+            return new long[] {start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private StubResponse getObject(StubRequest request, boolean head) {
+        StubObject object = bucket(request.getBucket()).get(request.getKey());
+        if (object == null) {
+            return StubResponse.error(request, 404, "NoSuchKey", "The specified key does not exist.");
+        }
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null && (ifNoneMatch.equals(quote(object.eTag)) || ifNoneMatch.equals(object.eTag))) {
+            return new StubResponse(304).setHeader("ETag", quote(object.eTag)).withoutBody();
+        }
+        String range = head ? null : request.getHeader("Range");
+        long[] bounds = parseRange(range, object.length);
+        StubResponse response;
+        if (bounds != null) {
+            response = new StubResponse(206).setBody(object.data, object.offset + (int) bounds[0],
+                    (int) (bounds[1] - bounds[0] + 1));
+            response.setHeader("Content-Range", "bytes " + bounds[0] + "-" + bounds[1] + "/" + object.length);
+        } else if (range != null && "standard".equals(request.getHeader("x-oss-range-behavior"))) {
+            return StubResponse.error(request, 416, "InvalidRange", "The requested range is not satisfiable.");
+        } else {
+            response = new StubResponse(200).setBody(object.data, object.offset, object.length);
+        }
+        response.setHeader("Content-Type", object.contentType);
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("ETag", quote(object.eTag));
+        response.setHeader("Last-Modified", DateUtil.formatRfc822Date(object.getLastModified()));
+        response.setHeader("x-oss-object-type", object.type);
+        response.setHeader("x-oss-storage-class", "Standard");
+        response.setHeader("x-oss-hash-crc64ecma", unsigned(object.crc64));
+        for (Map.Entry<String, String> metadata : object.userMetadata.entrySet()) {
+            response.setHeader(metadata.getKey(), metadata.getValue());
+        }
+        return head ? response.withoutBody() : response;
+    }
+
+    private StubResponse listObjects(StubRequest request, boolean v2) {
+        NavigableMap<String, StubObject> objects = bucket(request.getBucket());
+        String prefix = param(request, "prefix");
+        String delimiter = param(request, "delimiter");
+        int maxKeys = intParam(request, "max-keys", 100);
+        if (maxKeys < 1 || maxKeys > 1000) {
+            return StubResponse.error(request, 400, "InvalidArgument", "max-keys must be between 1 and 1000.");
+        }
+        boolean url = "url".equals(request.getParam("encoding-type"));
+        String token = request.getParam("continuation-token");
+        String marker = v2 ? (token != null ? token : param(request, "start-after")) : param(request, "marker");
+
+        NavigableMap<String, StubObject> view = marker.length() > 0 && marker.compareTo(prefix) >= 0
+                ? objects.tailMap(marker, false) : objects.tailMap(prefix, true);
+        List<Map.Entry<String, StubObject>> contents = new ArrayList<Map.Entry<String, StubObject>>();
+        List<String> commonPrefixes = new ArrayList<String>();
+        String last = null;
+        boolean truncated = false;
+        for (Map.Entry<String, StubObject> entry : view.entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            int index = delimiter.length() > 0 ? key.indexOf(delimiter, prefix.length()) : -1;
+            if (index >= 0) {
+                String commonPrefix = key.substring(0, index + delimiter.length());
+                if (commonPrefix.equals(last) || commonPrefix.compareTo(marker) <= 0) {
+                    continue;
+                }
+                if (contents.size() + commonPrefixes.size() == maxKeys) {
+                    truncated = true;
+                    break;
+                }
+                commonPrefixes.add(commonPrefix);
+                last = commonPrefix;
+                continue;
+            }
+            if (contents.size() + commonPrefixes.size() == maxKeys) {
+                truncated = true;
+                break;
+            }
+            contents.add(entry);
+            last = key;
+        }
+
+        StringBuilder xml = new StringBuilder(256 + contents.size() * 320);
+        xml.append(XML_HEADER).append("<ListBucketResult>");
+        element(xml, "Name", request.getBucket());
+        element(xml, "Prefix", encode(prefix, url));
+        if (v2) {
+            if (request.getParam("start-after") != null) {
+                element(xml, "StartAfter", encode(request.getParam("start-after"), url));
+            }
+            if (token != null) {
+                element(xml, "ContinuationToken", token);
+            }
+        } else {
+            element(xml, "Marker", encode(marker, url));
+        }
+        element(xml, "MaxKeys", String.valueOf(maxKeys));
+        element(xml, "Delimiter", encode(delimiter, url));
+        if (url) {
+            element(xml, "EncodingType", "url");
+        }
+        element(xml, "IsTruncated", String.valueOf(truncated));
+        if (v2) {
+            element(xml, "KeyCount", String.valueOf(contents.size() + commonPrefixes.size()));
+            if (truncated) {
+                element(xml, "NextContinuationToken", last);
+            }
+        } else if (truncated) {
+            element(xml, "NextMarker", encode(last, url));
+        }
+        boolean owner = !v2 || "true".equals(request.getParam("fetch-owner"));
+        for (Map.Entry<String, StubObject> entry : contents) {
+            StubObject object = entry.getValue();
+            xml.append("<Contents>");
+            element(xml, "Key", encode(entry.getKey(), url));
+            element(xml, "LastModified", DateUtil.formatIso8601Date(object.getLastModified()));
+            element(xml, "ETag", quote(object.eTag));
+            element(xml, "Type", object.type);
+            element(xml, "Size", String.valueOf(object.length));
+            element(xml, "StorageClass", "Standard");
+            if (owner) {
+                xml.append(OWNER);
+            }
+            xml.append("</Contents>");
+        }
+        for (String commonPrefix : commonPrefixes) {
+            xml.append("<CommonPrefixes>");
+            element(xml, "Prefix", encode(commonPrefix, url));
+            xml.append("</CommonPrefixes>");
+        }
+        xml.append("</ListBucketResult>");
+        return StubResponse.xml(200, xml.toString());
+    }
+
+    private static void element(StringBuilder xml, String name, String value) {
+        xml.append('<').append(name).append('>').append(escape(value)).append("</").append(name).append('>');
+    }
+
+    private static String encode(String value, boolean url) {
+        return url && value != null ? HttpUtil.urlEncode(value, "UTF-8") : value;
+    }
+
+    private StubResponse deleteObjects(StubRequest request) throws Exception {
+        Element root = parseXml(request.getBody());
+        boolean quiet = "true".equals(root.getChildText("Quiet"));
+        boolean url = "url".equals(request.getParam("encoding-type"));
+        ConcurrentSkipListMap<String, StubObject> bucket = bucket(request.getBucket());
+        StringBuilder xml = new StringBuilder(XML_HEADER).append("<DeleteResult>");
+        if (url) {
+            element(xml, "EncodingType", "url");
+        }
+        for (Element object : root.getChildren("Object")) {
+            String key = object.getChildText("Key");
+            bucket.remove(key);
+            if (!quiet) {
+                xml.append("<Deleted>");
+                element(xml, "Key", encode(key, url));
+                xml.append("</Deleted>");
+            }
+        }
+        xml.append("</DeleteResult>");
+        return StubResponse.xml(200, xml.toString());
+    }
+
+    private StubResponse initiateMultipartUpload(StubRequest request) {
+        String uploadId = String.format("%032X", uploadIds.incrementAndGet());
+        uploads.put(uploadId, new Upload(request.getBucket(), request.getKey(), uploadId, contentType(request),
+                userMetadata(request)));
+        StringBuilder xml = new StringBuilder(XML_HEADER).append("<InitiateMultipartUploadResult>");
+        element(xml, "Bucket", request.getBucket());
+        element(xml, "Key", request.getKey());
+        element(xml, "UploadId", uploadId);
+        xml.append("</InitiateMultipartUploadResult>");
+        return StubResponse.xml(200, xml.toString());
+    }
+
+    private Upload upload(StubRequest request) {
+        Upload upload = uploads.get(request.getParam("uploadId"));
+        return upload != null && upload.bucket.equals(request.getBucket()) && upload.key.equals(request.getKey())
+                ? upload : null;
+    }
+
+    private static StubResponse noSuchUpload(StubRequest request) {
+        return StubResponse.error(request, 404, "NoSuchUpload", "The specified upload does not exist.");
+    }
+
+    private StubResponse uploadPart(StubRequest request) {
+        Upload upload = upload(request);
+        if (upload == null) {
+            return noSuchUpload(request);
+        }
+        int partNumber = intParam(request, "partNumber", 0);
+        if (partNumber < 1 || partNumber > 10000) {
+            return StubResponse.error(request, 400, "InvalidArgument", "Part number must be between 1 and 10000.");
+        }
+        StubObject part;
+        if (request.getHeader("x-oss-copy-source") != null) {
+            StubObject source = copySource(request);
+            if (source == null) {
+                return StubResponse.error(request, 404, "NoSuchKey", "The specified key does not exist.");
+            }
+            String range = request.getHeader("x-oss-copy-source-range");
+            long[] bounds = range != null ? parseRange(range, source.length) : new long[] {0, source.length - 1};
+            if (bounds == null) {
+                return StubResponse.error(request, 416, "InvalidRange", "The requested range is not satisfiable.");
+            }
+            part = newObject(source.data, source.offset + (int) bounds[0], (int) (bounds[1] - bounds[0] + 1), "Part",
+                    null, null);
+            upload.parts.put(partNumber, part);
+            return StubResponse.xml(200, XML_HEADER + "<CopyPartResult><LastModified>"
+                    + DateUtil.formatIso8601Date(part.getLastModified()) + "</LastModified><ETag>"
+                    + escape(quote(part.eTag)) + "</ETag></CopyPartResult>");
+        }
+        byte[] body = request.getBody();
+        part = newObject(body, 0, body.length, "Part", null, null);
+        upload.parts.put(partNumber, part);
+        return new StubResponse(200).setHeader("ETag", quote(part.eTag))
+                .setHeader("x-oss-hash-crc64ecma", unsigned(part.crc64));
+    }
+
+    private StubResponse completeMultipartUpload(StubRequest request) throws Exception {
+        Upload upload = upload(request);
+        if (upload == null) {
+            return noSuchUpload(request);
+        }
+        List<StubObject> parts = new ArrayList<StubObject>();
+        if ("yes".equals(request.getHeader("x-oss-complete-all"))) {
+            parts.addAll(upload.parts.values());
+        } else {
+            int previous = 0;
+            for (Element element : parseXml(request.getBody()).getChildren("Part")) {
+                int partNumber = Integer.parseInt(element.getChildText("PartNumber").trim());
+                StubObject part = upload.parts.get(partNumber);
+                if (partNumber <= previous) {
+                    return StubResponse.error(request, 400, "InvalidPartOrder",
+                            "The list of parts was not in ascending order.");
+                }
+                if (part == null || !part.eTag.equalsIgnoreCase(trimQuotes(element.getChildText("ETag")))) {
+                    return StubResponse.error(request, 400, "InvalidPart",
+                            "One or more of the specified parts could not be found.");
+                }
+                parts.add(part);
+                previous = partNumber;
+            }
+        }
+
+        long size = 0;
+        for (StubObject part : parts) {
+            size += part.length;
+        }
+        if (size > Integer.MAX_VALUE) {
+            return StubResponse.error(request, 400, "EntityTooLarge", "The stub keeps objects below 2GB.");
+        }
+        byte[] data = new byte[(int) size];
+        ByteArrayOutputStream md5s = new ByteArrayOutputStream();
+        long crc = 0;
+        int position = 0;
+        for (StubObject part : parts) {
+            System.arraycopy(part.data, part.offset, data, position, part.length);
+            position += part.length;
+            for (int i = 0; i < part.eTag.length(); i += 2) {
+                md5s.write(Integer.parseInt(part.eTag.substring(i, i + 2), 16));
+            }
+            crc = CRC64.combine(crc, part.crc64, part.length);
+        }
+        String eTag = hex(md5(md5s.toByteArray(), 0, md5s.size())) + "-" + parts.size();
+        StubObject object = new StubObject(data, 0, data.length, eTag, crc, "Multipart", upload.contentType,
+                upload.userMetadata);
+        bucket(upload.bucket).put(upload.key, object);
+        uploads.remove(upload.uploadId);
+
+        boolean url = "url".equals(request.getParam("encoding-type"));
+        StringBuilder xml = new StringBuilder(XML_HEADER).append("<CompleteMultipartUploadResult>");
+        if (url) {
+            element(xml, "EncodingType", "url");
+        }
+        element(xml, "Location", "http://127.0.0.1/" + upload.bucket + "/" + encode(upload.key, url));
+        element(xml, "Bucket", upload.bucket);
+        element(xml, "Key", encode(upload.key, url));
+        element(xml, "ETag", quote(eTag));
+        xml.append("</CompleteMultipartUploadResult>");
+        return StubResponse.xml(200, xml.toString()).setHeader("x-oss-hash-crc64ecma", unsigned(crc));
+    }
+
+    private StubResponse abortMultipartUpload(StubRequest request) {
+        Upload upload = upload(request);
+        if (upload == null) {
+            return noSuchUpload(request);
+        }
+        uploads.remove(upload.uploadId);
+        return new StubResponse(204);
+    }
+
+    private StubResponse listParts(StubRequest request) {
+        Upload upload = upload(request);
+        if (upload == null) {
+            return noSuchUpload(request);
+        }
+        int maxParts = intParam(request, "max-parts", 1000);
+        int marker = intParam(request, "part-number-marker", 0);
+        StringBuilder xml = new StringBuilder(XML_HEADER).append("<ListPartsResult>");
+        element(xml, "Bucket", upload.bucket);
+        element(xml, "Key", upload.key);
+        element(xml, "UploadId", upload.uploadId);
+        element(xml, "StorageClass", "Standard");
+        element(xml, "PartNumberMarker", String.valueOf(marker));
+        element(xml, "MaxParts", String.valueOf(maxParts));
+        StringBuilder parts = new StringBuilder();
+        int count = 0;
+        int last = marker;
+        boolean truncated = false;
+        for (Map.Entry<Integer, StubObject> entry : upload.parts.tailMap(marker, false).entrySet()) {
+            if (count == maxParts) {
+                truncated = true;
+                break;
+            }
+            StubObject part = entry.getValue();
+            parts.append("<Part>");
+            element(parts, "PartNumber", String.valueOf(entry.getKey()));
+            element(parts, "LastModified", DateUtil.formatIso8601Date(part.getLastModified()));
+            element(parts, "ETag", quote(part.eTag));
+            element(parts, "Size", String.valueOf(part.length));
+            element(parts, "HashCrc64ecma", unsigned(part.crc64));
+            parts.append("</Part>");
+            last = entry.getKey();
+            count++;
+        }
+        element(xml, "NextPartNumberMarker", String.valueOf(last));
+        element(xml, "IsTruncated", String.valueOf(truncated));
+        xml.append(parts).append("</ListPartsResult>");
+        return StubResponse.xml(200, xml.toString());
+    }
+
+    private StubResponse listMultipartUploads(StubRequest request) {
+        String prefix = param(request, "prefix");
+        String keyMarker = param(request, "key-marker");
+        String uploadIdMarker = param(request, "upload-id-marker");
+        int maxUploads = intParam(request, "max-uploads", 1000);
+        List<Upload> matches = new ArrayList<Upload>();
+        for (Upload upload : uploads.values()) {
+            int order = upload.key.compareTo(keyMarker);
+            if (upload.bucket.equals(request.getBucket()) && upload.key.startsWith(prefix)
+                    && (order > 0 || order == 0 && upload.uploadId.compareTo(uploadIdMarker) > 0)) {
+                matches.add(upload);
+            }
+        }
+        Collections.sort(matches, new java.util.Comparator<Upload>() {
+            @Override
+            public int compare(Upload a, Upload b) {
+                int order = a.key.compareTo(b.key);
+                return order != 0 ? order : a.uploadId.compareTo(b.uploadId);
+            }
+        });
+        boolean truncated = matches.size() > maxUploads;
+        if (truncated) {
+            matches = matches.subList(0, maxUploads);
+        }
+
+        StringBuilder xml = new StringBuilder(XML_HEADER).append("<ListMultipartUploadsResult>");
+        element(xml, "Bucket", request.getBucket());
+        element(xml, "KeyMarker", keyMarker);
+        element(xml, "UploadIdMarker", uploadIdMarker);
+        element(xml, "NextKeyMarker", matches.isEmpty() ? "" : matches.get(matches.size() - 1).key);
+        element(xml, "NextUploadIdMarker", matches.isEmpty() ? "" : matches.get(matches.size() - 1).uploadId);
+        element(xml, "Delimiter", "");
+        element(xml, "Prefix", prefix);
+        element(xml, "MaxUploads", String.valueOf(maxUploads));
+        element(xml, "IsTruncated", String.valueOf(truncated));
+        for (Upload upload : matches) {
+            xml.append("<Upload>");
+            element(xml, "Key", upload.key);
+            element(xml, "UploadId", upload.uploadId);
+            element(xml, "StorageClass", "Standard");
+            element(xml, "Initiated", DateUtil.formatIso8601Date(new Date(upload.initiated)));
+            xml.append("</Upload>");
+        }
+        xml.append("</ListMultipartUploadsResult>");
+        return StubResponse.xml(200, xml.toString());
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.stub;
+
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A request received by the {@link OSSStubServer}, addressed path style as /bucket/key?params.
+ */
+public class StubRequest {
+    private static final byte[] NO_BODY = new byte[0];
+
+    private final String requestId;
+    private final String method;
+    private final String bucket;
+    private final String key;
+    private final Map<String, String> params;
+    private final Map<String, String> headers;
+    private byte[] body = NO_BODY;
+
+    StubRequest(String requestId, String method, String target, Map<String, String> headers) {
+        this.requestId = requestId;
+        this.method = method;
+        this.headers = headers;
+        this.params = new LinkedHashMap<String, String>();
+
+        int q = target.indexOf('?');
+        String path = q < 0 ? target : target.substring(0, q);
+        if (q >= 0) {
+            for (String param : target.substring(q + 1).split("&")) {
+                if (param.length() == 0) {
+                    continue;
+                }
+                int eq = param.indexOf('=');
+                if (eq < 0) {
+                    params.put(decode(param), null);
+                } else {
+                    params.put(decode(param.substring(0, eq)), decode(param.substring(eq + 1)));
+                }
+            }
+        }
+
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        int slash = path.indexOf('/');
+        String bucketPart = slash < 0 ? path : path.substring(0, slash);
+        String keyPart = slash < 0 ? "" : path.substring(slash + 1);
+        this.bucket = bucketPart.length() == 0 ? null : decode(bucketPart);
+        this.key = keyPart.length() == 0 ? null : decode(keyPart);
+    }
+
+    static Map<String, String> newHeaderMap() {
+        return new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+    }
+
+    /**
+     * Percent decodes a path or query component. Unlike URLDecoder a '+' stays a '+',
+     * the SDK encodes spaces as %20.
+     */
+    static String decode(String value) {
+        if (value.indexOf('%') < 0) {
+            return value;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(value.length());
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '%' && i + 2 < value.length()) {
+                byte[] plain = value.substring(start, i).getBytes(StubObjectStore.UTF8);
+                out.write(plain, 0, plain.length);
+                out.write(Integer.parseInt(value.substring(i + 1, i + 3), 16));
+                i += 2;
+                start = i + 1;
+            }
+        }
+        byte[] plain = value.substring(start).getBytes(StubObjectStore.UTF8);
+        out.write(plain, 0, plain.length);
+        return new String(out.toByteArray(), StubObjectStore.UTF8);
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    public boolean hasParam(String name) {
+        return params.containsKey(name);
+    }
+
+    public String getParam(String name) {
+        return params.get(name);
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    void setBody(byte[] body) {
+        this.body = body;
+    }
+
+    @Override
+    public String toString() {
+        return method + " /" + (bucket == null ? "" : bucket) + (key == null ? "" : "/" + key) + " " + params.keySet();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.stub;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A response of the {@link OSSStubServer}. The body is sent from the given array range
+ * without copying, a HEAD response keeps its Content-Length but sends no body.
+ */
+public class StubResponse {
+    private final int status;
+    private final Map<String, String> headers = new LinkedHashMap<String, String>();
+    private byte[] body;
+    private int offset;
+    private int length;
+    private boolean sendBody = true;
+
+    public StubResponse(int status) {
+        this.status = status;
+    }
+
+    public static StubResponse xml(int status, String xml) {
+        StubResponse response = new StubResponse(status);
+        response.setHeader("Content-Type", "application/xml");
+        byte[] body = xml.getBytes(StubObjectStore.UTF8);
+        return response.setBody(body, 0, body.length);
+    }
+
+    public static StubResponse error(StubRequest request, int status, String code, String message) {
+        return xml(status, "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Error><Code>" + code + "</Code><Message>"
+                + StubObjectStore.escape(message) + "</Message><RequestId>" + request.getRequestId()
+                + "</RequestId><HostId>127.0.0.1</HostId></Error>");
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public StubResponse setHeader(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    public StubResponse setBody(byte[] body, int offset, int length) {
+        this.body = body;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return body == null ? 0 : length;
+    }
+
+    /**
+     * Drops the body but keeps its length, as an answer to HEAD.
+     */
+    public StubResponse withoutBody() {
+        sendBody = false;
+        return this;
+    }
+
+    public boolean isSendBody() {
+        return sendBody && body != null;
+    }
+}
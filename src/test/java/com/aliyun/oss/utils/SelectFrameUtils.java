@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.aliyun.oss.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * Encodes select object frames, used to feed SelectInputStream without a server.
+ */
+public class SelectFrameUtils {
+    public static final int DATA_FRAME = 8388609;
+    public static final int CONTINUOUS_FRAME = 8388612;
+    public static final int END_FRAME = 8388613;
+    public static final int CSV_META_END_FRAME = 8388614;
+    private static final int VERSION = 1;
+
+    public static byte[] dataFrame(byte[] payload, int off, int len, long scanned) {
+        ByteBuffer frame = ByteBuffer.allocate(24 + len);
+        frame.putInt((VERSION << 24) | DATA_FRAME);
+        frame.putInt(8 + len);
+        frame.putInt(0);
+        frame.putLong(scanned);
+        frame.put(payload, off, len);
+        frame.putInt(checksum(frame.array(), 12, 8 + len));
+        return frame.array();
+    }
+
+    public static byte[] dataFrame(byte[] payload, long scanned) {
+        return dataFrame(payload, 0, payload.length, scanned);
+    }
+
+    public static byte[] continuousFrame(long scanned) {
+        ByteBuffer frame = ByteBuffer.allocate(24);
+        frame.putInt((VERSION << 24) | CONTINUOUS_FRAME);
+        frame.putInt(8);
+        frame.putInt(0);
+        frame.putLong(scanned);
+        frame.putInt(checksum(frame.array(), 12, 8));
+        return frame.array();
+    }
+
+    public static byte[] endFrame(long scanned, int status, String error) {
+        byte[] errorBytes = error == null ? new byte[0] : error.getBytes();
+        ByteBuffer frame = ByteBuffer.allocate(36 + errorBytes.length);
+        frame.putInt((VERSION << 24) | END_FRAME);
+        frame.putInt(20 + errorBytes.length);
+        frame.putInt(0);
+        frame.putLong(scanned);
+        frame.putLong(scanned);
+        frame.putInt(status);
+        frame.put(errorBytes);
+        frame.putInt(checksum(frame.array(), 12, 20 + errorBytes.length));
+        return frame.array();
+    }
+
+    /**
+     * The end frame of a csv/meta response.
+     */
+    public static byte[] csvMetaEndFrame(long scanned, int splits, long totalLines, int columns) {
+        ByteBuffer frame = ByteBuffer.allocate(52);
+        frame.putInt((VERSION << 24) | CSV_META_END_FRAME);
+        frame.putInt(36);
+        frame.putInt(0);
+        frame.putLong(scanned);
+        frame.putLong(scanned);
+        frame.putInt(200);
+        frame.putInt(splits);
+        frame.putLong(totalLines);
+        frame.putInt(columns);
+        frame.putInt(checksum(frame.array(), 12, 36));
+        return frame.array();
+    }
+
+    /**
+     * Splits the payload into data frames of at most frameSize bytes, followed by an end frame.
+     */
+    public static byte[] encode(byte[] payload, int frameSize) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long scanned = 0;
+        for (int off = 0; off < payload.length; off += frameSize) {
+            int len = Math.min(frameSize, payload.length - off);
+            scanned += len;
+            byte[] frame = dataFrame(payload, off, len, scanned);
+            out.write(frame, 0, frame.length);
+        }
+        byte[] end = endFrame(scanned, 200, null);
+        out.write(end, 0, end.length);
+        return out.toByteArray();
+    }
+
+    private static int checksum(byte[] buf, int off, int len) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(buf, off, len);
+        return (int) crc32.getValue();
+    }
+}